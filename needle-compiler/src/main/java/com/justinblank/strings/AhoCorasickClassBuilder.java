@@ -0,0 +1,284 @@
+package com.justinblank.strings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Builds a class that runs an Aho-Corasick automaton, with a block of code for each state that switches on the next
+ * char. The state is never stored anywhere: it's the position in the code.
+ * <p>
+ * Most transitions of an Aho-Corasick automaton lead where the same char would lead from the root, so each state only
+ * switches on the chars for which it goes somewhere else, and otherwise jumps to the root's switch on the same char.
+ * <p>
+ * HotSpot won't JIT compile a method with more than 8000 bytes of bytecode, so automata whose code would be larger
+ * than that aren't generated.
+ */
+public class AhoCorasickClassBuilder extends ClassBuilder {
+
+    static final int MAX_METHOD_SIZE = 8000;
+    static final String FIND_METHOD = "findUnanchored";
+    private static final String SCANNER_CLASS = "com/justinblank/strings/Search/CharSetScanner";
+    private static final String SCANNER_DESCRIPTOR = "L" + SCANNER_CLASS + ";";
+    private static final String SEARCH_METHOD_DESCRIPTOR = "Lcom/justinblank/strings/Search/MultiSearchMethod;";
+    private static final String MATCH_RESULT_CLASS = "com/justinblank/strings/MatchResult";
+    private static final String ROOT_SCANNER_FIELD = "rootScanner";
+    // Upper bounds on the bytes of bytecode for reading a char, for recording a match, and for the blocks shared by all
+    // states
+    private static final int READ_CHAR_SIZE = 17;
+    private static final int RECORD_MATCH_SIZE = 29;
+    private static final int SHARED_CODE_SIZE = 80;
+
+    private final String superClassName;
+    private final int[] outputLengths;
+    private final boolean scanRoot;
+    // The chars each state switches on, in increasing order, and the state each leads to
+    private final int[][] keys;
+    private final int[][] targets;
+
+    private final MatchingVars vars = new MatchingVars(5, 4, -1, 3, 1);
+    private final int startVar = 2;
+    private final int lastStartVar = 6;
+    private final int lastEndVar = 7;
+    private final int matchStartVar = 8;
+
+    private AhoCorasickClassBuilder(String className, String superClassName, int[][] keys, int[][] targets,
+                                    int[] outputLengths, boolean scanRoot) {
+        super(className, superClassName, new String[0]);
+        this.superClassName = superClassName;
+        this.keys = keys;
+        this.targets = targets;
+        this.outputLengths = outputLengths;
+        this.scanRoot = scanRoot;
+    }
+
+    /**
+     * Generate a subclass of superClassName with a method that searches for the patterns of an automaton whose root
+     * is state 0. The superclass must have a constructor taking a MultiSearchMethod and a CharSetScanner, and if scanRoot is
+     * true, a CharSetScanner field named rootScanner that finds the chars leaving the root.
+     *
+     * @param className the name of the generated class
+     * @param superClassName the internal name of the superclass
+     * @param keys for the root, the chars that leave it, and for every other state, the chars that lead somewhere
+     *             other than where they lead from the root, in increasing order
+     * @param targets the state each of the keys leads to
+     * @param outputLengths the length of the longest pattern ending at each state, or -1 if none does
+     * @param scanRoot whether to skip to the next char that leaves the root
+     * @return the bytes of the generated class, or empty if the automaton matches the empty string or is too large
+     */
+    public static Optional<byte[]> generate(String className, String superClassName, int[][] keys, int[][] targets,
+                                            int[] outputLengths, boolean scanRoot) {
+        if (outputLengths[0] >= 0) {
+            return Optional.empty();
+        }
+        var builder = new AhoCorasickClassBuilder(className, superClassName, keys, targets, outputLengths, scanRoot);
+        if (builder.estimateCodeSize() > MAX_METHOD_SIZE) {
+            return Optional.empty();
+        }
+        builder.addConstructor();
+        builder.addFindMethod();
+        return Optional.of(new ClassCompiler(builder).generateClassAsBytes());
+    }
+
+    int estimateCodeSize() {
+        int size = SHARED_CODE_SIZE + READ_CHAR_SIZE + switchSize(keys[0]);
+        for (int state = 1; state < keys.length; state++) {
+            if (outputLengths[state] >= 0) {
+                size += RECORD_MATCH_SIZE;
+            }
+            size += isFinal(state) ? 3 : READ_CHAR_SIZE + switchSize(keys[state]);
+        }
+        return size;
+    }
+
+    private static int switchSize(int[] keys) {
+        if (keys.length == 0) {
+            return 3;
+        }
+        if (keys.length == 1) {
+            return 11;
+        }
+        // Loading the char, the opcode, up to three bytes of padding, the default, then the range and a jump for each
+        // value in it, or the count and a key and jump for each key
+        return useTableSwitch(keys) ? 18 + 4 * (keys[keys.length - 1] - keys[0] + 1) : 14 + 8 * keys.length;
+    }
+
+    /**
+     * Once we reach a state that ends a pattern and leads everywhere the root does, every later match starts after the
+     * one we just recorded, so the search is over.
+     */
+    private boolean isFinal(int state) {
+        return outputLengths[state] >= 0 && keys[state].length == 0;
+    }
+
+    /**
+     * Choose between tableswitch and lookupswitch the same way javac does, weighing time three times as much as space.
+     */
+    private static boolean useTableSwitch(int[] keys) {
+        long tableSpace = 4 + ((long) keys[keys.length - 1] - keys[0] + 1);
+        long tableTime = 3;
+        long lookupSpace = 3 + 2 * (long) keys.length;
+        long lookupTime = keys.length;
+        return tableSpace + 3 * tableTime <= lookupSpace + 3 * lookupTime;
+    }
+
+    private void addConstructor() {
+        String descriptor = "(" + SEARCH_METHOD_DESCRIPTOR + SCANNER_DESCRIPTOR + ")V";
+        var method = new Method("<init>", List.of(SEARCH_METHOD_DESCRIPTOR, SCANNER_DESCRIPTOR), "V", null);
+        method.addBlock()
+                .readThis()
+                .readVar(1, SEARCH_METHOD_DESCRIPTOR)
+                .readVar(2, SCANNER_DESCRIPTOR)
+                .call("<init>", superClassName, descriptor, true)
+                .addReturn(RETURN);
+        addMethod(method);
+    }
+
+    /**
+     * Add findUnanchored(String, int, int). We're at the root in rootBlock, before reading the char at index, and
+     * about to switch on the char we just read in rootSwitchBlock. Every other state has a block we jump to just after
+     * reading a char that leads there, which records any match ending at that char, then reads the next char and
+     * switches on it.
+     */
+    private void addFindMethod() {
+        var method = mkMethod(FIND_METHOD, List.of(CompilerUtil.STRING_DESCRIPTOR, "I", "I"),
+                "L" + MATCH_RESULT_CLASS + ";", vars);
+        var setupBlock = method.addBlock();
+        var rootBlock = method.addBlock();
+        var rootSwitchBlock = method.addBlock();
+        var stateBlocks = new Block[keys.length];
+        // States that end a pattern fall through to a block recording the match, then to one reading the next char
+        var recordBlocks = new Block[keys.length];
+        var readBlocks = new Block[keys.length];
+        for (int state = 1; state < keys.length; state++) {
+            stateBlocks[state] = method.addBlock();
+            readBlocks[state] = stateBlocks[state];
+            if (outputLengths[state] >= 0) {
+                recordBlocks[state] = method.addBlock();
+                readBlocks[state] = method.addBlock();
+            }
+        }
+        var doneBlock = method.addBlock();
+        var successBlock = method.addBlock();
+        var failureBlock = method.addBlock();
+        stateBlocks[0] = rootBlock;
+
+        setupBlock.readVar(startVar, "I")
+                .setVar(vars, MatchingVars.INDEX, "I")
+                .push(-1)
+                .setVar(lastStartVar, "I")
+                .push(-1)
+                .setVar(lastEndVar, "I");
+
+        // Matches can't be extended once we're back at the root, so the match we have is the one to return
+        rootBlock.readVar(lastEndVar, "I")
+                .push(-1)
+                .jump(successBlock, IF_ICMPNE);
+        if (scanRoot) {
+            rootBlock.readThis()
+                    .readField(ROOT_SCANNER_FIELD, true, SCANNER_DESCRIPTOR)
+                    .readVar(vars, MatchingVars.STRING, CompilerUtil.STRING_DESCRIPTOR)
+                    .readVar(vars, MatchingVars.INDEX, "I")
+                    .readVar(vars, MatchingVars.LENGTH, "I")
+                    .call("indexOf", SCANNER_CLASS, "(Ljava/lang/String;II)I")
+                    .setVar(vars, MatchingVars.INDEX, "I")
+                    .readVar(vars, MatchingVars.INDEX, "I")
+                    .push(-1)
+                    .jump(failureBlock, IF_ICMPEQ);
+        }
+        addReadChar(rootBlock, doneBlock);
+        addSwitch(rootSwitchBlock, 0, stateBlocks, rootBlock);
+
+        for (int state = 1; state < keys.length; state++) {
+            int length = outputLengths[state];
+            if (length >= 0) {
+                // Keep the earliest starting match, and the longer one if two start at the same index
+                stateBlocks[state].readVar(vars, MatchingVars.INDEX, "I")
+                        .push(length)
+                        .operate(ISUB)
+                        .setVar(matchStartVar, "I")
+                        .readVar(lastEndVar, "I")
+                        .push(-1)
+                        .jump(recordBlocks[state], IF_ICMPEQ)
+                        .readVar(matchStartVar, "I")
+                        .readVar(lastStartVar, "I")
+                        .jump(readBlocks[state], IF_ICMPGT);
+                recordBlocks[state].readVar(matchStartVar, "I")
+                        .setVar(lastStartVar, "I")
+                        .readVar(vars, MatchingVars.INDEX, "I")
+                        .setVar(lastEndVar, "I");
+            }
+            if (isFinal(state)) {
+                readBlocks[state].jump(successBlock, GOTO);
+            }
+            else {
+                addReadChar(readBlocks[state], doneBlock);
+                addSwitch(readBlocks[state], state, stateBlocks, rootSwitchBlock);
+            }
+        }
+
+        doneBlock.readVar(lastEndVar, "I")
+                .push(-1)
+                .jump(failureBlock, IF_ICMPEQ);
+        successBlock.readVar(lastStartVar, "I")
+                .readVar(lastEndVar, "I")
+                .callStatic("success", MATCH_RESULT_CLASS, "(II)L" + MATCH_RESULT_CLASS + ";")
+                .addReturn(ARETURN);
+        failureBlock.callStatic("failure", MATCH_RESULT_CLASS, "()L" + MATCH_RESULT_CLASS + ";")
+                .addReturn(ARETURN);
+    }
+
+    private void addReadChar(Block block, Block doneBlock) {
+        block.readVar(vars, MatchingVars.INDEX, "I")
+                .readVar(vars, MatchingVars.LENGTH, "I")
+                .jump(doneBlock, IF_ICMPGE)
+                .readVar(vars, MatchingVars.STRING, CompilerUtil.STRING_DESCRIPTOR)
+                .readVar(vars, MatchingVars.INDEX, "I")
+                .call("charAt", "java/lang/String", "(I)C")
+                .setVar(vars, MatchingVars.CHAR, "C")
+                .addOperation(Operation.mkOperation(Operation.Inst.INCREMENT_INDEX));
+    }
+
+    /**
+     * Switch on the char just read, jumping to the block of the state it leads to from the given state, or to the
+     * default block if the given state has no transition of its own for it.
+     */
+    private void addSwitch(Block block, int state, Block[] stateBlocks, Block defaultBlock) {
+        int[] stateKeys = keys[state];
+        if (stateKeys.length == 0) {
+            block.jump(defaultBlock, GOTO);
+            return;
+        }
+        block.readVar(vars, MatchingVars.CHAR, "C");
+        if (stateKeys.length == 1) {
+            block.push(stateKeys[0])
+                    .jump(stateBlocks[targets[state][0]], IF_ICMPEQ)
+                    .jump(defaultBlock, GOTO);
+        }
+        else if (useTableSwitch(stateKeys)) {
+            int min = stateKeys[0];
+            int max = stateKeys[stateKeys.length - 1];
+            var blocks = new ArrayList<Block>();
+            for (int c = min, i = 0; c <= max; c++) {
+                if (stateKeys[i] == c) {
+                    blocks.add(stateBlocks[targets[state][i++]]);
+                }
+                else {
+                    blocks.add(defaultBlock);
+                }
+            }
+            block.addOperation(Operation.mkTableSwitch(blocks, defaultBlock, min, max));
+        }
+        else {
+            var switchKeys = new ArrayList<Integer>();
+            var blocks = new ArrayList<Block>();
+            for (int i = 0; i < stateKeys.length; i++) {
+                switchKeys.add(stateKeys[i]);
+                blocks.add(stateBlocks[targets[state][i]]);
+            }
+            block.addOperation(Operation.mkLookupSwitch(switchKeys, blocks, defaultBlock));
+        }
+    }
+}
@@ -65,6 +65,11 @@ class Block {
         return this;
     }
 
+    Block push(String s) {
+        addOperation(Operation.pushString(s));
+        return this;
+    }
+
     Block cmp(Block target, int i) {
         addOperation(Operation.mkJump(target, i));
         return this;
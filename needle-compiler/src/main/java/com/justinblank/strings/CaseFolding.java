@@ -0,0 +1,140 @@
+package com.justinblank.strings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Finds the chars that match a char when case is ignored, so that regexes and search methods can match them directly,
+ * rather than lowercasing the strings they search. Two chars match if they have the same lowercase of their uppercase,
+ * which puts the Kelvin sign, U+212A, with 'k' and 'K', and the final sigma, U+03C2, with the other two sigmas.
+ */
+public final class CaseFolding {
+
+    public static final CaseFolding ASCII = new CaseFolding(false);
+    public static final CaseFolding UNICODE = new CaseFolding(true);
+
+    private static final char[] NO_VARIANTS = new char[0];
+    private static final int ASCII_CASE_OFFSET = 'a' - 'A';
+
+    private final boolean unicode;
+
+    private CaseFolding(boolean unicode) {
+        this.unicode = unicode;
+    }
+
+    /**
+     * @param flags flags from {@link Pattern}
+     * @return the folding the flags ask for, or empty if case matters
+     */
+    public static Optional<CaseFolding> forFlags(int flags) {
+        if ((flags & Pattern.CASE_INSENSITIVE) == 0) {
+            return Optional.empty();
+        }
+        return Optional.of((flags & Pattern.UNICODE_CASE) != 0 ? UNICODE : ASCII);
+    }
+
+    /**
+     * @return the chars other than c that match c
+     */
+    public char[] variants(char c) {
+        if (unicode) {
+            char[] variants = UnicodeVariants.VARIANTS[c];
+            return variants != null ? variants : NO_VARIANTS;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return new char[]{(char) (c - ASCII_CASE_OFFSET)};
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return new char[]{(char) (c + ASCII_CASE_OFFSET)};
+        }
+        return NO_VARIANTS;
+    }
+
+    /**
+     * @return the ranges covering every char that matches a char in one of the given ranges, sorted and merged
+     */
+    public List<CharRange> expand(List<CharRange> ranges) {
+        List<CharRange> expanded = new ArrayList<>(ranges);
+        for (CharRange range : ranges) {
+            if (unicode) {
+                char[] cased = UnicodeVariants.CASED;
+                int index = Arrays.binarySearch(cased, range.getStart());
+                for (int i = index >= 0 ? index : -index - 1; i < cased.length && cased[i] <= range.getEnd(); i++) {
+                    for (char variant : UnicodeVariants.VARIANTS[cased[i]]) {
+                        expanded.add(new CharRange(variant, variant));
+                    }
+                }
+            }
+            else {
+                addShifted(expanded, range, 'a', 'z', -ASCII_CASE_OFFSET);
+                addShifted(expanded, range, 'A', 'Z', ASCII_CASE_OFFSET);
+            }
+        }
+        return merge(expanded);
+    }
+
+    /**
+     * Add the part of range between low and high, moved by offset.
+     */
+    private static void addShifted(List<CharRange> ranges, CharRange range, char low, char high, int offset) {
+        char start = (char) Math.max(range.getStart(), low);
+        char end = (char) Math.min(range.getEnd(), high);
+        if (start <= end) {
+            ranges.add(new CharRange((char) (start + offset), (char) (end + offset)));
+        }
+    }
+
+    /**
+     * Unlike {@link CharRange#compact(List)}, this allows the ranges to overlap.
+     */
+    private static List<CharRange> merge(List<CharRange> ranges) {
+        ranges.sort(Comparator.comparingInt(CharRange::getStart));
+        List<CharRange> merged = new ArrayList<>();
+        CharRange current = ranges.get(0);
+        for (int i = 1; i < ranges.size(); i++) {
+            CharRange next = ranges.get(i);
+            if (next.getStart() <= current.getEnd() + 1) {
+                current = new CharRange(current.getStart(), (char) Math.max(current.getEnd(), next.getEnd()));
+            }
+            else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+
+    /**
+     * Holds the variants of every char, which take a moment to compute, and aren't needed for ASCII.
+     */
+    private static class UnicodeVariants {
+
+        // The variants of each char, or null if it has none
+        static final char[][] VARIANTS = new char[Character.MAX_VALUE + 1][];
+        // The chars that have variants, in order
+        static final char[] CASED;
+
+        static {
+            Map<Character, StringBuilder> groups = new HashMap<>();
+            for (int c = 0; c <= Character.MAX_VALUE; c++) {
+                char key = Character.toLowerCase(Character.toUpperCase((char) c));
+                groups.computeIfAbsent(key, k -> new StringBuilder()).append((char) c);
+            }
+            StringBuilder cased = new StringBuilder();
+            for (int c = 0; c <= Character.MAX_VALUE; c++) {
+                StringBuilder group = groups.get(Character.toLowerCase(Character.toUpperCase((char) c)));
+                if (group.length() > 1) {
+                    VARIANTS[c] = group.toString().replace(String.valueOf((char) c), "").toCharArray();
+                    cased.append((char) c);
+                }
+            }
+            CASED = cased.toString().toCharArray();
+        }
+    }
+}
@@ -1,39 +1,40 @@
 package com.justinblank.strings;
 
-import org.apache.commons.lang3.tuple.Pair;
-
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Arrays;
 
 public class CheckCharsOperation extends Operation {
 
     private Block successTarget;
-    List<Pair<CharRange, DFA>> transitions;
-
-    CheckCharsOperation(Inst inst, int count, List<Pair<CharRange, Integer>> transitions, Block blockTarget, RefSpec spec, List<Integer> ints) {
-        super(inst, count, blockTarget, spec, ints);
+    final char[] starts;
+    final char[] ends;
+    final int[] targets;
+
+    CheckCharsOperation(Inst inst, Block blockTarget, char[] starts, char[] ends, int[] targets) {
+        super(inst, -1, blockTarget, null, null);
+        this.starts = starts;
+        this.ends = ends;
+        this.targets = targets;
     }
 
     void setSuccessTarget(Block successTarget) {
         this.successTarget = successTarget;
     }
 
-    void setTransitions(List<Pair<CharRange, DFA>> transitions) {
-        this.transitions = transitions;
-    }
-
     Block getSuccessTarget() {
         return successTarget;
     }
 
-    static Operation checkChars(DFA dfa, Block failBlock, Block successTarget) {
-        var transitions = dfa.getTransitions().
-                stream().
-                map(t -> Pair.of(t.getLeft(), t.getRight().getStateNumber())).
-                collect(Collectors.toList());
-        var checkChars = new CheckCharsOperation(Inst.CHECK_CHARS, -1, transitions, failBlock,  null, null);
+    int transitionCount() {
+        return targets.length;
+    }
+
+    static Operation checkChars(CompactDFA dfa, int state, Block failBlock, Block successTarget) {
+        int start = dfa.transitionOffsets[state];
+        int end = dfa.transitionOffsets[state + 1];
+        var checkChars = new CheckCharsOperation(Inst.CHECK_CHARS, failBlock,
+                Arrays.copyOfRange(dfa.rangeStarts, start, end), Arrays.copyOfRange(dfa.rangeEnds, start, end),
+                Arrays.copyOfRange(dfa.targets, start, end));
         checkChars.setSuccessTarget(successTarget);
-        checkChars.setTransitions(dfa.getTransitions());
         return checkChars;
     }
 
@@ -175,6 +175,9 @@ public class ClassCompiler {
             case VALUE:
                 pushInt(mv, op.count);
                 return;
+            case STRING_VALUE:
+                mv.visitLdcInsn(op.getAttribute(Operation.STRING_VALUE_ATTRIBUTE));
+                return;
             case READ_VAR:
                 handleReadVar(mv, op, vars);
                 return;
@@ -232,7 +235,7 @@ public class ClassCompiler {
                 for (var i = 0; i < op.ints.size(); i++) {
                     keys[i] = op.ints.get(i);
                 }
-                mv.visitLookupSwitchInsn(op.blockTargets.get(0).getLabel(), keys, labels.toArray(new Label[0]));
+                mv.visitLookupSwitchInsn(op.target.getLabel(), keys, labels.toArray(new Label[0]));
                 return;
             default:
                 throw new IllegalStateException("Unrecognized opcode: " + op.inst);
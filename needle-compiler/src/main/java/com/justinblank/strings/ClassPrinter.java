@@ -66,14 +66,15 @@ class ClassPrinter {
     void printOperation(Operation op) {
         if (op.inst == Operation.Inst.CHECK_CHARS) {
             // TODO: Cleanup, c.f. comment at top of ClassCompiler.
-            for (var p : ((CheckCharsOperation) op).transitions) {
+            var ccOp = (CheckCharsOperation) op;
+            for (var i = 0; i < ccOp.transitionCount(); i++) {
                 print(op.inst);
                 print("(");
-                print(p.getLeft().getStart());
+                print(ccOp.starts[i]);
                 print("-");
-                print(p.getLeft().getEnd());
+                print(ccOp.ends[i]);
                 print(") ->");
-                print(p.getRight().getStateNumber());
+                print(ccOp.targets[i]);
                 print(" ELSE JUMP TO " + op.target.toString().toUpperCase());
                 println("");
             }
@@ -94,6 +95,9 @@ class ClassPrinter {
             case VALUE:
                 println(op.count);
                 return;
+            case STRING_VALUE:
+                println("\"" + op.getAttribute(Operation.STRING_VALUE_ATTRIBUTE) + "\"");
+                return;
             case JUMP:
                 print(REPRESENTATIONS.get(op.count));
                 print(' ');
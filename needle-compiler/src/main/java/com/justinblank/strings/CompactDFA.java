@@ -0,0 +1,293 @@
+package com.justinblank.strings;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.util.*;
+
+/**
+ * A DFA stored in parallel primitive arrays, rather than as a graph of objects. The transitions of state s are at the
+ * indices from transitionOffsets[s] up to transitionOffsets[s + 1], sorted by their ranges, which don't overlap. State 0
+ * is the root.
+ */
+class CompactDFA {
+
+    final int[] transitionOffsets;
+    final char[] rangeStarts;
+    final char[] rangeEnds;
+    final int[] targets;
+    final BitSet accepting;
+
+    CompactDFA(int[] transitionOffsets, char[] rangeStarts, char[] rangeEnds, int[] targets, BitSet accepting) {
+        if (rangeStarts.length != rangeEnds.length || rangeStarts.length != targets.length) {
+            throw new IllegalArgumentException("Must have the same number of range starts, range ends and targets");
+        }
+        this.transitionOffsets = transitionOffsets;
+        this.rangeStarts = rangeStarts;
+        this.rangeEnds = rangeEnds;
+        this.targets = targets;
+        this.accepting = accepting;
+    }
+
+    static CompactDFA from(DFA dfa) {
+        var states = new DFA[dfa.statesCount()];
+        int transitionCount = 0;
+        for (DFA state : dfa.allStates()) {
+            states[state.getStateNumber()] = state;
+            transitionCount += state.getTransitions().size();
+        }
+        var builder = new Builder(states.length, transitionCount);
+        for (DFA state : states) {
+            builder.addState(state.isAccepting());
+            for (Pair<CharRange, DFA> transition : state.getTransitions()) {
+                builder.addTransition(transition.getLeft().getStart(), transition.getLeft().getEnd(),
+                        transition.getRight().getStateNumber());
+            }
+        }
+        return builder.build();
+    }
+
+    DFA toDFA() {
+        var states = new DFA[statesCount()];
+        states[0] = DFA.root(isAccepting(0));
+        for (int state = 1; state < states.length; state++) {
+            states[state] = new DFA(states[0], isAccepting(state), state);
+        }
+        for (int state = 0; state < states.length; state++) {
+            for (int i = transitionOffsets[state]; i < transitionOffsets[state + 1]; i++) {
+                states[state].addTransition(new CharRange(rangeStarts[i], rangeEnds[i]), states[targets[i]]);
+            }
+        }
+        states[0].findSpecialStates();
+        return states[0];
+    }
+
+    /**
+     * Renumber the states so that the root stays first, and the other accepting states come after all the other
+     * states, which lets a search tell whether a state is accepting with a single comparison.
+     */
+    CompactDFA withAcceptingStatesLast() {
+        int count = statesCount();
+        var order = new int[count];
+        int next = 0;
+        order[next++] = 0;
+        for (int state = 1; state < count; state++) {
+            if (!isAccepting(state)) {
+                order[next++] = state;
+            }
+        }
+        for (int state = 1; state < count; state++) {
+            if (isAccepting(state)) {
+                order[next++] = state;
+            }
+        }
+        var numbers = new int[count];
+        for (int i = 0; i < count; i++) {
+            numbers[order[i]] = i;
+        }
+        var builder = new Builder(count, transitionCount());
+        for (int state : order) {
+            builder.addState(isAccepting(state));
+            for (int i = transitionOffsets[state]; i < transitionOffsets[state + 1]; i++) {
+                builder.addTransition(rangeStarts[i], rangeEnds[i], numbers[targets[i]]);
+            }
+        }
+        return builder.build();
+    }
+
+    int statesCount() {
+        return transitionOffsets.length - 1;
+    }
+
+    int transitionCount() {
+        return targets.length;
+    }
+
+    boolean isAccepting(int state) {
+        return accepting.get(state);
+    }
+
+    /**
+     * @return the state reached by consuming the char, or -1 if there is no transition for it
+     */
+    int transition(int state, char c) {
+        int low = transitionOffsets[state];
+        int high = transitionOffsets[state + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (rangeEnds[mid] < c) {
+                low = mid + 1;
+            }
+            else if (rangeStarts[mid] > c) {
+                high = mid - 1;
+            }
+            else {
+                return targets[mid];
+            }
+        }
+        return -1;
+    }
+
+    boolean matches(String s) {
+        int state = 0;
+        for (int i = 0; i < s.length() && state >= 0; i++) {
+            state = transition(state, s.charAt(i));
+        }
+        return state >= 0 && isAccepting(state);
+    }
+
+    /**
+     * Calculate the lookahead filters worth applying in each state. A state is skipped when every way of reaching it
+     * passes through a state whose filter already checked past it.
+     *
+     * @return a map from state numbers to the lookahead to use in that state
+     */
+    Map<Integer, Lookahead> calculateLookaheads() {
+        int statesCount = statesCount();
+        var predecessorOffsets = new int[statesCount + 1];
+        for (int target : targets) {
+            predecessorOffsets[target + 1]++;
+        }
+        for (int state = 0; state < statesCount; state++) {
+            predecessorOffsets[state + 1] += predecessorOffsets[state];
+        }
+        var predecessors = new int[targets.length];
+        var next = Arrays.copyOf(predecessorOffsets, statesCount);
+        for (int state = 0; state < statesCount; state++) {
+            for (int i = transitionOffsets[state]; i < transitionOffsets[state + 1]; i++) {
+                predecessors[next[targets[i]]++] = state;
+            }
+        }
+
+        var map = new HashMap<Integer, Lookahead>();
+        var covered = new BitSet();
+        for (int state = 0; state < statesCount; state++) {
+            if (covered.get(state)) {
+                continue;
+            }
+            var optLookahead = calculateLookahead(state);
+            if (optLookahead.isEmpty()) {
+                continue;
+            }
+            var lookahead = optLookahead.get();
+            map.put(state, lookahead);
+            var coveredByState = new BitSet();
+            coveredByState.set(state);
+            var layer = new BitSet();
+            layer.set(state);
+            for (var position = 1; position < lookahead.maxPosition(); position++) {
+                var nextLayer = new BitSet();
+                for (int s = layer.nextSetBit(0); s >= 0; s = layer.nextSetBit(s + 1)) {
+                    for (int i = transitionOffsets[s]; i < transitionOffsets[s + 1]; i++) {
+                        int target = targets[i];
+                        if (target != 0 && allSet(coveredByState, predecessors, predecessorOffsets[target],
+                                predecessorOffsets[target + 1])) {
+                            nextLayer.set(target);
+                        }
+                    }
+                }
+                coveredByState.or(nextLayer);
+                layer = nextLayer;
+            }
+            covered.or(coveredByState);
+        }
+        return map;
+    }
+
+    private static boolean allSet(BitSet bits, int[] indices, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!bits.get(indices[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the characters that must appear at each position after the character the state consumes, for as long as
+     * no match can end before that position, and choose which of those positions are worth checking.
+     *
+     * @return the lookahead to use in the state, if any
+     */
+    Optional<Lookahead> calculateLookahead(int state) {
+        var candidates = new TreeMap<Integer, BitSet>();
+        var layer = new BitSet();
+        for (int i = transitionOffsets[state]; i < transitionOffsets[state + 1]; i++) {
+            layer.set(targets[i]);
+        }
+        for (var position = 1; position <= Lookahead.MAX_DISTANCE && !layer.isEmpty(); position++) {
+            if (layer.intersects(accepting)) {
+                break;
+            }
+            var chars = new BitSet();
+            var next = new BitSet();
+            for (int s = layer.nextSetBit(0); s >= 0; s = layer.nextSetBit(s + 1)) {
+                for (int i = transitionOffsets[s]; i < transitionOffsets[s + 1]; i++) {
+                    chars.set(rangeStarts[i], rangeEnds[i] + 1);
+                    next.set(targets[i]);
+                }
+            }
+            candidates.put(position, chars);
+            layer = next;
+        }
+        return Lookahead.choose(candidates);
+    }
+
+    /**
+     * Builds a CompactDFA one state at a time. States must be added in order of their state numbers, and each state's
+     * transitions must be added in ascending order of their ranges, immediately after the state.
+     */
+    static class Builder {
+
+        private int[] transitionOffsets;
+        private char[] rangeStarts;
+        private char[] rangeEnds;
+        private int[] targets;
+        private final BitSet accepting = new BitSet();
+        private int statesCount;
+        private int transitionCount;
+
+        Builder() {
+            this(16, 16);
+        }
+
+        Builder(int expectedStates, int expectedTransitions) {
+            transitionOffsets = new int[Math.max(expectedStates, 1) + 1];
+            rangeStarts = new char[Math.max(expectedTransitions, 1)];
+            rangeEnds = new char[rangeStarts.length];
+            targets = new int[rangeStarts.length];
+        }
+
+        int addState(boolean isAccepting) {
+            if (statesCount + 1 >= transitionOffsets.length) {
+                transitionOffsets = Arrays.copyOf(transitionOffsets, transitionOffsets.length * 2);
+            }
+            if (isAccepting) {
+                accepting.set(statesCount);
+            }
+            transitionOffsets[statesCount] = transitionCount;
+            return statesCount++;
+        }
+
+        void addTransition(char start, char end, int target) {
+            assert start <= end : "cannot add an empty range";
+            assert transitionCount == transitionOffsets[statesCount - 1] || rangeEnds[transitionCount - 1] < start
+                    : "transitions must be added in order";
+            if (transitionCount == targets.length) {
+                rangeStarts = Arrays.copyOf(rangeStarts, targets.length * 2);
+                rangeEnds = Arrays.copyOf(rangeEnds, targets.length * 2);
+                targets = Arrays.copyOf(targets, targets.length * 2);
+            }
+            rangeStarts[transitionCount] = start;
+            rangeEnds[transitionCount] = end;
+            targets[transitionCount] = target;
+            transitionCount++;
+        }
+
+        CompactDFA build() {
+            var offsets = Arrays.copyOf(transitionOffsets, statesCount + 1);
+            offsets[statesCount] = transitionCount;
+            return new CompactDFA(offsets, Arrays.copyOf(rangeStarts, transitionCount),
+                    Arrays.copyOf(rangeEnds, transitionCount), Arrays.copyOf(targets, transitionCount), accepting);
+        }
+    }
+}
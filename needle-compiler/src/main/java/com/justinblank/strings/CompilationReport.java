@@ -0,0 +1,235 @@
+package com.justinblank.strings;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Describes how a regex was compiled: which engine matches it, the size of each intermediate representation, which
+ * matching strategies the generated class uses, and how long each phase took. Only the parse phase applies to
+ * engines other than the generated class.
+ */
+public class CompilationReport {
+
+    public enum Phase {
+        PARSE,
+        NFA,
+        DFA,
+        MINIMIZE,
+        // Building the reversed, unanchored, reversed factors and leftmost-longest DFAs used to search
+        SEARCH_DFA,
+        BUILD,
+        GENERATE
+    }
+
+    public enum Engine {
+        GENERATED_CLASS,
+        // An Aho-Corasick automaton that only matches whole words, for regexes surrounded by \b
+        WHOLE_WORD_AHO_CORASICK,
+        GLUSHKOV
+    }
+
+    private final String regex;
+    private Engine engine;
+    private int astSize;
+    private int nfaInstructionCount;
+    private int dfaStateCount;
+    private int minimizedStateCount;
+    private String seekPrefix;
+    private int lookaheadStateCount;
+    private boolean unanchoredSearch;
+    private String requiredLiteral;
+    private boolean backwardLiteralSearch;
+    private String rootScanChars;
+    private boolean stateGroupDispatch;
+    private int methodCount;
+    private int bytecodeSize;
+    private final Map<Phase, Long> phaseNanos = new EnumMap<>(Phase.class);
+
+    CompilationReport(String regex) {
+        this.regex = regex;
+    }
+
+    public String getRegex() {
+        return regex;
+    }
+
+    /**
+     * @return the engine chosen to match the regex
+     */
+    public Engine getEngine() {
+        return engine;
+    }
+
+    void setEngine(Engine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * @return the number of nodes in the parsed regex
+     */
+    public int getAstSize() {
+        return astSize;
+    }
+
+    void setAstSize(int astSize) {
+        this.astSize = astSize;
+    }
+
+    public int getNfaInstructionCount() {
+        return nfaInstructionCount;
+    }
+
+    void setNfaInstructionCount(int nfaInstructionCount) {
+        this.nfaInstructionCount = nfaInstructionCount;
+    }
+
+    /**
+     * @return the number of states created by subset construction, before minimization
+     */
+    public int getDfaStateCount() {
+        return dfaStateCount;
+    }
+
+    void setDfaStateCount(int dfaStateCount) {
+        this.dfaStateCount = dfaStateCount;
+    }
+
+    public int getMinimizedStateCount() {
+        return minimizedStateCount;
+    }
+
+    void setMinimizedStateCount(int minimizedStateCount) {
+        this.minimizedStateCount = minimizedStateCount;
+    }
+
+    /**
+     * @return the prefix that every match shares, if the generated class seeks to it before running the DFA
+     */
+    public Optional<String> getSeekPrefix() {
+        return Optional.ofNullable(seekPrefix);
+    }
+
+    void setSeekPrefix(String seekPrefix) {
+        this.seekPrefix = seekPrefix;
+    }
+
+    /**
+     * @return the number of states that check characters ahead of the current index before continuing
+     */
+    public int getLookaheadStateCount() {
+        return lookaheadStateCount;
+    }
+
+    void setLookaheadStateCount(int lookaheadStateCount) {
+        this.lookaheadStateCount = lookaheadStateCount;
+    }
+
+    /**
+     * @return true if find and containedIn use the unanchored DFA, rather than restarting the anchored DFA at each
+     * index
+     */
+    public boolean usesUnanchoredSearch() {
+        return unanchoredSearch;
+    }
+
+    void setUnanchoredSearch(boolean unanchoredSearch) {
+        this.unanchoredSearch = unanchoredSearch;
+    }
+
+    /**
+     * @return the literal that every match contains, if the unanchored search skips to its occurrences
+     */
+    public Optional<String> getRequiredLiteral() {
+        return Optional.ofNullable(requiredLiteral);
+    }
+
+    void setRequiredLiteral(String requiredLiteral) {
+        this.requiredLiteral = requiredLiteral;
+    }
+
+    /**
+     * @return true if the seek prefix or required literal is long enough that we search for it using BNDM
+     */
+    public boolean usesBackwardLiteralSearch() {
+        return backwardLiteralSearch;
+    }
+
+    void setBackwardLiteralSearch(boolean backwardLiteralSearch) {
+        this.backwardLiteralSearch = backwardLiteralSearch;
+    }
+
+    /**
+     * @return the chars the unanchored search scans for at its root state, if it has no literal to skip to
+     */
+    public Optional<String> getRootScanChars() {
+        return Optional.ofNullable(rootScanChars);
+    }
+
+    void setRootScanChars(String rootScanChars) {
+        this.rootScanChars = rootScanChars;
+    }
+
+    /**
+     * @return true if the DFA has enough states that transitions dispatch through stateGroup methods
+     */
+    public boolean usesStateGroupDispatch() {
+        return stateGroupDispatch;
+    }
+
+    void setStateGroupDispatch(boolean stateGroupDispatch) {
+        this.stateGroupDispatch = stateGroupDispatch;
+    }
+
+    public int getMethodCount() {
+        return methodCount;
+    }
+
+    void setMethodCount(int methodCount) {
+        this.methodCount = methodCount;
+    }
+
+    /**
+     * @return the size of the generated matcher class file in bytes
+     */
+    public int getBytecodeSize() {
+        return bytecodeSize;
+    }
+
+    void setBytecodeSize(int bytecodeSize) {
+        this.bytecodeSize = bytecodeSize;
+    }
+
+    /**
+     * @return the time spent in the phase in nanoseconds
+     */
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos.getOrDefault(phase, 0L);
+    }
+
+    void setPhaseNanos(Phase phase, long nanos) {
+        phaseNanos.put(phase, nanos);
+    }
+
+    @Override
+    public String toString() {
+        return "CompilationReport{" +
+                "regex='" + regex + '\'' +
+                ", engine=" + engine +
+                ", astSize=" + astSize +
+                ", nfaInstructionCount=" + nfaInstructionCount +
+                ", dfaStateCount=" + dfaStateCount +
+                ", minimizedStateCount=" + minimizedStateCount +
+                ", seekPrefix=" + getSeekPrefix() +
+                ", lookaheadStateCount=" + lookaheadStateCount +
+                ", unanchoredSearch=" + unanchoredSearch +
+                ", requiredLiteral=" + getRequiredLiteral() +
+                ", backwardLiteralSearch=" + backwardLiteralSearch +
+                ", rootScanChars=" + getRootScanChars() +
+                ", stateGroupDispatch=" + stateGroupDispatch +
+                ", methodCount=" + methodCount +
+                ", bytecodeSize=" + bytecodeSize +
+                ", phaseNanos=" + phaseNanos +
+                '}';
+    }
+}
@@ -16,6 +16,13 @@ class DFA {
     // Only populated on the root
     private List<DFA> states;
     private List<Pair<CharRange, DFA>> transitions = new ArrayList<>();
+    // Maintained by addTransition, so matches can check for the sink without looking at the transitions
+    private int charCount;
+    private boolean onlySelfTransitions = true;
+    private boolean acceptingSink;
+    // Only populated on the root, by findSpecialStates, and cleared whenever a transition is added
+    private Optional<DFA> acceptingSinkState;
+    private List<DFA> terminalStates;
 
     static DFA root(boolean accepting) {
         return new DFA(true, accepting, 0);
@@ -53,12 +60,32 @@ class DFA {
 
     protected void addTransition(CharRange charRange, DFA dfa) {
         assert !charRange.isEmpty() : "cannot add an epsilon transition to a DFA";
-        if (transitions.stream().anyMatch(t -> t.getLeft().equals(charRange))) {
-            return;
+        // we trust that our character ranges don't overlap, so the start alone determines the position
+        int low = 0;
+        int high = transitions.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            CharRange existing = transitions.get(mid).getLeft();
+            if (existing.getStart() < charRange.getStart()) {
+                low = mid + 1;
+            }
+            else if (existing.getStart() > charRange.getStart()) {
+                high = mid - 1;
+            }
+            else if (existing.equals(charRange)) {
+                return;
+            }
+            else {
+                low = mid;
+                break;
+            }
         }
-        transitions.add(Pair.of(charRange, dfa));
-        // we trust that our character ranges don't overlap
-        transitions.sort(Comparator.comparingInt(p -> p.getLeft().getStart()));
+        transitions.add(low, Pair.of(charRange, dfa));
+        charCount += 1 + (int) charRange.getEnd() - (int) charRange.getStart();
+        onlySelfTransitions &= dfa == this;
+        acceptingSink = accepting && onlySelfTransitions && charCount == Character.MAX_VALUE + 1;
+        root.acceptingSinkState = null;
+        root.terminalStates = null;
     }
 
     protected List<Pair<CharRange, DFA>> getTransitions() {
@@ -70,8 +97,19 @@ class DFA {
     }
 
     protected DFA transition(char c) {
-        for (Pair<CharRange, DFA> transition : transitions) {
-            if (transition.getLeft().inRange(c)) {
+        // transitions are sorted and don't overlap
+        int low = 0;
+        int high = transitions.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Pair<CharRange, DFA> transition = transitions.get(mid);
+            if (transition.getLeft().getEnd() < c) {
+                low = mid + 1;
+            }
+            else if (transition.getLeft().getStart() > c) {
+                high = mid - 1;
+            }
+            else {
                 return transition.getRight();
             }
         }
@@ -82,6 +120,9 @@ class DFA {
         int length = s.length();
         DFA current = this;
         for (int i = 0; i < length; i++) {
+            if (current.isAcceptingSink()) {
+                return true;
+            }
             char c = s.charAt(i);
             current = current.transition(c);
             if (current == null) {
@@ -91,6 +132,59 @@ class DFA {
         return current.accepting;
     }
 
+    /**
+     * An accepting sink is an accepting state that every character leads back to, so that once it's reached, every
+     * continuation of the input is a match.
+     *
+     * @return true if this state is an accepting sink
+     */
+    protected boolean isAcceptingSink() {
+        return acceptingSink;
+    }
+
+    /**
+     * A terminal state has no outgoing transitions, so whether the input matches is decided as soon as it's reached.
+     *
+     * @return true if this state has no outgoing transitions
+     */
+    protected boolean isTerminal() {
+        return transitions.isEmpty();
+    }
+
+    /**
+     * Find the accepting sink of this DFA. A minimal DFA has at most one. Only applicable to the root node.
+     *
+     * @return the accepting sink, if there is one
+     */
+    protected Optional<DFA> acceptingSink() {
+        if (acceptingSinkState == null) {
+            findSpecialStates();
+        }
+        return acceptingSinkState;
+    }
+
+    /**
+     * Find the terminal states of this DFA. A minimal DFA has at most one, which is accepting. Only applicable to the
+     * root node.
+     *
+     * @return a non-null, possibly empty list of terminal states
+     */
+    protected List<DFA> terminalStates() {
+        if (terminalStates == null) {
+            findSpecialStates();
+        }
+        return terminalStates;
+    }
+
+    /**
+     * Find the accepting sink and terminal states once the DFA is built, so that compiling it doesn't search for them
+     * again. Only applicable to the root node.
+     */
+    void findSpecialStates() {
+        acceptingSinkState = states.stream().filter(DFA::isAcceptingSink).findFirst();
+        terminalStates = states.stream().filter(DFA::isTerminal).collect(Collectors.toUnmodifiableList());
+    }
+
     public MatchResult search(String s) {
         // In order to match, we need to know the earliest index we could start from to reach a given state
         int[] stateStarts = initSearchStateArray();
@@ -232,70 +326,8 @@ class DFA {
         return new ArrayList<>(chain);
     }
 
-    Map<Integer, Offset> calculateOffsets() {
-        var map = new HashMap<Integer, Offset>();
-        var seen = new HashSet<>();
-        for (var state : states) {
-            // TODO: this is an oversimplification, but we could
-            if (!seen.contains(state.stateNumber)) {
-                var offset = state.calculateOffset();
-                offset.ifPresent(o -> {
-                    seen.addAll(o.passedStates);
-                    map.put(state.stateNumber, o);
-                });
-            }
-
-        }
-        return map;
-    }
-
-    Optional<Offset> calculateOffset() {
-        Set<Integer> passedStates = new HashSet<>();
-        var count = -1;
-        CharRange charRange = null;
-        var next = this;
-        // TODO: handle case where offset is resolved to . or similarly permissive character range: checking that is
-        //  not useful
-        while (true) {
-            if (passedStates.contains(next) || next.hasSelfTransition() || next.transitions.size() == 0 ||
-                    next.isAccepting()) {
-                break;
-            }
-            if (next.transitions.size() != 1) {
-                if (!next.allTransitionsLeadToSameState()) {
-                    break;
-                }
-            }
-            passedStates.add(next.stateNumber);
-
-            var transition = next.transitions.get(0);
-            next = transition.getRight();
-            count++;
-            charRange = transition.getLeft();
-        }
-
-        if (count > 0) {
-            return Optional.of(new Offset(count, passedStates, charRange));
-        } else {
-            return Optional.empty();
-        }
-    }
-
-    private boolean allTransitionsLeadToSameState() {
-        for (int i = 0; i < transitions.size() - 1; i++) {
-            if (transitions.get(i).getRight() != transitions.get(i + 1).getRight()) {
-                return false;
-            }
-        }
-        return true;
-    }
-
     protected int charCount() {
-        int chars = 0;
-        for (Pair<CharRange, DFA> transition : transitions) {
-            chars += 1 + (int) transition.getLeft().getEnd() - (int) transition.getLeft().getStart();
-        }
-        return chars;
+        return charCount;
     }
 
     public int getStateNumber() {
@@ -1,6 +1,7 @@
 package com.justinblank.strings;
 
 import com.justinblank.strings.RegexAST.Node;
+import com.justinblank.strings.Search.CharSetScanner;
 import org.apache.commons.lang3.StringUtils;
 import org.objectweb.asm.Opcodes;
 
@@ -10,7 +11,7 @@ import static org.objectweb.asm.Opcodes.*;
 
 public class DFAClassBuilder extends ClassBuilder {
 
-    public static final String OFFSETS_ATTRIBUTE = "offsets";
+    public static final String LOOKAHEADS_ATTRIBUTE = "lookaheads";
 
     protected static final String STATE_FIELD = "state";
     protected static final String CHAR_FIELD = "c";
@@ -23,13 +24,46 @@ public class DFAClassBuilder extends ClassBuilder {
     protected static final String WAS_ACCEPTED_BACKWARDS_METHOD = "wasAcceptedBackwards";
     protected static final String INDEX_FORWARDS = "indexForwards";
     protected static final String INDEX_BACKWARDS = "indexBackwards";
+    protected static final String INDEX_EARLIEST_END = "indexEarliestEnd";
+    protected static final String INDEX_FACTOR_START = "indexFactorStart";
+    protected static final String INDEX_LEFTMOST_END = "indexLeftmostEnd";
+    protected static final String INDEX_MATCH_START = "indexMatchStart";
+    protected static final String TRANSITION_UNANCHORED = "transitionUnanchored";
+    protected static final String TRANSITION_FACTORS = "transitionFactors";
+    protected static final String TRANSITION_LEFTMOST = "transitionLeftmost";
+    protected static final String PREFIX_SEARCH_FIELD = "PREFIX_SEARCH";
+    protected static final String FACTOR_SEARCH_FIELD = "FACTOR_SEARCH";
+    private static final String BNDM_CLASS = "com/justinblank/strings/Search/BNDM";
+    private static final String BNDM_DESCRIPTOR = "L" + BNDM_CLASS + ";";
+    protected static final String SEEK_SCANNER_FIELD = "SEEK_SCANNER";
+    protected static final String ROOT_SCANNER_FIELD = "ROOT_SCANNER";
+    private static final String SCANNER_CLASS = "com/justinblank/strings/Search/CharSetScanner";
+    private static final String SCANNER_DESCRIPTOR = "L" + SCANNER_CLASS + ";";
 
     static final int LARGE_STATE_COUNT = 64;
+    // Past this size, we fall back to restarting the anchored DFA rather than building the search DFAs
+    static final int MAX_SEARCH_DFA_STATES = 1024;
+    // A single char literal matches too often to pay for walking backwards from each occurrence
+    static final int MIN_REQUIRED_FACTOR_LENGTH = 2;
+    // Below this length, String.indexOf is intrinsified and beats BNDM, which can't shift far enough to keep up
+    static final int MIN_BNDM_LENGTH = 16;
 
     private final DFA dfa;
     private final DFA reversed;
+    // The DFA for the regex prefixed with .*?, used to find the earliest end of a match
+    private final DFA unanchored;
+    // The DFA recognizing substrings of the reversed regex, used to bound where a match can start
+    private final DFA reversedFactors;
+    // The DFA finding the end of the leftmost-longest match, with its accepting states numbered last, or null if every
+    // match has the same length
+    private final CompactDFA leftmostLongest;
+    // The compact forms of the DFAs we generate state methods from, each converted once
+    private final CompactDFA compactDFA;
+    private final CompactDFA compactReversed;
+    private final CompactDFA compactUnanchored;
+    private final CompactDFA compactReversedFactors;
     private final Factorization factorization;
-    private final Map<Integer, Offset> forwardOffsets;
+    private final Map<Integer, Lookahead> forwardLookaheads;
 
     final List<Method> stateMethods = new ArrayList<>();
     final List<Method> backwardsStateMethods = new ArrayList<>();
@@ -42,16 +76,47 @@ public class DFAClassBuilder extends ClassBuilder {
      */
     DFAClassBuilder(String className, String superClass, String[] interfaces, DFA dfa, DFA reversed,
                     Factorization factorization) {
+        this(className, superClass, interfaces, dfa, reversed, null, null, null, factorization);
+    }
+
+    /**
+     * @param className
+     * @param superClass the superclass's descriptor
+     * @param interfaces a possibly empty array of interfaces implemented
+     * @param unanchored the unanchored DFA, or null to search by restarting the anchored DFA
+     * @param reversedFactors the DFA for substrings of the reversed regex, or null to search by restarting the
+     *                        anchored DFA
+     * @param leftmostLongest the DFA finding the end of the leftmost-longest match, which may be null if every match
+     *                        has the same length, and otherwise means we search by restarting the anchored DFA
+     */
+    DFAClassBuilder(String className, String superClass, String[] interfaces, DFA dfa, DFA reversed,
+                    DFA unanchored, DFA reversedFactors, DFA leftmostLongest, Factorization factorization) {
         super(className, superClass, interfaces);
         this.dfa = dfa;
         this.reversed = reversed;
+        this.unanchored = unanchored;
+        this.reversedFactors = reversedFactors;
+        this.leftmostLongest = leftmostLongest != null
+                ? CompactDFA.from(leftmostLongest).withAcceptingStatesLast()
+                : null;
         this.factorization = factorization;
+        this.compactDFA = dfa != null ? CompactDFA.from(dfa) : null;
+        this.compactReversed = reversed != null ? CompactDFA.from(reversed) : null;
+        this.compactUnanchored = unanchored != null ? CompactDFA.from(unanchored) : null;
+        this.compactReversedFactors = reversedFactors != null ? CompactDFA.from(reversedFactors) : null;
         // YOLO
-        this.forwardOffsets = dfa != null ? dfa.calculateOffsets() : null;
+        this.forwardLookaheads = compactDFA != null ? compactDFA.calculateLookaheads() : null;
     }
 
     void initMethods() {
-        addStateMethods(dfa);
+        addStateMethods();
+        if (usesUnanchoredSearch()) {
+            addSearchStateMethods(compactUnanchored, "stateUnanchored", TRANSITION_UNANCHORED, 0);
+            addSearchStateMethods(compactReversedFactors, "stateFactors", TRANSITION_FACTORS, -1);
+            if (!hasFixedLength()) {
+                addSearchStateMethods(leftmostLongest, "stateLeftmost", TRANSITION_LEFTMOST, -1);
+            }
+        }
         if (shouldSeek()) {
             factorization.getSharedPrefix().ifPresent(prefix -> {
                 if (shouldSeek()) {
@@ -62,12 +127,25 @@ public class DFAClassBuilder extends ClassBuilder {
         }
 
         findMethods.add(createMatchesMethod());
-        findMethods.add(createContainedInMethod());
         findMethods.add(createFindMethod());
-        findMethods.add(createFindMethodInternal());
-        findMethods.add(createIndexMethod(true));
-        findMethods.add(createIndexMethod(false));
-        addWasAcceptedMethod(true);
+        if (usesUnanchoredSearch()) {
+            findMethods.add(createUnanchoredContainedInMethod());
+            findMethods.add(createUnanchoredFindMethodInternal());
+            findMethods.add(createEarliestEndMethod());
+            findMethods.add(createFactorStartMethod());
+            if (!hasFixedLength()) {
+                findMethods.add(createLeftmostEndMethod());
+                findMethods.add(createMatchStartMethod());
+                addWasAcceptedMethod(true);
+            }
+        }
+        else {
+            findMethods.add(createContainedInMethod());
+            findMethods.add(createFindMethodInternal());
+            findMethods.add(createIndexMethod(true));
+            findMethods.add(createIndexMethod(false));
+            addWasAcceptedMethod(true);
+        }
         addWasAcceptedMethod(false);
         addConstructor();
         addFields();
@@ -178,6 +256,459 @@ public class DFAClassBuilder extends ClassBuilder {
         return method;
     }
 
+    /**
+     * The unanchored search needs the earliest end of a match to be a single state, which holds for a minimal DFA
+     * whose accepting states have no transitions.
+     */
+    boolean usesUnanchoredSearch() {
+        return unanchored != null && reversedFactors != null && (leftmostLongest != null || hasFixedLength()) &&
+                unanchored.acceptingStates().size() == 1;
+    }
+
+    private boolean hasFixedLength() {
+        return factorization.getMinLength() == factorization.getMaxLength().orElse(Integer.MAX_VALUE);
+    }
+
+    /**
+     * When matches don't share a prefix, but all contain some literal, the unanchored search can skip ahead to its
+     * next occurrence. The literal is typically the suffix of the pattern, but may come from its middle.
+     */
+    Optional<String> requiredFactor() {
+        if (!usesUnanchoredSearch() || shouldSeek()) {
+            return Optional.empty();
+        }
+        return factorization.getRequiredFactor().filter(literal -> literal.length() >= MIN_REQUIRED_FACTOR_LENGTH);
+    }
+
+    Optional<String> seekPrefix() {
+        return shouldSeek() ? factorization.getSharedPrefix() : Optional.empty();
+    }
+
+    /**
+     * @return whether we find candidate matches by searching for the whole shared prefix using BNDM, rather than for
+     * its first char
+     */
+    boolean usesPrefixSearch() {
+        return seekPrefix().filter(prefix -> prefix.length() >= MIN_BNDM_LENGTH).isPresent();
+    }
+
+    /**
+     * @return whether we find the required factor using BNDM, rather than String.indexOf
+     */
+    boolean usesFactorSearch() {
+        return requiredFactor().filter(literal -> literal.length() >= MIN_BNDM_LENGTH).isPresent();
+    }
+
+    /**
+     * When the unanchored search has neither a prefix nor a required literal to skip to, but only a few chars leave its
+     * root state, it can skip to the next of those chars.
+     *
+     * @return the chars that leave the unanchored DFA's root state, if we scan for them
+     */
+    Optional<String> rootScanChars() {
+        if (!usesUnanchoredSearch() || shouldSeek() || requiredFactor().isPresent()) {
+            return Optional.empty();
+        }
+        var compact = compactUnanchored;
+        var chars = new StringBuilder();
+        for (int i = compact.transitionOffsets[0]; i < compact.transitionOffsets[1]; i++) {
+            if (compact.targets[i] == 0) {
+                continue;
+            }
+            if (chars.length() + compact.rangeEnds[i] - compact.rangeStarts[i] + 1 > CharSetScanner.MAX_CHARS) {
+                return Optional.empty();
+            }
+            for (int c = compact.rangeStarts[i]; c <= compact.rangeEnds[i]; c++) {
+                chars.append((char) c);
+            }
+        }
+        return chars.length() > 0 ? Optional.of(chars.toString()) : Optional.empty();
+    }
+
+    int lookaheadStateCount() {
+        return forwardLookaheads.size();
+    }
+
+    boolean usesStateGroupDispatch() {
+        return dfa.statesCount() > LARGE_STATE_COUNT;
+    }
+
+    private int unanchoredAcceptingState() {
+        return unanchored.acceptingStates().iterator().next().getStateNumber();
+    }
+
+    private Method createUnanchoredContainedInMethod() {
+        var vars = new MatchingVars(1, 2, 3, 4, 5);
+        var method = mkMethod("containedIn", new ArrayList<>(), "Z", vars);
+        var block = method.addBlock();
+        var failureBlock = addFailureBlock(method, 0);
+
+        addReadStringLength(vars, block);
+        addLengthCheck(vars, block, failureBlock, false);
+        if (!unanchored.isAccepting()) {
+            block.readThis()
+                    .push(0)
+                    .call(INDEX_EARLIEST_END, getClassName(), "(I)I")
+                    .push(-1)
+                    .cmp(failureBlock, IF_ICMPEQ);
+        }
+        block.push(1).addReturn(IRETURN);
+        return method;
+    }
+
+    /**
+     * Find the leftmost-longest match starting at or after the given index. The unanchored DFA finds the earliest end
+     * of any match in one pass. No match can start before the earliest index from which the text up to that end is
+     * still a substring of a match, so from there, the leftmost-longest DFA finds the end of the match, and the
+     * reversed DFA walks back to its start.
+     */
+    private Method createUnanchoredFindMethodInternal() {
+        var vars = new MapVars();
+        vars.addVar(MatchingVars.INDEX, 1);
+        vars.addVar("earliestEnd", 2);
+        vars.addVar("matchEnd", 3);
+        var method = mkMethod("find", List.of("I", "I"), "Lcom/justinblank/strings/MatchResult;", vars);
+        var block = method.addBlock();
+        var failureBlock = method.addBlock();
+        failureBlock.callStatic("failure", "com/justinblank/strings/MatchResult", "()Lcom/justinblank/strings/MatchResult;");
+        failureBlock.readThis()
+                .readThis()
+                .readField(LENGTH_FIELD, true, "I")
+                .setField(NEXT_START_FIELD, getClassName(), "I");
+        failureBlock.addReturn(ARETURN);
+
+        if (unanchored.isAccepting()) {
+            block.readVar(vars, MatchingVars.INDEX, "I");
+        }
+        else {
+            block.readThis()
+                    .readVar(vars, MatchingVars.INDEX, "I")
+                    .call(INDEX_EARLIEST_END, getClassName(), "(I)I");
+        }
+        block.setVar(vars, "earliestEnd", "I")
+                .readVar(vars, "earliestEnd", "I")
+                .push(-1)
+                .cmp(failureBlock, IF_ICMPEQ);
+
+        // If the string can only have one length, no match ending later can start earlier
+        if (hasFixedLength()) {
+            block.readThis()
+                    .readVar(vars, "earliestEnd", "I")
+                    .setField(NEXT_START_FIELD, getClassName(), "I");
+            block.readVar(vars, "earliestEnd", "I")
+                    .push(factorization.getMinLength())
+                    .operate(ISUB)
+                    .readVar(vars, "earliestEnd", "I")
+                    .callStatic("success", "com/justinblank/strings/MatchResult", "(II)Lcom/justinblank/strings/MatchResult;")
+                    .addReturn(ARETURN);
+            return method;
+        }
+
+        block.readThis()
+                .readVar(vars, "earliestEnd", "I")
+                .readVar(vars, MatchingVars.INDEX, "I")
+                .call(INDEX_FACTOR_START, getClassName(), "(II)I")
+                .setVar(vars, MatchingVars.INDEX, "I");
+
+        // The match the unanchored DFA found guarantees that there is a leftmost-longest match
+        block.readThis()
+                .readVar(vars, MatchingVars.INDEX, "I")
+                .call(INDEX_LEFTMOST_END, getClassName(), "(I)I")
+                .setVar(vars, "matchEnd", "I");
+        block.readThis()
+                .readVar(vars, "matchEnd", "I")
+                .setField(NEXT_START_FIELD, getClassName(), "I");
+        block.readThis()
+                .readVar(vars, "matchEnd", "I")
+                .readVar(vars, MatchingVars.INDEX, "I")
+                .call(INDEX_MATCH_START, getClassName(), "(II)I")
+                .readVar(vars, "matchEnd", "I")
+                .callStatic("success", "com/justinblank/strings/MatchResult", "(II)Lcom/justinblank/strings/MatchResult;")
+                .addReturn(ARETURN);
+        return method;
+    }
+
+    /**
+     * Run the unanchored DFA from the given index, returning the index just past the end of the earliest match, or -1
+     * if there is none.
+     */
+    private Method createEarliestEndMethod() {
+        var vars = new MatchingVars(2, 1, 3, 4, 5);
+        var method = mkMethod(INDEX_EARLIEST_END, List.of("I"), "I", vars);
+        var setupBlock = method.addBlock();
+        var seekBlock = method.addBlock();
+        var factorStartBlock = method.addBlock();
+        var loopBlock = method.addBlock();
+        var successBlock = method.addBlock();
+        successBlock.readVar(vars, MatchingVars.INDEX, "I").addReturn(IRETURN);
+        var failureBlock = addFailureBlock(method, -1);
+        int hitEndVar = 6;
+        int lastHitEndVar = 7;
+
+        addReadStringLength(vars, setupBlock);
+        setupBlock.readThis()
+                .readField(STRING_FIELD, true, CompilerUtil.STRING_DESCRIPTOR)
+                .setVar(vars, MatchingVars.STRING, CompilerUtil.STRING_DESCRIPTOR)
+                .push(0)
+                .setVar(vars, MatchingVars.STATE, "I");
+
+        // Every match starts with the prefix, so at the root, we can skip to the next occurrence of its first char, or
+        // of the whole prefix if it's long enough to search for backwards
+        if (shouldSeek()) {
+            seekBlock.readVar(vars, MatchingVars.STATE, "I")
+                    .jump(loopBlock, IFNE);
+            if (usesPrefixSearch()) {
+                seekBlock.readStatic(PREFIX_SEARCH_FIELD, true, BNDM_DESCRIPTOR)
+                        .readVar(vars, MatchingVars.STRING, CompilerUtil.STRING_DESCRIPTOR)
+                        .readVar(vars, MatchingVars.INDEX, "I")
+                        .call("indexOf", BNDM_CLASS, "(Ljava/lang/String;I)I");
+            }
+            else {
+                seekBlock.readVar(vars, MatchingVars.STRING, CompilerUtil.STRING_DESCRIPTOR)
+                        .push(factorization.getSharedPrefix().get().charAt(0))
+                        .readVar(vars, MatchingVars.INDEX, "I")
+                        .call("indexOf", "java/lang/String", "(II)I");
+            }
+            seekBlock.setVar(vars, MatchingVars.INDEX, "I")
+                    .readVar(vars, MatchingVars.INDEX, "I")
+                    .push(-1)
+                    .cmp(failureBlock, IF_ICMPEQ);
+        }
+        // Every match contains the literal, so at the root, no match can start before the earliest index from which
+        // the text up to the end of its next occurrence is still a substring of a match. We remember the last
+        // occurrence we walked back from, so we never walk back from the same one twice.
+        else if (requiredFactor().isPresent()) {
+            var literal = requiredFactor().get();
+            setupBlock.push(-1).setVar(lastHitEndVar, "I");
+            seekBlock.readVar(vars, MatchingVars.STATE, "I")
+                    .jump(loopBlock, IFNE);
+            if (usesFactorSearch()) {
+                seekBlock.readStatic(FACTOR_SEARCH_FIELD, true, BNDM_DESCRIPTOR)
+                        .readVar(vars, MatchingVars.STRING, CompilerUtil.STRING_DESCRIPTOR)
+                        .readVar(vars, MatchingVars.INDEX, "I")
+                        .call("indexOf", BNDM_CLASS, "(Ljava/lang/String;I)I");
+            }
+            else {
+                seekBlock.readVar(vars, MatchingVars.STRING, CompilerUtil.STRING_DESCRIPTOR)
+                        .push(literal)
+                        .readVar(vars, MatchingVars.INDEX, "I")
+                        .call("indexOf", "java/lang/String", "(Ljava/lang/String;I)I");
+            }
+            seekBlock.setVar(hitEndVar, "I")
+                    .readVar(hitEndVar, "I")
+                    .push(-1)
+                    .cmp(failureBlock, IF_ICMPEQ)
+                    .readVar(hitEndVar, "I")
+                    .push(literal.length())
+                    .operate(IADD)
+                    .setVar(hitEndVar, "I")
+                    .readVar(hitEndVar, "I")
+                    .readVar(lastHitEndVar, "I")
+                    .cmp(loopBlock, IF_ICMPEQ);
+            factorStartBlock.readVar(hitEndVar, "I")
+                    .setVar(lastHitEndVar, "I")
+                    .readThis()
+                    .readVar(hitEndVar, "I")
+                    .readVar(vars, MatchingVars.INDEX, "I")
+                    .call(INDEX_FACTOR_START, getClassName(), "(II)I")
+                    .setVar(vars, MatchingVars.INDEX, "I");
+        }
+        // Only a few chars leave the root, so we can skip to the next of them
+        else if (rootScanChars().isPresent()) {
+            seekBlock.readVar(vars, MatchingVars.STATE, "I")
+                    .jump(loopBlock, IFNE)
+                    .readStatic(ROOT_SCANNER_FIELD, true, SCANNER_DESCRIPTOR)
+                    .readVar(vars, MatchingVars.STRING, CompilerUtil.STRING_DESCRIPTOR)
+                    .readVar(vars, MatchingVars.INDEX, "I")
+                    .readVar(vars, MatchingVars.LENGTH, "I")
+                    .call("indexOf", SCANNER_CLASS, "(Ljava/lang/String;II)I")
+                    .setVar(vars, MatchingVars.INDEX, "I")
+                    .readVar(vars, MatchingVars.INDEX, "I")
+                    .push(-1)
+                    .cmp(failureBlock, IF_ICMPEQ);
+        }
+
+        loopBlock.addOperation(Operation.checkBounds(failureBlock));
+        loopBlock.addOperation(Operation.mkReadChar());
+        loopBlock.setVar(vars, MatchingVars.CHAR, "C");
+        loopBlock.addOperation(Operation.mkOperation(Operation.Inst.INCREMENT_INDEX));
+        loopBlock.readThis()
+                .readVar(vars, MatchingVars.CHAR, "C")
+                .readVar(vars, MatchingVars.STATE, "I")
+                .call(TRANSITION_UNANCHORED, getClassName(), "(CI)I")
+                .setVar(vars, MatchingVars.STATE, "I")
+                .readVar(vars, MatchingVars.STATE, "I")
+                .push(unanchoredAcceptingState())
+                .cmp(successBlock, IF_ICMPEQ)
+                .jump(seekBlock, GOTO);
+        return method;
+    }
+
+    /**
+     * Walk backwards from the given index with the reversed factors DFA, returning the earliest index, no lower than
+     * the given bound, such that the string between it and the given index is still a substring of some match.
+     */
+    private Method createFactorStartMethod() {
+        var vars = new MatchingVars(3, 1, 4, 5, 6);
+        vars.setForwards(false);
+        int lowerBoundVar = 2;
+        var method = mkMethod(INDEX_FACTOR_START, List.of("I", "I"), "I", vars);
+        var setupBlock = method.addBlock();
+        var loopBlock = method.addBlock();
+        var deadBlock = method.addBlock();
+        var returnBlock = method.addBlock();
+
+        setupBlock.readThis()
+                .readField(STRING_FIELD, true, CompilerUtil.STRING_DESCRIPTOR)
+                .setVar(vars, MatchingVars.STRING, CompilerUtil.STRING_DESCRIPTOR)
+                .push(0)
+                .setVar(vars, MatchingVars.STATE, "I");
+
+        loopBlock.readVar(vars, MatchingVars.INDEX, "I")
+                .readVar(lowerBoundVar, "I")
+                .cmp(returnBlock, IF_ICMPLE)
+                .addOperation(Operation.mkOperation(Operation.Inst.DECREMENT_INDEX));
+        loopBlock.addOperation(Operation.mkReadChar());
+        loopBlock.setVar(vars, MatchingVars.CHAR, "C")
+                .readThis()
+                .readVar(vars, MatchingVars.CHAR, "C")
+                .readVar(vars, MatchingVars.STATE, "I")
+                .call(TRANSITION_FACTORS, getClassName(), "(CI)I")
+                .setVar(vars, MatchingVars.STATE, "I")
+                .readVar(vars, MatchingVars.STATE, "I")
+                .push(-1)
+                .cmp(loopBlock, IF_ICMPNE);
+
+        // The character we just read was not part of the substring
+        deadBlock.addOperation(Operation.mkOperation(Operation.Inst.INCREMENT_INDEX));
+        returnBlock.readVar(vars, MatchingVars.INDEX, "I").addReturn(IRETURN);
+        return method;
+    }
+
+    /**
+     * Run the leftmost-longest DFA from the given index, returning the index just past the end of the leftmost-longest
+     * match, or -1 if there is none. The DFA's accepting states are numbered last, so the loop only compares the state
+     * against the first of them.
+     */
+    private Method createLeftmostEndMethod() {
+        var vars = new MatchingVars(2, 1, 3, 4, 5);
+        vars.setLastMatchVar(6);
+        var method = mkMethod(INDEX_LEFTMOST_END, List.of("I"), "I", vars);
+        var setupBlock = method.addBlock();
+        var loopBlock = method.addBlock();
+        var postTransitionBlock = method.addBlock();
+        var setMatchBlock = method.addBlock();
+        var returnBlock = method.addBlock();
+        returnBlock.readVar(vars, MatchingVars.LAST_MATCH, "I").addReturn(IRETURN);
+
+        int firstAccepting = leftmostLongest.statesCount() - leftmostLongest.accepting.get(1,
+                leftmostLongest.statesCount()).cardinality();
+        addReadStringLength(vars, setupBlock);
+        setupBlock.readThis()
+                .readField(STRING_FIELD, true, CompilerUtil.STRING_DESCRIPTOR)
+                .setVar(vars, MatchingVars.STRING, CompilerUtil.STRING_DESCRIPTOR)
+                .push(0)
+                .setVar(vars, MatchingVars.STATE, "I");
+        if (leftmostLongest.isAccepting(0)) {
+            setupBlock.readVar(vars, MatchingVars.INDEX, "I");
+        }
+        else {
+            setupBlock.push(-1);
+        }
+        setupBlock.setVar(vars, MatchingVars.LAST_MATCH, "I");
+
+        loopBlock.addOperation(Operation.checkBounds(returnBlock));
+        loopBlock.addOperation(Operation.mkReadChar());
+        loopBlock.setVar(vars, MatchingVars.CHAR, "C");
+        loopBlock.addOperation(Operation.mkOperation(Operation.Inst.INCREMENT_INDEX));
+        loopBlock.readThis()
+                .readVar(vars, MatchingVars.CHAR, "C")
+                .readVar(vars, MatchingVars.STATE, "I")
+                .call(TRANSITION_LEFTMOST, getClassName(), "(CI)I")
+                .setVar(vars, MatchingVars.STATE, "I")
+                .readVar(vars, MatchingVars.STATE, "I")
+                .push(-1)
+                .cmp(returnBlock, IF_ICMPEQ);
+        postTransitionBlock.readVar(vars, MatchingVars.STATE, "I")
+                .push(firstAccepting)
+                .cmp(setMatchBlock, IF_ICMPGE);
+        if (leftmostLongest.isAccepting(0)) {
+            postTransitionBlock.readVar(vars, MatchingVars.STATE, "I")
+                    .jump(setMatchBlock, IFEQ);
+        }
+        postTransitionBlock.jump(loopBlock, GOTO);
+
+        setMatchBlock.readVar(vars, MatchingVars.INDEX, "I")
+                .setVar(vars, MatchingVars.LAST_MATCH, "I");
+        // Once we reach the accepting sink, the match extends to the end of the string
+        leftmostLongest.toDFA().acceptingSink().ifPresent(sink -> {
+            var sinkBlock = method.addBlock();
+            sinkBlock.readVar(vars, MatchingVars.LENGTH, "I")
+                    .addReturn(IRETURN);
+            setMatchBlock.readVar(vars, MatchingVars.STATE, "I")
+                    .push(sink.getStateNumber())
+                    .cmp(sinkBlock, IF_ICMPEQ);
+        });
+        setMatchBlock.jump(loopBlock, GOTO);
+        return method;
+    }
+
+    /**
+     * Walk backwards from the end of a match with the reversed DFA, returning the earliest index, no lower than the
+     * given bound, such that the string between it and the end is a match.
+     */
+    private Method createMatchStartMethod() {
+        var vars = new MatchingVars(3, 1, 4, 5, 6);
+        vars.setForwards(false);
+        vars.setLastMatchVar(7);
+        int lowerBoundVar = 2;
+        var method = mkMethod(INDEX_MATCH_START, List.of("I", "I"), "I", vars);
+        var setupBlock = method.addBlock();
+        var loopBlock = method.addBlock();
+        var postCallStateBlock = method.addBlock();
+        var setMatchBlock = method.addBlock();
+        var returnBlock = method.addBlock();
+        returnBlock.readVar(vars, MatchingVars.LAST_MATCH, "I").addReturn(IRETURN);
+
+        setupBlock.readThis()
+                .readField(STRING_FIELD, true, CompilerUtil.STRING_DESCRIPTOR)
+                .setVar(vars, MatchingVars.STRING, CompilerUtil.STRING_DESCRIPTOR)
+                .push(0)
+                .setVar(vars, MatchingVars.STATE, "I");
+        if (reversed.isAccepting()) {
+            setupBlock.readVar(vars, MatchingVars.INDEX, "I");
+        }
+        else {
+            setupBlock.push(-1);
+        }
+        setupBlock.setVar(vars, MatchingVars.LAST_MATCH, "I");
+
+        loopBlock.readVar(vars, MatchingVars.INDEX, "I")
+                .readVar(lowerBoundVar, "I")
+                .cmp(returnBlock, IF_ICMPLE)
+                .addOperation(Operation.mkOperation(Operation.Inst.DECREMENT_INDEX));
+        loopBlock.addOperation(Operation.mkReadChar());
+        loopBlock.setVar(vars, MatchingVars.CHAR, "C");
+        loopBlock.readThis();
+        loopBlock.readVar(vars.charVar, "I");
+        loopBlock.readVar(vars, STATE_FIELD, "I");
+        loopBlock.addOperation(Operation.mkCallState(postCallStateBlock));
+
+        postCallStateBlock.setVar(vars, MatchingVars.STATE, "I")
+                .readVar(vars, MatchingVars.STATE, "I")
+                .push(-1)
+                .cmp(returnBlock, IF_ICMPEQ)
+                .readThis()
+                .readVar(vars, MatchingVars.STATE, "I")
+                .call(WAS_ACCEPTED_BACKWARDS_METHOD, getClassName(), "(I)Z")
+                .jump(loopBlock, IFEQ);
+
+        setMatchBlock.readVar(vars, MatchingVars.INDEX, "I")
+                .setVar(vars, MatchingVars.LAST_MATCH, "I")
+                .jump(loopBlock, GOTO);
+        return method;
+    }
+
     private void addConstructor() {
         var vars = new MatchingVars(-1, -1, -1, -1, 1);
         var method = mkMethod("<init>", Arrays.asList(CompilerUtil.STRING_DESCRIPTOR), "V", vars);
@@ -205,6 +736,32 @@ public class DFAClassBuilder extends ClassBuilder {
         addField(new Field(ACC_PRIVATE, STATE_FIELD, "I", null, 0));
         addField(new Field(ACC_PRIVATE, NEXT_START_FIELD, "I", null, 0));
         addField(new Field(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, "CONTAINED_IN_FAILURE", "I", null, -2));
+        if (usesPrefixSearch()) {
+            addLiteralSearchField(PREFIX_SEARCH_FIELD, seekPrefix().get());
+        }
+        if (usesFactorSearch()) {
+            addLiteralSearchField(FACTOR_SEARCH_FIELD, requiredFactor().get());
+        }
+        if (shouldSeek() && !usesPrefixSearch()) {
+            addScannerField(SEEK_SCANNER_FIELD, factorization.getSharedPrefix().get().substring(0, 1));
+        }
+        rootScanChars().ifPresent(chars -> addScannerField(ROOT_SCANNER_FIELD, chars));
+    }
+
+    private void addScannerField(String name, String chars) {
+        addField(new Field(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, name, SCANNER_DESCRIPTOR, null, null));
+        addStaticBlock()
+                .push(chars)
+                .callStatic("forChars", SCANNER_CLASS, "(Ljava/lang/String;)" + SCANNER_DESCRIPTOR)
+                .putStatic(name, true, SCANNER_DESCRIPTOR);
+    }
+
+    private void addLiteralSearchField(String name, String literal) {
+        addField(new Field(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, name, BNDM_DESCRIPTOR, null, null));
+        addStaticBlock()
+                .push(literal)
+                .callStatic("forLiteral", BNDM_CLASS, "(Ljava/lang/String;)" + BNDM_DESCRIPTOR)
+                .putStatic(name, true, BNDM_DESCRIPTOR);
     }
 
     private void addWasAcceptedMethod(boolean backwards) {
@@ -251,26 +808,26 @@ public class DFAClassBuilder extends ClassBuilder {
         }
     }
 
-    void addStateMethods(DFA dfa) {
-        for (int i = 0; i < dfa.statesCount(); i++) {
+    void addStateMethods() {
+        var statesCount = compactDFA.statesCount();
+        for (int state = 0; state < statesCount; state++) {
             stateMethods.add(null);
+            addStateMethod(compactDFA, state, true);
         }
-        for (var i = 0; i < reversed.statesCount(); i++) {
-            backwardsStateMethods.add(null);
-        }
-        for (DFA dfaState : dfa.allStates()) {
-            addStateMethod(dfaState, true);
-        }
-        for (DFA dfaState : reversed.allStates()) {
-            addStateMethod(dfaState, false);
-        }
-        var statesCount = dfa.statesCount();
         if (statesCount > LARGE_STATE_COUNT) {
             for (var i = 0; i < statesCount; i += LARGE_STATE_COUNT) {
                 addStateGroupMethod(i, Math.min(i + LARGE_STATE_COUNT, statesCount), true);
             }
         }
-        var reversedStateCount = reversed.statesCount();
+        // The unanchored search only needs the reversed DFA to find where matches of varying length start
+        if (usesUnanchoredSearch() && hasFixedLength()) {
+            return;
+        }
+        var reversedStateCount = compactReversed.statesCount();
+        for (var state = 0; state < reversedStateCount; state++) {
+            backwardsStateMethods.add(null);
+            addStateMethod(compactReversed, state, false);
+        }
         if (reversedStateCount > LARGE_STATE_COUNT) {
             for (var i = 0; i < reversedStateCount; i += LARGE_STATE_COUNT) {
                 addStateGroupMethod(i, Math.min(i + LARGE_STATE_COUNT, reversedStateCount), false);
@@ -278,6 +835,41 @@ public class DFAClassBuilder extends ClassBuilder {
         }
     }
 
+    /**
+     * Add a state method for each state of a DFA used only for searching, along with a method that dispatches to them
+     * by state number.
+     *
+     * @param searchDFA the DFA
+     * @param prefix the prefix of the state method names
+     * @param transitionName the name of the dispatching method
+     * @param noTransitionValue the value returned when a state has no transition for a character
+     */
+    private void addSearchStateMethods(CompactDFA searchDFA, String prefix, String transitionName,
+                                       int noTransitionValue) {
+        var methods = new ArrayList<Method>();
+        for (int state = 0; state < searchDFA.statesCount(); state++) {
+            var method = mkMethod(prefix + state, List.of("C"), "I", new MatchingVars(1, -1, -1, -1, -1));
+            methods.add(method);
+            var charBlock = method.addBlock();
+            var failBlock = method.addBlock();
+            failBlock.push(noTransitionValue);
+            failBlock.addReturn(IRETURN);
+            charBlock.operations.add(CheckCharsOperation.checkChars(searchDFA, state, failBlock, null));
+        }
+
+        var method = mkMethod(transitionName, List.of("C", "I"), "I");
+        var mainBlock = method.addBlock();
+        mainBlock.readThis().readVar(1, "C").readVar(2, "I");
+        var switchBlocks = new ArrayList<Block>();
+        for (var stateMethod : methods) {
+            var block = method.addBlock();
+            switchBlocks.add(block);
+            block.call(stateMethod.methodName, getClassName(), "(C)I");
+            block.addReturn(IRETURN);
+        }
+        mainBlock.addOperation(Operation.mkTableSwitch(switchBlocks, switchBlocks.get(0), 0, switchBlocks.size() - 1));
+    }
+
     private void addStateGroupMethod(int start, int end, boolean forwards) {
         String name = stateGroupName(start, forwards);
         var method = mkMethod(name, List.of("C", "I"),"I");
@@ -313,27 +905,27 @@ public class DFAClassBuilder extends ClassBuilder {
         return "state" + (forwards ? "" : "Backwards") + state;
     }
 
-    boolean usesOffsetCalculation(int stateNumber) {
-        return forwardOffsets.containsKey(stateNumber) && isUsefulOffset(forwardOffsets.get(stateNumber));
+    boolean usesLookahead(int stateNumber) {
+        return forwardLookaheads.containsKey(stateNumber);
     }
 
-    private void addStateMethod(DFA dfaState, boolean forwards) {
-        String name = stateMethodName(dfaState.getStateNumber(), forwards);
+    private void addStateMethod(CompactDFA compact, int state, boolean forwards) {
+        String name = stateMethodName(state, forwards);
         List<String> arguments = Arrays.asList("C"); // dfa.hasSelfTransition() ? Arrays.asList("C", "I") : Arrays.asList("C");
         MatchingVars vars = new MatchingVars(1, -1, -1, -1, -1);
         var method = mkMethod(name, arguments, "I", vars);
         if (forwards) {
-            stateMethods.set(dfaState.getStateNumber(), method);
+            stateMethods.set(state, method);
         } else {
-            backwardsStateMethods.set(dfaState.getStateNumber(), method);
+            backwardsStateMethods.set(state, method);
         }
 
         Block charBlock = method.addBlock();
 
-        // So long as we only use the backwards methods to get the starting index of a found substring, checking offsets
-        // would be redundant
-        var offset = forwards ? forwardOffsets.get(dfaState.getStateNumber()) : null;
-        if (isUsefulOffset(offset)) {
+        // So long as we only use the backwards methods to get the starting index of a found substring, checking
+        // lookaheads would be redundant
+        var lookahead = forwards ? forwardLookaheads.get(state) : null;
+        if (lookahead != null) {
             var successBlock = method.addBlock();
 
             var prefailBlock = method.addBlock();
@@ -342,59 +934,87 @@ public class DFAClassBuilder extends ClassBuilder {
             failBlock.push(-1);
             failBlock.addReturn(IRETURN);
 
-            successBlock
-                    .readThis()
-                    .readField(INDEX_FIELD, true, "I")
-                    // -1, because we've incremented the value earlier
-                    // TODO: this can end up doing an IADD with value 0
-                    .push(offset.length - 1)
-                    .operate(IADD)
-                    .readThis()
-                    .readField(LENGTH_FIELD, true, "I")
-                    .jump(prefailBlock, IF_ICMPGE)
-                    .readThis()
-                    .readField(INDEX_FIELD, true, "I")
-                    .push(offset.length - 1)
-                    .operate(IADD)
-                    .readThis()
+            addLookaheadChecks(method, vars, lookahead, successBlock, prefailBlock);
+            charBlock.operations.add(CheckCharsOperation.checkChars(compact, state, failBlock, successBlock));
+        } else {
+            var failBlock = method.addBlock();
+            failBlock.push(-1);
+            failBlock.addReturn(IRETURN);
+            charBlock.operations.add(CheckCharsOperation.checkChars(compact, state, failBlock, null));
+        }
+
+    }
+
+    /**
+     * Check each position of the lookahead, jumping to the failure block as soon as one is outside its char set. The
+     * next state is on the stack throughout, and is returned if every check passes.
+     */
+    private void addLookaheadChecks(Method method, MatchingVars vars, Lookahead lookahead, Block successBlock,
+                                    Block prefailBlock) {
+        // index has already been incremented past the character we consumed, so position n is at index + n - 1
+        successBlock
+                .readThis()
+                .readField(INDEX_FIELD, true, "I")
+                .push(lookahead.maxPosition() - 1)
+                .operate(IADD)
+                .readThis()
+                .readField(LENGTH_FIELD, true, "I")
+                .jump(prefailBlock, IF_ICMPGE);
+
+        var block = successBlock;
+        for (var i = 0; i < lookahead.positions.length; i++) {
+            var chars = lookahead.charSets[i];
+            block.readThis()
                     .readField(STRING_FIELD, true, CompilerUtil.STRING_DESCRIPTOR)
-                    .operate(SWAP) // GROSS
-                    .call("charAt", "java/lang/String", "(I)C")
+                    .readThis()
+                    .readField(INDEX_FIELD, true, "I");
+            if (lookahead.positions[i] > 1) {
+                block.push(lookahead.positions[i] - 1).operate(IADD);
+            }
+            block.call("charAt", "java/lang/String", "(I)C")
                     .setVar(vars, MatchingVars.CHAR, "C");
-            if (offset.charRange.isSingleCharRange()) {
-                successBlock.readVar(vars, MatchingVars.CHAR, "C");
 
-                successBlock.push(offset.charRange.getStart())
+            var nextBlock = method.addBlockAfter(block);
+            if (chars.cardinality() == 1) {
+                block.readVar(vars, MatchingVars.CHAR, "C")
+                        .push(chars.nextSetBit(0))
                         .jump(prefailBlock, IF_ICMPNE);
-            } else {
-                successBlock.
-                        readVar(vars, MatchingVars.CHAR, "C")
-                        .push(offset.charRange.getStart())
-                        .jump(prefailBlock, IF_ICMPLE)
+            } else if (Lookahead.usesMask(chars)) {
+                int start = chars.nextSetBit(0);
+                block.readVar(vars, MatchingVars.CHAR, "C")
+                        .push(start)
+                        .jump(prefailBlock, IF_ICMPLT)
                         .readVar(vars, MatchingVars.CHAR, "C")
-                        .push(offset.charRange.getEnd())
-                        .jump(prefailBlock, IF_ICMPGT);
+                        .push(chars.length() - 1)
+                        .jump(prefailBlock, IF_ICMPGT)
+                        .push(Lookahead.mask(chars))
+                        .readVar(vars, MatchingVars.CHAR, "C")
+                        .push(start)
+                        .operate(ISUB)
+                        .operate(IUSHR)
+                        .push(1)
+                        .operate(IAND)
+                        .jump(prefailBlock, IFEQ);
+            } else {
+                for (var range : Lookahead.ranges(chars)) {
+                    block.readVar(vars, MatchingVars.CHAR, "C")
+                            .push(range.getStart())
+                            .jump(prefailBlock, IF_ICMPLT)
+                            .readVar(vars, MatchingVars.CHAR, "C")
+                            .push(range.getEnd())
+                            .jump(nextBlock, IF_ICMPLE);
+                }
+                block.jump(prefailBlock, GOTO);
             }
-            successBlock.addReturn(IRETURN);
-            charBlock.operations.add(CheckCharsOperation.checkChars(dfaState, failBlock, successBlock));
-        } else {
-            var failBlock = method.addBlock();
-            failBlock.push(-1);
-            failBlock.addReturn(IRETURN);
-            charBlock.operations.add(CheckCharsOperation.checkChars(dfaState, failBlock, null));
+            block = nextBlock;
         }
-
+        block.addReturn(IRETURN);
     }
 
     private boolean shouldSeek() {
         return factorization.getSharedPrefix().map(StringUtils::isNotEmpty).orElse(false);
     }
 
-    // TODO: measure breakeven point for offsets
-    static boolean isUsefulOffset(Offset offset) {
-        return offset != null && offset.length > 1;
-    }
-
     private Method createMatchesMethod() {
         var vars = new MatchingVars(1, 2, 3, 4, 5);
         var method = mkMethod("matches", new ArrayList<>(), "Z", vars);
@@ -442,16 +1062,34 @@ public class DFAClassBuilder extends ClassBuilder {
         head.readField(LENGTH_FIELD, true, "I");
         head.setVar(vars, MatchingVars.LENGTH, "I");
 
-        prefix = getEffectivePrefix(prefix, false);
-        char needle = prefix.charAt(0);
-        body.addOperation(Operation.checkBounds(failure));
-        body.push(needle);
-        body.addOperation(Operation.mkReadChar());
-        body.addOperation(Operation.mkOperation(Operation.Inst.INCREMENT_INDEX));
-        body.cmp(body, IF_ICMPNE);
+        // No match can start where the whole prefix doesn't occur, so if it's long enough we skip to its next
+        // occurrence, and otherwise to the next occurrence of its first char
+        if (usesPrefixSearch()) {
+            head.readStatic(PREFIX_SEARCH_FIELD, true, BNDM_DESCRIPTOR)
+                    .readThis()
+                    .readField(STRING_FIELD, true, CompilerUtil.STRING_DESCRIPTOR)
+                    .readVar(vars, MatchingVars.INDEX, "I")
+                    .call("indexOf", BNDM_CLASS, "(Ljava/lang/String;I)I");
+        }
+        else {
+            head.readStatic(SEEK_SCANNER_FIELD, true, SCANNER_DESCRIPTOR)
+                    .readThis()
+                    .readField(STRING_FIELD, true, CompilerUtil.STRING_DESCRIPTOR)
+                    .readVar(vars, MatchingVars.INDEX, "I")
+                    .readVar(vars, MatchingVars.LENGTH, "I")
+                    .call("indexOf", SCANNER_CLASS, "(Ljava/lang/String;II)I");
+        }
+        head.setVar(vars, MatchingVars.INDEX, "I")
+                .readVar(vars, MatchingVars.INDEX, "I")
+                .push(-1)
+                .cmp(failure, IF_ICMPEQ);
 
-        body.readVar(vars, MatchingVars.INDEX, "I");
-        body.addReturn(IRETURN);
+        // The caller continues from the state after the first char, so we consume it
+        body.addOperation(Operation.checkBounds(failure));
+        body.readVar(vars, MatchingVars.INDEX, "I")
+                .push(1)
+                .operate(IADD)
+                .addReturn(IRETURN);
         failure.push(-1);
         failure.addReturn(IRETURN);
         return method;
@@ -474,6 +1112,7 @@ public class DFAClassBuilder extends ClassBuilder {
             head.readVar(vars, MatchingVars.STATE, "I");
             head.push(-1);
             head.cmp(failTarget, IF_ICMPEQ);
+            addMatchesSinkChecks(vars, method, head, returnBlock, failTarget);
         } else if (isGreedy) {
             head = method.addBlockAfter(head);
             loopPreface.push(-1);
@@ -512,7 +1151,7 @@ public class DFAClassBuilder extends ClassBuilder {
         head.readVar(vars.charVar, "I");
         head.readVar(vars, STATE_FIELD, "I");
         var stateOp = Operation.mkCallState(postCallStateBlock);
-        stateOp.addAttribute(OFFSETS_ATTRIBUTE, forwardOffsets);
+        stateOp.addAttribute(LOOKAHEADS_ATTRIBUTE, forwardLookaheads);
         head.addOperation(stateOp);
 
         // If we're doing a containedIn style match, we have to reconsider the initial state whenever we hit a failure
@@ -547,8 +1186,8 @@ public class DFAClassBuilder extends ClassBuilder {
             }
             stateResetBlock.push(-1).readVar(vars, MatchingVars.STATE, "I").jump(postCallStateBlock, IF_ICMPNE);
             stateResetBlock.push(0).setVar(vars, MatchingVars.STATE, "I");
-            // We have to have index set as a field to handle an offset state
-            if (forwardOffsets.containsKey(0) && isUsefulOffset(forwardOffsets.get(0))) {
+            // We have to have index set as a field to handle a state with a lookahead
+            if (usesLookahead(0)) {
                 stateResetBlock
                         .readThis()
                         .readVar(vars, MatchingVars.INDEX, "I")
@@ -588,6 +1227,7 @@ public class DFAClassBuilder extends ClassBuilder {
                 var setMatchBlock = method.addBlock();
                 setMatchBlock.readVar(vars, MatchingVars.INDEX, "I");
                 setMatchBlock.setVar(vars, MatchingVars.LAST_MATCH, "I");
+                addGreedySinkChecks(vars, method, setMatchBlock, returnBlock);
                 setMatchBlock.jump(head, GOTO);
 
                 postCallStateBlock.jump(setMatchBlock, Opcodes.IFNE);
@@ -601,6 +1241,62 @@ public class DFAClassBuilder extends ClassBuilder {
         }
     }
 
+    /**
+     * Once the matches loop reaches the accepting sink, the rest of the string can't change the result, and once it
+     * reaches a terminal state, only the remaining length matters.
+     */
+    private void addMatchesSinkChecks(MatchingVars vars, Method method, Block head, Block returnBlock,
+                                      Block failTarget) {
+        if (dfa == null) {
+            return;
+        }
+        dfa.acceptingSink().ifPresent(sink -> head
+                .readVar(vars, MatchingVars.STATE, "I")
+                .push(sink.getStateNumber())
+                .cmp(returnBlock, IF_ICMPEQ));
+        var terminalStates = dfa.terminalStates();
+        if (terminalStates.size() == 1 && terminalStates.get(0).isAccepting()) {
+            var terminalBlock = method.addBlock();
+            terminalBlock.readVar(vars, MatchingVars.INDEX, "I")
+                    .readVar(vars, MatchingVars.LENGTH, "I")
+                    .cmp(failTarget, IF_ICMPNE)
+                    .jump(returnBlock, GOTO);
+            head.readVar(vars, MatchingVars.STATE, "I")
+                    .push(terminalStates.get(0).getStateNumber())
+                    .cmp(terminalBlock, IF_ICMPEQ);
+        }
+    }
+
+    /**
+     * In a greedy search, reaching the accepting sink means the match extends to the end of the string, and reaching a
+     * terminal state means the match we just recorded can't be extended.
+     */
+    private void addGreedySinkChecks(MatchingVars vars, Method method, Block setMatchBlock, Block returnBlock) {
+        var currentDFA = vars.forwards ? dfa : reversed;
+        if (currentDFA == null) {
+            return;
+        }
+        currentDFA.acceptingSink().ifPresent(sink -> {
+            var sinkBlock = method.addBlock();
+            if (vars.forwards) {
+                sinkBlock.readVar(vars, MatchingVars.LENGTH, "I");
+            } else {
+                sinkBlock.push(0);
+            }
+            sinkBlock.setVar(vars, MatchingVars.LAST_MATCH, "I")
+                    .jump(returnBlock, GOTO);
+            setMatchBlock.readVar(vars, MatchingVars.STATE, "I")
+                    .push(sink.getStateNumber())
+                    .cmp(sinkBlock, IF_ICMPEQ);
+        });
+        var terminalStates = currentDFA.terminalStates();
+        if (terminalStates.size() == 1) {
+            setMatchBlock.readVar(vars, MatchingVars.STATE, "I")
+                    .push(terminalStates.get(0).getStateNumber())
+                    .cmp(returnBlock, IF_ICMPEQ);
+        }
+    }
+
     protected void addMatchesPrefaceBlock(MatchingVars vars, Block initialBlock, Block failureBlock) {
 
         addReadStringLength(vars, initialBlock);
@@ -718,6 +1414,11 @@ public class DFAClassBuilder extends ClassBuilder {
     }
 
     public static DFAClassBuilder build(String name, DFA dfa, Node node) {
+        Objects.requireNonNull(node, "node cannot be null");
+        return build(name, dfa, node, SearchDFAs.build(node));
+    }
+
+    static DFAClassBuilder build(String name, DFA dfa, Node node, SearchDFAs searchDFAs) {
         Objects.requireNonNull(name, "name cannot be null");
         Objects.requireNonNull(dfa, "dfa cannot be null");
         Objects.requireNonNull(node, "node cannot be null");
@@ -726,13 +1427,47 @@ public class DFAClassBuilder extends ClassBuilder {
         factorization.setMinLength(node.minLength());
         node.maxLength().ifPresent(factorization::setMaxLength);
 
-        DFA dfaReversed = NFAToDFACompiler.compile(new NFA(RegexInstrBuilder.createNFA(node.reversed())));
-
-        var builder = new DFAClassBuilder(name, "java/lang/Object", new String[]{"com/justinblank/strings/Matcher"}, dfa, dfaReversed, factorization);
+        var builder = new DFAClassBuilder(name, "java/lang/Object", new String[]{"com/justinblank/strings/Matcher"},
+                dfa, searchDFAs.reversed, searchDFAs.unanchored, searchDFAs.reversedFactors,
+                searchDFAs.leftmostLongest, factorization);
         builder.initMethods();
         return builder;
     }
 
+    /**
+     * The DFAs that find and containedIn use, besides the forwards DFA: the reversed DFA, and the unanchored,
+     * reversed factors and leftmost-longest DFAs, each of which is null if it would have too many states or isn't
+     * needed.
+     */
+    static class SearchDFAs {
+
+        final DFA reversed;
+        final DFA unanchored;
+        final DFA reversedFactors;
+        final DFA leftmostLongest;
+
+        private SearchDFAs(DFA reversed, DFA unanchored, DFA reversedFactors, DFA leftmostLongest) {
+            this.reversed = reversed;
+            this.unanchored = unanchored;
+            this.reversedFactors = reversedFactors;
+            this.leftmostLongest = leftmostLongest;
+        }
+
+        static SearchDFAs build(Node node) {
+            var reversedNFA = new NFA(RegexInstrBuilder.createNFA(node.reversed()));
+            DFA dfaReversed = NFAToDFACompiler.compile(reversedNFA);
+            DFA unanchored = NFAToDFACompiler.compileUnanchored(new NFA(RegexInstrBuilder.createNFA(node)),
+                    MAX_SEARCH_DFA_STATES).orElse(null);
+            DFA reversedFactors = unanchored == null ? null :
+                    NFAToDFACompiler.compileFactors(reversedNFA, MAX_SEARCH_DFA_STATES).orElse(null);
+            boolean fixedLength = node.maxLength().filter(max -> max == node.minLength()).isPresent();
+            DFA leftmostLongest = reversedFactors == null || fixedLength ? null :
+                    NFAToDFACompiler.compileLeftmostLongest(new NFA(RegexInstrBuilder.createNFA(node)),
+                            MAX_SEARCH_DFA_STATES).orElse(null);
+            return new SearchDFAs(dfaReversed, unanchored, reversedFactors, leftmostLongest);
+        }
+    }
+
     public Collection<Method> allMethods() {
         return new ArrayList<>(super.allMethods());
     }
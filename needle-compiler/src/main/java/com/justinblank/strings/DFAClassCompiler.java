@@ -49,27 +49,24 @@ public class DFAClassCompiler extends ClassCompiler {
 
                         vars = (MatchingVars) method.getMatchingVars().get();
                         // TODO: less sophisticated than previous impl
-                        if (ccOp.transitions.size() == 1 && ccOp.transitions.get(0).getLeft().isSingleCharRange()) {
-                            var transition = ccOp.transitions.get(0);
+                        if (ccOp.transitionCount() == 1 && ccOp.starts[0] == ccOp.ends[0]) {
                             transformed.add(Operation.mkReadVar(vars, MatchingVars.CHAR, "C"));
-                            transformed.add(Operation.pushValue(transition.getLeft().getStart()));
+                            transformed.add(Operation.pushValue(ccOp.starts[0]));
                             transformed.add(Operation.mkJump(ccOp.target, Opcodes.IF_ICMPNE));
                             if (ccOp.getSuccessTarget() == null) {
-                                transformed.add(Operation.pushValue(transition.getRight().getStateNumber()));
+                                transformed.add(Operation.pushValue(ccOp.targets[0]));
                                 transformed.add(Operation.mkReturn(IRETURN));
                             }
                             else {
-                                transformed.add(Operation.pushValue(transition.getRight().getStateNumber()));
+                                transformed.add(Operation.pushValue(ccOp.targets[0]));
                                 transformed.add(Operation.mkJump(ccOp.getSuccessTarget(), GOTO));
                             }
                         }
                         else {
-                            for (int i = 0; i < ccOp.transitions.size(); i++) {
-                                var transition = ccOp.transitions.get(i);
-
+                            for (int i = 0; i < ccOp.transitionCount(); i++) {
                                 var transitionBlock = new Block(-1, new ArrayList<>());
                                 newBlocks.add(transitionBlock);
-                                transitionBlock.push(transition.getRight().getStateNumber());
+                                transitionBlock.push(ccOp.targets[i]);
                                 if (ccOp.getSuccessTarget() == null) {
                                     transitionBlock.addReturn(IRETURN);
                                 }
@@ -78,10 +75,10 @@ public class DFAClassCompiler extends ClassCompiler {
                                 }
 
                                 transformed.add(Operation.mkReadVar(vars, MatchingVars.CHAR, "C"));
-                                transformed.add(Operation.pushValue(transition.getLeft().getStart()));
+                                transformed.add(Operation.pushValue(ccOp.starts[i]));
                                 transformed.add(Operation.mkJump(op.target, Opcodes.IF_ICMPLT));
                                 transformed.add(Operation.mkReadVar(vars, MatchingVars.CHAR, "C"));
-                                transformed.add(Operation.pushValue(transition.getLeft().getEnd()));
+                                transformed.add(Operation.pushValue(ccOp.ends[i]));
                                 transformed.add(Operation.mkJump(transitionBlock, Opcodes.IF_ICMPLE));
                             }
                         }
@@ -99,7 +96,7 @@ public class DFAClassCompiler extends ClassCompiler {
                         transformed.add(Operation.call("charAt", "java/lang/String", "(I)C"));
                         break;
                     case CALL_STATE:
-                        var offsets = (Map<Integer, Offset>) op.getAttribute(DFAClassBuilder.OFFSETS_ATTRIBUTE);
+                        var lookaheads = (Map<Integer, Lookahead>) op.getAttribute(DFAClassBuilder.LOOKAHEADS_ATTRIBUTE);
                         vars = (MatchingVars) method.getMatchingVars().get();
                         List<Block> stateBlocks = new ArrayList<>();
                         newBlocks = new ArrayList<>();
@@ -125,7 +122,7 @@ public class DFAClassCompiler extends ClassCompiler {
                         else {
                             for (var m : (vars.forwards ? stateMethods : backwardsStateMethods)) {
                                 var b = new Block(0, new ArrayList<>());
-                                if (vars.forwards && isOffsetMethod(offsets, m)) {
+                                if (vars.forwards && isLookaheadMethod(lookaheads, m)) {
                                     b.readThis().
                                             readVar(vars, MatchingVars.INDEX, "I").
                                             setField(MatchingVars.INDEX, getClassName(), "I");
@@ -159,12 +156,11 @@ public class DFAClassCompiler extends ClassCompiler {
         }
     }
 
-    private boolean isOffsetMethod(Map<Integer, Offset> offsets, Method m) {
+    private boolean isLookaheadMethod(Map<Integer, Lookahead> lookaheads, Method m) {
         // TODO: UGH
         var s = m.methodName.substring("state".length());
         var isNumber = NumberUtils.isDigits(s);
 
-        return isNumber && offsets.containsKey(Integer.valueOf(s))
-                && DFAClassBuilder.isUsefulOffset(offsets.get(Integer.valueOf(s)));
+        return isNumber && lookaheads.containsKey(Integer.valueOf(s));
     }
 }
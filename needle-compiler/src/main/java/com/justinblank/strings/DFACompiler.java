@@ -2,6 +2,7 @@ package com.justinblank.strings;
 
 import com.justinblank.classloader.MyClassLoader;
 import com.justinblank.strings.RegexAST.Node;
+import com.justinblank.strings.RegexAST.WholeWords;
 import net.bytebuddy.ByteBuddy;
 import net.bytebuddy.dynamic.DynamicType;
 import net.bytebuddy.implementation.MethodDelegation;
@@ -22,12 +23,102 @@ import static org.objectweb.asm.Opcodes.*;
 
 public class DFACompiler {
 
+    /**
+     * Flag for {@link #compile(String, int)} to match any regex with few enough positions by simulating its Glushkov
+     * automaton, even where a generated class would be expected to be faster. Like
+     * {@link com.justinblank.strings.Search.SearchMethods#WHOLE_WORDS}, this has no counterpart in java.util.regex.
+     */
+    public static final int BIT_PARALLEL = 0x20000;
+
+    private static final AtomicInteger GENERATED_CLASS_COUNTER = new AtomicInteger();
+
+    /**
+     * Compile a regex, choosing how to match it. Regexes surrounded by \b, which is only supported around a set of
+     * words, like \b(cat|dog)\b, are searched for with an Aho-Corasick automaton that only matches whole words. Small
+     * regexes of unbounded length, where the generated class couldn't skip ahead using a literal, are matched by
+     * simulating their Glushkov automaton, which avoids generating a class and is faster to search. All others are
+     * compiled to a class with a generated name.
+     *
+     * @param regex the regex
+     * @return the pattern
+     */
+    public static Pattern compile(String regex) {
+        return compile(regex, 0);
+    }
+
+    /**
+     * Compile a regex as {@link #compile(String)} does, applying flags from {@link Pattern}. With
+     * {@link #BIT_PARALLEL}, the Glushkov automaton is used for every regex with few enough positions.
+     *
+     * @param regex the regex
+     * @param flags the flags, such as {@link Pattern#CASE_INSENSITIVE} or {@link #BIT_PARALLEL}
+     * @return the pattern
+     */
+    public static Pattern compile(String regex, int flags) {
+        return compile(regex, null, flags, false, new CompilationReport(regex));
+    }
+
+    static boolean preferBitParallel(Node node) {
+        if (node.maxLength().isPresent()) {
+            return false;
+        }
+        Factorization factors = node.bestFactors();
+        boolean seeks = factors.getSharedPrefix().filter(prefix -> !prefix.isEmpty()).isPresent();
+        boolean skips = factors.getRequiredFactor()
+                .filter(literal -> literal.length() >= DFAClassBuilder.MIN_REQUIRED_FACTOR_LENGTH).isPresent();
+        return !seeks && !skips;
+    }
+
+    /**
+     * Compile a regex to a class with the given name. Regexes surrounded by \b are searched for with an Aho-Corasick
+     * automaton that only matches whole words, as with {@link #compile(String)}, and no class is generated.
+     *
+     * @param regex the regex
+     * @param className the name of the generated matcher class
+     * @return the pattern
+     */
     public static Pattern compile(String regex, String className) {
         return compile(regex, className, false);
     }
 
+    public static Pattern compile(String regex, String className, int flags) {
+        return compile(regex, className, flags, false, new CompilationReport(regex));
+    }
+
     static Pattern compile(String regex, String className, boolean debug) {
-        byte[] classBytes = compileToBytes(regex, className, debug);
+        return compile(regex, className, 0, debug, new CompilationReport(regex));
+    }
+
+    /**
+     * Choose how to match a regex, which every method returning a pattern goes through.
+     *
+     * @param className the name of the generated matcher class, or null to generate a name
+     */
+    private static Pattern compile(String regex, String className, int flags, boolean debug,
+                                   CompilationReport report) {
+        long start = System.nanoTime();
+        Node node = RegexParser.parseAllowingWordBoundaries(regex, flags);
+        report.setAstSize(node.size());
+        recordPhase(report, CompilationReport.Phase.PARSE, start);
+        if (node instanceof WholeWords) {
+            report.setEngine(CompilationReport.Engine.WHOLE_WORD_AHO_CORASICK);
+            return NFA.searchWholeWords((WholeWords) node);
+        }
+        if (className == null) {
+            if ((flags & BIT_PARALLEL) != 0 || preferBitParallel(node)) {
+                Optional<GlushkovSearchMethod> glushkov = GlushkovSearchMethod.build(node);
+                if (glushkov.isPresent()) {
+                    report.setEngine(CompilationReport.Engine.GLUSHKOV);
+                    return glushkov.get();
+                }
+            }
+            className = "GeneratedPattern" + GENERATED_CLASS_COUNTER.incrementAndGet();
+        }
+        report.setEngine(CompilationReport.Engine.GENERATED_CLASS);
+        return loadPattern(className, compileToBytes(node, className, debug, report));
+    }
+
+    private static Pattern loadPattern(String className, byte[] classBytes) {
         Class<?> matcherClass = MyClassLoader.getInstance().loadClass(className, classBytes);
         Class<? extends Pattern> c = createPatternClass(className, (Class<? extends Matcher>) matcherClass);
         try {
@@ -42,21 +133,96 @@ public class DFACompiler {
         return compileToBytes(regex, className, false);
     }
 
+    /**
+     * Compile a regex to the bytes of a class with the given name. Since a class is always generated, regexes
+     * containing \b aren't supported.
+     *
+     * @param regex the regex
+     * @param className the name of the generated matcher class
+     * @param flags the flags, such as {@link Pattern#CASE_INSENSITIVE}
+     * @return the class's bytes
+     */
+    public static byte[] compileToBytes(String regex, String className, int flags) {
+        return compileToBytes(regex, className, flags, false);
+    }
+
     static byte[] compileToBytes(String regex, String className, boolean debug) {
-        Node node = RegexParser.parse(regex);
-        Factorization factors = node.bestFactors();
-        factors.setMinLength(node.minLength());
-        node.maxLength().ifPresent(factors::setMaxLength);
-        DFA dfa = NFAToDFACompiler.compile(new NFA(RegexInstrBuilder.createNFA(node)));
+        return compileToBytes(regex, className, 0, debug);
+    }
+
+    private static byte[] compileToBytes(String regex, String className, int flags, boolean debug) {
+        return compileToBytes(RegexParser.parse(regex, flags), className, debug, new CompilationReport(regex));
+    }
+
+    /**
+     * Compile a regex, also reporting the shape of what was compiled and how long each phase of compilation took.
+     *
+     * @param regex the regex
+     * @param className the name of the generated matcher class
+     * @return the pattern, and the report describing its compilation
+     */
+    public static Pair<Pattern, CompilationReport> compileWithReport(String regex, String className) {
+        var report = new CompilationReport(regex);
+        return Pair.of(compile(regex, className, 0, false, report), report);
+    }
+
+    /**
+     * Compile a regex as {@link #compile(String, int)} does, choosing how to match it, and also report which engine
+     * was chosen, the shape of what was compiled, and how long each phase of compilation took.
+     *
+     * @param regex the regex
+     * @param flags the flags, such as {@link Pattern#CASE_INSENSITIVE} or {@link #BIT_PARALLEL}
+     * @return the pattern, and the report describing its compilation
+     */
+    public static Pair<Pattern, CompilationReport> compileWithReport(String regex, int flags) {
+        var report = new CompilationReport(regex);
+        return Pair.of(compile(regex, null, flags, false, report), report);
+    }
+
+    private static byte[] compileToBytes(Node node, String className, boolean debug, CompilationReport report) {
+        long start = System.nanoTime();
+        NFA nfa = new NFA(RegexInstrBuilder.createNFA(node));
+        report.setNfaInstructionCount(nfa.regexInstrs.length);
+        start = recordPhase(report, CompilationReport.Phase.NFA, start);
+
+        CompactDFA unminimized = NFAToDFACompiler.compileCompact(nfa);
+        report.setDfaStateCount(unminimized.statesCount());
+        start = recordPhase(report, CompilationReport.Phase.DFA, start);
+
+        DFA dfa = MinimizeDFA.minimize(unminimized).toDFA();
+        report.setMinimizedStateCount(dfa.statesCount());
+        start = recordPhase(report, CompilationReport.Phase.MINIMIZE, start);
         if (dfa.statesCount() > Short.MAX_VALUE / 2) {
             throw new IllegalArgumentException("Can't compile DFAs with more than " + (Short.MAX_VALUE / 2) + " states");
         }
-        DFAClassBuilder builder = DFAClassBuilder.build(className, dfa, node);
+
+        var searchDFAs = DFAClassBuilder.SearchDFAs.build(node);
+        start = recordPhase(report, CompilationReport.Phase.SEARCH_DFA, start);
+
+        DFAClassBuilder builder = DFAClassBuilder.build(className, dfa, node, searchDFAs);
+        report.setSeekPrefix(builder.seekPrefix().orElse(null));
+        report.setLookaheadStateCount(builder.lookaheadStateCount());
+        report.setUnanchoredSearch(builder.usesUnanchoredSearch());
+        report.setRequiredLiteral(builder.requiredFactor().orElse(null));
+        report.setBackwardLiteralSearch(builder.usesPrefixSearch() || builder.usesFactorSearch());
+        report.setRootScanChars(builder.rootScanChars().orElse(null));
+        report.setStateGroupDispatch(builder.usesStateGroupDispatch());
+        report.setMethodCount(builder.allMethods().size());
+        start = recordPhase(report, CompilationReport.Phase.BUILD, start);
+
         DFAClassCompiler compiler = new DFAClassCompiler(builder, debug);
         byte[] classBytes = compiler.generateClassAsBytes();
+        report.setBytecodeSize(classBytes.length);
+        recordPhase(report, CompilationReport.Phase.GENERATE, start);
         return classBytes;
     }
 
+    private static long recordPhase(CompilationReport report, CompilationReport.Phase phase, long start) {
+        long end = System.nanoTime();
+        report.setPhaseNanos(phase, end - start);
+        return end;
+    }
+
     private static Class<? extends Pattern> createPatternClass(String name, Class<? extends Matcher> m) {
         ClassBuilder builder = new ClassBuilder("Pattern" + name, "java/lang/Object", new String[]{"com/justinblank/strings/Pattern"});
         builder.emptyConstructor();
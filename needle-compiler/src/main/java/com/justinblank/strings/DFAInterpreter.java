@@ -0,0 +1,308 @@
+package com.justinblank.strings;
+
+import com.justinblank.strings.RegexAST.Node;
+import com.justinblank.strings.Search.SearchMethod;
+import com.justinblank.strings.Search.SearchMethodUtil;
+
+import java.util.Arrays;
+
+/**
+ * Matches a regex by interpreting its DFAs, rather than generating a class. This avoids the cost of generating and
+ * loading bytecode, at the price of slower matching.
+ * <p>
+ * Each DFA is flattened into a table indexed by state and char class, where a char class is a range of chars that no
+ * transition distinguishes. Searching uses the same strategy as the generated classes: the unanchored DFA finds the
+ * earliest end of any match, and the reversed factors DFA bounds where that match can start. From that bound, the
+ * leftmost-longest DFA finds where the leftmost-longest match ends, and the reversed DFA walks back to where it starts.
+ * Each of those passes reads each char at most once. Only one state is live at a time, so matching doesn't allocate.
+ */
+public class DFAInterpreter implements SearchMethod {
+
+    private final Table forwards;
+    // null if any of the search DFAs had too many states, in which case we restart the anchored DFA at each index
+    private final Table unanchored;
+    private final Table reversedFactors;
+    // null if every match has the same length, in which case the earliest end gives the start
+    private final Table leftmostLongest;
+    private final Table reversed;
+    // The length of every match, or -1 if matches can have different lengths
+    private final int fixedLength;
+
+    DFAInterpreter(CompactDFA forwards, CompactDFA reversed, CompactDFA unanchored, CompactDFA leftmostLongest,
+                   CompactDFA reversedFactors, int fixedLength) {
+        this.forwards = new Table(forwards);
+        boolean canSearch = unanchored != null && reversedFactors != null &&
+                (fixedLength >= 0 || (leftmostLongest != null && reversed != null));
+        this.unanchored = canSearch ? new Table(unanchored) : null;
+        this.reversedFactors = canSearch ? new Table(reversedFactors) : null;
+        this.leftmostLongest = canSearch && fixedLength < 0 ? new Table(leftmostLongest) : null;
+        this.reversed = canSearch && fixedLength < 0 ? new Table(reversed) : null;
+        this.fixedLength = fixedLength;
+    }
+
+    public static DFAInterpreter compile(String regex) {
+        return compile(regex, 0);
+    }
+
+    /**
+     * Compile a regex to be interpreted, applying flags from {@link Pattern}.
+     *
+     * @param regex the regex
+     * @param flags the flags, such as {@link Pattern#CASE_INSENSITIVE}
+     * @return the interpreter
+     */
+    public static DFAInterpreter compile(String regex, int flags) {
+        Node node = RegexParser.parse(regex, flags);
+        NFA nfa = new NFA(RegexInstrBuilder.createNFA(node));
+        CompactDFA dfa = MinimizeDFA.minimize(NFAToDFACompiler.compileCompact(nfa));
+        CompactDFA unanchored = NFAToDFACompiler.compileUnanchored(nfa, DFAClassBuilder.MAX_SEARCH_DFA_STATES)
+                .map(CompactDFA::from).orElse(null);
+        int minLength = node.minLength();
+        int fixedLength = node.maxLength().filter(max -> max == minLength).isPresent() ? minLength : -1;
+        CompactDFA reversedFactors = null;
+        CompactDFA leftmostLongest = null;
+        CompactDFA reversed = null;
+        if (unanchored != null) {
+            var reversedNFA = new NFA(RegexInstrBuilder.createNFA(node.reversed()));
+            reversedFactors = NFAToDFACompiler.compileFactors(reversedNFA, DFAClassBuilder.MAX_SEARCH_DFA_STATES)
+                    .map(CompactDFA::from).orElse(null);
+            if (fixedLength < 0) {
+                leftmostLongest = NFAToDFACompiler.compileLeftmostLongest(nfa, DFAClassBuilder.MAX_SEARCH_DFA_STATES)
+                        .map(CompactDFA::from).orElse(null);
+                reversed = MinimizeDFA.minimize(NFAToDFACompiler.compileCompact(reversedNFA));
+            }
+        }
+        return new DFAInterpreter(dfa, reversed, unanchored, leftmostLongest, reversedFactors, fixedLength);
+    }
+
+    @Override
+    public boolean matches(String s) {
+        int state = 0;
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            if (forwards.acceptingSinks[state]) {
+                return true;
+            }
+            state = forwards.next(state, s.charAt(i));
+            if (state < 0) {
+                return false;
+            }
+        }
+        return forwards.accepting[state];
+    }
+
+    @Override
+    public boolean containedIn(String s) {
+        if (unanchored == null) {
+            return find(s).matched;
+        }
+        return earliestEnd(s, 0, s.length()) >= 0;
+    }
+
+    @Override
+    public MatchResult find(String s, int start, int end, boolean anchored) {
+        SearchMethodUtil.checkIndices(s, start, end);
+        if (anchored) {
+            int matchEnd = longestMatchEnd(s, start, end);
+            return matchEnd >= 0 ? MatchResult.success(start, matchEnd) : MatchResult.failure();
+        }
+        if (unanchored == null) {
+            for (int i = start; i <= end; i++) {
+                int matchEnd = longestMatchEnd(s, i, end);
+                if (matchEnd >= 0) {
+                    return MatchResult.success(i, matchEnd);
+                }
+            }
+            return MatchResult.failure();
+        }
+
+        int earliestEnd = earliestEnd(s, start, end);
+        if (earliestEnd < 0) {
+            return MatchResult.failure();
+        }
+        // If the string can only have one length, no match ending later can start earlier
+        if (fixedLength >= 0) {
+            return MatchResult.success(earliestEnd - fixedLength, earliestEnd);
+        }
+        // The leftmost match can start no earlier than this, and the match ending at earliestEnd means it exists
+        int from = factorStart(s, earliestEnd, start);
+        int matchEnd = leftmostLongestEnd(s, from, end);
+        return MatchResult.success(matchStart(s, matchEnd, from), matchEnd);
+    }
+
+    /**
+     * @return the end of the longest match starting exactly at start and ending no later than end, or -1 if there is
+     * none
+     */
+    private int longestMatchEnd(String s, int start, int end) {
+        int state = 0;
+        int lastMatch = forwards.accepting[0] ? start : -1;
+        for (int i = start; i < end; i++) {
+            if (forwards.acceptingSinks[state]) {
+                return end;
+            }
+            state = forwards.next(state, s.charAt(i));
+            if (state < 0) {
+                break;
+            }
+            if (forwards.accepting[state]) {
+                lastMatch = i + 1;
+            }
+        }
+        return lastMatch;
+    }
+
+    /**
+     * @return the index just past the end of the earliest match starting at or after start, or -1 if there is none
+     */
+    private int earliestEnd(String s, int start, int end) {
+        if (unanchored.accepting[0]) {
+            return start;
+        }
+        int state = 0;
+        for (int i = start; i < end; i++) {
+            state = unanchored.next(state, s.charAt(i));
+            // Every state of the unanchored DFA includes the root, so no transition means we're back at the root
+            if (state < 0) {
+                state = 0;
+            }
+            else if (unanchored.accepting[state]) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the end of the leftmost-longest match starting at or after start and ending no later than end, or -1 if
+     * there is none
+     */
+    private int leftmostLongestEnd(String s, int start, int end) {
+        int state = 0;
+        int lastMatch = leftmostLongest.accepting[0] ? start : -1;
+        for (int i = start; i < end; i++) {
+            if (leftmostLongest.acceptingSinks[state]) {
+                return end;
+            }
+            state = leftmostLongest.next(state, s.charAt(i));
+            if (state < 0) {
+                break;
+            }
+            if (leftmostLongest.accepting[state]) {
+                lastMatch = i + 1;
+            }
+        }
+        return lastMatch;
+    }
+
+    /**
+     * @return the earliest index, no lower than lowerBound, such that the string between it and end is a match
+     */
+    private int matchStart(String s, int end, int lowerBound) {
+        int state = 0;
+        int lastMatch = reversed.accepting[0] ? end : -1;
+        for (int i = end; i > lowerBound; i--) {
+            state = reversed.next(state, s.charAt(i - 1));
+            if (state < 0) {
+                break;
+            }
+            if (reversed.accepting[state]) {
+                lastMatch = i - 1;
+            }
+        }
+        return lastMatch;
+    }
+
+    /**
+     * @return the earliest index, no lower than lowerBound, such that the string between it and end is still a
+     * substring of some match
+     */
+    private int factorStart(String s, int end, int lowerBound) {
+        int state = 0;
+        int i = end;
+        while (i > lowerBound) {
+            state = reversedFactors.next(state, s.charAt(i - 1));
+            if (state < 0) {
+                break;
+            }
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * A DFA's transitions, as a table with a row for each state and a column for each char class. Chars below 128 find
+     * their class by direct lookup, and all others by binary search over the first chars of the classes.
+     */
+    static class Table {
+
+        private static final int ASCII_CHARS = 128;
+
+        final int[] asciiClasses = new int[ASCII_CHARS];
+        final char[] classStarts;
+        final int classCount;
+        // transitions[state * classCount + charClass] is the next state, or -1 if there is none
+        final int[] transitions;
+        final boolean[] accepting;
+        final boolean[] acceptingSinks;
+
+        Table(CompactDFA dfa) {
+            int[] boundaries = new int[2 * dfa.transitionCount() + 1];
+            for (int i = 0; i < dfa.transitionCount(); i++) {
+                boundaries[2 * i + 1] = dfa.rangeStarts[i];
+                boundaries[2 * i + 2] = dfa.rangeEnds[i] + 1;
+            }
+            Arrays.sort(boundaries);
+            char[] starts = new char[boundaries.length];
+            int count = 0;
+            for (int boundary : boundaries) {
+                if (boundary <= Character.MAX_VALUE && (count == 0 || starts[count - 1] != boundary)) {
+                    starts[count++] = (char) boundary;
+                }
+            }
+            classStarts = Arrays.copyOf(starts, count);
+            classCount = count;
+            for (char c = 0; c < ASCII_CHARS; c++) {
+                asciiClasses[c] = searchClass(c);
+            }
+
+            int statesCount = dfa.statesCount();
+            transitions = new int[statesCount * classCount];
+            Arrays.fill(transitions, -1);
+            accepting = new boolean[statesCount];
+            acceptingSinks = new boolean[statesCount];
+            for (int state = 0; state < statesCount; state++) {
+                int row = state * classCount;
+                for (int i = dfa.transitionOffsets[state]; i < dfa.transitionOffsets[state + 1]; i++) {
+                    Arrays.fill(transitions, row + charClass(dfa.rangeStarts[i]), row + charClass(dfa.rangeEnds[i]) + 1,
+                            dfa.targets[i]);
+                }
+                accepting[state] = dfa.isAccepting(state);
+                acceptingSinks[state] = accepting[state] && isSink(state);
+            }
+        }
+
+        private boolean isSink(int state) {
+            int row = state * classCount;
+            for (int charClass = 0; charClass < classCount; charClass++) {
+                if (transitions[row + charClass] != state) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int next(int state, char c) {
+            return transitions[state * classCount + charClass(c)];
+        }
+
+        int charClass(char c) {
+            return c < ASCII_CHARS ? asciiClasses[c] : searchClass(c);
+        }
+
+        private int searchClass(char c) {
+            int index = Arrays.binarySearch(classStarts, c);
+            return index >= 0 ? index : -index - 2;
+        }
+    }
+}
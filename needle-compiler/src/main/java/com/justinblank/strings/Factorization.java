@@ -112,7 +112,8 @@ public class Factorization {
 
     /**
      * Union does set union on all the components of a factorization. For any component, if either side is null,
-     * then the result is null.
+     * then the result is null. An empty prefix, suffix or factor set means we don't know its strings, not that there
+     * are none, so it contributes the empty string, which is the only string we know to be a prefix, suffix or factor.
      * @param factorization the other factorization
      */
     public void union(Factorization factorization) {
@@ -128,28 +129,31 @@ public class Factorization {
             prefixes = null;
         }
         else {
-            Set<String> newPrefixes = new HashSet<>(prefixes);
-            newPrefixes.addAll(factorization.prefixes);
-            prefixes = newPrefixes;
+            prefixes = unionStrings(prefixes, factorization.prefixes);
         }
         if (this.suffixes == null || factorization.suffixes == null) {
             suffixes = null;
         }
         else {
-            Set<String> newSuffixes = new HashSet<>(suffixes);
-            newSuffixes.addAll(factorization.suffixes);
-            suffixes = newSuffixes;
+            suffixes = unionStrings(suffixes, factorization.suffixes);
         }
         if (this.factors == null || factorization.factors == null) {
             factors = null;
         }
         else {
-            Set<String> newFactors = new HashSet<>(factors);
-            newFactors.addAll(factorization.factors);
-            factors = newFactors;
+            factors = unionStrings(factors, factorization.factors);
         }
     }
 
+    private static Set<String> unionStrings(Set<String> set1, Set<String> set2) {
+        Set<String> union = new HashSet<>(set1);
+        union.addAll(set2);
+        if (set1.isEmpty() || set2.isEmpty()) {
+            union.add("");
+        }
+        return union;
+    }
+
     public void concatenate(Factorization factorization) {
         var localSuffixes = suffixes;
         var localPrefixes = prefixes;
@@ -263,6 +267,9 @@ public class Factorization {
         }
         Set<Character> prefixChars = new HashSet<>();
         for (String prefix : prefixes) {
+            if (prefix.isEmpty()) {
+                return Optional.empty();
+            }
             prefixChars.add(prefix.charAt(0));
         }
         List<Character> chars = new ArrayList<>(prefixChars);
@@ -300,6 +307,69 @@ public class Factorization {
         return Optional.of(sharedPrefix);
     }
 
+    /**
+     * Find a literal that every match must contain. The shared suffix of all matches is preferred, since a match must
+     * end immediately after it, otherwise we use the longest string shared by the start or end of every required
+     * factor.
+     *
+     * @return the literal, or empty if there is no non-empty literal that every match contains
+     */
+    public Optional<String> getRequiredFactor() {
+        String best = "";
+        if (suffixes != null && !suffixes.isEmpty()) {
+            best = commonSuffix(suffixes);
+        }
+        if (factors != null && !factors.isEmpty()) {
+            for (String candidate : List.of(commonPrefix(factors), commonSuffix(factors))) {
+                if (candidate.length() > best.length()) {
+                    best = candidate;
+                }
+            }
+        }
+        if (best.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(best);
+    }
+
+    private static String commonPrefix(Set<String> strings) {
+        String shared = null;
+        for (String s : strings) {
+            if (shared == null) {
+                shared = s;
+            }
+            else {
+                int i = 0;
+                for (; i < shared.length() && i < s.length(); i++) {
+                    if (shared.charAt(i) != s.charAt(i)) {
+                        break;
+                    }
+                }
+                shared = shared.substring(0, i);
+            }
+        }
+        return shared == null ? "" : shared;
+    }
+
+    private static String commonSuffix(Set<String> strings) {
+        String shared = null;
+        for (String s : strings) {
+            if (shared == null) {
+                shared = s;
+            }
+            else {
+                int i = 0;
+                for (; i < shared.length() && i < s.length(); i++) {
+                    if (shared.charAt(shared.length() - 1 - i) != s.charAt(s.length() - 1 - i)) {
+                        break;
+                    }
+                }
+                shared = shared.substring(shared.length() - i);
+            }
+        }
+        return shared == null ? "" : shared;
+    }
+
     public int getMinLength() {
         return minLength;
     }
@@ -0,0 +1,406 @@
+package com.justinblank.strings;
+
+import com.justinblank.strings.RegexAST.*;
+import com.justinblank.strings.Search.SearchMethod;
+import com.justinblank.strings.Search.SearchMethodUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A bit-parallel simulation of the Glushkov automaton of a regex with at most 64 character positions, keeping the set
+ * of active positions in a single long. A position is an occurrence of a char or char range in the regex, after
+ * counted repetitions have been expanded.
+ * <p>
+ * Finding the positions that can follow a set of positions takes one table lookup per byte of the set, as in Navarro
+ * and Raffinot, Flexible Pattern Matching in Strings section 5.4. Searching uses the same strategy as the generated
+ * classes: find the earliest end of any match, walk backwards while the text is still a substring of some match, then
+ * find the leftmost-longest match from there.
+ */
+public class GlushkovSearchMethod implements SearchMethod {
+
+    static final int MAX_POSITIONS = Long.SIZE;
+    private static final int ASCII_CHARS = 128;
+    private static final int CHUNK_BITS = 8;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private final int positionCount;
+    private final long allPositions;
+    // The positions that can match the first char of a match
+    private final long first;
+    // The positions that can match the last char of a match
+    private final long last;
+    private final boolean nullable;
+    // The length of every match, or -1 if matches can have different lengths
+    private final int fixedLength;
+
+    private final long[] asciiMasks = new long[ASCII_CHARS];
+    // The positions matching each char class, for chars we can't look up directly
+    private final char[] classStarts;
+    private final long[] classMasks;
+    // followTable[chunk * CHUNK_SIZE + bits] is the union of the follow sets of the positions in that chunk
+    private final long[] followTable;
+    private final long[] precedeTable;
+
+    private GlushkovSearchMethod(List<CharRange> positions, long[] follow, long first, long last, boolean nullable,
+                                 int fixedLength) {
+        this.positionCount = positions.size();
+        this.allPositions = positionCount == MAX_POSITIONS ? -1L : (1L << positionCount) - 1;
+        this.first = first;
+        this.last = last;
+        this.nullable = nullable;
+        this.fixedLength = fixedLength;
+
+        int[] boundaries = new int[2 * positionCount + 1];
+        for (int i = 0; i < positionCount; i++) {
+            boundaries[2 * i + 1] = positions.get(i).getStart();
+            boundaries[2 * i + 2] = positions.get(i).getEnd() + 1;
+        }
+        Arrays.sort(boundaries);
+        char[] starts = new char[boundaries.length];
+        int classCount = 0;
+        for (int boundary : boundaries) {
+            if (boundary <= Character.MAX_VALUE && (classCount == 0 || starts[classCount - 1] != boundary)) {
+                starts[classCount++] = (char) boundary;
+            }
+        }
+        classStarts = Arrays.copyOf(starts, classCount);
+        classMasks = new long[classCount];
+        for (int charClass = 0; charClass < classCount; charClass++) {
+            char c = classStarts[charClass];
+            for (int position = 0; position < positionCount; position++) {
+                if (positions.get(position).inRange(c)) {
+                    classMasks[charClass] |= 1L << position;
+                }
+            }
+        }
+        for (char c = 0; c < ASCII_CHARS; c++) {
+            asciiMasks[c] = classMasks[searchClass(c)];
+        }
+
+        long[] precede = new long[positionCount];
+        for (int from = 0; from < positionCount; from++) {
+            for (int to = 0; to < positionCount; to++) {
+                if ((follow[from] & (1L << to)) != 0) {
+                    precede[to] |= 1L << from;
+                }
+            }
+        }
+        followTable = chunkTable(follow);
+        precedeTable = chunkTable(precede);
+    }
+
+    /**
+     * Build the search method for a regex, if it has few enough positions.
+     *
+     * @param regex the regex
+     * @return the search method, or empty if the regex has more than 64 positions
+     */
+    public static Optional<GlushkovSearchMethod> compile(String regex) {
+        return compile(regex, 0);
+    }
+
+    /**
+     * Build the search method for a regex, applying flags from {@link Pattern}, if it has few enough positions.
+     * Ignoring case, each case variant of a char takes a position of its own, so fewer regexes have few enough.
+     *
+     * @param regex the regex
+     * @param flags the flags, such as {@link Pattern#CASE_INSENSITIVE}
+     * @return the search method, or empty if the regex has more than 64 positions
+     */
+    public static Optional<GlushkovSearchMethod> compile(String regex, int flags) {
+        return build(RegexParser.parse(regex, flags));
+    }
+
+    static Optional<GlushkovSearchMethod> build(Node node) {
+        var builder = new Builder();
+        Fragment fragment;
+        try {
+            fragment = builder.build(node);
+        } catch (TooManyPositionsException e) {
+            return Optional.empty();
+        }
+        int minLength = node.minLength();
+        int fixedLength = node.maxLength().filter(max -> max == minLength).isPresent() ? minLength : -1;
+        long[] follow = Arrays.copyOf(builder.follow, builder.positions.size());
+        return Optional.of(new GlushkovSearchMethod(builder.positions, follow, fragment.first, fragment.last,
+                fragment.nullable, fixedLength));
+    }
+
+    private long[] chunkTable(long[] sets) {
+        int chunks = (positionCount + CHUNK_BITS - 1) / CHUNK_BITS;
+        long[] table = new long[chunks * CHUNK_SIZE];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            for (int bits = 1; bits < CHUNK_SIZE; bits++) {
+                int lowest = Integer.numberOfTrailingZeros(bits);
+                int position = chunk * CHUNK_BITS + lowest;
+                long set = position < positionCount ? sets[position] : 0;
+                table[chunk * CHUNK_SIZE + bits] = table[chunk * CHUNK_SIZE + (bits & (bits - 1))] | set;
+            }
+        }
+        return table;
+    }
+
+    int positionCount() {
+        return positionCount;
+    }
+
+    private static long lookup(long[] table, long positions) {
+        long result = 0;
+        for (int offset = 0; positions != 0; offset += CHUNK_SIZE) {
+            result |= table[offset + (int) (positions & (CHUNK_SIZE - 1))];
+            positions >>>= CHUNK_BITS;
+        }
+        return result;
+    }
+
+    private long mask(char c) {
+        return c < ASCII_CHARS ? asciiMasks[c] : classMasks[searchClass(c)];
+    }
+
+    private int searchClass(char c) {
+        int index = Arrays.binarySearch(classStarts, c);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    @Override
+    public boolean matches(String s) {
+        int length = s.length();
+        if (length == 0) {
+            return nullable;
+        }
+        long state = first & mask(s.charAt(0));
+        for (int i = 1; i < length && state != 0; i++) {
+            state = lookup(followTable, state) & mask(s.charAt(i));
+        }
+        return (state & last) != 0;
+    }
+
+    @Override
+    public boolean containedIn(String s) {
+        return earliestEnd(s, 0, s.length()) >= 0;
+    }
+
+    @Override
+    public MatchResult find(String s, int start, int end, boolean anchored) {
+        SearchMethodUtil.checkIndices(s, start, end);
+        if (anchored) {
+            int matchEnd = longestMatchEnd(s, start, end);
+            return matchEnd >= 0 ? MatchResult.success(start, matchEnd) : MatchResult.failure();
+        }
+        int earliestEnd = earliestEnd(s, start, end);
+        if (earliestEnd < 0) {
+            return MatchResult.failure();
+        }
+        // If the string can only have one length, no match ending later can start earlier
+        if (fixedLength >= 0) {
+            return MatchResult.success(earliestEnd - fixedLength, earliestEnd);
+        }
+        // The match ending at earliestEnd guarantees that this loop terminates
+        for (int i = factorStart(s, earliestEnd, start); ; i++) {
+            int matchEnd = longestMatchEnd(s, i, end);
+            if (matchEnd >= 0) {
+                return MatchResult.success(i, matchEnd);
+            }
+        }
+    }
+
+    /**
+     * Like the generated classes, and unlike other search methods, each call to the matcher's find method continues
+     * from the end of the previous match.
+     */
+    @Override
+    public Matcher matcher(String s) {
+        return new GlushkovMatcher(s);
+    }
+
+    /**
+     * @return the end of the longest match starting exactly at start and ending no later than end, or -1 if there is
+     * none
+     */
+    private int longestMatchEnd(String s, int start, int end) {
+        int lastMatch = nullable ? start : -1;
+        long state = first;
+        for (int i = start; i < end; i++) {
+            if (i > start) {
+                state = lookup(followTable, state);
+            }
+            state &= mask(s.charAt(i));
+            if (state == 0) {
+                break;
+            }
+            if ((state & last) != 0) {
+                lastMatch = i + 1;
+            }
+        }
+        return lastMatch;
+    }
+
+    /**
+     * @return the index just past the end of the earliest match starting at or after start, or -1 if there is none
+     */
+    private int earliestEnd(String s, int start, int end) {
+        if (nullable) {
+            return start;
+        }
+        long state = 0;
+        for (int i = start; i < end; i++) {
+            state = (lookup(followTable, state) | first) & mask(s.charAt(i));
+            if ((state & last) != 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the earliest index, no lower than lowerBound, such that the string between it and end is still a
+     * substring of some match
+     */
+    private int factorStart(String s, int end, int lowerBound) {
+        long state = allPositions;
+        int i = end;
+        while (i > lowerBound) {
+            if (i < end) {
+                state = lookup(precedeTable, state);
+            }
+            state &= mask(s.charAt(i - 1));
+            if (state == 0) {
+                break;
+            }
+            i--;
+        }
+        return i;
+    }
+
+    private class GlushkovMatcher implements Matcher {
+
+        private final String s;
+        private int nextStart;
+
+        GlushkovMatcher(String s) {
+            this.s = s;
+        }
+
+        @Override
+        public boolean matches() {
+            return GlushkovSearchMethod.this.matches(s);
+        }
+
+        @Override
+        public boolean containedIn() {
+            return GlushkovSearchMethod.this.containedIn(s);
+        }
+
+        @Override
+        public MatchResult find() {
+            return find(nextStart, s.length());
+        }
+
+        @Override
+        public MatchResult find(int start, int end) {
+            MatchResult result = GlushkovSearchMethod.this.find(s, start, end);
+            nextStart = result.matched ? result.end : s.length();
+            return result;
+        }
+    }
+
+    /**
+     * The positions a subexpression can start and end with, and whether it matches the empty string.
+     */
+    private static class Fragment {
+        final long first;
+        final long last;
+        final boolean nullable;
+
+        Fragment(long first, long last, boolean nullable) {
+            this.first = first;
+            this.last = last;
+            this.nullable = nullable;
+        }
+    }
+
+    private static class TooManyPositionsException extends Exception {
+    }
+
+    /**
+     * Assigns positions to the chars and char ranges of a regex, and computes which positions can follow each other.
+     * Counted repetitions are expanded, so each copy of the repeated node gets its own positions.
+     */
+    private static class Builder {
+
+        private static final Fragment EMPTY = new Fragment(0, 0, true);
+
+        final List<CharRange> positions = new ArrayList<>();
+        final long[] follow = new long[MAX_POSITIONS];
+
+        Fragment build(Node node) throws TooManyPositionsException {
+            if (node instanceof CharRangeNode) {
+                return position(((CharRangeNode) node).range());
+            }
+            else if (node instanceof LiteralNode) {
+                String literal = ((LiteralNode) node).getLiteral();
+                Fragment fragment = EMPTY;
+                for (int i = 0; i < literal.length(); i++) {
+                    char c = literal.charAt(i);
+                    fragment = concatenate(fragment, position(new CharRange(c, c)));
+                }
+                return fragment;
+            }
+            else if (node instanceof Concatenation) {
+                Concatenation concatenation = (Concatenation) node;
+                Fragment head = build(concatenation.head);
+                return concatenate(head, build(concatenation.tail));
+            }
+            else if (node instanceof Union) {
+                Union union = (Union) node;
+                Fragment left = build(union.left);
+                Fragment right = build(union.right);
+                return new Fragment(left.first | right.first, left.last | right.last,
+                        left.nullable || right.nullable);
+            }
+            else if (node instanceof Repetition) {
+                Fragment repeated = build(((Repetition) node).node);
+                addFollows(repeated.last, repeated.first);
+                return new Fragment(repeated.first, repeated.last, true);
+            }
+            else if (node instanceof CountedRepetition) {
+                CountedRepetition repetition = (CountedRepetition) node;
+                Fragment fragment = EMPTY;
+                for (int i = 0; i < repetition.max; i++) {
+                    Fragment copy = build(repetition.node);
+                    if (i >= repetition.min) {
+                        copy = new Fragment(copy.first, copy.last, true);
+                    }
+                    fragment = concatenate(fragment, copy);
+                }
+                return fragment;
+            }
+            throw new IllegalStateException("Unhandled ast node type=" + node.getClass().getSimpleName());
+        }
+
+        private Fragment position(CharRange range) throws TooManyPositionsException {
+            if (positions.size() == MAX_POSITIONS) {
+                throw new TooManyPositionsException();
+            }
+            long bit = 1L << positions.size();
+            positions.add(range);
+            return new Fragment(bit, bit, false);
+        }
+
+        private Fragment concatenate(Fragment head, Fragment tail) {
+            addFollows(head.last, tail.first);
+            long first = head.nullable ? head.first | tail.first : head.first;
+            long last = tail.nullable ? head.last | tail.last : tail.last;
+            return new Fragment(first, last, head.nullable && tail.nullable);
+        }
+
+        private void addFollows(long from, long to) {
+            for (long remaining = from; remaining != 0; remaining &= remaining - 1) {
+                follow[Long.numberOfTrailingZeros(remaining)] |= to;
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.justinblank.strings;
+
+import java.util.*;
+
+/**
+ * A filter that a state can apply after consuming a character: every match passing through the state requires the
+ * characters at some later positions to fall within a known set, so if any of them doesn't, the state can fail
+ * immediately instead of walking the DFA forward to discover the same thing.
+ * <p>
+ * Positions are measured from the character the state consumes, so position 1 is the next character.
+ */
+class Lookahead {
+
+    // The furthest position we'll consider
+    static final int MAX_DISTANCE = 8;
+    // The most positions we'll check in a single state
+    static final int MAX_POSITIONS = 4;
+
+    // Rough relative costs, measured in state transitions
+    static final double STATE_COST = 1.0;
+    static final double READ_COST = 0.75;
+    static final double COMPARE_COST = 0.25;
+    static final double BOUNDS_CHECK_COST = 0.5;
+
+    // The width of a span that can be checked with a single int mask
+    static final int MASK_WIDTH = 32;
+    private static final int PRINTABLE_ASCII_START = 32;
+    private static final int PRINTABLE_ASCII_END = 127;
+    private static final int PRINTABLE_ASCII_COUNT = PRINTABLE_ASCII_END - PRINTABLE_ASCII_START;
+
+    // Both arrays are in the order the checks should be emitted
+    final int[] positions;
+    final BitSet[] charSets;
+
+    Lookahead(int[] positions, BitSet[] charSets) {
+        if (positions.length != charSets.length) {
+            throw new IllegalArgumentException("Must have one char set per position");
+        }
+        this.positions = positions;
+        this.charSets = charSets;
+    }
+
+    /**
+     * Decide which, if any, of the candidate positions are worth checking.
+     *
+     * @param candidates a map from positions to the characters that can occur there
+     * @return the lookahead covering the profitable positions, ordered from most to least profitable, or empty if the
+     * checks wouldn't pay for themselves
+     */
+    static Optional<Lookahead> choose(SortedMap<Integer, BitSet> candidates) {
+        var profitable = new ArrayList<Map.Entry<Integer, BitSet>>();
+        for (var entry : candidates.entrySet()) {
+            if (benefit(entry.getKey(), entry.getValue()) > cost(entry.getValue())) {
+                profitable.add(entry);
+            }
+        }
+        profitable.sort(Comparator.comparingDouble(
+                (Map.Entry<Integer, BitSet> e) -> benefit(e.getKey(), e.getValue()) / cost(e.getValue())).reversed());
+        while (profitable.size() > MAX_POSITIONS) {
+            profitable.remove(profitable.size() - 1);
+        }
+
+        double totalBenefit = 0;
+        double totalCost = BOUNDS_CHECK_COST;
+        for (var entry : profitable) {
+            totalBenefit += benefit(entry.getKey(), entry.getValue());
+            totalCost += cost(entry.getValue());
+        }
+        if (profitable.isEmpty() || totalBenefit <= totalCost) {
+            return Optional.empty();
+        }
+
+        var positions = new int[profitable.size()];
+        var charSets = new BitSet[profitable.size()];
+        for (var i = 0; i < profitable.size(); i++) {
+            positions[i] = profitable.get(i).getKey();
+            charSets[i] = profitable.get(i).getValue();
+        }
+        return Optional.of(new Lookahead(positions, charSets));
+    }
+
+    /**
+     * Estimate the proportion of characters in typical input that fall within a set, treating printable ASCII as the
+     * common case.
+     */
+    static double selectivity(BitSet chars) {
+        int printable = chars.get(PRINTABLE_ASCII_START, PRINTABLE_ASCII_END).cardinality();
+        int other = chars.cardinality() - printable;
+        return Math.min(1.0, (printable + other / 256.0) / PRINTABLE_ASCII_COUNT);
+    }
+
+    /**
+     * The expected work saved by checking a position: when the check fails, we skip up to that many states.
+     */
+    static double benefit(int position, BitSet chars) {
+        return (1 - selectivity(chars)) * position * STATE_COST;
+    }
+
+    static double cost(BitSet chars) {
+        return READ_COST + compareCount(chars) * COMPARE_COST;
+    }
+
+    static int compareCount(BitSet chars) {
+        if (chars.cardinality() == 1) {
+            return 1;
+        }
+        else if (usesMask(chars)) {
+            return 3;
+        }
+        return 2 * ranges(chars).size();
+    }
+
+    /**
+     * @return true if the set should be checked with a bounds check plus a shift into an int mask
+     */
+    static boolean usesMask(BitSet chars) {
+        if (chars.isEmpty()) {
+            return false;
+        }
+        int span = chars.length() - chars.nextSetBit(0);
+        return span <= MASK_WIDTH && ranges(chars).size() > 1;
+    }
+
+    /**
+     * @return an int whose nth bit is set if the char (start + n) is in the set
+     */
+    static int mask(BitSet chars) {
+        int start = chars.nextSetBit(0);
+        int mask = 0;
+        for (int i = start; i >= 0; i = chars.nextSetBit(i + 1)) {
+            mask |= 1 << (i - start);
+        }
+        return mask;
+    }
+
+    static List<CharRange> ranges(BitSet chars) {
+        var ranges = new ArrayList<CharRange>();
+        int start = chars.nextSetBit(0);
+        while (start >= 0) {
+            int end = chars.nextClearBit(start);
+            ranges.add(new CharRange((char) start, (char) (end - 1)));
+            start = chars.nextSetBit(end);
+        }
+        return ranges;
+    }
+
+    int maxPosition() {
+        int max = 0;
+        for (int position : positions) {
+            max = Math.max(max, position);
+        }
+        return max;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Lookahead lookahead = (Lookahead) o;
+        return Arrays.equals(positions, lookahead.positions) && Arrays.equals(charSets, lookahead.charSets);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(positions) + Arrays.hashCode(charSets);
+    }
+
+    @Override
+    public String toString() {
+        return "Lookahead{" +
+                "positions=" + Arrays.toString(positions) +
+                ", charSets=" + Arrays.toString(charSets) +
+                '}';
+    }
+}
@@ -1,235 +1,281 @@
 package com.justinblank.strings;
 
-import org.apache.commons.lang3.tuple.Pair;
-
 import java.util.*;
 
-// This implements Hopcroft's Minimization Algorithm
+/**
+ * This implements Hopcroft's Minimization Algorithm.
+ * <p>
+ * Characters that no transition distinguishes share a char class. Missing transitions lead to an implicit sink,
+ * which starts in its own block, so a missing transition is never treated as equivalent to an existing one. One
+ * initial block can be left off the worklist, since splitting by all the others splits by it too. Leaving off the
+ * sink means only the transitions the DFA has are indexed, by target and char class. Refinement only ever re-queues
+ * the smaller half of a split block, so it takes O(m log n) time for n states and m transitions split by char class.
+ */
 class MinimizeDFA {
 
-    private int state = 1; // Account for the fact that root will be 0
-    private DFA root;
-    private static int splitCalls = 0;
-    private static int successfulSplits = 0;
+    private CompactDFA dfa;
+    private int stateCount;
+
+    // The first char of each char class, in ascending order
+    private int[] classStarts;
+    private int classCount;
+    // The transitions into target, one for each char class they cover, are at the indices from inverseStart[target]
+    // up to inverseStart[target + 1] of inverseClasses and inverseSources
+    private int[] inverseStart;
+    private int[] inverseClasses;
+    private int[] inverseSources;
+
+    // Each block of the partition is a contiguous range of elements. The marked elements of a block come first.
+    private int[] elements;
+    private int[] location;
+    private int[] blockOf;
+    private int[] blockStart;
+    private int[] blockEnd;
+    private int[] blockMarkedEnd;
+    private int blockCount;
+
+    private int[] worklist;
+    private int worklistSize;
+    private boolean[] inWorklist;
 
     protected static DFA minimizeDFA(DFA dfa) {
-        MinimizeDFA minimizer = new MinimizeDFA();
-        Map<DFA, Set<DFA>> partition = minimizer.createPartition(dfa);
-        Map<Set<DFA>, DFA> newDFAMap = new IdentityHashMap<>();
-
-        for (DFA original : dfa.allStates()) {
-            DFA minimized = minimizer.getOrCreateMinimizedState(partition, newDFAMap, original);
-            for (Pair<CharRange, DFA> transition : original.getTransitions()) {
-                DFA next = minimizer.getOrCreateMinimizedState(partition, newDFAMap, transition.getRight());
-                minimized.addTransition(transition.getLeft(), next);
-            }
-        }
-        DFA minimal = newDFAMap.get(partition.get(dfa));
-        assert minimal.statesCount() == new HashSet<>(partition.values()).size();
+        DFA minimal = minimize(CompactDFA.from(dfa)).toDFA();
         assert minimal.checkRep();
-//        System.out.println("Split calls: " + splitCalls);
-//        System.out.println("Successful splits " + successfulSplits);
         return minimal;
     }
 
-    private DFA getOrCreateMinimizedState(Map<DFA, Set<DFA>> partition, Map<Set<DFA>, DFA> newDFAMap, DFA original) {
-        Set<DFA> set = partition.get(original);
-        DFA minimized = newDFAMap.get(set);
-        if (minimized == null) {
-            if (root == null) {
-                assert original.isRoot();
-                minimized = DFA.root(original.isAccepting());
-                root = minimized;
-            }
-            else {
-                minimized = new DFA(root, original.isAccepting(), state++);
-            }
-            newDFAMap.put(set, minimized);
-        }
-        return minimized;
+    static CompactDFA minimize(CompactDFA dfa) {
+        MinimizeDFA minimizer = new MinimizeDFA();
+        minimizer.refine(dfa);
+        CompactDFA minimal = minimizer.buildMinimized();
+        // The sink is never stored, so every block holds states of the original DFA
+        assert minimal.statesCount() == minimizer.blockCount;
+        return minimal;
     }
 
     protected Map<DFA, Set<DFA>> createPartition(DFA dfa) {
-        PartitionState partition = initialPartition(dfa);
-        boolean changed = true;
-        int currentIteration = 0;
-        while (changed) {
-            currentIteration++;
-            changed = false;
-            List<DFAGroup> changedItems = new ArrayList<>();
-            while (partition.queue.peek() != null) {
-                DFAGroup set = partition.queue.poll();
-                if (set.size() > 1) {
-                    Optional<List<Set<DFA>>> splitted = split(partition.partition, set.dfas);
-                    if (splitted.isPresent()) {
-                        changed = true;
-                        for (Set<DFA> part : splitted.get()) {
-                            DFAGroup dfaGroup = new DFAGroup(part);
-                            changedItems.add(dfaGroup);
-                            for (DFA thing : part) {
-                                partition.partition.set(thing.getStateNumber(), dfaGroup);
-                            }
-                        }
-                        partition.queue.addAll(changedItems);
-                        break;
-                    } else {
-                        set.lastConsidered = currentIteration;
-                        changedItems.add(set);
-                    }
-                }
-            }
+        refine(CompactDFA.from(dfa));
+        Map<Integer, Set<DFA>> blocks = new HashMap<>();
+        Map<DFA, Set<DFA>> partition = new HashMap<>();
+        for (DFA state : dfa.allStates()) {
+            Set<DFA> block = blocks.computeIfAbsent(blockOf[state.getStateNumber()], b -> new HashSet<>());
+            block.add(state);
+            partition.put(state, block);
         }
-        assert allNonEmpty(partition.partition);
-        return unwrap(dfa, partition.partition);
+        return partition;
     }
 
-    private Map<DFA, Set<DFA>> unwrap(DFA dfa, List<DFAGroup> partition) {
-        Map<DFA, Set<DFA>> unwrapped = new HashMap<>();
-        for (var dfaState : dfa.allStates()) {
-            unwrapped.put(dfaState, partition.get(dfaState.getStateNumber()).dfas);
-        }
-        return unwrapped;
-    }
+    private void refine(CompactDFA dfa) {
+        this.dfa = dfa;
+        stateCount = dfa.statesCount();
+        findCharClasses();
+        buildInverse();
+        initialPartition();
 
-    /**
-     * Create an initial partition that will subsequently be refined.
-     *
-     * We create the initial partition by splitting the states by 1) whether or not they are accepting and 2) how many
-     * outgoing transitions they have.
-     * @param dfa the DFA whose states we're partitioning
-     * @return a coarse partition of the DFA states that will be refined
-     */
-    private static PartitionState initialPartition(DFA dfa) {
-        List<DFAGroup> partition = new ArrayList<>(dfa.statesCount());
-        for (int i = 0; i < dfa.statesCount(); i++) {
-            partition.add(null);
-        }
-        Set<DFA> accepting = dfa.acceptingStates();
-        Set<DFA> nonAccepting = new HashSet<>(dfa.allStates());
-        nonAccepting.removeAll(accepting);
-        List<DFAGroup> dfaGroups = new ArrayList<>();
-        if (!accepting.isEmpty()) {
-            dfaGroups.addAll(partitionByTransitionCount(partition, accepting));
-        }
-        if (!nonAccepting.isEmpty()) {
-            dfaGroups.addAll(partitionByTransitionCount(partition, nonAccepting));
+        // The transitions into the splitter, gathered into a linked list for each char class it's reached on
+        int[] bucketHead = new int[classCount];
+        Arrays.fill(bucketHead, -1);
+        int[] nextInBucket = new int[inverseSources.length];
+        int[] bucketClasses = new int[classCount];
+        int[] touched = new int[stateCount];
+        while (worklistSize > 0) {
+            int block = worklist[--worklistSize];
+            inWorklist[block] = false;
+            // The splitter can itself be split while we use it, so we gather its transitions first
+            int bucketCount = 0;
+            for (int i = blockStart[block]; i < blockEnd[block]; i++) {
+                int target = elements[i];
+                for (int j = inverseStart[target]; j < inverseStart[target + 1]; j++) {
+                    int charClass = inverseClasses[j];
+                    if (bucketHead[charClass] < 0) {
+                        bucketClasses[bucketCount++] = charClass;
+                    }
+                    nextInBucket[j] = bucketHead[charClass];
+                    bucketHead[charClass] = j;
+                }
+            }
+            for (int b = 0; b < bucketCount; b++) {
+                int charClass = bucketClasses[b];
+                int touchedCount = 0;
+                for (int j = bucketHead[charClass]; j >= 0; j = nextInBucket[j]) {
+                    int source = inverseSources[j];
+                    int sourceBlock = blockOf[source];
+                    if (location[source] < blockMarkedEnd[sourceBlock]) {
+                        continue;
+                    }
+                    if (blockMarkedEnd[sourceBlock] == blockStart[sourceBlock]) {
+                        touched[touchedCount++] = sourceBlock;
+                    }
+                    mark(source, sourceBlock);
+                }
+                bucketHead[charClass] = -1;
+                for (int i = 0; i < touchedCount; i++) {
+                    split(touched[i]);
+                }
+            }
         }
-        return new PartitionState(partition, new PriorityQueue<>(dfaGroups));
     }
 
-    // TODO: Better name
-    private static List<DFAGroup> partitionByTransitionCount(List<DFAGroup> partition, Set<DFA> accepting) {
-        Map<Integer, Set<DFA>> acceptingByTransitionCount = new HashMap<>();
-        List<DFAGroup> dfaGroups = new ArrayList<>();
-        for (DFA acceptingDFA : accepting) {
-            Set<DFA> set = acceptingByTransitionCount.computeIfAbsent(acceptingDFA.getTransitions().size(), (s) -> new HashSet<>());
-            set.add(acceptingDFA);
+    private void findCharClasses() {
+        int[] boundaries = new int[2 * dfa.transitionCount() + 1];
+        for (int i = 0; i < dfa.transitionCount(); i++) {
+            boundaries[2 * i + 1] = dfa.rangeStarts[i];
+            boundaries[2 * i + 2] = dfa.rangeEnds[i] + 1;
         }
-        for (Map.Entry<Integer, Set<DFA>> e : acceptingByTransitionCount.entrySet()) {
-            DFAGroup group = new DFAGroup(e.getValue());
-            dfaGroups.add(group);
-            for (DFA acceptingDFA : e.getValue()) {
-                partition.set(acceptingDFA.getStateNumber(), group);
+        Arrays.sort(boundaries);
+        classStarts = new int[boundaries.length];
+        for (int boundary : boundaries) {
+            if (boundary <= Character.MAX_VALUE && (classCount == 0 || classStarts[classCount - 1] != boundary)) {
+                classStarts[classCount++] = boundary;
             }
         }
-        return dfaGroups;
     }
 
-    protected static boolean allNonEmpty(List<DFAGroup> partition) {
-        for (DFAGroup group : partition) {
-            if (group.dfas.isEmpty()) {
-                return false;
-            }
-        }
-        return true;
+    private int charClass(char c) {
+        int index = Arrays.binarySearch(classStarts, 0, classCount, c);
+        return index >= 0 ? index : -index - 2;
     }
 
-    protected static Optional<List<Set<DFA>>> split(List<DFAGroup> partition, Set<DFA> set) {
-        splitCalls++;
-        Iterator<DFA> dfa = set.iterator();
-        DFA first = dfa.next();
-        Set<DFA> other = new HashSet<>(set.size());
-        for (DFA second : set) {
-            if (second != first && !equivalent(partition, first, second)) {
-                other.add(second);
-            }
+    private void buildInverse() {
+        int[] firstClasses = new int[dfa.transitionCount()];
+        int[] lastClasses = new int[dfa.transitionCount()];
+        inverseStart = new int[stateCount + 1];
+        for (int i = 0; i < dfa.transitionCount(); i++) {
+            firstClasses[i] = charClass(dfa.rangeStarts[i]);
+            lastClasses[i] = charClass(dfa.rangeEnds[i]);
+            inverseStart[dfa.targets[i] + 1] += lastClasses[i] - firstClasses[i] + 1;
         }
-        if (!other.isEmpty()) {
-            List<Set<DFA>> splitted = new ArrayList<>();
-            splitted.add(other);
-            set.removeAll(other);
-            splitted.add(set);
-            successfulSplits++;
-            return Optional.of(splitted);
+        for (int target = 0; target < stateCount; target++) {
+            inverseStart[target + 1] += inverseStart[target];
+        }
+        int[] next = Arrays.copyOf(inverseStart, stateCount);
+        inverseClasses = new int[inverseStart[stateCount]];
+        inverseSources = new int[inverseStart[stateCount]];
+        for (int state = 0; state < stateCount; state++) {
+            for (int i = dfa.transitionOffsets[state]; i < dfa.transitionOffsets[state + 1]; i++) {
+                for (int charClass = firstClasses[i]; charClass <= lastClasses[i]; charClass++) {
+                    int index = next[dfa.targets[i]]++;
+                    inverseClasses[index] = charClass;
+                    inverseSources[index] = state;
+                }
+            }
         }
-        return Optional.empty();
     }
 
-    protected static boolean equivalent(List<DFAGroup> partition, DFA first, DFA second) {
-        Iterator<Pair<CharRange, DFA>> firstIter = first.getTransitions().iterator();
-        Iterator<Pair<CharRange, DFA>> secondIter = second.getTransitions().iterator();
-        while (firstIter.hasNext()) {
-            Pair<CharRange, DFA> firstTransition = firstIter.next();
-            Pair<CharRange, DFA> secondTransition = secondIter.next();
-            if (!firstTransition.getLeft().equals(secondTransition.getLeft())) {
-                return false;
-            }
-            else if (firstTransition.getRight() != secondTransition.getRight()) {
-                if (partition.get(firstTransition.getRight().getStateNumber()) != partition.get(secondTransition.getRight().getStateNumber())) {
-                    return false;
+    /**
+     * Create the initial partition, which has blocks for the accepting and the non-accepting states, and put them on
+     * the worklist.
+     */
+    private void initialPartition() {
+        elements = new int[stateCount];
+        location = new int[stateCount];
+        blockOf = new int[stateCount];
+        blockStart = new int[stateCount];
+        blockEnd = new int[stateCount];
+        blockMarkedEnd = new int[stateCount];
+        worklist = new int[stateCount];
+        inWorklist = new boolean[stateCount];
+
+        int next = 0;
+        for (boolean accepting : new boolean[]{true, false}) {
+            int start = next;
+            for (int state = 0; state < stateCount; state++) {
+                if (dfa.isAccepting(state) == accepting) {
+                    elements[next] = state;
+                    location[state] = next;
+                    blockOf[state] = blockCount;
+                    next++;
                 }
             }
+            if (next > start) {
+                blockStart[blockCount] = start;
+                blockEnd[blockCount] = next;
+                blockMarkedEnd[blockCount] = start;
+                addToWorklist(blockCount);
+                blockCount++;
+            }
         }
-        return true;
     }
 
-    static class DFAGroup implements Comparable<DFAGroup> {
-        Set<DFA> dfas;
-        int lastConsidered = 0;
+    private void mark(int state, int block) {
+        int position = location[state];
+        int markedEnd = blockMarkedEnd[block];
+        int displaced = elements[markedEnd];
+        elements[markedEnd] = state;
+        location[state] = markedEnd;
+        elements[position] = displaced;
+        location[displaced] = position;
+        blockMarkedEnd[block]++;
+    }
 
-        DFAGroup(Set<DFA> dfas) {
-            this.dfas = dfas;
+    /**
+     * Split the marked states of a block into a new block, unless every state was marked.
+     */
+    private void split(int block) {
+        if (blockMarkedEnd[block] == blockEnd[block]) {
+            blockMarkedEnd[block] = blockStart[block];
+            return;
         }
-
-        public int size() {
-            return dfas.size();
+        int newBlock = blockCount++;
+        blockStart[newBlock] = blockStart[block];
+        blockEnd[newBlock] = blockMarkedEnd[block];
+        blockMarkedEnd[newBlock] = blockStart[newBlock];
+        blockStart[block] = blockEnd[newBlock];
+        blockMarkedEnd[block] = blockStart[block];
+        for (int i = blockStart[newBlock]; i < blockEnd[newBlock]; i++) {
+            blockOf[elements[i]] = newBlock;
         }
 
-        public int compareTo(DFAGroup other) {
-            // Without these size checks, we'd experience a mild-slowdown where long series of very small sets were
-            // considered, despite the low probability that they'll provide successful splits. It seems like there
-            // should be a lot of room to improve on here
-            if (this.lastConsidered > other.lastConsidered && other.size() > 2) {
-                return 1;
-            }
-            else if (this.lastConsidered < other.lastConsidered && this.size() > 2) {
-                return -1;
-            }
-            else if (this.size() > other.size()) {
-                return -1;
-            }
-            else if (this.size() < other.size()) {
-                return 1;
-            }
-            return 0;
+        if (inWorklist[block]) {
+            addToWorklist(newBlock);
         }
-
-        @Override
-        public String toString() {
-            return "DFAGroup{" +
-                    "dfasSize=" + dfas.size() +
-                    ", lastConsidered=" + lastConsidered +
-                    '}';
+        else if (blockEnd[newBlock] - blockStart[newBlock] < blockEnd[block] - blockStart[block]) {
+            addToWorklist(newBlock);
+        }
+        else {
+            addToWorklist(block);
         }
     }
 
-    static class PartitionState {
-        List<DFAGroup> partition;
-        PriorityQueue<DFAGroup> queue;
+    private void addToWorklist(int block) {
+        worklist[worklistSize++] = block;
+        inWorklist[block] = true;
+    }
 
-        PartitionState(List<DFAGroup> partition, PriorityQueue<DFAGroup> queue) {
-            this.partition = partition;
-            this.queue = queue;
+    /**
+     * Create the minimized DFA, numbering its states in breadth first order from the root, so that the root remains
+     * state 0. Each state's transitions are taken from one representative of its block, with adjacent ranges that lead
+     * to the same block merged into a single range.
+     */
+    private CompactDFA buildMinimized() {
+        var builder = new CompactDFA.Builder(blockCount, dfa.transitionCount());
+        int[] numbers = new int[blockCount];
+        Arrays.fill(numbers, -1);
+        numbers[blockOf[0]] = 0;
+        int nextState = 1;
+        Queue<Integer> pending = new ArrayDeque<>();
+        pending.add(blockOf[0]);
+        while (!pending.isEmpty()) {
+            int block = pending.poll();
+            int representative = elements[blockStart[block]];
+            builder.addState(dfa.isAccepting(representative));
+            int i = dfa.transitionOffsets[representative];
+            int end = dfa.transitionOffsets[representative + 1];
+            while (i < end) {
+                int targetBlock = blockOf[dfa.targets[i]];
+                char start = dfa.rangeStarts[i];
+                while (i + 1 < end && blockOf[dfa.targets[i + 1]] == targetBlock
+                        && dfa.rangeStarts[i + 1] == dfa.rangeEnds[i] + 1) {
+                    i++;
+                }
+                if (numbers[targetBlock] < 0) {
+                    numbers[targetBlock] = nextState++;
+                    pending.add(targetBlock);
+                }
+                builder.addTransition(start, dfa.rangeEnds[i], numbers[targetBlock]);
+                i++;
+            }
         }
+        return builder.build();
     }
 }
@@ -1,6 +1,7 @@
 package com.justinblank.strings;
 
 import com.justinblank.strings.RegexAST.Node;
+import com.justinblank.strings.RegexAST.WholeWords;
 import com.justinblank.strings.Search.SearchMethod;
 import com.justinblank.strings.Search.SearchMethodMatcher;
 import com.justinblank.strings.Search.SearchMethodUtil;
@@ -14,13 +15,26 @@ import static com.justinblank.strings.RegexInstr.Opcode.*;
 class NFA implements SearchMethod {
 
     RegexInstr[] regexInstrs;
+    private final ThreadLocal<NFAScratch> scratch = new ThreadLocal<>();
 
     protected NFA(RegexInstr[] regexInstrs) {
         this.regexInstrs = regexInstrs;
     }
 
     public static SearchMethod createNFA(String regex) {
-        Node parse = RegexParser.parse(regex);
+        return createNFA(regex, 0);
+    }
+
+    /**
+     * @param regex the regex
+     * @param flags flags from {@link Pattern}, such as {@link Pattern#CASE_INSENSITIVE}
+     * @return a search method for the regex
+     */
+    public static SearchMethod createNFA(String regex, int flags) {
+        Node parse = RegexParser.parseAllowingWordBoundaries(regex, flags);
+        if (parse instanceof WholeWords) {
+            return searchWholeWords((WholeWords) parse);
+        }
         var factors = parse.bestFactors();
         if (factors.isComplete()) {
             return SearchMethods.makeSearchMethod(factors.getAll());
@@ -28,6 +42,18 @@ class NFA implements SearchMethod {
         return new NFA(RegexInstrBuilder.createNFA(parse));
     }
 
+    /**
+     * Search for the words a regex surrounded by \b matches with an automaton that rejects matches inside longer
+     * words, rather than checking the chars around each match.
+     */
+    static SearchMethod searchWholeWords(WholeWords node) {
+        var factors = node.body.bestFactors();
+        if (!factors.isComplete()) {
+            throw new RegexSyntaxException("Too many words to search for between \\b");
+        }
+        return SearchMethods.makeSearchMethod(factors.getAll(), SearchMethods.WHOLE_WORDS);
+    }
+
     /**
      * This method exists just for the sake of ensuring that we get adequate test coverage of our NFA.
      *
@@ -110,19 +136,29 @@ class NFA implements SearchMethod {
     }
 
     public MatchResult find(String s, int start, int end, boolean anchored) {
+        NFAScratch threadScratch = scratch.get();
+        if (threadScratch == null || threadScratch.capacity() < regexInstrs.length) {
+            threadScratch = new NFAScratch(regexInstrs.length);
+            scratch.set(threadScratch);
+        }
+        return find(s, start, end, anchored, threadScratch);
+    }
+
+    /**
+     * Find a match using the caller's scratch space, which must not be in use by another search.
+     */
+    MatchResult find(String s, int start, int end, boolean anchored, NFAScratch scratch) {
         SearchMethodUtil.checkIndices(s, start, end);
         int i = start;
         int lastStart = Integer.MAX_VALUE;
         int lastEnd = -1;
-        int size = this.regexInstrs.length;
-        SparseSet activeStates = new SparseSet(size);
+        scratch.reset();
+        SparseSet activeStates = scratch.states1;
         activeStates.add(0);
-        SparseSet newStates = new SparseSet(size);
-        int[] stateOrigins = new int[size];
-        Arrays.fill(stateOrigins, Integer.MAX_VALUE);
+        SparseSet newStates = scratch.states2;
+        int[] stateOrigins = scratch.origins1;
         stateOrigins[0] = 0;
-        int[] newStateOrigins = new int[size];
-        Arrays.fill(newStateOrigins, Integer.MAX_VALUE);
+        int[] newStateOrigins = scratch.origins2;
         for (; i < end; i++) {
             char c = s.charAt(i);
             // If we have returned to the initial state, during the course of a match, i.e. with a*b matching "aaab", we
@@ -211,11 +247,10 @@ class NFA implements SearchMethod {
             SparseSet tempStates = activeStates;
             activeStates = newStates;
             newStates = tempStates;
-            newStates.clear();
             int[] tempOrigins = stateOrigins;
             stateOrigins = newStateOrigins;
             newStateOrigins = tempOrigins;
-            Arrays.fill(newStateOrigins, Integer.MAX_VALUE);
+            NFAScratch.reset(newStates, newStateOrigins);
         }
         // TODO: rewrite for clarity
         MatchResult result = null;
@@ -0,0 +1,45 @@
+package com.justinblank.strings;
+
+import com.justinblank.util.SparseSet;
+
+import java.util.Arrays;
+
+/**
+ * The state sets and state origins that an NFA search works in. Reusing one across searches avoids allocating, and
+ * since an origin is only ever set for a state in the matching set, resetting only has to touch those states.
+ */
+class NFAScratch {
+
+    final SparseSet states1;
+    final SparseSet states2;
+    final int[] origins1;
+    final int[] origins2;
+
+    NFAScratch(int size) {
+        states1 = new SparseSet(size);
+        states2 = new SparseSet(size);
+        origins1 = new int[size];
+        origins2 = new int[size];
+        Arrays.fill(origins1, Integer.MAX_VALUE);
+        Arrays.fill(origins2, Integer.MAX_VALUE);
+    }
+
+    int capacity() {
+        return origins1.length;
+    }
+
+    void reset() {
+        reset(states1, origins1);
+        reset(states2, origins2);
+    }
+
+    /**
+     * Clear the states, and the origins of those states, leaving every origin at Integer.MAX_VALUE.
+     */
+    static void reset(SparseSet states, int[] origins) {
+        for (int i = 0; i < states.size(); i++) {
+            origins[states.getByIndex(i)] = Integer.MAX_VALUE;
+        }
+        states.clear();
+    }
+}
@@ -6,72 +6,380 @@ import static com.justinblank.strings.RegexInstr.Opcode.*;
 
 public class NFAToDFACompiler {
 
-    private Map<Set<Integer>, DFA> stateSets = new HashMap<>();
+    // Sets of NFA states are restricted to char range and match instructions, since the other instructions don't
+    // affect what a DFA state does, and interned, so that each set corresponds to exactly one DFA state
+    private Map<BitSet, Integer> stateSets = new HashMap<>();
     private int state = 1; // root will always be zero
-    private DFA root;
+    private final BitSet acceptingStates = new BitSet();
+    private final CompactDFA.Builder builder = new CompactDFA.Builder();
     private final NFA nfa;
+    // The restricted epsilon closure of each NFA instruction
+    private final BitSet[] closures;
+    private final BitSet matchStates = new BitSet();
+    // NFA states added to every set of moves, used to restart the search at every index
+    private BitSet restartStates = new BitSet();
+    private boolean stopAtAccepting;
+    private boolean allAccepting;
+    private int maxStates = Integer.MAX_VALUE;
 
     NFAToDFACompiler(NFA nfa) {
         this.nfa = nfa;
+        this.closures = computeClosures();
     }
 
     public static DFA compile(NFA nfa) {
-        DFA dfa = new NFAToDFACompiler(nfa)._compile(nfa);
-        return MinimizeDFA.minimizeDFA(dfa);
+        return MinimizeDFA.minimize(compileCompact(nfa)).toDFA();
+    }
+
+    /**
+     * Create the DFA for an NFA, without minimizing it.
+     */
+    static CompactDFA compileCompact(NFA nfa) {
+        var compiler = new NFAToDFACompiler(nfa);
+        compiler.compileStates(compiler.closures[0]);
+        return compiler.builder.build();
+    }
+
+    /**
+     * Create a DFA that finds the earliest end of a match anywhere in a string, as though the regex were prefixed
+     * with an implicit <code>.*?</code>. Every state includes the NFA's start states, so a character with no
+     * transition leads back to the root, rather than failing. Accepting states have no transitions, since the search
+     * is over as soon as one is reached.
+     *
+     * @param nfa the nfa
+     * @param maxStates the maximum number of states to create before giving up
+     * @return the DFA, or empty if constructing it would create too many states
+     */
+    static Optional<DFA> compileUnanchored(NFA nfa, int maxStates) {
+        var compiler = new NFAToDFACompiler(nfa);
+        compiler.restartStates = compiler.closures[0];
+        compiler.stopAtAccepting = true;
+        compiler.maxStates = maxStates;
+        return compiler.compileLimited(compiler.closures[0]);
+    }
+
+    /**
+     * Create a DFA that recognizes every substring of a string matching the NFA. Every state is accepting, so the DFA
+     * only fails when a string stops being a substring of some match.
+     *
+     * @param nfa the nfa
+     * @param maxStates the maximum number of states to create before giving up
+     * @return the DFA, or empty if constructing it would create too many states
+     */
+    static Optional<DFA> compileFactors(NFA nfa, int maxStates) {
+        var compiler = new NFAToDFACompiler(nfa);
+        compiler.allAccepting = true;
+        compiler.maxStates = maxStates;
+        var allStates = new BitSet();
+        for (var closure : compiler.closures) {
+            allStates.or(closure);
+        }
+        return compiler.compileLimited(allStates);
+    }
+
+    /**
+     * Create a DFA that finds the end of the leftmost-longest match in a string, the way RE2 does in longest match
+     * mode. Each state is an ordered list of groups of NFA states, one for each index a match could have started at,
+     * earliest first. An NFA state only appears in the earliest group that reached it, since a later start with the
+     * same future can't be leftmost. Once a group matches, the groups that started after it are dropped, and no new
+     * group is started. So the last accepting state reached before the DFA has no transition marks the end of the
+     * leftmost-longest match, and walking back from there with the reversed DFA finds its start.
+     *
+     * @param nfa the nfa
+     * @param maxStates the maximum number of states to create before giving up
+     * @return the DFA, or empty if constructing it would create too many states
+     */
+    static Optional<DFA> compileLeftmostLongest(NFA nfa, int maxStates) {
+        var compiler = new NFAToDFACompiler(nfa);
+        compiler.maxStates = maxStates;
+        if (!compiler.compileGroupedStates()) {
+            return Optional.empty();
+        }
+        return Optional.of(MinimizeDFA.minimize(compiler.builder.build()).toDFA());
+    }
+
+    private Optional<DFA> compileLimited(BitSet initialStates) {
+        if (!compileStates(initialStates)) {
+            return Optional.empty();
+        }
+        return Optional.of(MinimizeDFA.minimize(builder.build()).toDFA());
     }
 
     DFA _compile(NFA nfa) {
-        Set<Integer> states = nfa.epsilonClosure(0);
-        root = DFA.root(nfa.hasAcceptingState(states));
-        addNFAStatesToDFA(states, root);
-        return root;
+        compileStates(closures[0]);
+        return builder.build().toDFA();
+    }
+
+    private BitSet[] computeClosures() {
+        var instrs = nfa.regexInstrs;
+        var closures = new BitSet[instrs.length];
+        var visited = new BitSet(instrs.length);
+        var pending = new int[instrs.length];
+        for (int i = 0; i < instrs.length; i++) {
+            if (instrs[i].opcode == MATCH) {
+                matchStates.set(i);
+            }
+            var closure = new BitSet();
+            visited.clear();
+            visited.set(i);
+            int pendingCount = 0;
+            pending[pendingCount++] = i;
+            while (pendingCount > 0) {
+                int next = pending[--pendingCount];
+                RegexInstr instr = instrs[next];
+                if (instr.opcode == SPLIT || instr.opcode == JUMP) {
+                    if (!visited.get(instr.target1)) {
+                        visited.set(instr.target1);
+                        pending[pendingCount++] = instr.target1;
+                    }
+                    if (instr.opcode == SPLIT && !visited.get(instr.target2)) {
+                        visited.set(instr.target2);
+                        pending[pendingCount++] = instr.target2;
+                    }
+                }
+                else {
+                    closure.set(next);
+                }
+            }
+            closures[i] = closure;
+        }
+        return closures;
     }
 
-    private void addNFAStatesToDFA(Set<Integer> states, DFA dfa) {
-        Stack<Set<Integer>> pending = new Stack<>();
-        pending.add(states);
+    /**
+     * Create the DFA states reachable from the initial states. States are numbered as they're discovered, and
+     * processed in the same order, so each state's transitions can be appended to the builder as we go.
+     *
+     * @return false if we gave up because there were too many states
+     */
+    private boolean compileStates(BitSet initialStates) {
+        stateSets.put(initialStates, 0);
+        if (allAccepting || initialStates.intersects(matchStates)) {
+            acceptingStates.set(0);
+        }
+        Queue<BitSet> pending = new ArrayDeque<>();
+        pending.add(initialStates);
         while (!pending.isEmpty()) {
-            states = pending.pop();
-            DFA foundDFA = stateSets.get(states);
-            if (foundDFA != null) {
-                dfa = foundDFA;
-            }
-            Set<Integer> epsilonClosure = nfa.epsilonClosure(states);
-            List<CharRange> ranges = CharRange.minimalCovering(findCharRanges(epsilonClosure));
-            for (CharRange range : ranges) {
-                // any element of the range is equally good here, getStart()/getEnd() doesn't matter
-                Set<Integer> moves = nfa.epsilonClosure(transition(epsilonClosure, range.getStart()));
-                DFA targetDfa = stateSets.get(moves);
-                if (targetDfa == null) {
-                    pending.add(moves);
-                    boolean accepting = nfa.hasAcceptingState(moves);
-                    targetDfa = new DFA(root, accepting, state++);
-                    stateSets.put(moves, targetDfa);
+            BitSet states = pending.poll();
+            int dfaState = stateSets.get(states);
+            int added = builder.addState(acceptingStates.get(dfaState));
+            assert added == dfaState : "states must be processed in the order they're numbered";
+            if (stopAtAccepting && acceptingStates.get(dfaState)) {
+                continue;
+            }
+            if (!addTransitions(states, pending)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean compileGroupedStates() {
+        var initial = new GroupedStates(List.of(closures[0]), closures[0].intersects(matchStates));
+        Map<GroupedStates, Integer> numbers = new HashMap<>();
+        numbers.put(initial, 0);
+        Queue<GroupedStates> pending = new ArrayDeque<>();
+        pending.add(initial);
+        while (!pending.isEmpty()) {
+            GroupedStates states = pending.poll();
+            builder.addState(states.isAccepting(matchStates));
+            if (!addGroupedTransitions(states, numbers, pending)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add the transitions out of a state of the leftmost-longest DFA. Unlike the other DFAs, a state that hasn't
+     * matched yet has a transition for every char, since a new group starts after each one.
+     */
+    private boolean addGroupedTransitions(GroupedStates states, Map<GroupedStates, Integer> numbers,
+                                          Queue<GroupedStates> pending) {
+        var boundaries = new TreeSet<Integer>();
+        boundaries.add(0);
+        boundaries.add(Character.MAX_VALUE + 1);
+        for (BitSet group : states.groups) {
+            for (int i = group.nextSetBit(0); i >= 0; i = group.nextSetBit(i + 1)) {
+                RegexInstr instr = nfa.regexInstrs[i];
+                if (instr.opcode == CHAR_RANGE) {
+                    boundaries.add((int) instr.start);
+                    boundaries.add(instr.end + 1);
+                }
+            }
+        }
+        int[] spans = boundaries.stream().mapToInt(Integer::intValue).toArray();
+        int lastTarget = -1;
+        int lastStart = -1;
+        int lastEnd = -1;
+        for (int span = 0; span < spans.length - 1; span++) {
+            int start = spans[span];
+            int next = spans[span + 1];
+            // Every char in the span moves the same NFA states
+            var moves = states.step((char) start, nfa, closures, matchStates);
+            if (moves == null) {
+                continue;
+            }
+            Integer target = numbers.get(moves);
+            if (target == null) {
+                if (numbers.size() >= maxStates) {
+                    return false;
                 }
-                dfa.addTransition(range, targetDfa);
+                target = numbers.size();
+                numbers.put(moves, target);
+                pending.add(moves);
+            }
+            if (target == lastTarget && lastEnd == start - 1) {
+                lastEnd = next - 1;
             }
+            else {
+                if (lastTarget >= 0) {
+                    builder.addTransition((char) lastStart, (char) lastEnd, lastTarget);
+                }
+                lastTarget = target;
+                lastStart = start;
+                lastEnd = next - 1;
+            }
+        }
+        if (lastTarget >= 0) {
+            builder.addTransition((char) lastStart, (char) lastEnd, lastTarget);
         }
+        return true;
     }
 
-    protected List<CharRange> findCharRanges(Collection<Integer> nfas) {
-        List<CharRange> ranges = new ArrayList<>();
-        for (Integer state : nfas) {
-            RegexInstr instr = nfa.regexInstrs[state];
-            if (instr.opcode == CHAR_RANGE) {
-                ranges.add(new CharRange(instr.start, instr.end));
+    /**
+     * A state of the leftmost-longest DFA: the disjoint groups of NFA states reached from each possible start, earliest
+     * first, and whether any group has matched yet.
+     */
+    private static final class GroupedStates {
+
+        final List<BitSet> groups;
+        final boolean matched;
+
+        GroupedStates(List<BitSet> groups, boolean matched) {
+            this.groups = groups;
+            this.matched = matched;
+        }
+
+        boolean isAccepting(BitSet matchStates) {
+            return !groups.isEmpty() && groups.get(groups.size() - 1).intersects(matchStates);
+        }
+
+        /**
+         * @return the state reached by consuming the char, or null if no match can be found or extended
+         */
+        GroupedStates step(char c, NFA nfa, BitSet[] closures, BitSet matchStates) {
+            var next = new ArrayList<BitSet>();
+            var seen = new BitSet();
+            boolean matchedNext = matched;
+            for (BitSet group : groups) {
+                var moves = new BitSet();
+                for (int i = group.nextSetBit(0); i >= 0; i = group.nextSetBit(i + 1)) {
+                    RegexInstr instr = nfa.regexInstrs[i];
+                    if (instr.opcode == CHAR_RANGE && instr.start <= c && c <= instr.end) {
+                        moves.or(closures[i + 1]);
+                    }
+                }
+                moves.andNot(seen);
+                if (moves.isEmpty()) {
+                    continue;
+                }
+                seen.or(moves);
+                next.add(moves);
+                if (moves.intersects(matchStates)) {
+                    // Any group that started later can only produce a match to the right of this one
+                    matchedNext = true;
+                    break;
+                }
+            }
+            if (!matchedNext) {
+                var restart = (BitSet) closures[0].clone();
+                restart.andNot(seen);
+                if (!restart.isEmpty()) {
+                    next.add(restart);
+                }
             }
+            return next.isEmpty() ? null : new GroupedStates(next, matchedNext);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            GroupedStates that = (GroupedStates) o;
+            return matched == that.matched && groups.equals(that.groups);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * groups.hashCode() + (matched ? 1 : 0);
         }
-        return ranges;
     }
 
-    protected Set<Integer> transition(Collection<Integer> nfaStates, char c) {
-        Set<Integer> transitionStates = new HashSet<>();
-        for (Integer state : nfaStates) {
-            RegexInstr instr = nfa.regexInstrs[state];
-            if (instr.opcode == CHAR_RANGE && instr.start <= c && instr.end >= c) {
-                transitionStates.add(state + 1);
+    /**
+     * Add the transitions out of a DFA state in a single sweep over the boundaries of its char ranges. Between two
+     * consecutive boundaries, the same NFA instructions are active, so the whole span has the same target.
+     */
+    private boolean addTransitions(BitSet states, Queue<BitSet> pending) {
+        // Each event packs the position into the high bits, then the instruction, then whether it starts or ends
+        var events = new long[2 * states.cardinality()];
+        int eventCount = 0;
+        for (int i = states.nextSetBit(0); i >= 0; i = states.nextSetBit(i + 1)) {
+            RegexInstr instr = nfa.regexInstrs[i];
+            if (instr.opcode == CHAR_RANGE) {
+                events[eventCount++] = ((long) instr.start << 32) | ((long) i << 1) | 1;
+                events[eventCount++] = ((long) (instr.end + 1) << 32) | ((long) i << 1);
+            }
+        }
+        Arrays.sort(events, 0, eventCount);
+
+        var active = new BitSet();
+        int lastTarget = -1;
+        int lastStart = -1;
+        int lastEnd = -1;
+        int e = 0;
+        while (e < eventCount) {
+            int position = (int) (events[e] >>> 32);
+            for (; e < eventCount && (int) (events[e] >>> 32) == position; e++) {
+                int instr = (int) (events[e] & 0xFFFFFFFFL) >>> 1;
+                active.set(instr, (events[e] & 1) == 1);
+            }
+            if (active.isEmpty()) {
+                continue;
             }
+            int end = (int) (events[e] >>> 32) - 1;
+            var moves = new BitSet();
+            for (int i = active.nextSetBit(0); i >= 0; i = active.nextSetBit(i + 1)) {
+                moves.or(closures[i + 1]);
+            }
+            moves.or(restartStates);
+            Integer target = stateSets.get(moves);
+            if (target == null) {
+                if (state >= maxStates) {
+                    return false;
+                }
+                if (allAccepting || moves.intersects(matchStates)) {
+                    acceptingStates.set(state);
+                }
+                target = state++;
+                stateSets.put(moves, target);
+                pending.add(moves);
+            }
+            if (target == lastTarget && lastEnd == position - 1) {
+                lastEnd = end;
+            }
+            else {
+                if (lastTarget >= 0) {
+                    builder.addTransition((char) lastStart, (char) lastEnd, lastTarget);
+                }
+                lastTarget = target;
+                lastStart = position;
+                lastEnd = end;
+            }
+        }
+        if (lastTarget >= 0) {
+            builder.addTransition((char) lastStart, (char) lastEnd, lastTarget);
         }
-        return transitionStates;
+        return true;
     }
 }
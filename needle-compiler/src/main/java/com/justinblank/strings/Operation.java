@@ -6,6 +6,8 @@ import java.util.Map;
 
 class Operation {
 
+    static final String STRING_VALUE_ATTRIBUTE = "stringValue";
+
     Inst inst;
     int count;
     Block target;
@@ -85,6 +87,12 @@ class Operation {
         return new Operation(Inst.VALUE, val, null, null, null);
     }
 
+    static Operation pushString(String val) {
+        var op = new Operation(Inst.STRING_VALUE, -1, null, null, null);
+        op.addAttribute(STRING_VALUE_ATTRIBUTE, val);
+        return op;
+    }
+
     public static Operation mkReadThis() {
         var spec = new RefSpec(null, null, "", true);
         return new Operation(Inst.READ_VAR, 0, null, spec, null);
@@ -159,8 +167,23 @@ class Operation {
         return new Operation(Inst.TABLESWITCH, blocks, failTarget, min);
     }
 
-    static Operation mkLookupSwitch(List<Block> blocks, Block failTarget) {
-        return new Operation(Inst.LOOKUPSWITCH, blocks, failTarget, 0);
+    /**
+     * Make a lookupswitch, which jumps to the block at the same position as the matching key, or to failTarget if no
+     * key matches.
+     *
+     * @param keys the keys, in increasing order
+     * @param blocks the block for each key
+     * @param failTarget the block to jump to if no key matches
+     * @return the operation
+     */
+    static Operation mkLookupSwitch(List<Integer> keys, List<Block> blocks, Block failTarget) {
+        if (keys.size() != blocks.size()) {
+            throw new IllegalArgumentException("Lookupswitch needs one block per key, got keys=" + keys.size() +
+                    ", blocks=" + blocks.size());
+        }
+        var op = new Operation(Inst.LOOKUPSWITCH, blocks, failTarget, 0);
+        op.ints = keys;
+        return op;
     }
 
     void addAttribute(String key, Object attr) {
@@ -173,6 +196,7 @@ class Operation {
 
     public enum Inst {
         VALUE,
+        STRING_VALUE,
         READ_CHAR,
         INCREMENT_INDEX,
         DECREMENT_INDEX,
@@ -1,8 +1,10 @@
 package com.justinblank.strings.RegexAST;
 
+import com.justinblank.strings.CaseFolding;
 import com.justinblank.strings.CharRange;
 import com.justinblank.strings.Factorization;
 
+import java.util.List;
 import java.util.Optional;
 
 public class CharRangeNode extends Node implements Comparable<CharRangeNode> {
@@ -34,6 +36,11 @@ public class CharRangeNode extends Node implements Comparable<CharRangeNode> {
         return 0;
     }
 
+    @Override
+    public int size() {
+        return 1;
+    }
+
     public Factorization bestFactors() {
         return Factorization.fromRange(this.range.getStart(), this.range.getEnd());
     }
@@ -46,4 +53,9 @@ public class CharRangeNode extends Node implements Comparable<CharRangeNode> {
     public Node reversed() {
         return this;
     }
+
+    public Node ignoringCase(CaseFolding folding) {
+        List<CharRange> ranges = folding.expand(List.of(range));
+        return ranges.size() == 1 && ranges.get(0).equals(range) ? this : Union.ofRanges(ranges);
+    }
 }
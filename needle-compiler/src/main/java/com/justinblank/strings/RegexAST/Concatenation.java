@@ -1,5 +1,6 @@
 package com.justinblank.strings.RegexAST;
 
+import com.justinblank.strings.CaseFolding;
 import com.justinblank.strings.Factorization;
 
 import java.util.Objects;
@@ -30,6 +31,11 @@ public class Concatenation extends Node {
         return 1 + Math.max(head.height(), tail.height());
     }
 
+    @Override
+    public int size() {
+        return 1 + head.size() + tail.size();
+    }
+
     public Factorization bestFactors() {
         Factorization left = head.bestFactors();
         Factorization right = tail.bestFactors();
@@ -42,5 +48,10 @@ public class Concatenation extends Node {
         return new Concatenation(tail.reversed(), head.reversed());
     }
 
+    @Override
+    public Node ignoringCase(CaseFolding folding) {
+        return new Concatenation(head.ignoringCase(folding), tail.ignoringCase(folding));
+    }
+
 
 }
@@ -1,5 +1,6 @@
 package com.justinblank.strings.RegexAST;
 
+import com.justinblank.strings.CaseFolding;
 import com.justinblank.strings.Factorization;
 
 import java.util.Objects;
@@ -33,6 +34,11 @@ public class CountedRepetition extends Node {
         return 1 + node.height();
     }
 
+    @Override
+    public int size() {
+        return 1 + node.size();
+    }
+
     @Override
     public Factorization bestFactors() {
         return node.bestFactors().countedRepetition(min, max);
@@ -42,4 +48,9 @@ public class CountedRepetition extends Node {
     public Node reversed() {
         return new CountedRepetition(node.reversed(), min, max);
     }
+
+    @Override
+    public Node ignoringCase(CaseFolding folding) {
+        return new CountedRepetition(node.ignoringCase(folding), min, max);
+    }
 }
@@ -1,5 +1,6 @@
 package com.justinblank.strings.RegexAST;
 
+import com.justinblank.strings.CaseFolding;
 import com.justinblank.strings.Factorization;
 
 import java.util.Optional;
@@ -29,6 +30,11 @@ public class LParenNode extends Node {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public int size() {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public Factorization bestFactors() {
         throw new UnsupportedOperationException();
@@ -38,4 +44,9 @@ public class LParenNode extends Node {
     public Node reversed() {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public Node ignoringCase(CaseFolding folding) {
+        throw new UnsupportedOperationException();
+    }
 }
@@ -1,8 +1,12 @@
 package com.justinblank.strings.RegexAST;
 
+import com.justinblank.strings.CaseFolding;
+import com.justinblank.strings.CharRange;
 import com.justinblank.strings.Factorization;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 public class LiteralNode extends Node {
@@ -32,6 +36,11 @@ public class LiteralNode extends Node {
         return 0;
     }
 
+    @Override
+    public int size() {
+        return 1;
+    }
+
     @Override
     public Factorization bestFactors() {
         return Factorization.fromString(string.toString());
@@ -43,6 +52,42 @@ public class LiteralNode extends Node {
         return new LiteralNode(StringUtils.reverse(this.string.toString()));
     }
 
+    /**
+     * Replace each char that has variants with a node matching any of them, keeping runs of the other chars as
+     * literals.
+     */
+    @Override
+    public Node ignoringCase(CaseFolding folding) {
+        Node node = null;
+        StringBuilder run = new StringBuilder();
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            char[] variants = folding.variants(c);
+            if (variants.length == 0) {
+                run.append(c);
+                continue;
+            }
+            if (run.length() > 0) {
+                node = concatenate(node, new LiteralNode(run.toString()));
+                run.setLength(0);
+            }
+            List<CharRange> ranges = new ArrayList<>();
+            ranges.add(new CharRange(c, c));
+            for (char variant : variants) {
+                ranges.add(new CharRange(variant, variant));
+            }
+            node = concatenate(node, Union.ofRanges(folding.expand(ranges)));
+        }
+        if (node == null) {
+            return this;
+        }
+        return run.length() > 0 ? new Concatenation(node, new LiteralNode(run.toString())) : node;
+    }
+
+    private static Node concatenate(Node head, Node tail) {
+        return head == null ? tail : new Concatenation(head, tail);
+    }
+
     public String getLiteral() {
         return string.toString();
     }
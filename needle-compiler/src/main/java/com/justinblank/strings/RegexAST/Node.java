@@ -1,5 +1,6 @@
 package com.justinblank.strings.RegexAST;
 
+import com.justinblank.strings.CaseFolding;
 import com.justinblank.strings.Factorization;
 
 import java.util.Optional;
@@ -16,8 +17,18 @@ public abstract class Node {
 
     protected abstract int height();
 
+    /**
+     * @return the number of nodes in the tree rooted at this node
+     */
+    public abstract int size();
+
     public abstract Factorization bestFactors();
 
     public abstract Node reversed();
+
+    /**
+     * @return a node matching every string that matches this node when case is ignored
+     */
+    public abstract Node ignoringCase(CaseFolding folding);
 }
 
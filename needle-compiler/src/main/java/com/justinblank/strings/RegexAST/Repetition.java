@@ -1,5 +1,6 @@
 package com.justinblank.strings.RegexAST;
 
+import com.justinblank.strings.CaseFolding;
 import com.justinblank.strings.Factorization;
 
 import java.util.Objects;
@@ -27,6 +28,11 @@ public class Repetition extends Node {
         return 1 + node.height();
     }
 
+    @Override
+    public int size() {
+        return 1 + node.size();
+    }
+
     @Override
     public Factorization bestFactors() {
         return Factorization.empty();
@@ -36,4 +42,9 @@ public class Repetition extends Node {
     public Node reversed() {
         return new Repetition(node.reversed());
     }
+
+    @Override
+    public Node ignoringCase(CaseFolding folding) {
+        return new Repetition(node.ignoringCase(folding));
+    }
 }
@@ -1,5 +1,7 @@
 package com.justinblank.strings.RegexAST;
 
+import com.justinblank.strings.CaseFolding;
+import com.justinblank.strings.CharRange;
 import com.justinblank.strings.Factorization;
 
 import java.util.Objects;
@@ -31,6 +33,11 @@ public class Union extends Node {
         return 1 + Math.max(left.height(), right.height());
     }
 
+    @Override
+    public int size() {
+        return 1 + left.size() + right.size();
+    }
+
     @Override
     public Factorization bestFactors() {
         Factorization leftFactors = left.bestFactors();
@@ -44,6 +51,22 @@ public class Union extends Node {
         return new Union(left.reversed(), right.reversed());
     }
 
+    @Override
+    public Node ignoringCase(CaseFolding folding) {
+        return new Union(left.ignoringCase(folding), right.ignoringCase(folding));
+    }
+
+    /**
+     * @return a node matching any char in the ranges, which is a single {@link CharRangeNode} if there is one range
+     */
+    public static Node ofRanges(List<CharRange> ranges) {
+        Node node = new CharRangeNode(ranges.get(0));
+        for (int i = 1; i < ranges.size(); i++) {
+            node = new Union(node, new CharRangeNode(ranges.get(i)));
+        }
+        return node;
+    }
+
     public static Union ofChars(String s) {
         if (s.length() < 2) {
             throw new IllegalArgumentException("silly union");
@@ -0,0 +1,60 @@
+package com.justinblank.strings.RegexAST;
+
+import com.justinblank.strings.CaseFolding;
+import com.justinblank.strings.Factorization;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A regex surrounded by \b, which matches the words its body matches wherever they aren't part of a longer word. The
+ * body only matches a known set of words, each starting and ending with a word char, so the \b at either end just
+ * means the char beyond it isn't a word char.
+ */
+public class WholeWords extends Node {
+
+    public final Node body;
+
+    public WholeWords(Node body) {
+        Objects.requireNonNull(body, "Cannot match words of nothing");
+        this.body = body;
+    }
+
+    @Override
+    public int minLength() {
+        return body.minLength();
+    }
+
+    @Override
+    public Optional<Integer> maxLength() {
+        return body.maxLength();
+    }
+
+    @Override
+    protected int height() {
+        return 1 + body.height();
+    }
+
+    @Override
+    public int size() {
+        return 1 + body.size();
+    }
+
+    /**
+     * @return no factors, since finding the words the body matches isn't enough to find a match
+     */
+    @Override
+    public Factorization bestFactors() {
+        return Factorization.empty();
+    }
+
+    @Override
+    public Node reversed() {
+        return new WholeWords(body.reversed());
+    }
+
+    @Override
+    public Node ignoringCase(CaseFolding folding) {
+        return new WholeWords(body.ignoringCase(folding));
+    }
+}
@@ -1,6 +1,7 @@
 package com.justinblank.strings;
 
 import com.justinblank.strings.RegexAST.*;
+import com.justinblank.strings.Search.SearchMethodUtil;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -10,16 +11,37 @@ public class RegexParser {
     private int index = 0;
     private int parenDepth = 0;
     private int charRangeDepth = 1;
+    // Whether the regex starts and ends with \b
+    private boolean leadingBoundary;
+    private boolean trailingBoundary;
+    // Whether the caller can search for whole words, and so accepts a WholeWords node
+    private boolean allowWordBoundaries;
     private String regex;
     private Stack<Node> nodes = new Stack<>();
 
     protected RegexParser(String regex) {
+        this(regex, false);
+    }
+
+    private RegexParser(String regex, boolean allowWordBoundaries) {
         this.regex = regex;
+        this.allowWordBoundaries = allowWordBoundaries;
     }
 
+    /**
+     * Parse a regex. \b isn't supported, since none of the automata built from the result can check the chars around
+     * a match. See {@link #parseAllowingWordBoundaries(String, int)}.
+     *
+     * @param regex the regex
+     * @return the parsed regex
+     */
     public static Node parse(String regex) {
+        return parse(regex, false);
+    }
+
+    private static Node parse(String regex, boolean allowWordBoundaries) {
         try {
-            return new RegexParser(regex)._parse();
+            return new RegexParser(regex, allowWordBoundaries)._parse();
         }
         catch (RegexSyntaxException e) {
             throw e;
@@ -30,6 +52,35 @@ public class RegexParser {
         }
     }
 
+    /**
+     * Parse a regex, applying any flags from {@link Pattern} that change what it matches.
+     *
+     * @param regex the regex
+     * @param flags the flags
+     * @return the parsed regex
+     */
+    public static Node parse(String regex, int flags) {
+        return applyFlags(parse(regex), flags);
+    }
+
+    /**
+     * Parse a regex as {@link #parse(String, int)} does, but also accept \b at both the start and the end of a regex
+     * that matches a finite set of words, each starting and ending with a word char, such as \b(cat|dog)\b. That
+     * regex is parsed to a {@link WholeWords} node, which only a search for whole words can match. \b anywhere else,
+     * at only one end, or around anything else is a syntax error.
+     *
+     * @param regex the regex
+     * @param flags the flags
+     * @return the parsed regex
+     */
+    static Node parseAllowingWordBoundaries(String regex, int flags) {
+        return applyFlags(parse(regex, true), flags);
+    }
+
+    private static Node applyFlags(Node node, int flags) {
+        return CaseFolding.forFlags(flags).map(node::ignoringCase).orElse(node);
+    }
+
     private Node _parse() {
         while (index < regex.length()) {
             char c = takeChar();
@@ -94,6 +145,10 @@ public class RegexParser {
                     nodes.push(new Union(last, null));
                     break;
                 case '\\':
+                    if (index < regex.length() && regex.charAt(index) == 'b') {
+                        parseWordBoundary();
+                        break;
+                    }
                     nodes.push(parseEscapeSequence());
                     break;
                 case ')':
@@ -109,7 +164,7 @@ public class RegexParser {
             }
         }
         if (nodes.isEmpty()) {
-            return new LiteralNode("");
+            return wholeWords(new LiteralNode(""));
         }
         Node node = nodes.pop();
         if (node instanceof LParenNode) {
@@ -131,7 +186,52 @@ public class RegexParser {
                 node = concatenate(next, node);
             }
         }
-        return node;
+        return wholeWords(node);
+    }
+
+    /**
+     * Take a \b, which we only support at the start and end of a regex.
+     */
+    private void parseWordBoundary() {
+        index++;
+        if (index == 2) {
+            leadingBoundary = true;
+        }
+        else if (index == regex.length()) {
+            trailingBoundary = true;
+        }
+        else {
+            throw new RegexSyntaxException("\\b is only supported at the start and end of a regex, at index " +
+                    (index - 2));
+        }
+    }
+
+    /**
+     * If the regex is surrounded by \b, check that it matches a set of words, which can be searched for as whole
+     * words.
+     */
+    private Node wholeWords(Node node) {
+        if (!leadingBoundary && !trailingBoundary) {
+            return node;
+        }
+        if (!leadingBoundary || !trailingBoundary) {
+            throw new RegexSyntaxException("\\b must be at both the start and end of a regex, like \\b(cat|dog)\\b");
+        }
+        Factorization factors = node.bestFactors();
+        if (!factors.isComplete() || !factors.getAll().stream().allMatch(RegexParser::isWord)) {
+            throw new RegexSyntaxException("\\b is only supported around a set of words that start and end with word " +
+                    "chars, like \\b(cat|dog)\\b");
+        }
+        if (!allowWordBoundaries) {
+            throw new RegexSyntaxException("\\b is only supported by DFACompiler.compile and NFA.createNFA, which " +
+                    "search for whole words");
+        }
+        return new WholeWords(node);
+    }
+
+    private static boolean isWord(String s) {
+        return !s.isEmpty() && SearchMethodUtil.isWordChar(s.charAt(0)) &&
+                SearchMethodUtil.isWordChar(s.charAt(s.length() - 1));
     }
 
     private void collapseLiterals() {
@@ -2,15 +2,122 @@ package com.justinblank.strings.Search;
 
 import com.justinblank.strings.MatchResult;
 
-// Note that the name refers to the patterns this class works with. It should match non-ASCII strings.
-class ASCIIAhoCorasick implements SearchMethod {
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
-    private final ASCIITrie trie;
-    private final ASCIITrie partialTrie;
+/**
+ * An Aho-Corasick automaton stored as a flat table, with a row for each state and a column for each char class.
+ * Transitions already account for failure links, so each char costs a single lookup.
+ * <p>
+ * An automaton that only matches whole words never reaches a match that follows a word char, but a match only counts
+ * once the char after it is known not to be a word char, so matches are reported a char late. The chars just outside
+ * the range being searched are taken into account, so searching from the end of one match finds what
+ * {@link #findAll(String, NeedleMatchConsumer)} would.
+ * <p>
+ * Note that the name refers to the patterns this class works with. It should match non-ASCII strings.
+ */
+class ASCIIAhoCorasick implements MultiSearchMethod {
 
-    ASCIIAhoCorasick(ASCIITrie trie, ASCIITrie partialTrie) {
-        this.trie = trie;
-        this.partialTrie = partialTrie;
+    private static final int ASCII_CHARS = 128;
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+    final int[] transitions;
+    final int classCount;
+    final int[] classes;
+    // The length of the path from the root to each state
+    private final int[] depths;
+    // The length of the longest pattern ending at each state, or -1 if none does
+    final int[] outputLengths;
+    // The id of the pattern ending at each state, or -1 if none does
+    private final int[] needleIds;
+    // The next state along each state's failure links that ends a pattern, or 0 if there is none
+    private final int[] outputLinks;
+    // Whether each class is made of word chars, or null if the automaton doesn't only match whole words
+    final boolean[] wordClasses;
+    // The root reached by reading a word char, from which no match can start, or 0 if there's only one root
+    private final int closedRoot;
+    // Scans for the chars that leave the root, or null if there are too many of them
+    final CharSetScanner rootScanner;
+
+    ASCIIAhoCorasick(int[] transitions, int classCount, int[] classes, int[] depths, int[] outputLengths,
+                     int[] needleIds, int[] outputLinks) {
+        this(transitions, classCount, classes, depths, outputLengths, needleIds, outputLinks, null);
+    }
+
+    /**
+     * @param wordClasses whether each class is made of word chars, if only whole words should match, in which case the
+     *                    last state is the root reached by reading a word char
+     */
+    ASCIIAhoCorasick(int[] transitions, int classCount, int[] classes, int[] depths, int[] outputLengths,
+                     int[] needleIds, int[] outputLinks, boolean[] wordClasses) {
+        this.transitions = transitions;
+        this.classCount = classCount;
+        this.classes = classes;
+        this.depths = depths;
+        this.outputLengths = outputLengths;
+        this.needleIds = needleIds;
+        this.outputLinks = outputLinks;
+        this.wordClasses = wordClasses;
+        this.closedRoot = wordClasses != null ? depths.length - 1 : 0;
+        this.rootScanner = rootScanner();
+    }
+
+    private CharSetScanner rootScanner() {
+        if (outputLengths[0] >= 0) {
+            return null;
+        }
+        StringBuilder chars = new StringBuilder();
+        for (int c = 0; c < ASCII_CHARS; c++) {
+            if (classes[c] != 0 && depths[transitions[classes[c]]] == 1) {
+                chars.append((char) c);
+            }
+        }
+        if (chars.length() == 0 || chars.length() > CharSetScanner.MAX_CHARS) {
+            return null;
+        }
+        return CharSetScanner.forChars(chars.toString());
+    }
+
+    int stateCount() {
+        return depths.length;
+    }
+
+    /**
+     * Write the automaton in the format read by {@link MappedAhoCorasick}, replacing the file if it exists.
+     */
+    void write(Path target) throws IOException {
+        if (wordClasses != null) {
+            throw new IllegalStateException("Can't write an automaton that only matches whole words");
+        }
+        try (var channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            var buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            writeInts(channel, buffer, new int[]{MappedAhoCorasick.MAGIC, MappedAhoCorasick.VERSION, classCount,
+                    stateCount()});
+            writeInts(channel, buffer, classes);
+            writeInts(channel, buffer, depths);
+            writeInts(channel, buffer, outputLengths);
+            writeInts(channel, buffer, needleIds);
+            writeInts(channel, buffer, outputLinks);
+            writeInts(channel, buffer, transitions);
+        }
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] ints) throws IOException {
+        for (int i = 0; i < ints.length; ) {
+            int count = Math.min(ints.length - i, buffer.capacity() / 4);
+            buffer.clear();
+            buffer.asIntBuffer().put(ints, i, count);
+            buffer.limit(count * 4);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            i += count;
+        }
     }
 
     public boolean matches(String s) {
@@ -19,40 +126,41 @@ class ASCIIAhoCorasick implements SearchMethod {
     }
 
     public MatchResult find(String s, int start, int end, boolean anchored) {
+        SearchMethodUtil.checkIndices(s, start, end);
         if (anchored) {
-            return find(partialTrie, s, start, end);
+            return findAnchored(s, start, end);
         }
-        else {
-            return find(trie, s, start, end);
+        if (wordClasses != null) {
+            return findWholeWord(s, start, end);
         }
-    }
-
-    private MatchResult find(ASCIITrie trie, String s, int start, int end) {
-        SearchMethodUtil.checkIndices(s, start, end);
-        ASCIITrie current = trie;
+        int state = 0;
         int lastEnd = -1;
         int lastStart = -1;
-        if (current.accepting) {
+        if (outputLengths[0] >= 0) {
             lastStart = 0;
         }
         for (int i = start; i < end; i++) {
-            if (i > start && current == trie) {
+            if (i > start && state == 0) {
                 if (lastEnd > -1) {
                     return MatchResult.success(lastStart, lastEnd + 1);
                 }
             }
+            // Back at the root with no match pending, only the first char of some pattern can take us anywhere
+            if (state == 0 && rootScanner != null) {
+                i = rootScanner.indexOf(s, i, end);
+                if (i < 0) {
+                    break;
+                }
+            }
             char c = s.charAt(i);
-            if (((int) c) > 127) {
-                current = trie;
+            if (c >= ASCII_CHARS) {
+                state = 0;
             }
             else {
-                ASCIITrie next = current.followers[(int) c];
-                if (next == null) {
-                    next = this.trie;
-                }
-                current = next;
-                if (current != null && current.accepting) {
-                    int potentialLastStart = i - current.length + 1;
+                state = transitions[state * classCount + classes[c]];
+                int length = outputLengths[state];
+                if (length >= 0) {
+                    int potentialLastStart = i - length + 1;
                     if (lastStart == -1 || potentialLastStart <= lastStart) {
                         lastEnd = i;
                         lastStart = potentialLastStart;
@@ -63,9 +171,254 @@ class ASCIIAhoCorasick implements SearchMethod {
         if (lastEnd != -1) {
             return MatchResult.success(lastStart, lastEnd + 1);
         }
-        else if (current != null && current.accepting) {
+        else if (outputLengths[state] >= 0) {
             return MatchResult.success(0, 0);
         }
         return MatchResult.failure();
     }
+
+    /**
+     * Follow only the trie's own edges, which are the transitions that go one level deeper, and return the longest
+     * pattern starting at start.
+     */
+    private MatchResult findAnchored(String s, int start, int end) {
+        int state = 0;
+        if (wordClasses != null && rootBefore(s, start) != 0) {
+            return MatchResult.failure();
+        }
+        int lastEnd = outputLengths[0] >= 0 ? start : -1;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= ASCII_CHARS) {
+                break;
+            }
+            int next = transitions[state * classCount + classes[c]];
+            if (depths[next] != depths[state] + 1) {
+                break;
+            }
+            state = next;
+            if (outputLengths[state] == depths[state] && endsWord(s, i + 1)) {
+                lastEnd = i + 1;
+            }
+        }
+        return lastEnd >= 0 ? MatchResult.success(start, lastEnd) : MatchResult.failure();
+    }
+
+    /**
+     * Find the leftmost-longest whole word match, which, unlike other matches, only counts once the char after it has
+     * been read.
+     */
+    private MatchResult findWholeWord(String s, int start, int end) {
+        int state = rootBefore(s, start);
+        int lastStart = -1;
+        int lastEnd = -1;
+        for (int i = start; i < end; i++) {
+            if (isRoot(state) && lastEnd == -1 && rootScanner != null) {
+                i = rootScanner.indexOf(s, i, end);
+                if (i < 0) {
+                    break;
+                }
+                state = rootBefore(s, i);
+            }
+            char c = s.charAt(i);
+            int charClass = c < ASCII_CHARS ? classes[c] : 0;
+            if (!wordClasses[charClass] && outputLengths[state] >= 0) {
+                int potentialLastStart = i - outputLengths[state];
+                if (lastStart == -1 || potentialLastStart <= lastStart) {
+                    lastStart = potentialLastStart;
+                    lastEnd = i;
+                }
+            }
+            state = transitions[state * classCount + charClass];
+            // Every later match would start after the pending one
+            if (lastEnd != -1 && i + 1 - depths[state] > lastStart) {
+                return MatchResult.success(lastStart, lastEnd);
+            }
+        }
+        if (outputLengths[state] >= 0 && endsWord(s, end)) {
+            int potentialLastStart = end - outputLengths[state];
+            if (lastStart == -1 || potentialLastStart <= lastStart) {
+                return MatchResult.success(potentialLastStart, end);
+            }
+        }
+        return lastEnd != -1 ? MatchResult.success(lastStart, lastEnd) : MatchResult.failure();
+    }
+
+    private boolean isRoot(int state) {
+        return state == 0 || state == closedRoot;
+    }
+
+    /**
+     * @return the root to start from at index, which depends on whether the char before it is a word char
+     */
+    private int rootBefore(String s, int index) {
+        return index > 0 && SearchMethodUtil.isWordChar(s.charAt(index - 1)) ? closedRoot : 0;
+    }
+
+    /**
+     * @return whether a match ending at index can end there, which for whole words needs the next char not to be a
+     * word char
+     */
+    private boolean endsWord(String s, int index) {
+        return wordClasses == null || index == s.length() || !SearchMethodUtil.isWordChar(s.charAt(index));
+    }
+
+    private int next(int state, char c) {
+        return c < ASCII_CHARS ? transitions[state * classCount + classes[c]] : 0;
+    }
+
+    /**
+     * @return the state of the longest pattern ending at state, which is state itself or its output link, or 0 if no
+     * pattern ends there
+     */
+    private int longestOutput(int state) {
+        return needleIds[state] >= 0 ? state : outputLinks[state];
+    }
+
+    public void findAll(String s, NeedleMatchConsumer consumer) {
+        if (wordClasses != null) {
+            findAllWholeWords(s, consumer);
+            return;
+        }
+        int state = 0;
+        int pendingState = 0;
+        int pendingStart = -1;
+        int pendingEnd = -1;
+        int end = s.length();
+        for (int i = 0; ; i++) {
+            if (i < end) {
+                if (state == 0 && pendingStart < 0 && rootScanner != null) {
+                    i = rootScanner.indexOf(s, i, end);
+                    if (i < 0) {
+                        break;
+                    }
+                }
+                state = next(state, s.charAt(i));
+                // Until every later match would start after the pending one, a longer or earlier one may turn up
+                if (pendingStart < 0 || i + 1 - depths[state] <= pendingStart) {
+                    int output = longestOutput(state);
+                    if (output != 0) {
+                        int matchStart = i + 1 - depths[output];
+                        if (pendingStart < 0 || matchStart <= pendingStart) {
+                            pendingState = output;
+                            pendingStart = matchStart;
+                            pendingEnd = i + 1;
+                        }
+                    }
+                    continue;
+                }
+            }
+            else if (pendingStart < 0) {
+                break;
+            }
+            consumer.accept(needleIds[pendingState], pendingStart, pendingEnd);
+            pendingStart = -1;
+            // Matches can't overlap, so start over right after this one
+            state = 0;
+            i = pendingEnd - 1;
+        }
+    }
+
+    /**
+     * As {@link #findAll(String, NeedleMatchConsumer)}, but only counting the matches of the state reached before a
+     * char that isn't a word char.
+     */
+    private void findAllWholeWords(String s, NeedleMatchConsumer consumer) {
+        int state = 0;
+        int pendingState = 0;
+        int pendingStart = -1;
+        int pendingEnd = -1;
+        int end = s.length();
+        for (int i = 0; ; i++) {
+            if (isRoot(state) && pendingStart < 0 && rootScanner != null && i < end) {
+                i = rootScanner.indexOf(s, i, end);
+                if (i < 0) {
+                    break;
+                }
+                state = rootBefore(s, i);
+            }
+            int charClass = 0;
+            if (i < end) {
+                char c = s.charAt(i);
+                charClass = c < ASCII_CHARS ? classes[c] : 0;
+            }
+            if (!wordClasses[charClass]) {
+                int output = longestOutput(state);
+                if (output != 0) {
+                    int matchStart = i - depths[output];
+                    if (pendingStart < 0 || matchStart <= pendingStart) {
+                        pendingState = output;
+                        pendingStart = matchStart;
+                        pendingEnd = i;
+                    }
+                }
+            }
+            if (i < end) {
+                state = transitions[state * classCount + charClass];
+                // Until every later match would start after the pending one, a longer or earlier one may turn up
+                if (pendingStart < 0 || i + 1 - depths[state] <= pendingStart) {
+                    continue;
+                }
+            }
+            else if (pendingStart < 0) {
+                break;
+            }
+            consumer.accept(needleIds[pendingState], pendingStart, pendingEnd);
+            pendingStart = -1;
+            // Matches can't overlap, so start over right after this one
+            state = rootBefore(s, pendingEnd);
+            i = pendingEnd - 1;
+        }
+    }
+
+    public void findAllOverlapping(String s, NeedleMatchConsumer consumer) {
+        if (wordClasses != null) {
+            findAllOverlappingWholeWords(s, consumer);
+            return;
+        }
+        int state = 0;
+        int end = s.length();
+        for (int i = 0; i < end; i++) {
+            if (state == 0 && rootScanner != null) {
+                i = rootScanner.indexOf(s, i, end);
+                if (i < 0) {
+                    return;
+                }
+            }
+            state = next(state, s.charAt(i));
+            for (int output = longestOutput(state); output != 0; output = outputLinks[output]) {
+                consumer.accept(needleIds[output], i + 1 - depths[output], i + 1);
+            }
+        }
+    }
+
+    private void findAllOverlappingWholeWords(String s, NeedleMatchConsumer consumer) {
+        int state = 0;
+        int end = s.length();
+        for (int i = 0; i < end; i++) {
+            if (isRoot(state) && rootScanner != null) {
+                i = rootScanner.indexOf(s, i, end);
+                if (i < 0) {
+                    return;
+                }
+                state = rootBefore(s, i);
+            }
+            char c = s.charAt(i);
+            int charClass = c < ASCII_CHARS ? classes[c] : 0;
+            if (!wordClasses[charClass]) {
+                reportOutputs(state, i, consumer);
+            }
+            state = transitions[state * classCount + charClass];
+        }
+        reportOutputs(state, end, consumer);
+    }
+
+    /**
+     * Report every pattern ending at a state, longest first.
+     */
+    private void reportOutputs(int state, int end, NeedleMatchConsumer consumer) {
+        for (int output = longestOutput(state); output != 0; output = outputLinks[output]) {
+            consumer.accept(needleIds[output], end - depths[output], end);
+        }
+    }
 }
@@ -1,104 +1,282 @@
 package com.justinblank.strings.Search;
 
-import java.util.*;
+import com.justinblank.strings.CaseFolding;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.IntStream;
+
+/**
+ * Builds an {@link ASCIIAhoCorasick} as a flat transition table. Chars that occur in some pattern each get their own
+ * class, and all other chars share class 0, which always leads back to the root. Failure links are only used while
+ * building, to fill in the transitions missing from the trie.
+ * <p>
+ * The patterns are first added to a trie that stores each node's children as a linked list, which costs a few ints per
+ * node. Only once we know how many states there are do we allocate the table, so building needs little more memory
+ * than the automaton itself. States are numbered in breadth first order, which puts each level of the trie in a
+ * contiguous range of rows, and the states near the root, where searches spend most of their time, next to each
+ * other. The rows of a level only depend on the levels above it, so large levels are filled in in parallel.
+ * <p>
+ * To ignore case, each char of a pattern shares its class with its case variants, which must all be ASCII.
+ * <p>
+ * To only match whole words, the word chars that aren't in any pattern get a class of their own, and a second root
+ * stands for having just read a word char, from which no match can start. Each failure link leads to the longest
+ * suffix that doesn't follow a word char, or to whichever root the state's last char leads to, so a match that starts
+ * in the middle of a word is never reached. Whether a match ends in the middle of a word is only known once the next
+ * char is read, which {@link ASCIIAhoCorasick} checks as it searches.
+ */
 class AsciiAhoCorasickBuilder {
 
-    ASCIITrie root;
-    private List<ASCIITrie> nodes = new ArrayList<>();
+    private static final int ASCII_CHARS = 128;
+    private static final int INITIAL_STATES = 1 << 10;
+    // Levels with fewer states than this aren't worth splitting between threads
+    private static final int MIN_PARALLEL_LEVEL = 1 << 12;
+    // The largest array most JVMs will allocate
+    private static final int MAX_TABLE_SIZE = Integer.MAX_VALUE - 8;
+
+    private final CaseFolding folding;
+    private final boolean wholeWords;
+    private final int[] classes = new int[ASCII_CHARS];
+    private int classCount = 1;
+    private int stateCount = 1;
+    // Whether each class is made of word chars, or null if matching doesn't depend on words
+    private boolean[] wordClasses;
+    // The root reached by reading a word char, which follows the trie's states, or 0 if there's only one root
+    private int closedRoot;
+
+    // The trie, indexed by node, with 0, the root, marking the end of a list of children
+    private int[] firstChildren = new int[INITIAL_STATES];
+    private int[] nextSiblings = new int[INITIAL_STATES];
+    private int[] edgeClasses = new int[INITIAL_STATES];
+    private int[] trieNeedleIds = filled(INITIAL_STATES);
+
+    // The automaton, indexed by state
+    private int[] transitions;
+    private int[] depths;
+    private int[] outputLengths;
+    private int[] needleIds;
+    private int[] failures;
+    private int[] outputLinks;
+
+    AsciiAhoCorasickBuilder() {
+        this(null, false);
+    }
 
-    protected static SearchMethod buildAhoCorasick(Collection<String> strings) {
-        ASCIITrie trie = new AsciiAhoCorasickBuilder().build(strings, true);
-        ASCIITrie partialTrie = new AsciiAhoCorasickBuilder().build(strings, false);
-        return new ASCIIAhoCorasick(trie, partialTrie);
+    /**
+     * @param folding the case folding to apply, or null to match case
+     * @param wholeWords whether to only match patterns that aren't preceded or followed by a word char
+     */
+    AsciiAhoCorasickBuilder(CaseFolding folding, boolean wholeWords) {
+        this.folding = folding;
+        this.wholeWords = wholeWords;
     }
 
-    protected ASCIITrie build(Collection<String> strings, boolean complete) {
-        ASCIITrie trie = new ASCIITrie(0);
-        root = trie;
-        root.root = root;
-        nodes.add(root);
-        buildTrieStructure(strings, trie);
-        nodes.sort(Comparator.comparing(ASCIITrie::length));
-        if (complete) {
-            addFullTransitions();
-        }
-        return trie;
+    protected static MultiSearchMethod buildAhoCorasick(Collection<String> strings) {
+        return new AsciiAhoCorasickBuilder().build(strings);
     }
 
-    private void buildTrieStructure(Collection<String> strings, ASCIITrie trie) {
+    ASCIIAhoCorasick build(Collection<String> strings) {
         for (String s : strings) {
-            if (s.equals("")) {
-                trie.accepting = true;
-            }
-            ASCIITrie current = trie;
             for (int i = 0; i < s.length(); i++) {
                 char c = s.charAt(i);
-                ASCIITrie next = current.followers[(int) c];
-                if (next == null) {
-                    next = new ASCIITrie(i + 1);
-                    nodes.add(next);
-                    next.root = root;
-                    current.addFollower(c, next);
+                if (classes[c] == 0) {
+                    classes[c] = classCount++;
+                    if (folding != null) {
+                        for (char variant : folding.variants(c)) {
+                            if (variant >= ASCII_CHARS) {
+                                throw new IllegalArgumentException("'" + c + "' matches the non-ASCII char U+" +
+                                        Integer.toHexString(variant) + " when ignoring case");
+                            }
+                            classes[variant] = classes[c];
+                        }
+                    }
                 }
-                if (i == s.length() - 1) {
-                    next.markAccepting();
+            }
+        }
+        if (wholeWords) {
+            addWordClasses();
+        }
+        int needleId = 0;
+        for (String s : strings) {
+            // An empty pattern can't be told apart from the space between two non-word chars
+            if (!wholeWords || !s.isEmpty()) {
+                addPattern(s, needleId);
+            }
+            needleId++;
+        }
+        numberStates();
+        addFullTransitions();
+        return new ASCIIAhoCorasick(transitions, classCount, classes, depths, outputLengths, needleIds, outputLinks,
+                wordClasses);
+    }
+
+    private void addWordClasses() {
+        int otherWordClass = classCount++;
+        wordClasses = new boolean[classCount];
+        for (char c = 0; c < ASCII_CHARS; c++) {
+            if (SearchMethodUtil.isWordChar(c)) {
+                if (classes[c] == 0) {
+                    classes[c] = otherWordClass;
                 }
-                current = next;
+                wordClasses[classes[c]] = true;
             }
         }
     }
 
+    private static int[] filled(int length) {
+        int[] array = new int[length];
+        Arrays.fill(array, -1);
+        return array;
+    }
 
-    private void addFullTransitions() {
-        for (ASCIITrie trie : nodes) {
-            for (int c = 0; c < 128; c++) {
-                if (trie.followers[c] != null) {
-                    addSupplier(trie, trie.followers[c], c);
-                }
+    private void addPattern(String s, int needleId) {
+        int node = 0;
+        for (int i = 0; i < s.length(); i++) {
+            int charClass = classes[s.charAt(i)];
+            int child = child(node, charClass);
+            if (child == 0) {
+                child = addChild(node, charClass);
             }
+            node = child;
+        }
+        if (trieNeedleIds[node] < 0) {
+            trieNeedleIds[node] = needleId;
         }
-        assert allHaveSuppliers(nodes);
-        nodes.stream().forEach(this::addFullTransitions);
     }
 
-    private boolean allHaveSuppliers(List<ASCIITrie> nodes) {
-        for (ASCIITrie node : nodes) {
-            assert node == root || node.supplier != null;
+    private int child(int node, int charClass) {
+        for (int child = firstChildren[node]; child != 0; child = nextSiblings[child]) {
+            if (edgeClasses[child] == charClass) {
+                return child;
+            }
         }
-        return true;
+        return 0;
     }
 
-    private void addFullTransitions(ASCIITrie trie) {
-        for (int c = 0; c < 128; c++) {
-            if (trie.followers[c] == null) {
-                if (trie == root) {
-                    trie.followers[c] = trie;
-                } else {
-                    trie.followers[c] = trie.supplier.followers[c];
-                }
+    private int addChild(int node, int charClass) {
+        if (stateCount == firstChildren.length) {
+            int capacity = stateCount * 2;
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            edgeClasses = Arrays.copyOf(edgeClasses, capacity);
+            trieNeedleIds = Arrays.copyOf(trieNeedleIds, capacity);
+            Arrays.fill(trieNeedleIds, stateCount, capacity, -1);
+        }
+        int child = stateCount++;
+        edgeClasses[child] = charClass;
+        nextSiblings[child] = firstChildren[node];
+        firstChildren[node] = child;
+        return child;
+    }
+
+    /**
+     * Number the trie's nodes in breadth first order, and copy the trie into the table, leaving -1 for the transitions
+     * the trie doesn't have.
+     */
+    private void numberStates() {
+        int rows = wholeWords ? stateCount + 1 : stateCount;
+        if ((long) rows * classCount > MAX_TABLE_SIZE) {
+            throw new IllegalArgumentException("Patterns need " + rows + " states with " + classCount +
+                    " char classes each, which is too many for a transition table");
+        }
+        // The list of nodes in breadth first order doubles as the queue of nodes to visit
+        int[] nodes = new int[stateCount];
+        int[] states = new int[stateCount];
+        depths = new int[rows];
+        int visited = 1;
+        for (int state = 0; state < stateCount; state++) {
+            for (int child = firstChildren[nodes[state]]; child != 0; child = nextSiblings[child]) {
+                states[child] = visited;
+                depths[visited] = depths[state] + 1;
+                nodes[visited++] = child;
             }
         }
+
+        transitions = filled(rows * classCount);
+        outputLengths = new int[rows];
+        needleIds = new int[rows];
+        for (int state = 0; state < stateCount; state++) {
+            int node = nodes[state];
+            needleIds[state] = trieNeedleIds[node];
+            outputLengths[state] = needleIds[state] >= 0 ? depths[state] : -1;
+            for (int child = firstChildren[node]; child != 0; child = nextSiblings[child]) {
+                transitions[state * classCount + edgeClasses[child]] = states[child];
+            }
+        }
+        if (wholeWords) {
+            closedRoot = stateCount;
+            needleIds[closedRoot] = -1;
+            outputLengths[closedRoot] = -1;
+        }
+        firstChildren = null;
+        nextSiblings = null;
+        edgeClasses = null;
+        trieNeedleIds = null;
     }
 
-    private void addSupplier(ASCIITrie trie, ASCIITrie node, int transition) {
-        if (trie == root) {
-            node.supplier = root;
-        } else {
-            ASCIITrie down = trie.supplier;
-            while (down != null) {
-                if (down.followers[transition] != null) {
-                    node.supplier = down.followers[transition];
-                    if (node.supplier.accepting && !node.accepting) {
-                        node.accepting = true;
-                        node.length = node.supplier.length;
-                    }
-                    break;
+    /**
+     * Visit the levels of the trie in order, so each state's failure state has its transitions filled in by the time
+     * we need them.
+     */
+    private void addFullTransitions() {
+        failures = new int[needleIds.length];
+        outputLinks = new int[needleIds.length];
+        for (int charClass = 0; charClass < classCount; charClass++) {
+            // The root a char leads to when it doesn't continue a match
+            int root = wholeWords && wordClasses[charClass] ? closedRoot : 0;
+            if (transitions[charClass] < 0) {
+                transitions[charClass] = root;
+            }
+            else {
+                failures[transitions[charClass]] = root;
+            }
+            if (wholeWords) {
+                transitions[closedRoot * classCount + charClass] = root;
+            }
+        }
+        int levelStart = 1;
+        while (levelStart < stateCount) {
+            int levelEnd = levelStart + 1;
+            while (levelEnd < stateCount && depths[levelEnd] == depths[levelStart]) {
+                levelEnd++;
+            }
+            if (levelEnd - levelStart >= MIN_PARALLEL_LEVEL) {
+                IntStream.range(levelStart, levelEnd).parallel().forEach(this::addFullTransitions);
+            }
+            else {
+                for (int state = levelStart; state < levelEnd; state++) {
+                    addFullTransitions(state);
                 }
-                down = down.supplier;
             }
-            if (node.supplier == null) {
-                node.supplier = root;
+            levelStart = levelEnd;
+        }
+        failures = null;
+    }
+
+    /**
+     * Fill in the missing transitions of a state, and set the failure states of its children. A state that doesn't end
+     * a pattern itself inherits the output of its failure state, unless that's the root. Each state's output link is
+     * the nearest state other than the root, along its chain of failure links, that ends a pattern.
+     * <p>
+     * This only writes to the state's own row and to its children's failures, so the states of a level can be visited
+     * concurrently.
+     */
+    private void addFullTransitions(int state) {
+        int failure = failures[state];
+        if (failure != 0) {
+            if (outputLengths[state] < 0) {
+                outputLengths[state] = outputLengths[failure];
+            }
+            outputLinks[state] = needleIds[failure] >= 0 ? failure : outputLinks[failure];
+        }
+        for (int charClass = 0; charClass < classCount; charClass++) {
+            int index = state * classCount + charClass;
+            int fallback = transitions[failure * classCount + charClass];
+            if (transitions[index] < 0) {
+                transitions[index] = fallback;
+            }
+            else {
+                failures[transitions[index]] = fallback;
             }
         }
     }
@@ -0,0 +1,173 @@
+package com.justinblank.strings.Search;
+
+import com.justinblank.classloader.MyClassLoader;
+import com.justinblank.strings.AhoCorasickClassBuilder;
+import com.justinblank.strings.MatchResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Superclass of the classes generated from an {@link ASCIIAhoCorasick} or a {@link UnicodeAhoCorasick}, in which each
+ * state of the automaton is a block of code that switches on the next char. Generated classes only implement
+ * unanchored search, which is where the time goes, and leave anchored search and reporting every match to the
+ * automaton they were generated from.
+ * <p>
+ * This class must be public, as generated classes are defined by another class loader.
+ */
+public abstract class CompiledAhoCorasick implements MultiSearchMethod {
+
+    private static final AtomicInteger GENERATED_CLASS_COUNTER = new AtomicInteger();
+    private static final int ASCII_CHARS = 128;
+    private static final String SUPERCLASS = "com/justinblank/strings/Search/CompiledAhoCorasick";
+
+    private final MultiSearchMethod automaton;
+    // Scans for the chars that leave the root, or null if there are too many of them
+    protected final CharSetScanner rootScanner;
+
+    protected CompiledAhoCorasick(MultiSearchMethod automaton, CharSetScanner rootScanner) {
+        this.automaton = automaton;
+        this.rootScanner = rootScanner;
+    }
+
+    /**
+     * Generate a class from the automaton, if its states fit in a method small enough for the JIT to compile. The
+     * table reads each char faster than the generated code does, so {@link SearchMethods} only compiles tries.
+     *
+     * @param table the automaton
+     * @return the generated search method, or empty if the automaton is too large, or only matches whole words
+     */
+    static Optional<MultiSearchMethod> compile(ASCIIAhoCorasick table) {
+        if (table.wordClasses != null) {
+            return Optional.empty();
+        }
+        int stateCount = table.stateCount();
+        var transitions = new ArrayList<SortedMap<Integer, Integer>>(stateCount);
+        var outputLengths = new int[stateCount];
+        for (int state = 0; state < stateCount; state++) {
+            var stateTransitions = new TreeMap<Integer, Integer>();
+            for (int c = 0; c < ASCII_CHARS; c++) {
+                int charClass = table.classes[c];
+                int target = table.transitions[state * table.classCount + charClass];
+                if (charClass != 0 && target != (state == 0 ? 0 : table.transitions[charClass])) {
+                    stateTransitions.put(c, target);
+                }
+            }
+            transitions.add(stateTransitions);
+            outputLengths[state] = table.outputLengths[state];
+        }
+        return compile(table, table.rootScanner, transitions, outputLengths);
+    }
+
+    /**
+     * Generate a class from the automaton, if its states fit in a method small enough for the JIT to compile.
+     *
+     * @param trie the automaton
+     * @return the generated search method, or empty if the automaton is too large
+     */
+    static Optional<MultiSearchMethod> compile(UnicodeAhoCorasick trie) {
+        // Number the nodes in breadth first order, so the root is state 0. A trie that ignores case reaches each node
+        // through several chars.
+        var states = new HashMap<Trie, Integer>();
+        var nodes = new ArrayList<Trie>();
+        Trie root = trie.trie;
+        states.put(root, 0);
+        nodes.add(root);
+        for (int i = 0; i < nodes.size(); i++) {
+            Trie node = nodes.get(i);
+            for (int j = 0; j < node.followerCount(); j++) {
+                if (!states.containsKey(node.follower(j))) {
+                    states.put(node.follower(j), nodes.size());
+                    nodes.add(node.follower(j));
+                }
+            }
+        }
+        var transitions = new ArrayList<SortedMap<Integer, Integer>>(nodes.size());
+        var outputLengths = new int[nodes.size()];
+        for (int state = 0; state < nodes.size(); state++) {
+            Trie node = nodes.get(state);
+            var stateTransitions = new TreeMap<Integer, Integer>();
+            // Only chars leaving the node or one of the nodes its failure links lead to can go anywhere but where
+            // they go from the root
+            for (Trie current = node; current != null; current = current == root ? null : current.supplier) {
+                for (int j = 0; j < current.followerCount(); j++) {
+                    char c = current.followerChar(j);
+                    Trie target = transition(root, node, c);
+                    if (target != (state == 0 ? root : transition(root, root, c))) {
+                        stateTransitions.put((int) c, states.get(target));
+                    }
+                }
+            }
+            transitions.add(stateTransitions);
+            outputLengths[state] = node.accepting ? node.length() : -1;
+        }
+        return compile(trie, trie.rootScanner, transitions, outputLengths);
+    }
+
+    /**
+     * Find where a char leads from a node, following failure links as {@link UnicodeAhoCorasick} does.
+     */
+    private static Trie transition(Trie root, Trie node, char c) {
+        for (Trie current = node; current != root; current = current.supplier) {
+            Trie next = current.next(c);
+            if (next != null) {
+                return next;
+            }
+        }
+        Trie next = root.next(c);
+        return next != null ? next : root;
+    }
+
+    private static Optional<MultiSearchMethod> compile(MultiSearchMethod automaton, CharSetScanner rootScanner,
+                                                       List<SortedMap<Integer, Integer>> transitions,
+                                                       int[] outputLengths) {
+        int[][] keys = new int[transitions.size()][];
+        int[][] targets = new int[transitions.size()][];
+        for (int state = 0; state < transitions.size(); state++) {
+            keys[state] = transitions.get(state).keySet().stream().mapToInt(Integer::intValue).toArray();
+            targets[state] = transitions.get(state).values().stream().mapToInt(Integer::intValue).toArray();
+        }
+        String className = "GeneratedAhoCorasick" + GENERATED_CLASS_COUNTER.incrementAndGet();
+        return AhoCorasickClassBuilder.generate(className, SUPERCLASS, keys, targets, outputLengths,
+                rootScanner != null).map(classBytes -> {
+            // Each class gets its own loader, so it can be unloaded once the search method is unreachable
+            Class<?> c = new MyClassLoader().loadClass(className, classBytes);
+            try {
+                return (MultiSearchMethod) c.getDeclaredConstructors()[0].newInstance(automaton, rootScanner);
+            }
+            catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Failed to instantiate " + className, e);
+            }
+        });
+    }
+
+    public boolean matches(String s) {
+        return automaton.matches(s);
+    }
+
+    public MatchResult find(String s, int start, int end, boolean anchored) {
+        SearchMethodUtil.checkIndices(s, start, end);
+        if (anchored) {
+            return automaton.find(s, start, end, true);
+        }
+        return findUnanchored(s, start, end);
+    }
+
+    public void findAll(String s, NeedleMatchConsumer consumer) {
+        automaton.findAll(s, consumer);
+    }
+
+    public void findAllOverlapping(String s, NeedleMatchConsumer consumer) {
+        automaton.findAllOverlapping(s, consumer);
+    }
+
+    /**
+     * Search between start and end, returning exactly what the automaton the class was generated from would.
+     */
+    protected abstract MatchResult findUnanchored(String s, int start, int end);
+}
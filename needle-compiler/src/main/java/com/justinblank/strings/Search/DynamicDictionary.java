@@ -0,0 +1,487 @@
+package com.justinblank.strings.Search;
+
+import com.justinblank.strings.MatchResult;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of keywords that can be searched for while keywords are added and removed. Each keyword gets an id when it's
+ * added, which is what matches report, and which stays the same until it's removed. Keywords passed to the
+ * constructor get their index in the collection as their id, as with other {@link MultiSearchMethod}s.
+ * <p>
+ * The keywords are split between levels, each with its own automaton. Keywords are added to the delta, the top level,
+ * which is rebuilt whenever it changes, and which is frozen as a new level once it holds more than a small, fixed
+ * number of keywords. Each level is merged into the one below it once it grows to a fraction of that level's size, so
+ * a keyword is rebuilt a bounded number of times at each level, and the bottom level, the base, is only rebuilt after
+ * it grows by that fraction. Removing a keyword from the delta rebuilds the delta, while removing one from a frozen
+ * level only marks it as removed, and once enough keywords are marked, all the keywords are merged into a new base.
+ * Searches run every level's automaton side by side, so matches are reported exactly as if the keywords were in a
+ * single automaton.
+ * <p>
+ * Updates are serialized, and each publishes an immutable snapshot of the automata. Searches read the current
+ * snapshot once, without locking, and aren't affected by updates made while they run.
+ */
+public class DynamicDictionary implements MultiSearchMethod {
+
+    // The delta is rebuilt on every change to it, so it's frozen once it grows past this size
+    static final int MAX_DELTA_SIZE = 128;
+    // A level is merged into the one below it once it's larger than this fraction of it
+    static final int LEVEL_FRACTION = 16;
+    // Merge everything once the removed keywords come to this many...
+    static final int MIN_REMOVED_SIZE = 256;
+    // ...or this fraction of the frozen keywords, if that's larger
+    static final int REMOVED_FRACTION = 16;
+
+    private volatile Snapshot snapshot;
+
+    // Guarded by this
+    private final Map<String, Integer> ids = new HashMap<>();
+    // The frozen levels, starting from the base
+    private final List<Level> levels = new ArrayList<>();
+    private final Map<String, Integer> delta = new LinkedHashMap<>();
+    private int removedCount;
+    private int nextId;
+
+    public DynamicDictionary() {
+        this(List.of());
+    }
+
+    /**
+     * @param keywords the initial keywords, none of which may be empty
+     */
+    public DynamicDictionary(Collection<String> keywords) {
+        for (String keyword : keywords) {
+            checkKeyword(keyword);
+            ids.putIfAbsent(keyword, nextId);
+            nextId++;
+        }
+        merge();
+    }
+
+    private static void checkKeyword(String keyword) {
+        if (keyword.isEmpty()) {
+            throw new IllegalArgumentException("Cannot add an empty keyword");
+        }
+    }
+
+    /**
+     * Add a keyword, if it isn't already present.
+     *
+     * @param keyword the keyword, which may not be empty
+     * @return the keyword's id
+     */
+    public synchronized int add(String keyword) {
+        update(List.of(keyword), List.of());
+        return ids.get(keyword);
+    }
+
+    /**
+     * Remove a keyword. If it's added again later, it gets a new id.
+     *
+     * @param keyword the keyword
+     * @return true if the keyword was present
+     */
+    public synchronized boolean remove(String keyword) {
+        boolean present = ids.containsKey(keyword);
+        update(List.of(), List.of(keyword));
+        return present;
+    }
+
+    /**
+     * Add and remove several keywords, rebuilding at most once. Removals are applied after additions, and searches see
+     * either none or all of the changes.
+     *
+     * @param additions the keywords to add, none of which may be empty
+     * @param removals the keywords to remove
+     */
+    public synchronized void update(Collection<String> additions, Collection<String> removals) {
+        for (String keyword : additions) {
+            checkKeyword(keyword);
+        }
+        boolean deltaChanged = false;
+        boolean levelChanged = false;
+        for (String keyword : additions) {
+            if (!ids.containsKey(keyword)) {
+                ids.put(keyword, nextId);
+                delta.put(keyword, nextId++);
+                deltaChanged = true;
+            }
+        }
+        for (String keyword : removals) {
+            if (ids.remove(keyword) == null) {
+                continue;
+            }
+            if (delta.remove(keyword) != null) {
+                deltaChanged = true;
+                continue;
+            }
+            for (Level level : levels) {
+                if (level.remove(keyword)) {
+                    removedCount++;
+                    levelChanged = true;
+                    break;
+                }
+            }
+        }
+        if (removedCount > Math.max(MIN_REMOVED_SIZE, (ids.size() - delta.size()) / REMOVED_FRACTION)) {
+            merge();
+        }
+        else if (delta.size() > MAX_DELTA_SIZE) {
+            freezeDelta();
+            publish(build(List.of()), new int[0]);
+        }
+        else if (deltaChanged) {
+            publish(build(delta.keySet()), delta.values().stream().mapToInt(Integer::intValue).toArray());
+        }
+        else if (levelChanged) {
+            publish(snapshot.delta(), snapshot.deltaIds());
+        }
+    }
+
+    /**
+     * @param keyword the keyword
+     * @return the keyword's id, or -1 if it isn't present
+     */
+    public synchronized int id(String keyword) {
+        return ids.getOrDefault(keyword, -1);
+    }
+
+    /**
+     * @return the number of keywords
+     */
+    public synchronized int size() {
+        return ids.size();
+    }
+
+    /**
+     * Move every keyword into a new base, leaving the delta empty.
+     */
+    private void merge() {
+        levels.clear();
+        levels.add(new Level(ids.keySet(), ids));
+        delta.clear();
+        removedCount = 0;
+        publish(build(List.of()), new int[0]);
+    }
+
+    /**
+     * Move the delta into a new level, then merge each level that's grown too large into the one below it.
+     */
+    private void freezeDelta() {
+        levels.add(new Level(delta.keySet(), ids));
+        delta.clear();
+        while (levels.size() > 1) {
+            Level top = levels.get(levels.size() - 1);
+            Level below = levels.get(levels.size() - 2);
+            if ((long) top.size() * LEVEL_FRACTION <= below.size()) {
+                break;
+            }
+            List<String> keywords = below.liveKeywords();
+            keywords.addAll(top.liveKeywords());
+            removedCount -= below.removedCount + top.removedCount;
+            levels.remove(levels.size() - 1);
+            levels.set(levels.size() - 1, new Level(keywords, ids));
+        }
+    }
+
+    private void publish(Trie deltaTrie, int[] deltaIds) {
+        Trie[] tries = new Trie[levels.size() + 1];
+        int[][] trieIds = new int[tries.length][];
+        BitSet[] removed = new BitSet[tries.length];
+        for (int i = 0; i < levels.size(); i++) {
+            Level level = levels.get(i);
+            tries[i] = level.trie;
+            trieIds[i] = level.ids;
+            removed[i] = level.publishRemoved();
+        }
+        tries[levels.size()] = deltaTrie;
+        trieIds[levels.size()] = deltaIds;
+        removed[levels.size()] = new BitSet();
+        snapshot = new Snapshot(tries, trieIds, removed);
+    }
+
+    private static Trie build(Collection<String> keywords) {
+        return ((UnicodeAhoCorasick) UnicodeAhoCorasickBuilder.buildAhoCorasick(keywords)).trie;
+    }
+
+    public boolean matches(String s) {
+        MatchResult result = find(s, 0, s.length(), true);
+        return result.matched && result.end == s.length();
+    }
+
+    public MatchResult find(String s, int start, int end, boolean anchored) {
+        SearchMethodUtil.checkIndices(s, start, end);
+        Snapshot current = snapshot;
+        if (anchored) {
+            return current.findAnchored(s, start, end);
+        }
+        int[] match = new int[3];
+        return current.findNext(s, start, end, match) ? MatchResult.success(match[1], match[2]) : MatchResult.failure();
+    }
+
+    public void findAll(String s, NeedleMatchConsumer consumer) {
+        Snapshot current = snapshot;
+        int[] match = new int[3];
+        int from = 0;
+        while (current.findNext(s, from, s.length(), match)) {
+            consumer.accept(match[0], match[1], match[2]);
+            from = match[2];
+        }
+    }
+
+    public void findAllOverlapping(String s, NeedleMatchConsumer consumer) {
+        snapshot.findAllOverlapping(s, consumer);
+    }
+
+    /**
+     * A frozen level, whose keywords can only be marked as removed.
+     */
+    private static class Level {
+
+        private final Trie trie;
+        // The id of each keyword, by its index in the trie
+        private final int[] ids;
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> keywords;
+        private BitSet removed = new BitSet();
+        private int removedCount;
+        // Whether removed has been published to searches, so that it has to be copied before being changed
+        private boolean removedPublished;
+
+        Level(Collection<String> keywords, Map<String, Integer> keywordIds) {
+            this.keywords = new ArrayList<>(keywords);
+            this.trie = build(this.keywords);
+            this.ids = new int[this.keywords.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = keywordIds.get(this.keywords.get(i));
+                indexes.put(this.keywords.get(i), i);
+            }
+        }
+
+        /**
+         * Mark a keyword as removed.
+         *
+         * @return whether the keyword was in this level and hadn't already been removed
+         */
+        boolean remove(String keyword) {
+            Integer index = indexes.remove(keyword);
+            if (index == null) {
+                return false;
+            }
+            if (removedPublished) {
+                removed = (BitSet) removed.clone();
+                removedPublished = false;
+            }
+            removed.set(index);
+            removedCount++;
+            return true;
+        }
+
+        BitSet publishRemoved() {
+            removedPublished = true;
+            return removed;
+        }
+
+        int size() {
+            return keywords.size() - removedCount;
+        }
+
+        List<String> liveKeywords() {
+            List<String> live = new ArrayList<>(size());
+            for (int i = 0; i < keywords.size(); i++) {
+                if (!removed.get(i)) {
+                    live.add(keywords.get(i));
+                }
+            }
+            return live;
+        }
+    }
+
+    private static class Snapshot {
+
+        // The levels' automata, ending with the delta's
+        private final Trie[] tries;
+        // The id of each keyword, by level and by its index in that level
+        private final int[][] ids;
+        // The indexes of each level's removed keywords, which must never be changed once published
+        private final BitSet[] removed;
+        // Scans for the chars that leave any root, or null if there are too many of them
+        private final CharSetScanner rootScanner;
+
+        Snapshot(Trie[] tries, int[][] ids, BitSet[] removed) {
+            this.tries = tries;
+            this.ids = ids;
+            this.removed = removed;
+            this.rootScanner = rootScanner(tries);
+        }
+
+        private static CharSetScanner rootScanner(Trie[] tries) {
+            StringBuilder chars = new StringBuilder();
+            for (Trie root : tries) {
+                for (int i = 0; i < root.followerCount(); i++) {
+                    if (chars.indexOf(String.valueOf(root.followerChar(i))) < 0) {
+                        chars.append(root.followerChar(i));
+                    }
+                }
+            }
+            if (chars.length() == 0 || chars.length() > CharSetScanner.MAX_CHARS) {
+                return null;
+            }
+            return CharSetScanner.forChars(chars.toString());
+        }
+
+        Trie delta() {
+            return tries[tries.length - 1];
+        }
+
+        int[] deltaIds() {
+            return ids[ids.length - 1];
+        }
+
+        private boolean atRoots(Trie[] nodes) {
+            for (int level = 0; level < nodes.length; level++) {
+                if (nodes[level] != tries[level]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return the first of the output links starting at output that hasn't been removed from the level, or null
+         * if there is none
+         */
+        private Trie liveOutput(int level, Trie output) {
+            for (; output != null; output = output.output) {
+                if (!removed[level].get(output.needleId)) {
+                    return output;
+                }
+            }
+            return null;
+        }
+
+        private static Trie output(Trie node) {
+            return node.needleId >= 0 ? node : node.output;
+        }
+
+        /**
+         * Find the leftmost-longest match between from and end, storing its id, start, and end in match.
+         *
+         * @return whether there is a match
+         */
+        boolean findNext(String s, int from, int end, int[] match) {
+            Trie[] nodes = tries.clone();
+            int pendingStart = -1;
+            for (int i = from; i < end; i++) {
+                if (pendingStart < 0 && rootScanner != null && atRoots(nodes)) {
+                    i = rootScanner.indexOf(s, i, end);
+                    if (i < 0) {
+                        break;
+                    }
+                }
+                char c = s.charAt(i);
+                int depth = 0;
+                int id = -1;
+                int length = 0;
+                for (int level = 0; level < nodes.length; level++) {
+                    Trie node = nodes[level].transition(c);
+                    nodes[level] = node;
+                    depth = Math.max(depth, node.depth);
+                    // Two levels can't both have a live keyword of the same length ending here
+                    Trie output = liveOutput(level, output(node));
+                    if (output != null && output.depth > length) {
+                        id = ids[level][output.needleId];
+                        length = output.depth;
+                    }
+                }
+                // Every later match starts after the pending one, so it's the leftmost-longest
+                if (pendingStart >= 0 && i + 1 - depth > pendingStart) {
+                    return true;
+                }
+                if (id < 0) {
+                    continue;
+                }
+                int matchStart = i + 1 - length;
+                if (pendingStart < 0 || matchStart <= pendingStart) {
+                    pendingStart = matchStart;
+                    match[0] = id;
+                    match[1] = matchStart;
+                    match[2] = i + 1;
+                }
+            }
+            return pendingStart >= 0;
+        }
+
+        /**
+         * Follow only the tries' own edges, and return the longest keyword starting at start.
+         */
+        MatchResult findAnchored(String s, int start, int end) {
+            Trie[] nodes = tries.clone();
+            int remaining = nodes.length;
+            int lastEnd = -1;
+            for (int i = start; i < end && remaining > 0; i++) {
+                char c = s.charAt(i);
+                for (int level = 0; level < nodes.length; level++) {
+                    Trie node = nodes[level];
+                    if (node == null) {
+                        continue;
+                    }
+                    node = node.next(c);
+                    nodes[level] = node;
+                    if (node == null) {
+                        remaining--;
+                    }
+                    else if (node.needleId >= 0 && !removed[level].get(node.needleId)) {
+                        lastEnd = i + 1;
+                    }
+                }
+            }
+            return lastEnd >= 0 ? MatchResult.success(start, lastEnd) : MatchResult.failure();
+        }
+
+        /**
+         * Report the keywords ending at each index from every level, merging their output links, which each go from
+         * longest to shortest.
+         */
+        void findAllOverlapping(String s, NeedleMatchConsumer consumer) {
+            Trie[] nodes = tries.clone();
+            Trie[] outputs = new Trie[nodes.length];
+            int end = s.length();
+            for (int i = 0; i < end; i++) {
+                if (rootScanner != null && atRoots(nodes)) {
+                    i = rootScanner.indexOf(s, i, end);
+                    if (i < 0) {
+                        return;
+                    }
+                }
+                char c = s.charAt(i);
+                for (int level = 0; level < nodes.length; level++) {
+                    nodes[level] = nodes[level].transition(c);
+                    outputs[level] = output(nodes[level]);
+                }
+                while (true) {
+                    int longest = -1;
+                    for (int level = 0; level < outputs.length; level++) {
+                        if (outputs[level] != null && (longest < 0 || outputs[level].depth > outputs[longest].depth)) {
+                            longest = level;
+                        }
+                    }
+                    if (longest < 0) {
+                        break;
+                    }
+                    Trie output = outputs[longest];
+                    if (!removed[longest].get(output.needleId)) {
+                        consumer.accept(ids[longest][output.needleId], i + 1 - output.depth, i + 1);
+                    }
+                    outputs[longest] = output.output;
+                }
+            }
+        }
+    }
+}
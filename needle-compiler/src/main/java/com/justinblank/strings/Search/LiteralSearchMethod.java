@@ -0,0 +1,72 @@
+package com.justinblank.strings.Search;
+
+import com.justinblank.strings.MatchResult;
+
+/**
+ * Searches for a single literal, without building an automaton. Short literals are found with
+ * {@link String#indexOf(String, int)}, which the JIT replaces with vectorized code, but which can take time
+ * proportional to the length of the literal at each index of the string. Longer literals, where that matters, are
+ * found with {@link TwoWay}, which takes linear time however repetitive the literal is.
+ */
+class LiteralSearchMethod implements MultiSearchMethod {
+
+    // Below this length, String.indexOf beats Two-Way, which compares a char at a time
+    static final int MIN_TWO_WAY_LENGTH = 16;
+
+    private final String literal;
+    private final TwoWay twoWay;
+
+    private LiteralSearchMethod(String literal) {
+        this.literal = literal;
+        this.twoWay = literal.length() >= MIN_TWO_WAY_LENGTH ? TwoWay.forLiteral(literal) : null;
+    }
+
+    /**
+     * @param literal the literal, which may not be empty
+     */
+    static LiteralSearchMethod forLiteral(String literal) {
+        if (literal.isEmpty()) {
+            throw new IllegalArgumentException("Cannot search for an empty literal");
+        }
+        return new LiteralSearchMethod(literal);
+    }
+
+    public boolean matches(String s) {
+        return s.equals(literal);
+    }
+
+    public MatchResult find(String s, int start, int end, boolean anchored) {
+        SearchMethodUtil.checkIndices(s, start, end);
+        int index;
+        if (anchored) {
+            index = literal.length() <= end - start && s.startsWith(literal, start) ? start : -1;
+        }
+        else {
+            index = indexOf(s, start, end);
+        }
+        return index >= 0 ? MatchResult.success(index, index + literal.length()) : MatchResult.failure();
+    }
+
+    public void findAll(String s, NeedleMatchConsumer consumer) {
+        for (int index = indexOf(s, 0, s.length()); index >= 0;
+             index = indexOf(s, index + literal.length(), s.length())) {
+            consumer.accept(0, index, index + literal.length());
+        }
+    }
+
+    public void findAllOverlapping(String s, NeedleMatchConsumer consumer) {
+        // With a single literal, ordering by end is the same as ordering by start
+        for (int index = indexOf(s, 0, s.length()); index >= 0; index = indexOf(s, index + 1, s.length())) {
+            consumer.accept(0, index, index + literal.length());
+        }
+    }
+
+    private int indexOf(String s, int from, int end) {
+        if (twoWay != null) {
+            return twoWay.indexOf(s, from, end);
+        }
+        int index = s.indexOf(literal, from);
+        // Any later occurrence would also end after end
+        return index >= 0 && index + literal.length() <= end ? index : -1;
+    }
+}
@@ -1,22 +1,144 @@
 package com.justinblank.strings.Search;
 
+import com.justinblank.strings.CaseFolding;
+import com.justinblank.strings.Pattern;
+
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 
 public final class SearchMethods {
 
+    /**
+     * Flag for {@link #makeSearchMethod(Collection, int)} to only match strings that aren't preceded or followed by a
+     * word char. For strings that start and end with a word char, that's what surrounding them with \b does. Unlike the
+     * flags from {@link Pattern}, this has no counterpart in java.util.regex.
+     */
+    public static final int WHOLE_WORDS = 0x10000;
+
+    // Below this many needles, the automata find candidates about as quickly as Teddy does, without verifying them
+    static final int MIN_TEDDY_NEEDLES = 4;
+    // Above this many, Teddy's buckets allow so many bytes that most positions are candidates
+    static final int MAX_TEDDY_NEEDLES = 32;
+    // Larger sets whose needles are all at least this long skip enough chars with Wu-Manber to beat the automata
+    static final int MIN_WU_MANBER_LENGTH = 6;
+    // And Wu-Manber beats Teddy once the needles are this long
+    static final int MIN_WU_MANBER_LENGTH_FOR_SMALL_SETS = 12;
+
     private SearchMethods() {}
 
-    public static SearchMethod makeSearchMethod(Collection<String> strings) {
+    /**
+     * Make a search method for a set of strings. ASCII strings are searched for with a flat transition table. Other
+     * sets small enough for their trie to fit in one JIT compilable method are searched for with a generated class,
+     * which avoids looking up each char in the trie, and larger sets with the trie itself. Between a few and a few
+     * dozen non-empty strings are searched for with {@link Teddy}, which looks for several chars at a time, and sets of
+     * long strings with {@link WuManber}, which skips over most chars. A single string is searched for directly,
+     * without building an automaton. Every match can be reported along with which string matched, through
+     * {@link MultiSearchMethod}.
+     *
+     * @param strings the strings to search for
+     * @return the search method
+     */
+    public static MultiSearchMethod makeSearchMethod(Collection<String> strings) {
         if (strings.isEmpty()) {
             throw new IllegalArgumentException("Cannot create SearchMethod using empty list of strings");
         }
+        int distinct = new HashSet<>(strings).size();
+        if (distinct == 1 && !strings.contains("")) {
+            return LiteralSearchMethod.forLiteral(strings.iterator().next());
+        }
+        if (strings.contains("")) {
+            return buildAutomaton(strings);
+        }
+        int minLength = strings.stream().mapToInt(String::length).min().orElseThrow();
+        boolean small = distinct <= MAX_TEDDY_NEEDLES;
+        // Teddy and Wu-Manber only need the automaton to report overlapping matches, so they build it if asked to
+        List<String> needles = List.copyOf(strings);
+        if (minLength >= (small ? MIN_WU_MANBER_LENGTH_FOR_SMALL_SETS : MIN_WU_MANBER_LENGTH)) {
+            return WuManber.build(needles, () -> buildAutomaton(needles));
+        }
+        if (small && distinct >= MIN_TEDDY_NEEDLES) {
+            return Teddy.build(needles, () -> buildAutomaton(needles));
+        }
+        return buildAutomaton(strings);
+    }
+
+    private static MultiSearchMethod buildAutomaton(Collection<String> strings) {
         if (allAscii(strings)) {
             return AsciiAhoCorasickBuilder.buildAhoCorasick(strings);
         }
-        else {
-            return UnicodeAhoCorasickBuilder.buildAhoCorasick(strings);
+        var trie = (UnicodeAhoCorasick) UnicodeAhoCorasickBuilder.buildAhoCorasick(strings);
+        return CompiledAhoCorasick.compile(trie).orElse(trie);
+    }
+
+    /**
+     * Make a search method for a set of strings, applying flags from {@link Pattern}. Ignoring case, the strings are
+     * always searched for with an automaton, in which each char leads to the same state as its case variants, so the
+     * strings being searched never need to be lowercased. ASCII strings use the table unless, with
+     * {@link Pattern#UNICODE_CASE}, one of their chars matches a non-ASCII char, like 'k' and the Kelvin sign.
+     * <p>
+     * With {@link #WHOLE_WORDS}, the table itself rejects matches inside words, so it needs ASCII strings, and empty
+     * strings are never matched.
+     *
+     * @param strings the strings to search for
+     * @param flags the flags, such as {@link Pattern#CASE_INSENSITIVE} or {@link #WHOLE_WORDS}
+     * @return the search method
+     */
+    public static MultiSearchMethod makeSearchMethod(Collection<String> strings, int flags) {
+        CaseFolding folding = CaseFolding.forFlags(flags).orElse(null);
+        boolean wholeWords = (flags & WHOLE_WORDS) != 0;
+        if (folding == null && !wholeWords) {
+            return makeSearchMethod(strings);
+        }
+        if (strings.isEmpty()) {
+            throw new IllegalArgumentException("Cannot create SearchMethod using empty list of strings");
+        }
+        if (allAscii(strings) && (folding == null || allAscii(strings, folding))) {
+            return new AsciiAhoCorasickBuilder(folding, wholeWords).build(strings);
+        }
+        if (wholeWords) {
+            throw new IllegalArgumentException("Only ASCII strings, with ASCII case variants, can be searched for as " +
+                    "whole words");
+        }
+        var trie = (UnicodeAhoCorasick) new UnicodeAhoCorasickBuilder(folding).build(strings);
+        return CompiledAhoCorasick.compile(trie).orElse(trie);
+    }
+
+    /**
+     * @return whether every case variant of every char of the strings is ASCII
+     */
+    private static boolean allAscii(Collection<String> strings, CaseFolding folding) {
+        for (String s : strings) {
+            for (int i = 0; i < s.length(); i++) {
+                for (char variant : folding.variants(s.charAt(i))) {
+                    if (variant > '\u007F') {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Build an automaton for a set of ASCII strings, and write it to a file that {@link MappedAhoCorasick#map(Path)}
+     * can search without building anything. This is meant for large sets, which are slow to build, and is usually
+     * done at build time.
+     *
+     * @param strings the strings to search for
+     * @param target the file to write, which is replaced if it exists
+     * @throws IOException if the file can't be written
+     */
+    public static void writeAhoCorasick(Collection<String> strings, Path target) throws IOException {
+        if (strings.isEmpty()) {
+            throw new IllegalArgumentException("Cannot create SearchMethod using empty list of strings");
+        }
+        if (!allAscii(strings)) {
+            throw new IllegalArgumentException("Only automata for ASCII strings can be written");
         }
+        new AsciiAhoCorasickBuilder().build(strings).write(target);
     }
 
     // I keep double-checking StringUtils for where I missed this
@@ -0,0 +1,198 @@
+package com.justinblank.strings.Search;
+
+import com.justinblank.strings.MatchResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Searches for a small set of needles with Teddy, the packed multi-literal search from Hyperscan. Needles are split
+ * into eight buckets, and each bucket gets a fingerprint made of the first few chars of its needles. Rather than
+ * stepping an automaton through every char, we look for positions where the next few bytes match some bucket's
+ * fingerprint, which the vector API can test sixteen positions at a time, and only then compare that bucket's needles.
+ * <p>
+ * As with {@link CharSetScanner}, the fingerprints only look at the low byte of each char, and candidates are checked
+ * against whole chars. Teddy finds matches in order of their start, so reporting overlapping matches, which come in
+ * order of their end, is left to an Aho-Corasick automaton.
+ */
+class Teddy implements MultiSearchMethod {
+
+    static final int MAX_NEEDLES = 64;
+    static final int MAX_FINGERPRINT_LENGTH = 3;
+    private static final int BUCKETS = 8;
+    private static final int NIBBLES = 16;
+    private static final int MIN_CHUNK = 32;
+    private static final int MAX_CHUNK = 1024;
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(
+            () -> new byte[MAX_CHUNK + MAX_FINGERPRINT_LENGTH - 1]);
+
+    private final String[][] buckets;
+    private final int[][] bucketIds;
+    private final int minLength;
+    // For each char of the fingerprint, the buckets allowing each byte, and each nibble, at that position
+    private final byte[][] tables;
+    private final byte[][] nibbleTables;
+    // Built the first time overlapping matches are asked for, since nothing else needs it
+    private final Supplier<MultiSearchMethod> automatonSupplier;
+    private volatile MultiSearchMethod automaton;
+
+    private Teddy(List<String> needles, List<Integer> ids, Supplier<MultiSearchMethod> automatonSupplier) {
+        this.automatonSupplier = automatonSupplier;
+        minLength = needles.stream().mapToInt(String::length).min().orElseThrow();
+        int fingerprintLength = Math.min(minLength, MAX_FINGERPRINT_LENGTH);
+        tables = new byte[fingerprintLength][256];
+        nibbleTables = new byte[fingerprintLength][2 * NIBBLES];
+
+        // Needles that share a fingerprint go in the same bucket, so each bucket allows as few bytes as possible
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < needles.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing(i -> needles.get(i).substring(0, fingerprintLength)));
+        int bucketCount = Math.min(BUCKETS, needles.size());
+        buckets = new String[bucketCount][];
+        bucketIds = new int[bucketCount][];
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            int from = bucket * needles.size() / bucketCount;
+            int to = (bucket + 1) * needles.size() / bucketCount;
+            buckets[bucket] = new String[to - from];
+            bucketIds[bucket] = new int[to - from];
+            for (int i = from; i < to; i++) {
+                String needle = needles.get(order.get(i));
+                buckets[bucket][i - from] = needle;
+                bucketIds[bucket][i - from] = ids.get(order.get(i));
+                for (int j = 0; j < fingerprintLength; j++) {
+                    int b = needle.charAt(j) & 0xFF;
+                    tables[j][b] |= 1 << bucket;
+                    nibbleTables[j][b & 0xF] |= 1 << bucket;
+                    nibbleTables[j][NIBBLES + (b >>> 4)] |= 1 << bucket;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param needles the needles, of which there must be no more than {@link #MAX_NEEDLES}, and none empty
+     * @param automaton builds an automaton for the same needles, to report overlapping matches
+     */
+    static Teddy build(Collection<String> needles, Supplier<MultiSearchMethod> automaton) {
+        // Duplicates are reported with the id of their first occurrence
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        int id = 0;
+        for (String needle : needles) {
+            if (needle.isEmpty()) {
+                throw new IllegalArgumentException("Teddy can't search for the empty string");
+            }
+            ids.putIfAbsent(needle, id++);
+        }
+        if (ids.size() > MAX_NEEDLES) {
+            throw new IllegalArgumentException("Teddy can search for at most " + MAX_NEEDLES + " needles, got " +
+                    ids.size());
+        }
+        return new Teddy(new ArrayList<>(ids.keySet()), new ArrayList<>(ids.values()), automaton);
+    }
+
+    public boolean matches(String s) {
+        MatchResult result = find(s, 0, s.length(), true);
+        return result.matched && result.end == s.length();
+    }
+
+    public MatchResult find(String s, int start, int end, boolean anchored) {
+        SearchMethodUtil.checkIndices(s, start, end);
+        int[] match = new int[3];
+        boolean found = anchored ? longestMatch(s, start, end, (1 << buckets.length) - 1, match)
+                : findNext(s, start, end, match);
+        return found ? MatchResult.success(match[1], match[2]) : MatchResult.failure();
+    }
+
+    public void findAll(String s, NeedleMatchConsumer consumer) {
+        int[] match = new int[3];
+        int from = 0;
+        while (findNext(s, from, s.length(), match)) {
+            consumer.accept(match[0], match[1], match[2]);
+            from = match[2];
+        }
+    }
+
+    public void findAllOverlapping(String s, NeedleMatchConsumer consumer) {
+        MultiSearchMethod current = automaton;
+        if (current == null) {
+            // Two threads may both build it, but either automaton will do
+            current = automatonSupplier.get();
+            automaton = current;
+        }
+        current.findAllOverlapping(s, consumer);
+    }
+
+    /**
+     * Find the leftmost-longest match between from and end, storing its id, start, and end in match.
+     *
+     * @return whether there is a match
+     */
+    private boolean findNext(String s, int from, int end, int[] match) {
+        int lastStart = end - minLength;
+        int lookahead = tables.length - 1;
+        byte[] buffer = BUFFERS.get();
+        int chunk = MIN_CHUNK;
+        for (int start = from; start <= lastStart; start += chunk, chunk = Math.min(chunk * 2, MAX_CHUNK)) {
+            int positions = Math.min(chunk, lastStart - start + 1);
+            copyLowBytes(s, start, positions + lookahead, buffer);
+            int candidate = TeddyKernel.nextCandidate(buffer, 0, positions, tables, nibbleTables);
+            while (candidate >= 0) {
+                if (longestMatch(s, start + candidate, end, bucketsAt(buffer, candidate), match)) {
+                    return true;
+                }
+                candidate = TeddyKernel.nextCandidate(buffer, candidate + 1, positions, tables, nibbleTables);
+            }
+        }
+        return false;
+    }
+
+    private int bucketsAt(byte[] bytes, int index) {
+        int allowed = 0xFF;
+        for (int j = 0; j < tables.length; j++) {
+            allowed &= tables[j][bytes[index + j] & 0xFF];
+        }
+        return allowed;
+    }
+
+    /**
+     * Find the longest needle from the given buckets that starts at start and ends by end, storing its id, start, and
+     * end in match.
+     *
+     * @return whether there is one
+     */
+    private boolean longestMatch(String s, int start, int end, int bucketMask, int[] match) {
+        int longest = -1;
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            if ((bucketMask & (1 << bucket)) == 0) {
+                continue;
+            }
+            String[] needles = buckets[bucket];
+            for (int i = 0; i < needles.length; i++) {
+                String needle = needles[i];
+                if (needle.length() > longest && needle.length() <= end - start && s.startsWith(needle, start)) {
+                    longest = needle.length();
+                    match[0] = bucketIds[bucket][i];
+                }
+            }
+        }
+        if (longest < 0) {
+            return false;
+        }
+        match[1] = start;
+        match[2] = start + longest;
+        return true;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void copyLowBytes(String s, int start, int length, byte[] buffer) {
+        // Unlike the encoding methods, this copies the low byte of each char, and for Latin-1 strings is an arraycopy
+        s.getBytes(start, start + length, buffer, 0);
+    }
+}
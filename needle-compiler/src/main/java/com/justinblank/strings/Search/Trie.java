@@ -1,25 +1,169 @@
 package com.justinblank.strings.Search;
 
-import java.util.TreeMap;
+import java.util.Arrays;
 
+/**
+ * A node of the trie used by {@link UnicodeAhoCorasick}. Followers are kept as parallel arrays sorted by char, which
+ * are searched by binary search. Once the trie is built, {@link #compact(boolean)} picks a faster lookup for nodes
+ * where that pays off: a direct array for nodes whose followers are dense in some range of chars, and an open
+ * addressing hash table for the root, which is visited far more often than any other node.
+ */
 class Trie {
 
+    private static final char[] NO_CHARS = new char[0];
+    private static final Trie[] NO_TRIES = new Trie[0];
+    // Direct lookup is worth it if at least half the slots are used, and there are enough followers to search
+    static final int MIN_DENSE_FOLLOWERS = 4;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    // Once the trie is built, the length of the longest pattern ending here, which may be shorter than the depth
     protected int length;
+    protected final int depth;
     protected boolean accepting;
     protected Trie root;
     protected Trie supplier;
-    protected TreeMap<Character, Trie> followers = new TreeMap<>();
+    // The id of the pattern ending at this node, or -1 if none does
+    protected int needleId = -1;
+    // The next node along the supplier links, other than the root, that ends a pattern
+    protected Trie output;
+
+    private char[] chars = NO_CHARS;
+    private Trie[] followers = NO_TRIES;
+    private int followerCount;
+
+    // The follower for char denseStart + i is denseFollowers[i]
+    private char denseStart;
+    private Trie[] denseFollowers;
+
+    private int hashShift;
+    private char[] hashChars;
+    private Trie[] hashFollowers;
 
     protected Trie(int length) {
         this.length = length;
+        this.depth = length;
     }
 
     protected Trie next(char c) {
-        return this.followers.get(c);
+        if (denseFollowers != null) {
+            int index = c - denseStart;
+            return index >= 0 && index < denseFollowers.length ? denseFollowers[index] : null;
+        }
+        if (hashFollowers != null) {
+            int mask = hashFollowers.length - 1;
+            for (int index = (c * HASH_MULTIPLIER) >>> hashShift; ; index = (index + 1) & mask) {
+                Trie follower = hashFollowers[index];
+                if (follower == null || hashChars[index] == c) {
+                    return follower;
+                }
+            }
+        }
+        int index = Arrays.binarySearch(chars, 0, followerCount, c);
+        return index >= 0 ? followers[index] : null;
+    }
+
+    /**
+     * Find where a char leads from this node, following supplier links until some node has a follower for it, or
+     * returning the root if none does.
+     */
+    Trie transition(char c) {
+        Trie current = this;
+        Trie next = current.next(c);
+        while (next == null) {
+            current = current.supplier;
+            if (current != null && current != root) {
+                next = current.next(c);
+            }
+            else {
+                next = root.next(c);
+                if (next == null) {
+                    next = root;
+                }
+            }
+        }
+        return next;
     }
 
     void addFollower(char c, Trie trie) {
-        this.followers.put(c, trie);
+        int index = Arrays.binarySearch(chars, 0, followerCount, c);
+        if (index >= 0) {
+            followers[index] = trie;
+            return;
+        }
+        index = -index - 1;
+        if (followerCount == chars.length) {
+            int capacity = Math.max(2, followerCount * 2);
+            chars = Arrays.copyOf(chars, capacity);
+            followers = Arrays.copyOf(followers, capacity);
+        }
+        System.arraycopy(chars, index, chars, index + 1, followerCount - index);
+        System.arraycopy(followers, index, followers, index + 1, followerCount - index);
+        chars[index] = c;
+        followers[index] = trie;
+        followerCount++;
+    }
+
+    int followerCount() {
+        return followerCount;
+    }
+
+    /**
+     * @return the char leading to the i-th follower, in order of chars
+     */
+    char followerChar(int i) {
+        return chars[i];
+    }
+
+    Trie follower(int i) {
+        return followers[i];
+    }
+
+    /**
+     * Trim the followers, and choose how to look them up. Followers must not be added afterwards.
+     */
+    void compact(boolean isRoot) {
+        chars = Arrays.copyOf(chars, followerCount);
+        followers = Arrays.copyOf(followers, followerCount);
+        if (followerCount == 0) {
+            return;
+        }
+        if (isRoot) {
+            buildHashTable();
+            return;
+        }
+        int span = chars[followerCount - 1] - chars[0] + 1;
+        if (followerCount >= MIN_DENSE_FOLLOWERS && span <= 2 * followerCount) {
+            denseStart = chars[0];
+            denseFollowers = new Trie[span];
+            for (int i = 0; i < followerCount; i++) {
+                denseFollowers[chars[i] - denseStart] = followers[i];
+            }
+        }
+    }
+
+    private void buildHashTable() {
+        // Keep the load factor at or below one half, so probe sequences stay short
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(followerCount * 2 - 1));
+        hashShift = 32 - bits;
+        hashChars = new char[1 << bits];
+        hashFollowers = new Trie[1 << bits];
+        int mask = hashFollowers.length - 1;
+        for (int i = 0; i < followerCount; i++) {
+            int index = (chars[i] * HASH_MULTIPLIER) >>> hashShift;
+            while (hashFollowers[index] != null) {
+                index = (index + 1) & mask;
+            }
+            hashChars[index] = chars[i];
+            hashFollowers[index] = followers[i];
+        }
+    }
+
+    boolean usesDenseLookup() {
+        return denseFollowers != null;
+    }
+
+    boolean usesHashLookup() {
+        return hashFollowers != null;
     }
 
     void markAccepting() {
@@ -2,12 +2,26 @@ package com.justinblank.strings.Search;
 
 import com.justinblank.strings.MatchResult;
 
-class UnicodeAhoCorasick implements SearchMethod {
+class UnicodeAhoCorasick implements MultiSearchMethod {
 
-    private final Trie trie;
+    final Trie trie;
+    // Scans for the chars that leave the root, or null if there are too many of them
+    final CharSetScanner rootScanner;
 
     UnicodeAhoCorasick(Trie trie) {
         this.trie = trie;
+        this.rootScanner = rootScanner(trie);
+    }
+
+    private static CharSetScanner rootScanner(Trie trie) {
+        if (trie.accepting || trie.followerCount() == 0 || trie.followerCount() > CharSetScanner.MAX_CHARS) {
+            return null;
+        }
+        StringBuilder chars = new StringBuilder();
+        for (int i = 0; i < trie.followerCount(); i++) {
+            chars.append(trie.followerChar(i));
+        }
+        return CharSetScanner.forChars(chars.toString());
     }
 
     public boolean matches(String s) {
@@ -18,38 +32,32 @@ class UnicodeAhoCorasick implements SearchMethod {
 
     public MatchResult find(String s, int start, int end, boolean anchored) {
         SearchMethodUtil.checkIndices(s, start, end);
+        if (anchored) {
+            return findAnchored(s, start, end);
+        }
         Trie current = this.trie;
         int lastStart = -1;
         int lastEnd = -1;
         for (int i = start; i < end; i++) {
-            if (anchored && i > start && current == trie) {
-                if (lastEnd > -1) {
-                    return MatchResult.success(lastStart, lastEnd);
-                }
-                return MatchResult.failure();
-            }
-            char c = s.charAt(i);
-                Trie next = current.next(c);
-                while (next == null) {
-                    current = current.supplier;
-                    if (current != null && current != trie) {
-                        next = current.next(c);
-                    }
-                    else {
-                        next = trie.next(c);
-                        if (next == null) {
-                            next = trie;
-                        }
-                    }
+            // Back at the root, every later match starts after the pending one
+            if (i > start && current == trie && lastEnd > -1) {
+                return MatchResult.success(lastStart, lastEnd + 1);
+            }
+            // Back at the root with no match pending, only the first char of some pattern can take us anywhere
+            if (current == trie && lastEnd == -1 && rootScanner != null) {
+                i = rootScanner.indexOf(s, i, end);
+                if (i < 0) {
+                    break;
                 }
-                current = next;
-                if (current.accepting) {
-                    int potentialLastStart = i - current.length + 1;
-                    if (lastStart == -1 || potentialLastStart <= lastStart) {
-                        lastEnd = i;
-                        lastStart = potentialLastStart;
-                    }
+            }
+            current = current.transition(s.charAt(i));
+            if (current.accepting) {
+                int potentialLastStart = i - current.length + 1;
+                if (lastStart == -1 || potentialLastStart <= lastStart) {
+                    lastEnd = i;
+                    lastStart = potentialLastStart;
                 }
+            }
         }
         if (lastEnd > -1) {
             return MatchResult.success(lastStart, lastEnd + 1);
@@ -57,4 +65,87 @@ class UnicodeAhoCorasick implements SearchMethod {
 
         return MatchResult.failure();
     }
+
+    /**
+     * Follow only the trie's own edges, and return the longest pattern starting at start.
+     */
+    private MatchResult findAnchored(String s, int start, int end) {
+        Trie current = trie;
+        int lastEnd = -1;
+        for (int i = start; i < end; i++) {
+            current = current.next(s.charAt(i));
+            if (current == null) {
+                break;
+            }
+            if (current.needleId >= 0) {
+                lastEnd = i + 1;
+            }
+        }
+        return lastEnd >= 0 ? MatchResult.success(start, lastEnd) : MatchResult.failure();
+    }
+
+    /**
+     * @return the node of the longest pattern ending at node, which is node itself or its output link, or null if no
+     * pattern ends there
+     */
+    private static Trie longestOutput(Trie node) {
+        return node.needleId >= 0 ? node : node.output;
+    }
+
+    public void findAll(String s, NeedleMatchConsumer consumer) {
+        Trie current = trie;
+        Trie pending = null;
+        int pendingStart = -1;
+        int pendingEnd = -1;
+        int end = s.length();
+        for (int i = 0; ; i++) {
+            if (i < end) {
+                if (current == trie && pending == null && rootScanner != null) {
+                    i = rootScanner.indexOf(s, i, end);
+                    if (i < 0) {
+                        break;
+                    }
+                }
+                current = current.transition(s.charAt(i));
+                // Until every later match would start after the pending one, a longer or earlier one may turn up
+                if (pending == null || i + 1 - current.depth <= pendingStart) {
+                    Trie output = longestOutput(current);
+                    if (output != null) {
+                        int matchStart = i + 1 - output.depth;
+                        if (pending == null || matchStart <= pendingStart) {
+                            pending = output;
+                            pendingStart = matchStart;
+                            pendingEnd = i + 1;
+                        }
+                    }
+                    continue;
+                }
+            }
+            else if (pending == null) {
+                break;
+            }
+            consumer.accept(pending.needleId, pendingStart, pendingEnd);
+            pending = null;
+            // Matches can't overlap, so start over right after this one
+            current = trie;
+            i = pendingEnd - 1;
+        }
+    }
+
+    public void findAllOverlapping(String s, NeedleMatchConsumer consumer) {
+        Trie current = trie;
+        int end = s.length();
+        for (int i = 0; i < end; i++) {
+            if (current == trie && rootScanner != null) {
+                i = rootScanner.indexOf(s, i, end);
+                if (i < 0) {
+                    return;
+                }
+            }
+            current = current.transition(s.charAt(i));
+            for (Trie output = longestOutput(current); output != null; output = output.output) {
+                consumer.accept(output.needleId, i + 1 - output.depth, i + 1);
+            }
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package com.justinblank.strings.Search;
 
+import com.justinblank.strings.CaseFolding;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
@@ -7,14 +9,27 @@ import java.util.List;
 
 public class UnicodeAhoCorasickBuilder{
 
+    private final CaseFolding folding;
     private Trie root;
     private List<Trie> nodes = new ArrayList<>();
 
-    protected static SearchMethod buildAhoCorasick(Collection<String> strings) {
+    UnicodeAhoCorasickBuilder() {
+        this(null);
+    }
+
+    /**
+     * @param folding the case folding to apply, or null to match case. Ignoring case, each char leads to the same node
+     *                as its case variants.
+     */
+    UnicodeAhoCorasickBuilder(CaseFolding folding) {
+        this.folding = folding;
+    }
+
+    protected static MultiSearchMethod buildAhoCorasick(Collection<String> strings) {
         return new UnicodeAhoCorasickBuilder().build(strings);
     }
 
-    protected SearchMethod build(Collection<String> strings) {
+    protected MultiSearchMethod build(Collection<String> strings) {
         Trie trie = new Trie(0);
         root = trie;
         root.root = root;
@@ -22,10 +37,14 @@ public class UnicodeAhoCorasickBuilder{
         buildTrieStructure(strings, trie);
         nodes.sort(Comparator.comparing(Trie::length));
         addSuppliers();
+        for (Trie node : nodes) {
+            node.compact(node == root);
+        }
         return new UnicodeAhoCorasick(trie);
     }
 
     private void buildTrieStructure(Collection<String> strings, Trie trie) {
+        int needleId = 0;
         for (String s : strings) {
             Trie current = trie;
             for (int i = 0; i < s.length(); i++) {
@@ -36,21 +55,30 @@ public class UnicodeAhoCorasickBuilder{
                     nodes.add(next);
                     next.root = root;
                     current.addFollower(c, next);
+                    if (folding != null) {
+                        for (char variant : folding.variants(c)) {
+                            current.addFollower(variant, next);
+                        }
+                    }
                 }
                 if (i == s.length() - 1) {
                     next.markAccepting();
+                    if (next.needleId < 0) {
+                        next.needleId = needleId;
+                    }
                 }
                 current = next;
             }
+            needleId++;
         }
     }
 
 
     private void addSuppliers() {
         for (Trie node : nodes) {
-            node.followers.forEach((key, value) -> {
-                addSupplier(node, value, key);
-            });
+            for (int i = 0; i < node.followerCount(); i++) {
+                addSupplier(node, node.follower(i), node.followerChar(i));
+            }
         }
         assert allHaveSuppliers(nodes);
     }
@@ -81,6 +109,9 @@ public class UnicodeAhoCorasickBuilder{
             if (node.supplier == null) {
                 node.supplier = root;
             }
+            else {
+                node.output = node.supplier.needleId >= 0 ? node.supplier : node.supplier.output;
+            }
         }
     }
 }
@@ -0,0 +1,216 @@
+package com.justinblank.strings.Search;
+
+import com.justinblank.strings.MatchResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Searches for a set of long needles with Wu and Manber's block shift algorithm. Only the first minLength chars of each
+ * needle, its prefix, are used to move through the string. We look at a window of minLength chars and hash the last
+ * few chars of the window, a block. If no needle's prefix contains that block, no match can start anywhere in the
+ * window, and we can shift it by nearly its whole length. Otherwise, the table tells us how far the block is from the
+ * end of the nearest prefix containing it, and we shift by that much. Once a block ends some prefix, the needles with
+ * that prefix ending are compared to the string.
+ * <p>
+ * Unlike an automaton, this skips most chars when the needles are long, but each shift costs more than reading a char
+ * does, so it only pays off when the shifts are long. Windows are checked in order of where they start, so the first
+ * match found is the leftmost, while reporting overlapping matches, which come in order of their end, is left to an
+ * Aho-Corasick automaton.
+ */
+class WuManber implements MultiSearchMethod {
+
+    static final int MAX_BLOCK_SIZE = 4;
+    private static final int MIN_TABLE_BITS = 8;
+    private static final int MAX_TABLE_BITS = 18;
+    private static final int HASH_MULTIPLIER = 0x9E3779B1;
+
+    private final String[] needles;
+    private final int[] ids;
+    private final int minLength;
+    private final int blockSize;
+    private final int hashShift;
+    // For each hash of a block, how far past the block the nearest prefix containing it ends
+    private final int[] shifts;
+    // For each hash of a block ending some prefix, the indexes of the needles with that prefix, longest first
+    private final int[][] candidates;
+    // Built the first time overlapping matches are asked for, since nothing else needs it
+    private final Supplier<MultiSearchMethod> automatonSupplier;
+    private volatile MultiSearchMethod automaton;
+
+    private WuManber(List<String> needles, List<Integer> ids, Supplier<MultiSearchMethod> automatonSupplier) {
+        this.automatonSupplier = automatonSupplier;
+        this.needles = needles.toArray(new String[0]);
+        this.ids = ids.stream().mapToInt(Integer::intValue).toArray();
+        minLength = needles.stream().mapToInt(String::length).min().orElseThrow();
+        blockSize = blockSize(needles, minLength);
+
+        int blocks = needles.size() * (minLength - blockSize + 1);
+        int bits = 32 - Integer.numberOfLeadingZeros(2 * blocks - 1);
+        bits = Math.max(MIN_TABLE_BITS, Math.min(MAX_TABLE_BITS, bits));
+        hashShift = 32 - bits;
+        shifts = new int[1 << bits];
+        Arrays.fill(shifts, minLength - blockSize + 1);
+        List<List<Integer>> buckets = new ArrayList<>();
+        for (int i = 0; i < shifts.length; i++) {
+            buckets.add(null);
+        }
+
+        Integer[] order = new Integer[needles.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> needles.get(b).length() - needles.get(a).length());
+        for (int index : order) {
+            String needle = needles.get(index);
+            for (int blockEnd = blockSize; blockEnd <= minLength; blockEnd++) {
+                int hash = hash(needle, blockEnd);
+                shifts[hash] = Math.min(shifts[hash], minLength - blockEnd);
+            }
+            int hash = hash(needle, minLength);
+            if (buckets.get(hash) == null) {
+                buckets.set(hash, new ArrayList<>());
+            }
+            buckets.get(hash).add(index);
+        }
+        candidates = new int[shifts.length][];
+        for (int i = 0; i < candidates.length; i++) {
+            if (buckets.get(i) != null) {
+                candidates[i] = buckets.get(i).stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+    }
+
+    /**
+     * Pick a block size long enough that a block made of the chars the needles use is unlikely to occur in any prefix,
+     * so most shifts are close to the longest possible. A larger block makes each step slower, and shortens the
+     * longest shift.
+     */
+    private static int blockSize(List<String> needles, int minLength) {
+        long alphabetSize = needles.stream().flatMapToInt(String::chars).distinct().count();
+        int blockSize = Math.min(2, minLength);
+        while (blockSize < Math.min(minLength, MAX_BLOCK_SIZE) &&
+                Math.pow(alphabetSize, blockSize) < 4.0 * needles.size() * (minLength - blockSize + 1)) {
+            blockSize++;
+        }
+        return blockSize;
+    }
+
+    /**
+     * @param needles the needles, none of which may be empty
+     * @param automaton builds an automaton for the same needles, to report overlapping matches
+     */
+    static WuManber build(Collection<String> needles, Supplier<MultiSearchMethod> automaton) {
+        // Duplicates are reported with the id of their first occurrence
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        int id = 0;
+        for (String needle : needles) {
+            if (needle.isEmpty()) {
+                throw new IllegalArgumentException("Wu-Manber can't search for the empty string");
+            }
+            ids.putIfAbsent(needle, id++);
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("Cannot create SearchMethod using empty list of strings");
+        }
+        return new WuManber(new ArrayList<>(ids.keySet()), new ArrayList<>(ids.values()), automaton);
+    }
+
+    /**
+     * Hash the block of chars ending just before blockEnd.
+     */
+    private int hash(String s, int blockEnd) {
+        int hash = 0;
+        for (int i = blockEnd - blockSize; i < blockEnd; i++) {
+            hash = (hash + s.charAt(i)) * HASH_MULTIPLIER;
+        }
+        return hash >>> hashShift;
+    }
+
+    public boolean matches(String s) {
+        MatchResult result = find(s, 0, s.length(), true);
+        return result.matched && result.end == s.length();
+    }
+
+    public MatchResult find(String s, int start, int end, boolean anchored) {
+        SearchMethodUtil.checkIndices(s, start, end);
+        int[] match = new int[3];
+        boolean found;
+        if (anchored) {
+            found = end - start >= minLength && longestMatch(s, start, end, hash(s, start + minLength), match);
+        }
+        else {
+            found = findNext(s, start, end, match);
+        }
+        return found ? MatchResult.success(match[1], match[2]) : MatchResult.failure();
+    }
+
+    public void findAll(String s, NeedleMatchConsumer consumer) {
+        int[] match = new int[3];
+        int from = 0;
+        while (findNext(s, from, s.length(), match)) {
+            consumer.accept(match[0], match[1], match[2]);
+            from = match[2];
+        }
+    }
+
+    public void findAllOverlapping(String s, NeedleMatchConsumer consumer) {
+        MultiSearchMethod current = automaton;
+        if (current == null) {
+            // Two threads may both build it, but either automaton will do
+            current = automatonSupplier.get();
+            automaton = current;
+        }
+        current.findAllOverlapping(s, consumer);
+    }
+
+    /**
+     * Find the leftmost-longest match between from and end, storing its id, start, and end in match.
+     *
+     * @return whether there is a match
+     */
+    private boolean findNext(String s, int from, int end, int[] match) {
+        // The window is the minLength chars before windowEnd
+        int windowEnd = from + minLength;
+        while (windowEnd <= end) {
+            int hash = hash(s, windowEnd);
+            int shift = shifts[hash];
+            if (shift == 0) {
+                if (longestMatch(s, windowEnd - minLength, end, hash, match)) {
+                    return true;
+                }
+                shift = 1;
+            }
+            windowEnd += shift;
+        }
+        return false;
+    }
+
+    /**
+     * Find the longest needle whose prefix ends with a block having the given hash, that starts at start and ends by
+     * end, storing its id, start, and end in match.
+     *
+     * @return whether there is one
+     */
+    private boolean longestMatch(String s, int start, int end, int hash, int[] match) {
+        int[] indexes = candidates[hash];
+        if (indexes == null) {
+            return false;
+        }
+        for (int index : indexes) {
+            String needle = needles[index];
+            if (needle.length() <= end - start && s.startsWith(needle, start)) {
+                match[0] = ids[index];
+                match[1] = start;
+                match[2] = start + needle.length();
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,66 @@
+package com.justinblank.strings;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CaseFoldingTest {
+
+    @Test
+    public void testForFlags() {
+        assertEquals(java.util.Optional.empty(), CaseFolding.forFlags(0));
+        assertEquals(java.util.Optional.empty(), CaseFolding.forFlags(Pattern.UNICODE_CASE));
+        assertEquals(CaseFolding.ASCII, CaseFolding.forFlags(Pattern.CASE_INSENSITIVE).get());
+        assertEquals(CaseFolding.UNICODE,
+                CaseFolding.forFlags(Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE).get());
+    }
+
+    @Test
+    public void testAsciiVariants() {
+        assertArrayEquals(new char[]{'A'}, CaseFolding.ASCII.variants('a'));
+        assertArrayEquals(new char[]{'z'}, CaseFolding.ASCII.variants('Z'));
+        assertArrayEquals(new char[0], CaseFolding.ASCII.variants('1'));
+        assertArrayEquals(new char[0], CaseFolding.ASCII.variants('\u00e9'));
+    }
+
+    @Test
+    public void testUnicodeVariants() {
+        assertArrayEquals(new char[]{'\u00c9'}, CaseFolding.UNICODE.variants('\u00e9'));
+        assertArrayEquals(new char[]{'K', '\u212a'}, CaseFolding.UNICODE.variants('k'));
+        assertArrayEquals(new char[]{'K', 'k'}, CaseFolding.UNICODE.variants('\u212a'));
+        assertArrayEquals(new char[]{'\u03a3', '\u03c3'}, CaseFolding.UNICODE.variants('\u03c2'));
+        assertArrayEquals(new char[0], CaseFolding.UNICODE.variants('-'));
+    }
+
+    @Test
+    public void testUnicodeVariantsAgreeWithJavaRegex() {
+        var folding = CaseFolding.UNICODE;
+        int flags = java.util.regex.Pattern.CASE_INSENSITIVE | java.util.regex.Pattern.UNICODE_CASE;
+        // Java treats U+00DF as uncased, since it has no single char uppercase, though U+1E9E lowercases to it
+        for (char c : new char[]{'a', 'K', 's', '\u00e9', '\u0130', '\u03c2', '\u0416', '\u212a'}) {
+            var pattern = java.util.regex.Pattern.compile(java.util.regex.Pattern.quote(String.valueOf(c)), flags);
+            for (char variant : folding.variants(c)) {
+                assertEquals(c + " " + variant, true, pattern.matcher(String.valueOf(variant)).matches());
+            }
+        }
+    }
+
+    @Test
+    public void testExpandAsciiRanges() {
+        assertEquals(List.of(new CharRange('A', 'C'), new CharRange('a', 'c')),
+                CaseFolding.ASCII.expand(List.of(new CharRange('a', 'c'))));
+        assertEquals(List.of(new CharRange('0', '9')), CaseFolding.ASCII.expand(List.of(new CharRange('0', '9'))));
+        // [X-c] covers X-Z, [, \, ], ^, _, `, and a-c, whose variants fill in the rest of both alphabets' ends
+        assertEquals(List.of(new CharRange('A', 'C'), new CharRange('X', 'c'), new CharRange('x', 'z')),
+                CaseFolding.ASCII.expand(List.of(new CharRange('X', 'c'))));
+    }
+
+    @Test
+    public void testExpandUnicodeRanges() {
+        assertEquals(List.of(new CharRange('J', 'K'), new CharRange('j', 'k'), new CharRange('\u212a', '\u212a')),
+                CaseFolding.UNICODE.expand(List.of(new CharRange('j', 'k'))));
+    }
+}
@@ -0,0 +1,117 @@
+package com.justinblank.strings;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompactDFATest {
+
+    @Test
+    public void testRoundTrip() {
+        var dfa = DFA.createDFA("ab(cd|ef)*g");
+        var compact = CompactDFA.from(dfa);
+        assertEquals(dfa.statesCount(), compact.statesCount());
+        var roundTripped = compact.toDFA();
+        assertEquals(dfa.statesCount(), roundTripped.statesCount());
+        for (var s : new String[]{"abg", "abcdg", "abefcdg", "ab", "abcg", "abcdefcd"}) {
+            assertEquals(dfa.matches(s), roundTripped.matches(s));
+            assertEquals(dfa.matches(s), compact.matches(s));
+        }
+    }
+
+    @Test
+    public void testTransition() {
+        var nfa = new NFA(RegexInstrBuilder.createNFA(RegexParser.parse("([a-c]x)|([e-g]y)")));
+        var compact = NFAToDFACompiler.compileCompact(nfa);
+        var minimal = MinimizeDFA.minimize(compact);
+        int afterA = minimal.transition(0, 'a');
+        int afterE = minimal.transition(0, 'e');
+        assertTrue(afterA > 0);
+        assertTrue(afterE > 0);
+        assertEquals(afterA, minimal.transition(0, 'c'));
+        assertEquals(-1, minimal.transition(0, 'd'));
+        assertEquals(-1, minimal.transition(0, 'h'));
+        assertTrue(minimal.isAccepting(minimal.transition(afterA, 'x')));
+        assertEquals(-1, minimal.transition(afterA, 'y'));
+    }
+
+    @Test
+    public void testMatches() {
+        var compact = MinimizeDFA.minimize(CompactDFA.from(DFA.createDFA("a+b")));
+        assertTrue(compact.matches("ab"));
+        assertTrue(compact.matches("aaab"));
+        assertFalse(compact.matches("b"));
+        assertFalse(compact.matches("aba"));
+        assertFalse(compact.matches(""));
+    }
+
+    @Test
+    public void testBuilderGrows() {
+        var builder = new CompactDFA.Builder(1, 1);
+        for (var i = 0; i < 100; i++) {
+            builder.addState(i == 99);
+            if (i < 99) {
+                builder.addTransition('a', 'b', i + 1);
+                builder.addTransition('x', 'x', 0);
+            }
+        }
+        var compact = builder.build();
+        assertEquals(100, compact.statesCount());
+        assertEquals(198, compact.transitionCount());
+        assertTrue(compact.matches("ab".repeat(49) + "a"));
+        assertFalse(compact.matches("ab".repeat(49) + "x"));
+    }
+
+    @Test
+    public void testLookaheadForLiteral() {
+        var dfa = DFA.createDFA("abcd");
+        var lookahead = CompactDFA.from(dfa).calculateLookahead(0);
+        assertTrue(lookahead.isPresent());
+        // checking the very next character saves too little to be worthwhile
+        assertThat(lookahead.get().positions).containsExactly(3, 2);
+        assertTrue(lookahead.get().charSets[0].get('d'));
+        assertEquals(1, lookahead.get().charSets[0].cardinality());
+    }
+
+    @Test
+    public void testLookaheadStopsAtAcceptingState() {
+        var dfa = DFA.createDFA("ab|abcd");
+        assertThat(CompactDFA.from(dfa).calculateLookahead(0)).isEmpty();
+    }
+
+    @Test
+    public void testLookaheadUnionsCharsOfAllPaths() {
+        var dfa = DFA.createDFA("a(bc|de)f");
+        var lookahead = CompactDFA.from(dfa).calculateLookahead(0).get();
+        var positions = lookahead.positions;
+        for (var i = 0; i < positions.length; i++) {
+            if (positions[i] == 2) {
+                var chars = lookahead.charSets[i];
+                assertTrue(chars.get('c'));
+                assertTrue(chars.get('e'));
+                assertEquals(2, chars.cardinality());
+            }
+        }
+        assertThat(positions).contains(2, 3);
+    }
+
+    @Test
+    public void testNoLookaheadForPermissiveCharacters() {
+        var dfa = DFA.createDFA("a...");
+        assertThat(CompactDFA.from(dfa).calculateLookahead(0)).isEmpty();
+    }
+
+    @Test
+    public void testLookaheadsSkipCoveredStates() {
+        var dfa = DFA.createDFA("abcdefgh");
+        var lookaheads = CompactDFA.from(dfa).calculateLookaheads();
+        assertTrue(lookaheads.containsKey(0));
+        int covered = lookaheads.get(0).maxPosition();
+        for (var i = 1; i < covered; i++) {
+            assertThat(lookaheads).doesNotContainKey(dfa.after("abcdefgh".substring(0, i)).get().getStateNumber());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.justinblank.strings;
+
+import java.util.Arrays;
+
+/**
+ * Measures how long it takes to build and minimize the DFA for regexes that produce many states. Run the main method
+ * with the test classpath; it isn't part of the test suite.
+ */
+public class CompileBenchmark {
+
+    private static final String[] REGEXES = {
+            DFACompilerTest.CORE_LARGE_REGEX_STRING + "64}",
+            "(a|b)*a(a|b){12}",
+            "[a-q][^u-z]{13}x",
+            "[A-Za-z]+@[A-Za-z0-9]+[.]com"
+    };
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int ITERATIONS = 10;
+
+    public static void main(String[] args) {
+        for (String regex : REGEXES) {
+            var nfa = new NFA(RegexInstrBuilder.createNFA(RegexParser.parse(regex)));
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                MinimizeDFA.minimize(NFAToDFACompiler.compileCompact(nfa));
+            }
+            long[] subsetNanos = new long[ITERATIONS];
+            long[] minimizeNanos = new long[ITERATIONS];
+            int states = 0;
+            int minimizedStates = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                CompactDFA dfa = NFAToDFACompiler.compileCompact(nfa);
+                long mid = System.nanoTime();
+                CompactDFA minimized = MinimizeDFA.minimize(dfa);
+                long end = System.nanoTime();
+                subsetNanos[i] = mid - start;
+                minimizeNanos[i] = end - mid;
+                states = dfa.statesCount();
+                minimizedStates = minimized.statesCount();
+            }
+            System.out.printf("%-40.40s states=%d/%d subset=%.2fms minimize=%.2fms%n", regex, states, minimizedStates,
+                    medianMillis(subsetNanos), medianMillis(minimizeNanos));
+        }
+    }
+
+    private static double medianMillis(long[] nanos) {
+        Arrays.sort(nanos);
+        return nanos[nanos.length / 2] / 1_000_000.0;
+    }
+}
@@ -29,7 +29,7 @@ public class DFAClassBuilderTest {
         var factorization = RegexParser.parse("abcd").bestFactors();
         var builder = new DFAClassBuilder("testContainedIn", "java/lang/Object", new String[]{}, dfa, dfa, factorization);
         builder.addMethod(builder.createContainedInMethod());
-        builder.addStateMethods(dfa);
+        builder.addStateMethods();
 
         var compiler = new DFAClassCompiler(builder);
         byte[] classBytes = compiler.generateClassAsBytes();
@@ -157,7 +157,7 @@ public class DFAClassBuilderTest {
             block.push(0);
             block.push(0);
             var callState = Operation.mkCallState(returnBlock);
-            callState.addAttribute(DFAClassBuilder.OFFSETS_ATTRIBUTE, new HashMap<>());
+            callState.addAttribute(DFAClassBuilder.LOOKAHEADS_ATTRIBUTE, new HashMap<>());
             block.addOperation(callState);
             returnBlock.push(0);
             returnBlock.addReturn(Opcodes.IRETURN);
@@ -193,7 +193,7 @@ public class DFAClassBuilderTest {
     public void testStateMethodIsCompilable() throws Exception {
         var dfa = DFA.createDFA("a");
         var builder = new DFAClassBuilder("testStateMethod", "java/lang/Object", null, dfa, dfa, null);
-        builder.addStateMethods(dfa);
+        builder.addStateMethods();
         Class<?> c = compileFromBuilder(builder, "testStateMethod");
     }
 
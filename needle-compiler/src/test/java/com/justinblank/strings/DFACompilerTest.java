@@ -3,6 +3,10 @@ package com.justinblank.strings;
 import org.junit.Test;
 import org.quicktheories.QuickTheory;
 import org.quicktheories.core.Gen;
+import org.quicktheories.generators.StringsDSL;
+
+import java.util.List;
+import java.util.Optional;
 
 import static com.justinblank.strings.SearchMethodTestUtil.*;
 import static org.junit.Assert.*;
@@ -450,6 +454,269 @@ public class DFACompilerTest {
         assertEquals(21, matchResult.end);
     }
 
+    @Test
+    public void testTrailingDotStar() {
+        Pattern pattern = DFACompiler.compile("foo.*", "TrailingDotStar");
+        match(pattern, "foo");
+        match(pattern, "foobar");
+        fail(pattern, "fo");
+        assertFalse(pattern.matcher("bfoo").matches());
+        var longSuffix = "x".repeat(1 << 16);
+        assertTrue(pattern.matcher("foo" + longSuffix).matches());
+        assertEquals(MatchResult.success(2, 5 + longSuffix.length()), pattern.matcher("xxfoo" + longSuffix).find());
+
+        QuickTheory.qt().forAll(ALPHABET, ALPHABET).check((prefix, suffix) -> {
+            var result = pattern.matcher(prefix + "foo" + suffix).find();
+            assertTrue(result.matched);
+            assertEquals(prefix.length() + 3 + suffix.length(), result.end);
+            return true;
+        });
+    }
+
+    @Test
+    public void testLeadingDotStar() {
+        Pattern pattern = DFACompiler.compile(".*foo", "LeadingDotStar");
+        match(pattern, "foo");
+        match(pattern, "barfoo");
+        assertFalse(pattern.matcher("foob").matches());
+        assertEquals(MatchResult.success(0, 5), pattern.matcher("xxfoo").find());
+    }
+
+    @Test
+    public void testLiteralWithTerminalState() {
+        Pattern pattern = DFACompiler.compile("ab(c|de)", "LiteralWithTerminalState");
+        match(pattern, "abc");
+        match(pattern, "abde");
+        assertFalse(pattern.matcher("abcd").matches());
+        assertFalse(pattern.matcher("abdef").matches());
+        assertEquals(MatchResult.success(1, 4), pattern.matcher("xabcd").find());
+    }
+
+    @Test
+    public void testLookaheadWithMaskedCharSet() {
+        Pattern pattern = DFACompiler.compile("x[aeiou]z[aeiou]q", "LookaheadWithMaskedCharSet");
+        match(pattern, "xazuq");
+        match(pattern, "xozeq");
+        assertFalse(pattern.matcher("xbzuq").matches());
+        assertFalse(pattern.matcher("xazbq").matches());
+        assertFalse(pattern.matcher("xazu").matches());
+        assertFalse(pattern.matcher("xxazbq").containedIn());
+
+        QuickTheory.qt().forAll(ALPHABET, ALPHABET).check((prefix, suffix) -> {
+            find(pattern, "xezaq", prefix, suffix);
+            find(pattern, "xuzoq", prefix, suffix);
+            return true;
+        });
+    }
+
+    @Test
+    public void testLookaheadWithWideCharSet() {
+        Pattern pattern = DFACompiler.compile("y[0-9]w[0-9a-f]v", "LookaheadWithWideCharSet");
+        match(pattern, "y0wav");
+        match(pattern, "y9w7v");
+        assertFalse(pattern.matcher("yawav").matches());
+        assertFalse(pattern.matcher("y0wgv").matches());
+        assertFalse(pattern.matcher("y0w:v").matches());
+        assertFalse(pattern.matcher("y0wa").matches());
+
+        QuickTheory.qt().forAll(ALPHABET, ALPHABET).check((prefix, suffix) -> {
+            find(pattern, "y9wbv", prefix, suffix);
+            find(pattern, "y1w0v", prefix, suffix);
+            return true;
+        });
+    }
+
+    @Test
+    public void testFindOverlappingPartialMatches() {
+        Pattern pattern = DFACompiler.compile("aab", "FindOverlappingPartialMatches");
+        assertTrue(pattern.matcher("aaab").containedIn());
+        assertEquals(MatchResult.success(1, 4), pattern.matcher("aaab").find());
+        assertEquals(MatchResult.success(3, 6), pattern.matcher("abaaabb").find());
+    }
+
+    @Test
+    public void testFindIsLeftmostLongest() {
+        var regexes = new String[]{"abcd|bc", "a+bcd|bc", "(ab)*c|bab", "[a-c]*d", "b(a|b)*a", "ab|abcd|bcde", "c{2,3}|bc"};
+        var small = new StringsDSL().betweenCodePoints('a', 'e').ofLengthBetween(0, 12);
+        for (var i = 0; i < regexes.length; i++) {
+            var regex = regexes[i];
+            Pattern pattern = DFACompiler.compile(regex, "FindIsLeftmostLongest" + i);
+            var dfa = DFA.createDFA(regex);
+            QuickTheory.qt().forAll(small).check((s) -> {
+                var expected = leftmostLongest(dfa, s);
+                assertEquals("regex=" + regex + ", s=" + s, expected, pattern.matcher(s).find());
+                assertEquals("regex=" + regex + ", s=" + s, expected.matched, pattern.matcher(s).containedIn());
+                return true;
+            });
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void testFindDoesNotRescanFromEachPossibleStart() {
+        var result = DFACompiler.compileWithReport("([ab]*c)|b", "FindDoesNotRescanFromEachPossibleStart");
+        assertTrue(result.getRight().usesUnanchoredSearch());
+        // Every index could start a match of [ab]*c, so retrying anchored matches from each would take quadratic time
+        var n = 200_000;
+        assertEquals(MatchResult.success(n, n + 1), result.getLeft().matcher("a".repeat(n) + "b").find());
+    }
+
+    @Test
+    public void testFindWithRequiredSuffix() {
+        Pattern pattern = DFACompiler.compile("[a-z0-9._]+@example[.]com", "FindWithRequiredSuffix");
+        assertEquals(MatchResult.success(15, 36), pattern.matcher("contact me at: joe.smith@example.com").find());
+        assertEquals(MatchResult.success(14, 27), pattern.matcher("a@example.co, b@example.com").find());
+        assertFalse(pattern.matcher("@example.com and @example.com").containedIn());
+
+        pattern = DFACompiler.compile("[a-z]+ing", "FindWithRequiredSuffixIng");
+        assertEquals(MatchResult.success(4, 11), pattern.matcher("ing singing").find());
+        assertFalse(pattern.matcher("ING ing ing").containedIn());
+    }
+
+    @Test
+    public void testFindWithRequiredInnerLiteral() {
+        Pattern pattern = DFACompiler.compile("[a-z]+foobar[a-z]+", "FindWithRequiredInnerLiteral");
+        assertEquals(MatchResult.success(15, 25), pattern.matcher("foobar foobarx afoobarbaz").find());
+        assertFalse(pattern.matcher("foobar foobarx xfoobar").containedIn());
+    }
+
+    @Test
+    public void testFindWithRequiredLiteralIsLeftmostLongest() {
+        var regexes = new String[]{"[a-c]+de", "(a|b)*cd(a|b)*", "[a-e]*ab[a-e]", "b+ab|c+ab", "[b-e]+(acb|acd)"};
+        var small = new StringsDSL().betweenCodePoints('a', 'e').ofLengthBetween(0, 12);
+        for (var i = 0; i < regexes.length; i++) {
+            var regex = regexes[i];
+            Pattern pattern = DFACompiler.compile(regex, "FindWithRequiredLiteralIsLeftmostLongest" + i);
+            var dfa = DFA.createDFA(regex);
+            QuickTheory.qt().forAll(small).check((s) -> {
+                var expected = leftmostLongest(dfa, s);
+                assertEquals("regex=" + regex + ", s=" + s, expected, pattern.matcher(s).find());
+                assertEquals("regex=" + regex + ", s=" + s, expected.matched, pattern.matcher(s).containedIn());
+                return true;
+            });
+        }
+    }
+
+    private static MatchResult leftmostLongest(DFA dfa, String s) {
+        for (var start = 0; start <= s.length(); start++) {
+            for (var end = s.length(); end >= start; end--) {
+                if (dfa.matches(s.substring(start, end))) {
+                    return MatchResult.success(start, end);
+                }
+            }
+        }
+        return MatchResult.failure();
+    }
+
+    @Test
+    public void testCompileWithReport() {
+        var result = DFACompiler.compileWithReport("abc[0-9]+", "CompileWithReport");
+        assertTrue(result.getLeft().matcher("abc123").matches());
+        var report = result.getRight();
+        assertEquals(Optional.of("abc"), report.getSeekPrefix());
+        assertEquals(Optional.empty(), report.getRequiredLiteral());
+        assertTrue(report.getAstSize() > 0);
+        assertTrue(report.getNfaInstructionCount() > 0);
+        assertTrue(report.getMinimizedStateCount() <= report.getDfaStateCount());
+        assertTrue(report.getMethodCount() > report.getMinimizedStateCount());
+        assertTrue(report.getBytecodeSize() > 0);
+        assertFalse(report.usesStateGroupDispatch());
+        assertEquals(CompilationReport.Engine.GENERATED_CLASS, report.getEngine());
+        for (var phase : CompilationReport.Phase.values()) {
+            assertTrue(report.getPhaseNanos(phase) > 0);
+        }
+    }
+
+    @Test
+    public void testCompileWithReportChoosesEngine() {
+        var result = DFACompiler.compileWithReport("abc[0-9]{2,4}", Pattern.CASE_INSENSITIVE);
+        assertTrue(result.getLeft().matcher("ABC123").matches());
+        assertEquals(CompilationReport.Engine.GENERATED_CLASS, result.getRight().getEngine());
+        assertTrue(result.getRight().getPhaseNanos(CompilationReport.Phase.SEARCH_DFA) > 0);
+
+        var wholeWords = DFACompiler.compileWithReport("\\b(cat|dog)\\b", 0);
+        assertEquals(MatchResult.success(5, 8), wholeWords.getLeft().matcher("cats dog").find());
+        assertEquals(CompilationReport.Engine.WHOLE_WORD_AHO_CORASICK, wholeWords.getRight().getEngine());
+        assertEquals(0, wholeWords.getRight().getPhaseNanos(CompilationReport.Phase.DFA));
+
+        var glushkov = DFACompiler.compileWithReport("(a|b)*a(a|b){12}", 0);
+        assertTrue(glushkov.getLeft() instanceof GlushkovSearchMethod);
+        assertEquals(CompilationReport.Engine.GLUSHKOV, glushkov.getRight().getEngine());
+    }
+
+    @Test
+    public void testCompileWithReportForRequiredLiteral() {
+        var report = DFACompiler.compileWithReport("[a-z]+ing", "CompileWithReportForRequiredLiteral").getRight();
+        assertEquals(Optional.empty(), report.getSeekPrefix());
+        assertTrue(report.usesUnanchoredSearch());
+        assertEquals(Optional.of("ing"), report.getRequiredLiteral());
+    }
+
+    @Test
+    public void testCompileWithReportForLongLiterals() {
+        var prefixReport = DFACompiler.compileWithReport("Sherlock Holmes, (the|a) detective",
+                "CompileWithReportForLongPrefix").getRight();
+        assertTrue(prefixReport.usesBackwardLiteralSearch());
+        var factorReport = DFACompiler.compileWithReport("[A-Z][a-z]+ Holmes said to Watson",
+                "CompileWithReportForLongFactor").getRight();
+        assertEquals(Optional.of(" Holmes said to Watson"), factorReport.getRequiredLiteral());
+        assertTrue(factorReport.usesBackwardLiteralSearch());
+        var shortReport = DFACompiler.compileWithReport("[a-z]+ing", "CompileWithReportForShortLiteral").getRight();
+        assertFalse(shortReport.usesBackwardLiteralSearch());
+    }
+
+    @Test
+    public void testFindWithLongLiteralsIsLeftmostLongest() {
+        var regexes = new String[]{"abcabcabcdabcdab(c|d)*", "[a-c]+bcadbcabbcadbcab", "(abcdabcdabcdabcd)+a",
+                "[ab]*(abcdabcdabcdabcd|dcbadcbadcbadcba)"};
+        var small = new StringsDSL().betweenCodePoints('a', 'd').ofLengthBetween(0, 30);
+        for (var i = 0; i < regexes.length; i++) {
+            var regex = regexes[i];
+            Pattern pattern = DFACompiler.compile(regex, "FindWithLongLiteralsIsLeftmostLongest" + i);
+            var dfa = DFA.createDFA(regex);
+            QuickTheory.qt().forAll(small).check((s) -> {
+                for (var text : List.of(s, s + "abcabcabcdabcdabcdabcdabcdabcabcd",
+                        "c" + s + "bcadbcabbcadbcab")) {
+                    var expected = leftmostLongest(dfa, text);
+                    assertEquals("regex=" + regex + ", s=" + text, expected, pattern.matcher(text).find());
+                    assertEquals("regex=" + regex + ", s=" + text, expected.matched,
+                            pattern.matcher(text).containedIn());
+                }
+                return true;
+            });
+        }
+    }
+
+    @Test
+    public void testCompileWithReportForRootScan() {
+        var report = DFACompiler.compileWithReport("(q|x|z)[a-z]*(j|k)", "CompileWithReportForRootScan").getRight();
+        assertEquals(Optional.of("qxz"), report.getRootScanChars());
+        var wideReport = DFACompiler.compileWithReport("[a-m][a-z]*(j|k)", "CompileWithReportForWideRoot").getRight();
+        assertEquals(Optional.empty(), wideReport.getRootScanChars());
+    }
+
+    @Test
+    public void testFindWithRootScanIsLeftmostLongest() {
+        var regexes = new String[]{"(b|d)[a-c]*d", "(ab|c)+"};
+        var small = new StringsDSL().betweenCodePoints('a', 'e').ofLengthBetween(0, 40);
+        for (var i = 0; i < regexes.length; i++) {
+            var regex = regexes[i];
+            Pattern pattern = DFACompiler.compile(regex, "FindWithRootScanIsLeftmostLongest" + i);
+            var dfa = DFA.createDFA(regex);
+            QuickTheory.qt().forAll(small).check((s) -> {
+                var expected = leftmostLongest(dfa, s);
+                assertEquals("regex=" + regex + ", s=" + s, expected, pattern.matcher(s).find());
+                assertEquals("regex=" + regex + ", s=" + s, expected.matched, pattern.matcher(s).containedIn());
+                return true;
+            });
+        }
+    }
+
+    @Test
+    public void testCompileWithReportForLargeDFA() {
+        var report = DFACompiler.compileWithReport(CORE_LARGE_REGEX_STRING + "16}", "CompileWithReportForLargeDFA").getRight();
+        assertTrue(report.usesStateGroupDispatch());
+    }
+
     @Test
     public void testSomething() {
         DFACompiler.compile("[A-Za-z]+@[A-Za-z0-9]+.com", "another");
@@ -461,6 +728,61 @@ public class DFACompilerTest {
 //        DFACompiler.compile(manyStateRegexString, "tooBig");
 //    }
 
+    @Test
+    public void testCaseInsensitiveLiteral() {
+        Pattern pattern = DFACompiler.compile("abc", "CaseInsensitiveLiteral", Pattern.CASE_INSENSITIVE);
+        for (String s : List.of("abc", "ABC", "aBc", "AbC")) {
+            assertTrue(s, pattern.matcher(s).matches());
+        }
+        assertFalse(pattern.matcher("abd").matches());
+        assertEquals(MatchResult.success(2, 5), pattern.matcher("xxAbCxx").find());
+    }
+
+    @Test
+    public void testCaseInsensitiveRegexAgreesWithJavaRegex() {
+        String regex = "[a-c]+(x|Y)[0-9]{2}[.](foo)*";
+        Pattern pattern = DFACompiler.compile(regex, "CaseInsensitiveRegex", Pattern.CASE_INSENSITIVE);
+        var javaPattern = java.util.regex.Pattern.compile(regex, java.util.regex.Pattern.CASE_INSENSITIVE);
+        for (String s : List.of("aBcX12.", "CCy99.FOOfoo", "aby12.fo", "dX12.", "ay1.", "AAAAy00.FoO")) {
+            assertEquals(s, javaPattern.matcher(s).matches(), pattern.matcher(s).matches());
+        }
+    }
+
+    @Test
+    public void testUnicodeCaseInsensitiveRegex() {
+        int flags = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+        Pattern pattern = DFACompiler.compile("k\u00e9[\u03c3]", "UnicodeCaseInsensitiveRegex", flags);
+        assertTrue(pattern.matcher("K\u00c9\u03a3").matches());
+        assertTrue(pattern.matcher("\u212a\u00e9\u03c2").matches());
+        assertFalse(pattern.matcher("ke\u03c3").matches());
+
+        Pattern asciiOnly = DFACompiler.compile("k\u00e9", "AsciiCaseInsensitiveRegex", Pattern.CASE_INSENSITIVE);
+        assertTrue(asciiOnly.matcher("K\u00e9").matches());
+        assertFalse(asciiOnly.matcher("K\u00c9").matches());
+        assertFalse(asciiOnly.matcher("\u212a\u00e9").matches());
+    }
+
+    @Test
+    public void testWordBoundaries() {
+        Pattern pattern = DFACompiler.compile("\\b(cat|dog)\\b");
+        assertEquals(MatchResult.success(7, 10), pattern.matcher("bobcat dog").find());
+        assertTrue(pattern.matcher("cat").matches());
+        assertFalse(pattern.matcher("cats").find().matched);
+    }
+
+    @Test
+    public void testWordBoundariesWithClassName() {
+        Pattern pattern = DFACompiler.compile("\\bcat\\b", "WordBoundaries");
+        assertEquals(MatchResult.success(5, 8), pattern.matcher("cats cat").find());
+        assertTrue(DFACompiler.compileWithReport("\\bcat\\b", "WordBoundariesReport").getLeft().matcher("a cat")
+                .find().matched);
+    }
+
+    @Test(expected = RegexSyntaxException.class)
+    public void testWordBoundariesNotCompiledToBytes() {
+        DFACompiler.compileToBytes("\\bcat\\b", "WordBoundaryBytes");
+    }
+
     @Test
     public void testLargeRegex() {
         String largeRegex = CORE_LARGE_REGEX_STRING + "4}";
@@ -0,0 +1,130 @@
+package com.justinblank.strings;
+
+import com.justinblank.strings.RegexAST.Node;
+import com.justinblank.strings.RegexAST.NodePrinter;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DFAInterpreterTest {
+
+    private static final AtomicInteger CLASS_COUNTER = new AtomicInteger(0);
+
+    @Test
+    public void testMatches() {
+        var interpreter = DFAInterpreter.compile("[A-Za-z][A-Za-z0-9]*");
+        assertTrue(interpreter.matches("ABC0123"));
+        assertFalse(interpreter.matches("0ABC"));
+        assertFalse(interpreter.matches(""));
+    }
+
+    @Test
+    public void testMatchesWithAcceptingSink() {
+        var interpreter = DFAInterpreter.compile("foo.*");
+        assertTrue(interpreter.matches("foo" + "x".repeat(1000)));
+        assertFalse(interpreter.matches("fo"));
+    }
+
+    @Test(expected = RegexSyntaxException.class)
+    public void testRejectsWordBoundaries() {
+        DFAInterpreter.compile("\\b(cat|dog)\\b");
+    }
+
+    @Test
+    public void testCaseInsensitive() {
+        var interpreter = DFAInterpreter.compile("sherlock [a-z]+s", Pattern.CASE_INSENSITIVE);
+        assertTrue(interpreter.matches("Sherlock HOLMES"));
+        assertEquals(MatchResult.success(4, 19), interpreter.find("Dr. SHERLOCK Holmes!"));
+        assertFalse(DFAInterpreter.compile("sherlock").matches("Sherlock"));
+    }
+
+    @Test
+    public void testMatchesNonAscii() {
+        var interpreter = DFAInterpreter.compile("a[\u0100-\u0200]+b");
+        assertTrue(interpreter.matches("a\u0150\u0200b"));
+        assertFalse(interpreter.matches("a\u00e0b"));
+    }
+
+    @Test
+    public void testFindIsLeftmostLongest() {
+        var interpreter = DFAInterpreter.compile("(abcd)|c");
+        assertEquals(MatchResult.success(0, 4), interpreter.find("abcd"));
+        assertEquals(MatchResult.success(2, 3), interpreter.find("abce"));
+        assertEquals(MatchResult.success(2, 3), interpreter.find("abcd", 1, 4));
+    }
+
+    @Test
+    public void testFindRespectsEnd() {
+        var interpreter = DFAInterpreter.compile("ab+");
+        assertEquals(MatchResult.success(1, 3), interpreter.find("xabbb", 0, 3));
+        assertFalse(interpreter.find("xabbb", 0, 2).matched);
+    }
+
+    @Test(timeout = 10_000)
+    public void testFindDoesNotRescanFromEachPossibleStart() {
+        var interpreter = DFAInterpreter.compile("([ab]*c)|b");
+        // Every index could start a match of [ab]*c, so retrying anchored matches from each would take quadratic time
+        var n = 200_000;
+        assertEquals(MatchResult.success(n, n + 1), interpreter.find("a".repeat(n) + "b"));
+    }
+
+    @Test
+    public void testFindAnchored() {
+        var interpreter = DFAInterpreter.compile("ab+");
+        assertEquals(MatchResult.success(1, 4), interpreter.find("xabb", 1, 4, true));
+        assertFalse(interpreter.find("xabb", 0, 4, true).matched);
+    }
+
+    @Test
+    public void testFindEmptyMatch() {
+        var interpreter = DFAInterpreter.compile("a*");
+        assertEquals(MatchResult.success(0, 0), interpreter.find("bbb"));
+        assertEquals(MatchResult.success(0, 2), interpreter.find("aab"));
+    }
+
+    @Test
+    public void testContainedIn() {
+        var interpreter = DFAInterpreter.compile("[0-9]+[.][0-9]+");
+        assertTrue(interpreter.containedIn("version 12.5 released"));
+        assertFalse(interpreter.containedIn("version 12 released"));
+    }
+
+    @Test
+    public void testContainedInWithoutUnanchoredDFA() {
+        var node = RegexParser.parse("(a|b)*a(a|b){3}");
+        var nfa = new NFA(RegexInstrBuilder.createNFA(node));
+        var interpreter = new DFAInterpreter(MinimizeDFA.minimize(NFAToDFACompiler.compileCompact(nfa)), null, null,
+                null, null, -1);
+        assertTrue(interpreter.containedIn("bbbabbbb"));
+        assertFalse(interpreter.containedIn("bbbbbbbb"));
+        assertEquals(MatchResult.success(0, 7), interpreter.find("bbbabbbb"));
+    }
+
+    @Test
+    public void generativeInterpreterMatchesCompiledClassTest() {
+        Random random = new Random();
+        for (int maxSize = 1; maxSize < 6; maxSize++) {
+            int count = 10 * (int) Math.pow(2, 6 - maxSize);
+            for (int i = 0; i < count; i++) {
+                RegexGenerator regexGenerator = new RegexGenerator(random, maxSize);
+                Node node = regexGenerator.generate();
+                String regex = NodePrinter.print(node);
+                var interpreter = DFAInterpreter.compile(regex);
+                var pattern = DFACompiler.compile(regex, "DFAInterpreterTest" + CLASS_COUNTER.incrementAndGet());
+                for (int j = 0; j < 4; j++) {
+                    String s = "ab" + regexGenerator.generateString(node) + "ba";
+                    String match = regexGenerator.generateString(node);
+                    assertTrue("regex=" + regex + ", s=" + match, interpreter.matches(match));
+                    assertEquals("regex=" + regex + ", s=" + s, pattern.matcher(s).matches(), interpreter.matches(s));
+                    assertTrue("regex=" + regex + ", s=" + s, interpreter.containedIn(s));
+                    assertEquals("regex=" + regex + ", s=" + s, pattern.matcher(s).find(), interpreter.find(s));
+                }
+            }
+        }
+    }
+}
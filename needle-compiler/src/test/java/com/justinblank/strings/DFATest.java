@@ -1,10 +1,8 @@
 package com.justinblank.strings;
 
-import org.apache.commons.lang3.tuple.Pair;
 import org.junit.Test;
 
 import java.util.Optional;
-import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
@@ -12,68 +10,6 @@ import static org.junit.Assert.assertTrue;
 
 public class DFATest {
 
-    @Test
-    public void testCalculateOffsetRepetition() {
-        var dfa = DFA.createDFA("b*c");
-        assertThat(dfa.calculateOffset()).isEmpty();
-    }
-
-    @Test
-    public void testCalculateOffsetLiteral() {
-        var dfa = DFA.createDFA("abc");
-        var offset = dfa.calculateOffset();
-        check(offset, 2, 'c', 'c');
-    }
-
-    @Test
-    public void testCalculateOffsetLiteralFollowedByRange() {
-        var dfa = DFA.createDFA("ab[c-d]");
-        var optOffset = dfa.calculateOffset();
-        check(optOffset, 2, 'c', 'd');
-    }
-
-    @Test
-    public void testCalculateOffsetWithInternalCharRange() {
-        var dfa = DFA.createDFA("a[0-9]c");
-        var optOffset = dfa.calculateOffset();
-        check(optOffset, 2, 'c', 'c');
-    }
-
-    @Test
-    public void testCalculateOffsetWithInternalUnionWithSameChild() {
-        var dfa = DFA.createDFA("a([0-9]|b)c");
-        var optOffset = dfa.calculateOffset();
-        check(optOffset, 2, 'c', 'c');
-    }
-
-    @Test
-    public void testCalculateOffsetWithInternalUnionWithDifferentChild() {
-        var dfa = DFA.createDFA("a(([0-9]c)|([a-z]d))");
-        var optOffset = dfa.calculateOffset();
-        assertThat(optOffset).isEmpty();
-    }
-
-    @Test
-    public void testLiteralPrefixGivesOffset() {
-        var dfa = DFA.createDFA("abc*");
-        var optOffset = dfa.calculateOffset();
-        check(optOffset, 1, 'b', 'b');
-    }
-
-    @Test
-    public void testOffsetForCountedRepetitionWithNoOffset() {
-        var dfa = DFA.createDFA("A{0,4}");
-        var optOffset = dfa.calculateOffset();
-        assertThat(optOffset).isEmpty();
-    }
-
-    @Test
-    public void testOffsetForCountedRepetitionWithNonZeroOffset() {
-        var dfa = DFA.createDFA("A{3,4}");
-        var optOffset = dfa.calculateOffset();
-        check(optOffset, 2, 'A', 'A');
-    }
-
     @Test
     public void testChainForCountedRepetition() {
         var dfa = DFA.createDFA("A{3,4}");
@@ -109,33 +45,50 @@ public class DFATest {
         assertEquals(1, chain.size());
     }
 
-    private void check(Optional<Offset> optOffset, int i, char start, char end) {
-        assertTrue(optOffset.map(o -> {
-            assertEquals(i, o.length);
-            assertEquals(new CharRange(start, end), o.charRange);
-            return true;
-        }).orElse(false));
+    @Test
+    public void testTrailingDotStarHasAcceptingSink() {
+        var dfa = DFA.createDFA("foo.*");
+        var sink = dfa.acceptingSink();
+        assertTrue(sink.isPresent());
+        assertEquals(sink, dfa.after("foo"));
+        assertTrue(dfa.terminalStates().isEmpty());
+        assertTrue(dfa.matches("foo" + "x".repeat(1000)));
     }
 
     @Test
-    public void testOffsetsDiamond() {
-        var dfa = DFA.createDFA("ab(cd|ef)ghi");
-        var offsets = dfa.calculateOffsets();
-        // offsets before 'a', 'c', 'e'
-        assertEquals(3, offsets.size());
+    public void testLiteralHasTerminalStateAndNoSink() {
+        var dfa = DFA.createDFA("abc");
+        assertThat(dfa.acceptingSink()).isEmpty();
+        var terminal = dfa.terminalStates();
+        assertEquals(1, terminal.size());
+        assertEquals(terminal.get(0), dfa.after("abc").get());
     }
 
     @Test
-    public void testOffsetsFakeFork() {
-        var dfa = DFA.createDFA("(a|c)efg");
-        var offsets = dfa.calculateOffsets();
-        assertEquals(1, offsets.size());
+    public void testRepetitionHasNoSinkOrTerminalState() {
+        var dfa = DFA.createDFA("a[b-z]*");
+        assertThat(dfa.acceptingSink()).isEmpty();
+        assertTrue(dfa.terminalStates().isEmpty());
     }
 
     @Test
-    public void testOffsetsFork() {
-        var dfa = DFA.createDFA("(ab|cd)efg");
-        var offsets = dfa.calculateOffsets();
-        assertEquals(2, offsets.size());
+    public void testAddingTransitionsUpdatesSinkAndTerminalStates() {
+        var dfa = DFA.root(false);
+        var accepting = new DFA(dfa, true, 1);
+        dfa.addTransition(new CharRange('a', 'a'), accepting);
+        assertEquals(Optional.empty(), dfa.acceptingSink());
+        assertEquals(1, dfa.terminalStates().size());
+
+        accepting.addTransition(new CharRange('\u0000', 'z'), accepting);
+        assertThat(dfa.acceptingSink()).isEmpty();
+        accepting.addTransition(new CharRange('{', Character.MAX_VALUE), accepting);
+        assertTrue(accepting.isAcceptingSink());
+        assertEquals(Optional.of(accepting), dfa.acceptingSink());
+        assertTrue(dfa.terminalStates().isEmpty());
+
+        var other = new DFA(dfa, false, 2);
+        accepting.addTransition(new CharRange('\u0000', '\u0000'), other);
+        assertThat(dfa.acceptingSink()).isEmpty();
+        assertEquals(1, dfa.terminalStates().size());
     }
 }
@@ -177,4 +177,34 @@ public class FactorizationTest {
         var factors = node.bestFactors();
         assertEquals(Optional.of(List.of('S', 's')), factors.getInitialChars());
     }
+
+    @Test
+    public void testRequiredFactorPrefersSuffix() {
+        var factorization = RegexParser.parse("[a-z0-9._]+@example[.]com").bestFactors();
+        assertEquals(Optional.of("@example.com"), factorization.getRequiredFactor());
+    }
+
+    @Test
+    public void testRequiredFactorFromInnerLiteral() {
+        var factorization = RegexParser.parse("[a-z]+foobar[a-z]+").bestFactors();
+        assertEquals(Optional.of("foobar"), factorization.getRequiredFactor());
+    }
+
+    @Test
+    public void testRequiredFactorSharedByAlternatives() {
+        var factorization = RegexParser.parse("[a-z]+(xyzc|xyzd)").bestFactors();
+        assertEquals(Optional.of("xyz"), factorization.getRequiredFactor());
+    }
+
+    @Test
+    public void testNoRequiredFactorForRepetition() {
+        var factorization = RegexParser.parse("[A-Z]{0,2}").bestFactors();
+        assertEquals(Optional.empty(), factorization.getRequiredFactor());
+    }
+
+    @Test
+    public void testNoSharedPrefixWhenAlternativeHasUnknownPrefixes() {
+        var factorization = RegexParser.parse("([C-I]K)|I").bestFactors();
+        assertEquals(Optional.empty(), factorization.getSharedPrefix());
+    }
 }
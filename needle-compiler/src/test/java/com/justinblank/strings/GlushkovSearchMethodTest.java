@@ -0,0 +1,154 @@
+package com.justinblank.strings;
+
+import com.justinblank.strings.RegexAST.Node;
+import com.justinblank.strings.RegexAST.NodePrinter;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GlushkovSearchMethodTest {
+
+    @Test
+    public void testMatches() {
+        var glushkov = GlushkovSearchMethod.compile("[A-Za-z][A-Za-z0-9]*").orElseThrow();
+        assertTrue(glushkov.matches("ABC0123"));
+        assertFalse(glushkov.matches("0ABC"));
+        assertFalse(glushkov.matches(""));
+    }
+
+    @Test
+    public void testMatchesCountedRepetition() {
+        var glushkov = GlushkovSearchMethod.compile("(ab){2,3}c").orElseThrow();
+        assertEquals(7, glushkov.positionCount());
+        assertFalse(glushkov.matches("abc"));
+        assertTrue(glushkov.matches("ababc"));
+        assertTrue(glushkov.matches("abababc"));
+        assertFalse(glushkov.matches("ababababc"));
+    }
+
+    @Test
+    public void testMatchesNonAscii() {
+        var glushkov = GlushkovSearchMethod.compile("a[\u0100-\u0200]+b").orElseThrow();
+        assertTrue(glushkov.matches("a\u0150\u0200b"));
+        assertFalse(glushkov.matches("a\u00e0b"));
+    }
+
+    @Test
+    public void testTooManyPositions() {
+        assertTrue(GlushkovSearchMethod.compile("a{64}").isPresent());
+        assertFalse(GlushkovSearchMethod.compile("a{65}").isPresent());
+        assertFalse(GlushkovSearchMethod.compile("(abcdefgh){4,9}").isPresent());
+    }
+
+    @Test
+    public void testSixtyFourPositions() {
+        var glushkov = GlushkovSearchMethod.compile("(ab){31}c*d").orElseThrow();
+        assertEquals(64, glushkov.positionCount());
+        String match = "ab".repeat(31) + "ccd";
+        assertTrue(glushkov.matches(match));
+        assertFalse(glushkov.matches("ab".repeat(30) + "ccd"));
+        assertEquals(MatchResult.success(3, 3 + match.length()), glushkov.find("xab" + match));
+    }
+
+    @Test
+    public void testFindIsLeftmostLongest() {
+        var glushkov = GlushkovSearchMethod.compile("(abcd)|c").orElseThrow();
+        assertEquals(MatchResult.success(0, 4), glushkov.find("abcd"));
+        assertEquals(MatchResult.success(2, 3), glushkov.find("abce"));
+        assertEquals(MatchResult.success(2, 3), glushkov.find("abcd", 1, 4));
+    }
+
+    @Test
+    public void testFindRespectsEnd() {
+        var glushkov = GlushkovSearchMethod.compile("ab+").orElseThrow();
+        assertEquals(MatchResult.success(1, 3), glushkov.find("xabbb", 0, 3));
+        assertFalse(glushkov.find("xabbb", 0, 2).matched);
+    }
+
+    @Test
+    public void testFindAnchored() {
+        var glushkov = GlushkovSearchMethod.compile("ab+").orElseThrow();
+        assertEquals(MatchResult.success(1, 4), glushkov.find("xabb", 1, 4, true));
+        assertFalse(glushkov.find("xabb", 0, 4, true).matched);
+    }
+
+    @Test
+    public void testFindEmptyMatch() {
+        var glushkov = GlushkovSearchMethod.compile("a*").orElseThrow();
+        assertEquals(MatchResult.success(0, 0), glushkov.find("bbb"));
+        assertEquals(MatchResult.success(0, 2), glushkov.find("aab"));
+    }
+
+    @Test
+    public void testMatcherContinuesFromPreviousMatch() {
+        var matcher = GlushkovSearchMethod.compile("[0-9]+").orElseThrow().matcher("a1b22c333");
+        assertEquals(MatchResult.success(1, 2), matcher.find());
+        assertEquals(MatchResult.success(3, 5), matcher.find());
+        assertEquals(MatchResult.success(6, 9), matcher.find());
+        assertFalse(matcher.find().matched);
+    }
+
+    @Test
+    public void testCaseInsensitive() {
+        var method = GlushkovSearchMethod.compile("(a|b)*ab", Pattern.CASE_INSENSITIVE).get();
+        assertTrue(method.matches("aBAb"));
+        assertEquals(MatchResult.success(1, 4), method.find("xbAB"));
+        assertFalse(GlushkovSearchMethod.compile("(a|b)*ab").get().matches("aBAb"));
+    }
+
+    @Test
+    public void testCompileChoosesGlushkovWithoutLiterals() {
+        assertTrue(DFACompiler.compile("(a|b)*a(a|b){12}") instanceof GlushkovSearchMethod);
+        assertTrue(DFACompiler.compile("(a|b)*a(a|b){12}", Pattern.CASE_INSENSITIVE) instanceof GlushkovSearchMethod);
+        assertFalse(DFACompiler.compile("Sherlock Holmes") instanceof GlushkovSearchMethod);
+        assertFalse(DFACompiler.compile("[a-z]+ing") instanceof GlushkovSearchMethod);
+        assertFalse(DFACompiler.compile("[0-9]{4}-[0-9]{2}") instanceof GlushkovSearchMethod);
+    }
+
+    @Test
+    public void testFlagForcesGlushkov() {
+        var pattern = DFACompiler.compile("Sherlock Holmes", DFACompiler.BIT_PARALLEL);
+        assertTrue(pattern instanceof GlushkovSearchMethod);
+        assertEquals(MatchResult.success(4, 19), pattern.matcher("Dr. Sherlock Holmes").find());
+    }
+
+    @Test
+    public void testCompileFallsBackWithTooManyPositions() {
+        assertTrue(DFACompiler.preferBitParallel(RegexParser.parse("[a-z]*[bc]{70}")));
+        var pattern = DFACompiler.compile("[a-z]*[bc]{70}");
+        assertFalse(pattern instanceof GlushkovSearchMethod);
+        assertTrue(pattern.matcher("xx" + "bc".repeat(35)).matches());
+    }
+
+    @Test
+    public void generativeGlushkovMatchesInterpreterTest() {
+        Random random = new Random();
+        for (int maxSize = 1; maxSize < 6; maxSize++) {
+            int count = 10 * (int) Math.pow(2, 6 - maxSize);
+            for (int i = 0; i < count; i++) {
+                RegexGenerator regexGenerator = new RegexGenerator(random, maxSize);
+                Node node = regexGenerator.generate();
+                String regex = NodePrinter.print(node);
+                var glushkov = GlushkovSearchMethod.compile(regex);
+                if (glushkov.isEmpty()) {
+                    continue;
+                }
+                var interpreter = DFAInterpreter.compile(regex);
+                for (int j = 0; j < 4; j++) {
+                    String s = "ab" + regexGenerator.generateString(node) + "ba";
+                    String match = regexGenerator.generateString(node);
+                    assertTrue("regex=" + regex + ", s=" + match, glushkov.get().matches(match));
+                    assertEquals("regex=" + regex + ", s=" + s, interpreter.matches(s), glushkov.get().matches(s));
+                    assertTrue("regex=" + regex + ", s=" + s, glushkov.get().containedIn(s));
+                    assertEquals("regex=" + regex + ", s=" + s, interpreter.find(s), glushkov.get().find(s));
+                    assertEquals("regex=" + regex + ", s=" + s, interpreter.find(s, 1, s.length(), true),
+                            glushkov.get().find(s, 1, s.length(), true));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.justinblank.strings;
+
+import com.justinblank.strings.Search.SearchMethod;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares how long the interpreted DFA, the bit-parallel Glushkov automaton, and the generated class take to search
+ * a large haystack. Run the main method
+ * with the test classpath; it isn't part of the test suite.
+ */
+public class MatchBenchmark {
+
+    private static final String[] REGEXES = {
+            "Sherlock Holmes",
+            "[A-Za-z]+@[A-Za-z0-9]+[.]com",
+            "(a|b)*a(a|b){12}",
+            "[0-9]{4}-[0-9]{2}-[0-9]{2}",
+            "[a-z]+ing",
+            "(q|x|z)[a-z]*(j|k)"
+    };
+    private static final int HAYSTACK_LENGTH = 1 << 20;
+    private static final int WARMUP_ITERATIONS = 10;
+    private static final int ITERATIONS = 20;
+
+    public static void main(String[] args) {
+        String haystack = haystack(new Random(0));
+        int classCount = 0;
+        for (String regex : REGEXES) {
+            var interpreter = DFAInterpreter.compile(regex);
+            var pattern = DFACompiler.compile(regex, "MatchBenchmark" + classCount++);
+            var glushkov = GlushkovSearchMethod.compile(regex);
+            double interpreted = medianMillis(() -> count(interpreter, haystack));
+            double bitParallel = glushkov.map(g -> medianMillis(() -> count(g, haystack))).orElse(Double.NaN);
+            double compiled = medianMillis(() -> count(pattern.matcher(haystack)));
+            System.out.printf("%-40.40s interpreted=%.2fms glushkov=%.2fms compiled=%.2fms%n", regex, interpreted,
+                    bitParallel, compiled);
+        }
+    }
+
+    private static String haystack(Random random) {
+        var sb = new StringBuilder(HAYSTACK_LENGTH);
+        while (sb.length() < HAYSTACK_LENGTH) {
+            switch (random.nextInt(50)) {
+                case 0:
+                    sb.append("Sherlock Holmes ");
+                    break;
+                case 1:
+                    sb.append("watson@bakerstreet.com ");
+                    break;
+                case 2:
+                    sb.append("1887-11-01 ");
+                    break;
+                default:
+                    sb.append((char) ('a' + random.nextInt(26)));
+                    if (random.nextInt(6) == 0) {
+                        sb.append(' ');
+                    }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int count(SearchMethod method, String haystack) {
+        int count = 0;
+        MatchResult result = method.find(haystack, 0, haystack.length());
+        while (result.matched) {
+            count++;
+            result = method.find(haystack, Math.max(result.end, result.start + 1), haystack.length());
+        }
+        return count;
+    }
+
+    private static int count(Matcher matcher) {
+        int count = 0;
+        MatchResult result = matcher.find();
+        while (result.matched) {
+            count++;
+            result = matcher.find();
+        }
+        return count;
+    }
+
+    private static double medianMillis(Runnable runnable) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            runnable.run();
+        }
+        long[] nanos = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            runnable.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[nanos.length / 2] / 1_000_000.0;
+    }
+}
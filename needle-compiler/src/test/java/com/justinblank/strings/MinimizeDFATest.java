@@ -7,6 +7,7 @@ import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class MinimizeDFATest {
@@ -86,4 +87,51 @@ public class MinimizeDFATest {
         assertEquals(2, dfa.statesCount());
 
     }
+
+    @Test
+    public void testMinimizeMergesStatesWithDifferentlySplitRanges() {
+        DFA dfa = DFA.root(false);
+        DFA second1 = new DFA(dfa, false, 1);
+        DFA second2 = new DFA(dfa, false, 2);
+        DFA accepting = new DFA(dfa, true, 3);
+        dfa.addTransition(new CharRange('a', 'a'), second1);
+        dfa.addTransition(new CharRange('b', 'b'), second2);
+        second1.addTransition(new CharRange('x', 'z'), accepting);
+        second2.addTransition(new CharRange('x', 'y'), accepting);
+        second2.addTransition(new CharRange('z', 'z'), accepting);
+
+        DFA minimized = MinimizeDFA.minimizeDFA(dfa);
+        assertEquals(3, minimized.statesCount());
+        assertEquals(1, minimized.getTransitions().size());
+        assertTrue(minimized.matches("bz"));
+    }
+
+    @Test
+    public void testMinimizeKeepsDeadStatesApartFromMissingTransitions() {
+        DFA dfa = DFA.root(false);
+        DFA accepting = new DFA(dfa, true, 1);
+        DFA dead1 = new DFA(dfa, false, 2);
+        DFA dead2 = new DFA(dfa, false, 3);
+        DFA noTransitions = new DFA(dfa, false, 4);
+        dfa.addTransition(new CharRange('a', 'a'), accepting);
+        dfa.addTransition(new CharRange('b', 'b'), dead1);
+        dfa.addTransition(new CharRange('c', 'c'), dead2);
+        dfa.addTransition(new CharRange('d', 'd'), noTransitions);
+        dead1.addTransition(new CharRange('a', 'a'), dead1);
+        dead2.addTransition(new CharRange('a', 'a'), dead2);
+
+        DFA minimized = MinimizeDFA.minimizeDFA(dfa);
+        assertEquals(4, minimized.statesCount());
+        assertTrue(minimized.matches("a"));
+        assertFalse(minimized.matches("ba"));
+    }
+
+    @Test
+    public void testMinimizeKeepsExponentialDFA() {
+        DFA dfa = DFA.createDFA("(a|b)*a(a|b){5}");
+        assertEquals(64, dfa.statesCount());
+        assertTrue(dfa.matches("abbbbb"));
+        assertTrue(dfa.matches("bbabbbbb"));
+        assertFalse(dfa.matches("abbbb"));
+    }
 }
@@ -423,4 +423,51 @@ public class NFATest {
     private static SearchMethod createNFA(List<String> strings) {
         return NFA.createNFANoAhoCorasick(joinLiterals(strings));
     }
+
+    @Test
+    public void testReusedScratchGivesSameResults() {
+        NFA nfa = NFA.createNFANoAhoCorasick("(ab|cd)*e");
+        var scratch = new NFAScratch(nfa.regexInstrs.length);
+        String[] haystacks = {"xxababe", "cde", "abab", "zzzcdcdabe", "e", ""};
+        for (var i = 0; i < 3; i++) {
+            for (String haystack : haystacks) {
+                MatchResult expected = NFA.createNFANoAhoCorasick("(ab|cd)*e").find(haystack);
+                assertEquals(expected, nfa.find(haystack));
+                assertEquals(expected, nfa.find(haystack, 0, haystack.length(), false, scratch));
+            }
+        }
+    }
+
+    @Test
+    public void testCaseInsensitive() {
+        SearchMethod nfa = NFA.createNFA("a[b-d]+e", Pattern.CASE_INSENSITIVE);
+        assertTrue(nfa.matches("AbCDe"));
+        assertEquals(MatchResult.success(2, 6), nfa.find("xxaBDExx"));
+        assertFalse(nfa.matches("Afe"));
+
+        SearchMethod literal = NFA.createNFA("hello world", Pattern.CASE_INSENSITIVE);
+        assertEquals(MatchResult.success(4, 15), literal.find("say HeLLo WORLD"));
+    }
+
+    @Test
+    public void testWordBoundaries() {
+        SearchMethod method = NFA.createNFA("\\b(cat|dog)s?\\b");
+        assertEquals(MatchResult.success(9, 13), method.find("catalog, cats and dogs"));
+        assertTrue(method.matches("dogs"));
+        assertFalse(method.containedIn("dogsled bobcat"));
+
+        SearchMethod ignoringCase = NFA.createNFA("\\bcat\\b", Pattern.CASE_INSENSITIVE);
+        assertEquals(MatchResult.success(5, 8), ignoringCase.find("CATS CAT"));
+    }
+
+    @Test
+    public void testScratchSharedBetweenNFAs() {
+        NFA small = NFA.createNFANoAhoCorasick("ab");
+        NFA large = NFA.createNFANoAhoCorasick("a[b-d]+e");
+        var scratch = new NFAScratch(large.regexInstrs.length);
+        assertEquals(MatchResult.success(2, 7), large.find("xxabcde", 0, 7, false, scratch));
+        assertEquals(MatchResult.success(2, 4), small.find("xxabcde", 0, 7, false, scratch));
+        assertFalse(large.find("abcd", 0, 4, false, scratch).matched);
+        assertTrue(small.find("ab", 0, 2, true, scratch).matched);
+    }
 }
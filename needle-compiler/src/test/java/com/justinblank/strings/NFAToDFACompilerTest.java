@@ -6,11 +6,102 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class NFAToDFACompilerTest {
+
+    @Test
+    public void testUnanchoredFindsEarliestEnd() {
+        var dfa = NFAToDFACompiler.compileUnanchored(NFA.createNFANoAhoCorasick("aab"), 100).get();
+        assertEquals(4, earliestEnd(dfa, "aaab"));
+        assertEquals(6, earliestEnd(dfa, "abaaabb"));
+        assertEquals(-1, earliestEnd(dfa, "abababa"));
+    }
+
+    @Test
+    public void testUnanchoredUnionFindsEarliestEnd() {
+        var dfa = NFAToDFACompiler.compileUnanchored(NFA.createNFANoAhoCorasick("abcd|bc"), 100).get();
+        assertEquals(4, earliestEnd(dfa, "xabcd"));
+        assertEquals(1, dfa.acceptingStates().size());
+    }
+
+    @Test
+    public void testUnanchoredRespectsStateLimit() {
+        var nfa = NFA.createNFANoAhoCorasick("(abc|bcd|cde){1,4}");
+        assertThat(NFAToDFACompiler.compileUnanchored(nfa, 2)).isEmpty();
+    }
+
+    @Test
+    public void testLeftmostLongestFindsEndOfLeftmostMatch() {
+        var dfa = NFAToDFACompiler.compileLeftmostLongest(NFA.createNFANoAhoCorasick("abcd|bc"), 100).get();
+        assertEquals(5, leftmostLongestEnd(dfa, "xabcd"));
+        assertEquals(4, leftmostLongestEnd(dfa, "xabce"));
+        assertEquals(-1, leftmostLongestEnd(dfa, "xabxcd"));
+
+        dfa = NFAToDFACompiler.compileLeftmostLongest(NFA.createNFANoAhoCorasick("([ab]*c)|b"), 100).get();
+        assertEquals(5, leftmostLongestEnd(dfa, "aaaabx"));
+        assertEquals(6, leftmostLongestEnd(dfa, "aaaabcb"));
+    }
+
+    @Test
+    public void testLeftmostLongestRespectsStateLimit() {
+        var nfa = NFA.createNFANoAhoCorasick("(abc|bcd|cde){1,4}");
+        assertThat(NFAToDFACompiler.compileLeftmostLongest(nfa, 2)).isEmpty();
+    }
+
+    @Test
+    public void testFactorsAcceptSubstrings() {
+        var dfa = NFAToDFACompiler.compileFactors(NFA.createNFANoAhoCorasick("abc|de"), 100).get();
+        assertTrue(dfa.matches(""));
+        assertTrue(dfa.matches("b"));
+        assertTrue(dfa.matches("bc"));
+        assertTrue(dfa.matches("abc"));
+        assertTrue(dfa.matches("e"));
+        assertFalse(dfa.matches("cd"));
+        assertFalse(dfa.matches("abcd"));
+    }
+
+    @Test
+    public void testSubsetConstructionIgnoresEpsilonInstructions() {
+        var nfa = NFA.createNFANoAhoCorasick("(a|b)*a(a|b){3}");
+        var dfa = new NFAToDFACompiler(nfa)._compile(nfa);
+        assertEquals(16, dfa.statesCount());
+    }
+
+    @Test
+    public void testSubsetConstructionMergesAdjacentRanges() {
+        var nfa = NFA.createNFANoAhoCorasick("[a-c]|[b-d]");
+        var dfa = new NFAToDFACompiler(nfa)._compile(nfa);
+        assertEquals(1, dfa.getTransitions().size());
+        assertEquals(new CharRange('a', 'd'), dfa.getTransitions().get(0).getLeft());
+    }
+
+    private static int leftmostLongestEnd(DFA leftmostLongest, String s) {
+        var state = leftmostLongest;
+        var lastMatch = state.isAccepting() ? 0 : -1;
+        for (var i = 0; i < s.length() && state != null; i++) {
+            state = state.transition(s.charAt(i));
+            if (state != null && state.isAccepting()) {
+                lastMatch = i + 1;
+            }
+        }
+        return lastMatch;
+    }
+
+    private static int earliestEnd(DFA unanchored, String s) {
+        var state = unanchored;
+        for (var i = 0; i < s.length(); i++) {
+            var next = state.transition(s.charAt(i));
+            state = next == null ? unanchored : next;
+            if (state.isAccepting()) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
 //
 //    @Test
 //    public void testEmptyAcceptingNFACompile() {
@@ -168,4 +168,30 @@ public class RegexParserMalformedRegexTest {
         Assert.fail("Expected RegexSyntaxException from regex: '" + regexString + "'");
     }
 
+    @Test(expected = RegexSyntaxException.class)
+    public void testWordBoundaryWithoutWholeWordSearch() {
+        // Only the callers that can search for whole words accept \b
+        RegexParser.parse("\\b(cat|dog)\\b");
+    }
+
+    @Test(expected = RegexSyntaxException.class)
+    public void testWordBoundaryInMiddle() {
+        // Java accepts this, but we only support \b around a set of words
+        RegexParser.parseAllowingWordBoundaries("\\bcat\\bdog\\b", 0);
+    }
+
+    @Test(expected = RegexSyntaxException.class)
+    public void testWordBoundaryAtOneEnd() {
+        RegexParser.parseAllowingWordBoundaries("\\bcat", 0);
+    }
+
+    @Test(expected = RegexSyntaxException.class)
+    public void testWordBoundaryAroundUnboundedRegex() {
+        RegexParser.parseAllowingWordBoundaries("\\b[a-z]+\\b", 0);
+    }
+
+    @Test(expected = RegexSyntaxException.class)
+    public void testWordBoundaryAroundNonWordChar() {
+        RegexParser.parseAllowingWordBoundaries("\\b(c|c\\+\\+)\\b", 0);
+    }
 }
@@ -500,5 +500,13 @@ public class RegexParserTest {
         var node = RegexParser.parse(test);
         assertTrue(node instanceof Union);
     }
-}
 
+    @Test
+    public void testWordBoundaries() {
+        var node = RegexParser.parseAllowingWordBoundaries("\\b(cat|dog)\\b", 0);
+        assertTrue(node instanceof WholeWords);
+        assertTrue(((WholeWords) node).body instanceof Union);
+        assertTrue(RegexParser.parseAllowingWordBoundaries("\\bcolou?r\\b", 0) instanceof WholeWords);
+        assertTrue(RegexParser.parse("\\\\b") instanceof Concatenation);
+    }
+}
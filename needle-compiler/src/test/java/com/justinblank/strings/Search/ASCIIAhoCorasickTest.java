@@ -1,5 +1,6 @@
 package com.justinblank.strings.Search;
 
+import com.justinblank.strings.CaseFolding;
 import com.justinblank.strings.MatchResult;
 import org.junit.Test;
 import org.quicktheories.QuickTheory;
@@ -8,7 +9,9 @@ import org.quicktheories.generators.IntegersDSL;
 import org.quicktheories.generators.ListsDSL;
 import org.quicktheories.generators.StringsDSL;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static com.justinblank.strings.SearchMethodTestUtil.match;
 import static org.junit.Assert.*;
@@ -30,6 +33,62 @@ public class ASCIIAhoCorasickTest {
         assertFalse(method.containedIn("de"));
     }
 
+    @Test
+    public void testFindSkipsToFirstChars() {
+        SearchMethod method = AsciiAhoCorasickBuilder.buildAhoCorasick(List.of("qux", "zap"));
+        String filler = "abcdefghijklmnoprstuvwy".repeat(100);
+        assertEquals(MatchResult.success(filler.length(), filler.length() + 3), method.find(filler + "zap" + filler));
+        assertEquals(MatchResult.success(filler.length() + 1, filler.length() + 4),
+                method.find(filler + "qqux" + filler));
+        assertEquals(MatchResult.success(filler.length() + 1, filler.length() + 4),
+                method.find(filler + "qqux", 10, filler.length() + 4));
+        assertFalse(method.find(filler + "qu" + filler + "za").matched);
+        assertFalse(method.find(filler + "zap", 0, filler.length() + 2).matched);
+    }
+
+    @Test
+    public void testMatchesRequiresMatchAtStart() {
+        SearchMethod method = AsciiAhoCorasickBuilder.buildAhoCorasick(List.of("ab", "b"));
+        assertFalse(method.matches("xab"));
+        assertFalse(method.find("xab", 0, 3, true).matched);
+        assertEquals(MatchResult.success(1, 3), method.find("xab", 1, 3, true));
+        assertEquals(MatchResult.success(2, 3), method.find("xab", 2, 3, true));
+        assertTrue(method.matches("b"));
+    }
+
+    @Test
+    public void testOneStatePerTrieNode() {
+        var method = new AsciiAhoCorasickBuilder().build(List.of("he", "she", "his", "hers"));
+        assertEquals(10, method.stateCount());
+        assertEquals(MatchResult.success(1, 4), method.find("ahishe"));
+        assertEquals(MatchResult.success(1, 4), method.find("ushers"));
+        assertEquals(MatchResult.success(0, 4), method.find("hers", 0, 4, true));
+    }
+
+    @Test
+    public void testLargeDictionaryAgreesWithTrie() {
+        // Enough words that the deeper levels of the trie are filled in in parallel
+        Random random = new Random(0);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            words.add(random.ints(3 + random.nextInt(6), 'a', 'i')
+                    .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString());
+        }
+        String haystack = random.ints(10_000, 'a', 'j')
+                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString();
+        MultiSearchMethod table = AsciiAhoCorasickBuilder.buildAhoCorasick(words);
+        MultiSearchMethod trie = UnicodeAhoCorasickBuilder.buildAhoCorasick(words);
+        List<String> tableMatches = new ArrayList<>();
+        List<String> trieMatches = new ArrayList<>();
+        table.findAllOverlapping(haystack, (id, start, end) -> tableMatches.add(id + ":" + start + "-" + end));
+        trie.findAllOverlapping(haystack, (id, start, end) -> trieMatches.add(id + ":" + start + "-" + end));
+        assertFalse(tableMatches.isEmpty());
+        assertEquals(trieMatches, tableMatches);
+        for (int start = 0; start < 100; start++) {
+            assertEquals(trie.find(haystack, start, haystack.length()), table.find(haystack, start, haystack.length()));
+        }
+    }
+
     @Test
     public void testSingleStringPatternMatches() {
         List<String> patterns = List.of(LITERAL_1);
@@ -138,4 +197,76 @@ public class ASCIIAhoCorasickTest {
         });
     }
 
+    @Test
+    public void testWholeWords() {
+        var method = new AsciiAhoCorasickBuilder(null, true).build(List.of("cat", "cats", "at", "dog"));
+        assertEquals(MatchResult.success(14, 18), method.find("concatenate a cats-eye"));
+        assertFalse(method.containedIn("concatenate scat dogs"));
+        assertEquals(MatchResult.success(0, 3), method.find("cat"));
+        assertEquals(MatchResult.success(1, 4), method.find("\u00e9cat\u00e9"));
+        assertTrue(method.matches("cats"));
+        assertFalse(method.matches("ca"));
+
+        List<String> matches = new ArrayList<>();
+        method.findAll("cat bobcat at cats_ dog.", (id, start, end) -> matches.add(id + ":" + start + "-" + end));
+        assertEquals(List.of("0:0-3", "2:11-13", "3:20-23"), matches);
+        matches.clear();
+        method.findAllOverlapping("at cats", (id, start, end) -> matches.add(id + ":" + start + "-" + end));
+        assertEquals(List.of("2:0-2", "1:3-7"), matches);
+    }
+
+    @Test
+    public void testWholeWordsSeeCharsOutsideRange() {
+        var method = new AsciiAhoCorasickBuilder(null, true).build(List.of("cat"));
+        assertFalse(method.find("scatter", 1, 4).matched);
+        assertFalse(method.find("scatter", 1, 4, true).matched);
+        assertEquals(MatchResult.success(2, 5), method.find("a cat", 1, 5));
+    }
+
+    @Test
+    public void testWholeWordsLongerMatchRejected() {
+        // The longer word continues into another word, so only the shorter one matches
+        var method = new AsciiAhoCorasickBuilder(null, true).build(List.of("new", "new york"));
+        assertEquals(MatchResult.success(0, 3), method.find("new yorker"));
+        assertEquals(MatchResult.success(0, 8), method.find("new york!"));
+    }
+
+    @Test
+    public void testWholeWordsIgnoringCase() {
+        var method = new AsciiAhoCorasickBuilder(CaseFolding.ASCII, true).build(List.of("java"));
+        assertEquals(MatchResult.success(12, 16), method.find("JavaScript, JAVA, java"));
+        assertFalse(method.containedIn("JavaScript"));
+    }
+
+    @Test
+    public void testWholeWordsAgreesWithJavaRegex() {
+        Gen<List<String>> needles = new ListsDSL()
+                .of(new StringsDSL().betweenCodePoints('a', 'c').ofLengthBetween(1, 4))
+                .ofSizeBetween(1, 5);
+        // Both sides agree that the em dash isn't a word char
+        Gen<String> haystacks = new StringsDSL().betweenCodePoints(0, 5).ofLengthBetween(0, 24)
+                .map(s -> s.chars().mapToObj(c -> String.valueOf("abc -\u2014".charAt(c)))
+                        .collect(java.util.stream.Collectors.joining()));
+        QuickTheory.qt().forAll(needles, haystacks).checkAssert((strings, haystack) -> {
+            List<String> longestFirst = new ArrayList<>(strings);
+            longestFirst.sort((a, b) -> b.length() - a.length());
+            String regex = "\\b(?:" + String.join("|", longestFirst) + ")\\b";
+            var matcher = java.util.regex.Pattern.compile(regex).matcher(haystack);
+            List<String> expected = new ArrayList<>();
+            while (matcher.find()) {
+                expected.add(strings.indexOf(matcher.group()) + ":" + matcher.start() + "-" + matcher.end());
+            }
+            var method = new AsciiAhoCorasickBuilder(null, true).build(strings);
+            List<String> actual = new ArrayList<>();
+            method.findAll(haystack, (id, start, end) -> actual.add(id + ":" + start + "-" + end));
+            assertEquals(expected, actual);
+            MatchResult first = method.find(haystack);
+            assertEquals(!expected.isEmpty(), first.matched);
+            if (first.matched) {
+                assertEquals(expected.get(0), actual.get(0));
+                String expectedBounds = expected.get(0).substring(expected.get(0).indexOf(':') + 1);
+                assertEquals(expectedBounds, first.start + "-" + first.end);
+            }
+        });
+    }
 }
@@ -0,0 +1,116 @@
+package com.justinblank.strings.Search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures how long the Unicode Aho-Corasick implementation takes to find every occurrence of a dictionary in a large
+ * haystack, for CJK and mixed-script dictionaries, and how it compares to the ASCII table and the generated class for
+ * small dictionaries. Run the main method with the test classpath; it isn't part of the test suite.
+ */
+public class AhoCorasickBenchmark {
+
+    private static final char[][] CJK = {{'\u4e00', '\u9fff'}};
+    private static final char[][] MIXED = {{'a', 'z'}, {'\u0430', '\u044f'}, {'\u03b1', '\u03c9'}, {'\u0627', '\u064a'},
+            {'\u4e00', '\u4fff'}};
+    private static final int HAYSTACK_LENGTH = 1 << 20;
+    private static final int WARMUP_ITERATIONS = 10;
+    private static final int ITERATIONS = 20;
+
+    public static void main(String[] args) {
+        Random random = new Random(0);
+        for (int dictionarySize : new int[]{100, 10_000}) {
+            run("cjk", CJK, dictionarySize, 2, 4, random);
+            run("mixed", MIXED, dictionarySize, 3, 8, random);
+        }
+        for (int dictionarySize : new int[]{4, 16, 32}) {
+            runSmall("ascii", new char[][]{{'a', 'y'}}, 'z', dictionarySize, random);
+            runSmall("cjk", new char[][]{{'\u4e00', '\u4e18'}}, '\u4e19', dictionarySize, random);
+        }
+    }
+
+    /**
+     * Compare the table (for ASCII dictionaries), the trie, and the class generated from the trie, on a haystack made
+     * of the same chars as the dictionary. Every word ends with a char the haystack doesn't contain, so each search
+     * reads the whole haystack.
+     */
+    private static void runSmall(String name, char[][] scripts, char last, int dictionarySize, Random random) {
+        List<String> dictionary = new ArrayList<>();
+        for (int i = 0; i < dictionarySize; i++) {
+            dictionary.add(word(scripts, 3 + random.nextInt(5), random) + last);
+        }
+        var sb = new StringBuilder(HAYSTACK_LENGTH);
+        while (sb.length() < HAYSTACK_LENGTH) {
+            sb.append(word(scripts, 1 + random.nextInt(8), random)).append(' ');
+        }
+        String haystack = sb.toString();
+        var trie = (UnicodeAhoCorasick) UnicodeAhoCorasickBuilder.buildAhoCorasick(dictionary);
+        var compiled = CompiledAhoCorasick.compile(trie);
+        SearchMethod table = SearchMethods.allAscii(dictionary)
+                ? AsciiAhoCorasickBuilder.buildAhoCorasick(dictionary)
+                : null;
+        double tableMillis = table != null ? medianMillis(() -> table.find(haystack)) : Double.NaN;
+        double trieMillis = medianMillis(() -> trie.find(haystack));
+        double compiledMillis = compiled.map(c -> medianMillis(() -> c.find(haystack))).orElse(Double.NaN);
+        System.out.printf("%-6s words=%-6d table=%.2fms trie=%.2fms compiled=%.2fms%n", name, dictionarySize,
+                tableMillis, trieMillis, compiledMillis);
+    }
+
+    private static double medianMillis(Runnable runnable) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            runnable.run();
+        }
+        long[] nanos = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            runnable.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[ITERATIONS / 2] / 1_000_000.0;
+    }
+
+    private static void run(String name, char[][] scripts, int dictionarySize, int minLength, int maxLength,
+                            Random random) {
+        List<String> dictionary = new ArrayList<>();
+        for (int i = 0; i < dictionarySize; i++) {
+            dictionary.add(word(scripts, minLength + random.nextInt(maxLength - minLength + 1), random));
+        }
+        var sb = new StringBuilder(HAYSTACK_LENGTH);
+        while (sb.length() < HAYSTACK_LENGTH) {
+            if (random.nextInt(20) == 0) {
+                sb.append(dictionary.get(random.nextInt(dictionary.size())));
+            }
+            else {
+                sb.append(word(scripts, 1, random));
+            }
+        }
+        String haystack = sb.toString();
+        MultiSearchMethod method = UnicodeAhoCorasickBuilder.buildAhoCorasick(dictionary);
+        long[] nanos = new long[ITERATIONS];
+        int[] matches = new int[1];
+        for (int i = 0; i < WARMUP_ITERATIONS + ITERATIONS; i++) {
+            matches[0] = 0;
+            long start = System.nanoTime();
+            method.findAllOverlapping(haystack, (needleId, matchStart, matchEnd) -> matches[0]++);
+            if (i >= WARMUP_ITERATIONS) {
+                nanos[i - WARMUP_ITERATIONS] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(nanos);
+        double millis = nanos[ITERATIONS / 2] / 1_000_000.0;
+        System.out.printf("%-6s words=%-6d matches=%-8d %.2fms %.0fMchars/s%n", name, dictionarySize, matches[0],
+                millis, HAYSTACK_LENGTH / millis / 1000);
+    }
+
+    private static String word(char[][] scripts, int length, Random random) {
+        char[] range = scripts[random.nextInt(scripts.length)];
+        var sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) (range[0] + random.nextInt(range[1] - range[0] + 1)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package com.justinblank.strings.Search;
+
+import org.junit.Test;
+import org.quicktheories.QuickTheory;
+import org.quicktheories.generators.StringsDSL;
+
+import static org.junit.Assert.assertEquals;
+
+public class BNDMTest {
+
+    @Test
+    public void testIndexOf() {
+        var bndm = BNDM.forLiteral("Sherlock");
+        assertEquals(0, bndm.indexOf("Sherlock Holmes", 0));
+        assertEquals(11, bndm.indexOf("Mr Holmes, Sherlock", 0));
+        assertEquals(-1, bndm.indexOf("Sherloc", 0));
+        assertEquals(-1, bndm.indexOf("Sherlock Holmes", 1));
+    }
+
+    @Test
+    public void testIndexOfOverlappingOccurrences() {
+        var bndm = BNDM.forLiteral("abab");
+        assertEquals(2, bndm.indexOf("aaababab", 0));
+        assertEquals(4, bndm.indexOf("aaababab", 3));
+    }
+
+    @Test
+    public void testIndexOfNonAscii() {
+        var bndm = BNDM.forLiteral("\u00e9t\u00e9 \u0100\u0101");
+        assertEquals(3, bndm.indexOf("et \u00e9t\u00e9 \u0100\u0101", 0));
+        assertEquals(-1, bndm.indexOf("\u00e9t\u00e9 \u0100\u0100", 0));
+    }
+
+    @Test
+    public void testIndexOfLiteralLongerThanWindow() {
+        String literal = "a".repeat(BNDM.MAX_WINDOW) + "b";
+        var bndm = BNDM.forLiteral(literal);
+        String s = "a".repeat(100) + "b";
+        assertEquals(100 - BNDM.MAX_WINDOW, bndm.indexOf(s, 0));
+        assertEquals(-1, bndm.indexOf("a".repeat(100) + "c", 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyLiteral() {
+        BNDM.forLiteral("");
+    }
+
+    @Test
+    public void testIndexOfAgreesWithString() {
+        var literals = new StringsDSL().betweenCodePoints('a', 'c').ofLengthBetween(1, 10);
+        var strings = new StringsDSL().betweenCodePoints('a', 'c').ofLengthBetween(0, 40);
+        QuickTheory.qt().forAll(literals, strings).check((literal, s) -> {
+            var bndm = BNDM.forLiteral(literal);
+            for (int from = 0; from <= s.length(); from++) {
+                if (s.indexOf(literal, from) != bndm.indexOf(s, from)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+}
@@ -0,0 +1,63 @@
+package com.justinblank.strings.Search;
+
+import org.junit.Test;
+import org.quicktheories.QuickTheory;
+import org.quicktheories.generators.StringsDSL;
+
+import static org.junit.Assert.assertEquals;
+
+public class CharSetScannerTest {
+
+    @Test
+    public void testIndexOfSingleChar() {
+        var scanner = CharSetScanner.forChars("q");
+        assertEquals(3, scanner.indexOf("abcq", 0, 4));
+        assertEquals(-1, scanner.indexOf("abcq", 0, 3));
+        assertEquals(-1, scanner.indexOf("abcq", 4, 4));
+    }
+
+    @Test
+    public void testIndexOfAcrossChunks() {
+        var scanner = CharSetScanner.forChars("xyz");
+        String s = "a".repeat(5000) + "y" + "a".repeat(10);
+        assertEquals(5000, scanner.indexOf(s, 0, s.length()));
+        assertEquals(5000, scanner.indexOf(s, 4999, s.length()));
+        assertEquals(-1, scanner.indexOf(s, 5001, s.length()));
+        assertEquals(-1, scanner.indexOf(s, 0, 5000));
+    }
+
+    @Test
+    public void testIndexOfChecksWholeChar() {
+        // U+0161 and U+0178 have the same low bytes as 'a' and 'x'
+        var scanner = CharSetScanner.forChars("x\u0161");
+        assertEquals(3, scanner.indexOf("\u0178ab\u0161x", 0, 5));
+        assertEquals(4, scanner.indexOf("\u0178ab\u0161x", 4, 5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyChars() {
+        CharSetScanner.forChars("abcdefghi");
+    }
+
+    @Test
+    public void testIndexOfAgreesWithNaiveScan() {
+        var chars = new StringsDSL().betweenCodePoints('a', 'z').ofLengthBetween(1, CharSetScanner.MAX_CHARS);
+        var strings = new StringsDSL().betweenCodePoints('a', 'z').ofLengthBetween(0, 200);
+        QuickTheory.qt().forAll(chars, strings).check((set, s) -> {
+            var scanner = CharSetScanner.forChars(set);
+            for (int from = 0; from <= s.length(); from++) {
+                int expected = -1;
+                for (int i = from; i < s.length(); i++) {
+                    if (set.indexOf(s.charAt(i)) >= 0) {
+                        expected = i;
+                        break;
+                    }
+                }
+                if (expected != scanner.indexOf(s, from, s.length())) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+}
@@ -0,0 +1,117 @@
+package com.justinblank.strings.Search;
+
+import com.justinblank.strings.MatchResult;
+import org.junit.Test;
+import org.quicktheories.QuickTheory;
+import org.quicktheories.core.Gen;
+import org.quicktheories.generators.ListsDSL;
+import org.quicktheories.generators.StringsDSL;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CompiledAhoCorasickTest {
+
+    @Test
+    public void testFind() {
+        var table = new AsciiAhoCorasickBuilder().build(List.of("he", "she", "his", "hers"));
+        var method = CompiledAhoCorasick.compile(table).orElseThrow();
+        assertEquals(MatchResult.success(1, 4), method.find("ushers"));
+        assertEquals(MatchResult.success(1, 4), method.find("ahishers"));
+        assertEquals(MatchResult.success(2, 4), method.find("hhhe"));
+        assertEquals(MatchResult.success(2, 6), method.find("ushers", 2, 6));
+        assertFalse(method.find("ushers", 3, 6).matched);
+        assertFalse(method.find("sh").matched);
+        assertFalse(method.find("").matched);
+    }
+
+    @Test
+    public void testFindUsesBothSwitches() {
+        // From the root, a-c are dense enough for a tableswitch, while the chars leaving "x" need a lookupswitch
+        var method = CompiledAhoCorasick.compile(new AsciiAhoCorasickBuilder().build(
+                List.of("a", "b", "c", "xa", "xm", "xz"))).orElseThrow();
+        assertEquals(MatchResult.success(1, 2), method.find("db"));
+        assertEquals(MatchResult.success(1, 3), method.find("yxm"));
+        assertEquals(MatchResult.success(2, 3), method.find("xxc"));
+        assertFalse(method.find("xyxq").matched);
+    }
+
+    @Test
+    public void testFindAnchored() {
+        var method = CompiledAhoCorasick.compile(new AsciiAhoCorasickBuilder().build(List.of("ab", "abcd")))
+                .orElseThrow();
+        assertEquals(MatchResult.success(1, 5), method.find("xabcd", 1, 5, true));
+        assertFalse(method.find("xabcd", 0, 5, true).matched);
+        assertTrue(method.matches("abcd"));
+        assertFalse(method.matches("xab"));
+    }
+
+    @Test
+    public void testFindNonAscii() {
+        var trie = (UnicodeAhoCorasick) UnicodeAhoCorasickBuilder.buildAhoCorasick(
+                List.of("\u6771\u4eac", "\u4eac\u90fd", "\u00e9t\u00e9"));
+        var method = CompiledAhoCorasick.compile(trie).orElseThrow();
+        assertEquals(MatchResult.success(1, 3), method.find("\u65e5\u6771\u4eac\u90fd"));
+        assertEquals(MatchResult.success(0, 3), method.find("\u00e9t\u00e9t\u00e9"));
+        assertEquals(MatchResult.success(2, 5), method.find("\u00e9t\u00e9t\u00e9", 1, 5));
+        assertFalse(method.containedIn("\u6771\u90fd\u4eac"));
+    }
+
+    @Test
+    public void testEmptyPatternIsNotCompiled() {
+        assertTrue(CompiledAhoCorasick.compile(new AsciiAhoCorasickBuilder().build(List.of("", "a"))).isEmpty());
+    }
+
+    @Test
+    public void testLargeSetsUseTrie() {
+        List<String> small = new ArrayList<>();
+        List<String> large = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String s = "\u4e00" + i;
+            large.add(s);
+            // Larger sets are searched for with Teddy
+            if (i < SearchMethods.MIN_TEDDY_NEEDLES - 1) {
+                small.add(s);
+            }
+        }
+        assertTrue(SearchMethods.makeSearchMethod(small) instanceof CompiledAhoCorasick);
+        assertTrue(SearchMethods.makeSearchMethod(large) instanceof UnicodeAhoCorasick);
+        assertEquals(MatchResult.success(1, 5), SearchMethods.makeSearchMethod(large).find("x\u4e00999"));
+    }
+
+    @Test
+    public void testAgreesWithTable() {
+        Gen<List<String>> patterns = new ListsDSL().of(new StringsDSL().betweenCodePoints('a', 'd')
+                .ofLengthBetween(1, 5)).ofSizeBetween(1, 8);
+        Gen<String> haystacks = new StringsDSL().betweenCodePoints('a', 'e').ofLengthBetween(0, 30);
+        QuickTheory.qt().withExamples(200).forAll(patterns, haystacks).check((p, s) -> {
+            var table = new AsciiAhoCorasickBuilder().build(p);
+            var compiled = CompiledAhoCorasick.compile(table).orElseThrow();
+            for (int start = 0; start <= s.length(); start++) {
+                if (!table.find(s, start, s.length()).equals(compiled.find(s, start, s.length()))) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    @Test
+    public void testAgreesWithTrie() {
+        Gen<List<String>> patterns = new ListsDSL().of(new StringsDSL().betweenCodePoints(0x4e00, 0x4e03)
+                .ofLengthBetween(1, 5)).ofSizeBetween(1, 8);
+        Gen<String> haystacks = new StringsDSL().betweenCodePoints(0x4e00, 0x4e04).ofLengthBetween(0, 30);
+        QuickTheory.qt().withExamples(200).forAll(patterns, haystacks).check((p, s) -> {
+            var trie = (UnicodeAhoCorasick) UnicodeAhoCorasickBuilder.buildAhoCorasick(p);
+            var compiled = CompiledAhoCorasick.compile(trie).orElseThrow();
+            for (int start = 0; start <= s.length(); start++) {
+                if (!trie.find(s, start, s.length()).equals(compiled.find(s, start, s.length()))) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+}
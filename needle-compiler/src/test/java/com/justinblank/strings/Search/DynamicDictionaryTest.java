@@ -0,0 +1,210 @@
+package com.justinblank.strings.Search;
+
+import com.justinblank.strings.MatchResult;
+import org.junit.Test;
+import org.quicktheories.QuickTheory;
+import org.quicktheories.core.Gen;
+import org.quicktheories.generators.ListsDSL;
+import org.quicktheories.generators.StringsDSL;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class DynamicDictionaryTest {
+
+    @Test
+    public void testAddAndRemove() {
+        var dictionary = new DynamicDictionary(List.of("he", "she", "his"));
+        assertEquals(MatchResult.success(1, 4), dictionary.find("ushers"));
+        assertEquals(3, dictionary.add("hers"));
+        assertEquals(3, dictionary.add("hers"));
+        assertEquals(List.of("1:1-4", "0:2-4", "3:2-6"), overlapping(dictionary, "ushers"));
+
+        assertTrue(dictionary.remove("she"));
+        assertFalse(dictionary.remove("she"));
+        assertEquals(MatchResult.success(2, 6), dictionary.find("ushers"));
+        assertEquals(List.of("0:2-4", "3:2-6"), overlapping(dictionary, "ushers"));
+        assertTrue(dictionary.remove("hers"));
+        assertEquals(List.of("0:2-4"), all(dictionary, "ushers"));
+        assertEquals(-1, dictionary.id("hers"));
+
+        assertEquals(4, dictionary.add("she"));
+        assertEquals(List.of("4:1-4", "0:2-4"), overlapping(dictionary, "ushers"));
+        assertEquals(3, dictionary.size());
+    }
+
+    @Test
+    public void testAnchoredSearchSkipsRemovedKeywords() {
+        var dictionary = new DynamicDictionary(List.of("ab", "abcd"));
+        dictionary.add("abc");
+        dictionary.remove("abcd");
+        assertEquals(MatchResult.success(1, 4), dictionary.find("xabcd", 1, 5, true));
+        assertTrue(dictionary.matches("abc"));
+        assertFalse(dictionary.matches("abcd"));
+        assertFalse(dictionary.find("xabcd", 0, 5, true).matched);
+    }
+
+    @Test
+    public void testEmptyDictionary() {
+        var dictionary = new DynamicDictionary();
+        assertFalse(dictionary.containedIn("abc"));
+        dictionary.add("b");
+        assertEquals(MatchResult.success(1, 2), dictionary.find("abc"));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.add(""));
+    }
+
+    @Test
+    public void testMergesLargeDelta() {
+        var dictionary = new DynamicDictionary(List.of("a"));
+        List<String> added = new ArrayList<>();
+        for (int i = 0; i < DynamicDictionary.MAX_DELTA_SIZE * 3; i++) {
+            added.add("k" + i + "!");
+            dictionary.add("k" + i + "!");
+        }
+        for (int i = 0; i < added.size(); i += 2) {
+            dictionary.remove(added.get(i));
+        }
+        assertEquals(1 + added.size() / 2, dictionary.size());
+        assertFalse(dictionary.containedIn("k0!"));
+        assertEquals(MatchResult.success(1, 4), dictionary.find("xk1!"));
+        assertEquals(List.of(dictionary.id("k101!") + ":1-6"), all(dictionary, "xk101!"));
+    }
+
+    @Test
+    public void testMergesDeltaIntoLargeBase() {
+        List<String> base = new ArrayList<>();
+        for (int i = 0; i < DynamicDictionary.MAX_DELTA_SIZE * DynamicDictionary.LEVEL_FRACTION * 4; i++) {
+            base.add("b" + i + "!");
+        }
+        var dictionary = new DynamicDictionary(base);
+        for (int i = 0; i < DynamicDictionary.MAX_DELTA_SIZE * 3; i++) {
+            assertEquals(base.size() + i, dictionary.add("d" + i + "!"));
+        }
+        assertEquals(List.of("0:1-4", base.size() + ":4-7"), all(dictionary, "xb0!d0!"));
+        assertEquals(List.of((base.size() - 1) + ":0-" + (base.get(base.size() - 1).length())),
+                all(dictionary, base.get(base.size() - 1)));
+        assertEquals(MatchResult.success(0, 5), dictionary.find("d300!"));
+    }
+
+    @Test
+    public void testAgreesWithRebuiltAutomaton() {
+        Gen<String> keywords = new StringsDSL().betweenCodePoints('a', 'c').ofLengthBetween(1, 4);
+        Gen<List<String>> operations = new ListsDSL().of(keywords).ofSizeBetween(1, 30);
+        Gen<String> haystacks = new StringsDSL().betweenCodePoints('a', 'd').ofLengthBetween(0, 30);
+        QuickTheory.qt().withExamples(200).forAll(operations, haystacks).check((ops, s) -> {
+            // Each keyword is added the first time it appears, and removed the next
+            var dictionary = new DynamicDictionary(ops.subList(0, ops.size() / 2));
+            Set<String> live = new LinkedHashSet<>(ops.subList(0, ops.size() / 2));
+            for (String keyword : ops.subList(ops.size() / 2, ops.size())) {
+                if (!live.remove(keyword)) {
+                    live.add(keyword);
+                    dictionary.add(keyword);
+                }
+                else {
+                    dictionary.remove(keyword);
+                }
+            }
+            if (live.isEmpty()) {
+                return !dictionary.containedIn(s);
+            }
+            List<String> keywordList = new ArrayList<>(live);
+            MultiSearchMethod rebuilt = UnicodeAhoCorasickBuilder.buildAhoCorasick(keywordList);
+            List<String> expected = new ArrayList<>();
+            rebuilt.findAllOverlapping(s, (id, start, end) -> expected.add(keywordList.get(id) + ":" + start + "-"
+                    + end));
+            // Ids differ between the two, so compare the keywords they identify
+            List<String> actual = new ArrayList<>();
+            dictionary.findAllOverlapping(s, (id, start, end) -> {
+                String keyword = s.substring(start, end);
+                actual.add((dictionary.id(keyword) == id ? keyword : "?") + ":" + start + "-" + end);
+            });
+            List<String> expectedAll = new ArrayList<>();
+            rebuilt.findAll(s, (id, start, end) -> expectedAll.add(start + "-" + end));
+            List<String> actualAll = new ArrayList<>();
+            dictionary.findAll(s, (id, start, end) -> actualAll.add(start + "-" + end));
+            for (int start = 0; start <= s.length(); start++) {
+                if (!rebuilt.find(s, start, s.length()).equals(dictionary.find(s, start, s.length())) ||
+                        !rebuilt.find(s, start, s.length(), true).equals(dictionary.find(s, start, s.length(), true))) {
+                    return false;
+                }
+            }
+            return expected.equals(actual) && expectedAll.equals(actualAll);
+        });
+    }
+
+    @Test
+    public void testAgreesWithRebuiltAutomatonAcrossLevels() {
+        Random random = new Random();
+        var dictionary = new DynamicDictionary();
+        List<String> live = new ArrayList<>();
+        for (int i = 0; i < DynamicDictionary.MAX_DELTA_SIZE * DynamicDictionary.LEVEL_FRACTION * 3; i++) {
+            String keyword = Integer.toString(random.nextInt(20_000), 7);
+            if (random.nextInt(4) == 0 && !live.isEmpty()) {
+                keyword = live.get(random.nextInt(live.size()));
+            }
+            if (live.contains(keyword)) {
+                dictionary.remove(keyword);
+                live.remove(keyword);
+            }
+            else {
+                dictionary.add(keyword);
+                live.add(keyword);
+            }
+            if (i % 500 == 0) {
+                String s = Integer.toString(random.nextInt(Integer.MAX_VALUE), 7).repeat(20);
+                MultiSearchMethod rebuilt = UnicodeAhoCorasickBuilder.buildAhoCorasick(live);
+                List<String> expected = new ArrayList<>();
+                rebuilt.findAllOverlapping(s, (id, start, end) -> expected.add(
+                        dictionary.id(live.get(id)) + ":" + start + "-" + end));
+                assertEquals(expected, overlapping(dictionary, s));
+                assertEquals(rebuilt.find(s), dictionary.find(s));
+            }
+        }
+        assertEquals(live.size(), dictionary.size());
+    }
+
+    @Test
+    public void testSearchesDuringUpdates() throws InterruptedException {
+        var dictionary = new DynamicDictionary(List.of("needle"));
+        String haystack = "hay".repeat(1000) + "needle" + "hay".repeat(1000);
+        var done = new AtomicBoolean();
+        var failure = new AtomicReference<MatchResult>();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                MatchResult result = dictionary.find(haystack);
+                if (!result.equals(MatchResult.success(3000, 3006))) {
+                    failure.set(result);
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 2000; i++) {
+            dictionary.add("word" + i);
+            if (i % 3 == 0) {
+                dictionary.remove("word" + (i / 2));
+            }
+        }
+        done.set(true);
+        reader.join();
+        assertNull(failure.get());
+    }
+
+    private static List<String> overlapping(MultiSearchMethod method, String s) {
+        List<String> matches = new ArrayList<>();
+        method.findAllOverlapping(s, (id, start, end) -> matches.add(id + ":" + start + "-" + end));
+        return matches;
+    }
+
+    private static List<String> all(MultiSearchMethod method, String s) {
+        List<String> matches = new ArrayList<>();
+        method.findAll(s, (id, start, end) -> matches.add(id + ":" + start + "-" + end));
+        return matches;
+    }
+}
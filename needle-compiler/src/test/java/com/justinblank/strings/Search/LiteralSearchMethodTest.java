@@ -0,0 +1,68 @@
+package com.justinblank.strings.Search;
+
+import com.justinblank.strings.MatchResult;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LiteralSearchMethodTest {
+
+    private static final String SHORT = "abab";
+    private static final String LONG = "ab".repeat(LiteralSearchMethod.MIN_TWO_WAY_LENGTH);
+
+    @Test
+    public void testFind() {
+        for (String literal : List.of(SHORT, LONG)) {
+            var method = LiteralSearchMethod.forLiteral(literal);
+            String s = "xx" + literal + "ab";
+            assertEquals(MatchResult.success(2, 2 + literal.length()), method.find(s));
+            assertEquals(MatchResult.success(4, 4 + literal.length()), method.find(s, 3, s.length()));
+            assertFalse(method.find(s, 3, s.length() - 1).matched);
+            assertFalse(method.find(s, 0, s.length() - 3).matched);
+        }
+    }
+
+    @Test
+    public void testFindAnchored() {
+        for (String literal : List.of(SHORT, LONG)) {
+            var method = LiteralSearchMethod.forLiteral(literal);
+            String s = "x" + literal;
+            assertEquals(MatchResult.success(1, s.length()), method.find(s, 1, s.length(), true));
+            assertFalse(method.find(s, 1, s.length() - 1, true).matched);
+            assertFalse(method.find(s, 0, s.length(), true).matched);
+            assertTrue(method.matches(literal));
+            assertFalse(method.matches(s));
+        }
+    }
+
+    @Test
+    public void testFindAll() {
+        var method = LiteralSearchMethod.forLiteral("aba");
+        assertEquals(List.of("0:0-3", "0:4-7"), all(method, "ababababx"));
+        assertEquals(List.of("0:0-3", "0:2-5", "0:4-7", "0:6-9"), overlapping(method, "ababababax"));
+        assertEquals(List.of(), all(method, "ab"));
+    }
+
+    @Test
+    public void testSingleLiteralsUseLiteralSearch() {
+        assertTrue(SearchMethods.makeSearchMethod(List.of("Sherlock")) instanceof LiteralSearchMethod);
+        assertTrue(SearchMethods.makeSearchMethod(List.of("Sherlock", "Sherlock")) instanceof LiteralSearchMethod);
+        assertFalse(SearchMethods.makeSearchMethod(List.of("")) instanceof LiteralSearchMethod);
+        assertFalse(SearchMethods.makeSearchMethod(List.of("Sherlock", "Holmes")) instanceof LiteralSearchMethod);
+    }
+
+    private static List<String> overlapping(MultiSearchMethod method, String s) {
+        List<String> matches = new ArrayList<>();
+        method.findAllOverlapping(s, (id, start, end) -> matches.add(id + ":" + start + "-" + end));
+        return matches;
+    }
+
+    private static List<String> all(MultiSearchMethod method, String s) {
+        List<String> matches = new ArrayList<>();
+        method.findAll(s, (id, start, end) -> matches.add(id + ":" + start + "-" + end));
+        return matches;
+    }
+}
@@ -0,0 +1,103 @@
+package com.justinblank.strings.Search;
+
+import com.justinblank.strings.MatchResult;
+import org.junit.Test;
+import org.quicktheories.QuickTheory;
+import org.quicktheories.core.Gen;
+import org.quicktheories.generators.ListsDSL;
+import org.quicktheories.generators.StringsDSL;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MappedAhoCorasickTest {
+
+    @Test
+    public void testFind() throws IOException {
+        var method = MappedAhoCorasick.map(write(List.of("he", "she", "his", "hers")));
+        assertEquals(MatchResult.success(1, 4), method.find("ushers"));
+        assertEquals(MatchResult.success(2, 6), method.find("ushers", 2, 6));
+        assertEquals(MatchResult.success(1, 5), method.find("xhers", 1, 5, true));
+        assertFalse(method.find("xhers", 0, 5, true).matched);
+        assertTrue(method.matches("hers"));
+        assertFalse(method.containedIn("sh\u00e9"));
+        List<String> matches = new ArrayList<>();
+        method.findAllOverlapping("ushers", (id, start, end) -> matches.add(id + ":" + start + "-" + end));
+        assertEquals(List.of("1:1-4", "0:2-4", "3:2-6"), matches);
+    }
+
+    @Test
+    public void testTransitionsSpanChunks() throws IOException {
+        // A chunk of a single row puts every state's transitions in its own buffer
+        var method = MappedAhoCorasick.map(write(List.of("abc", "bcd", "cde")), 1);
+        assertEquals(MatchResult.success(2, 5), method.find("xxbcdexx"));
+        assertEquals(MatchResult.success(0, 3), method.find("cdeabc"));
+        assertFalse(method.containedIn("abdbcecd"));
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws IOException {
+        Path path = Files.createTempFile("automaton", ".bin");
+        path.toFile().deleteOnExit();
+        Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> MappedAhoCorasick.map(path));
+        Files.write(path, new byte[0]);
+        assertThrows(IOException.class, () -> MappedAhoCorasick.map(path));
+    }
+
+    @Test
+    public void testOnlyAsciiCanBeWritten() {
+        assertThrows(IllegalArgumentException.class,
+                () -> SearchMethods.writeAhoCorasick(List.of("abc", "\u00e9t\u00e9"), Path.of("unused")));
+    }
+
+    @Test
+    public void testAgreesWithTable() {
+        Gen<List<String>> patterns = new ListsDSL().of(new StringsDSL().betweenCodePoints('a', 'd')
+                .ofLengthBetween(0, 5)).ofSizeBetween(1, 8);
+        Gen<String> haystacks = new StringsDSL().betweenCodePoints('a', 'e').ofLengthBetween(0, 30);
+        QuickTheory.qt().withExamples(100).forAll(patterns, haystacks).check((p, s) -> {
+            var table = new AsciiAhoCorasickBuilder().build(p);
+            MappedAhoCorasick mapped;
+            try {
+                mapped = MappedAhoCorasick.map(write(p), 64);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (int start = 0; start <= s.length(); start++) {
+                if (!table.find(s, start, s.length()).equals(mapped.find(s, start, s.length())) ||
+                        !table.find(s, start, s.length(), true).equals(mapped.find(s, start, s.length(), true))) {
+                    return false;
+                }
+            }
+            return matches(table, s, false).equals(matches(mapped, s, false)) &&
+                    matches(table, s, true).equals(matches(mapped, s, true));
+        });
+    }
+
+    private static List<String> matches(MultiSearchMethod method, String s, boolean overlapping) {
+        List<String> matches = new ArrayList<>();
+        NeedleMatchConsumer consumer = (id, start, end) -> matches.add(id + ":" + start + "-" + end);
+        if (overlapping) {
+            method.findAllOverlapping(s, consumer);
+        }
+        else {
+            method.findAll(s, consumer);
+        }
+        return matches;
+    }
+
+    private static Path write(List<String> strings) throws IOException {
+        Path path = Files.createTempFile("automaton", ".bin");
+        path.toFile().deleteOnExit();
+        SearchMethods.writeAhoCorasick(strings, path);
+        return path;
+    }
+}
@@ -0,0 +1,124 @@
+package com.justinblank.strings.Search;
+
+import com.justinblank.strings.MatchResult;
+import org.junit.Test;
+import org.quicktheories.QuickTheory;
+import org.quicktheories.core.Gen;
+import org.quicktheories.generators.ListsDSL;
+import org.quicktheories.generators.StringsDSL;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class MultiSearchMethodTest {
+
+    private static final List<String> WORDS = List.of("he", "she", "his", "hers");
+    private static final List<String> CJK_WORDS = List.of("\u6771\u4eac", "\u4eac\u90fd", "\u6771\u4eac\u90fd\u5e81",
+            "\u90fd");
+
+    private static List<Function<List<String>, MultiSearchMethod>> builders() {
+        return List.of(p -> AsciiAhoCorasickBuilder.buildAhoCorasick(p),
+                p -> UnicodeAhoCorasickBuilder.buildAhoCorasick(p),
+                p -> CompiledAhoCorasick.compile((UnicodeAhoCorasick) UnicodeAhoCorasickBuilder.buildAhoCorasick(p))
+                        .orElseThrow(),
+                p -> Teddy.build(p, () -> AsciiAhoCorasickBuilder.buildAhoCorasick(p)),
+                p -> WuManber.build(p, () -> AsciiAhoCorasickBuilder.buildAhoCorasick(p)));
+    }
+
+    @Test
+    public void testFindAllOverlapping() {
+        for (var builder : builders()) {
+            var method = builder.apply(WORDS);
+            assertEquals(List.of("1:1-4", "0:2-4", "3:2-6"), overlapping(method, "ushers"));
+            assertEquals(List.of("2:0-3", "1:3-6", "0:4-6", "3:4-8"), overlapping(method, "hisshers"));
+            assertEquals(List.of(), overlapping(method, "xyz"));
+        }
+        var method = UnicodeAhoCorasickBuilder.buildAhoCorasick(CJK_WORDS);
+        assertEquals(List.of("0:1-3", "1:2-4", "3:3-4", "2:1-5"),
+                overlapping(method, "\u65e5\u6771\u4eac\u90fd\u5e81"));
+    }
+
+    @Test
+    public void testFindAll() {
+        for (var builder : builders()) {
+            var method = builder.apply(WORDS);
+            assertEquals(List.of("1:1-4"), all(method, "ushers"));
+            assertEquals(List.of("2:0-3", "1:3-6"), all(method, "hisshers"));
+            assertEquals(List.of("0:0-2", "0:2-4"), all(method, "hehe"));
+            assertEquals(List.of(), all(method, ""));
+        }
+        var method = UnicodeAhoCorasickBuilder.buildAhoCorasick(CJK_WORDS);
+        assertEquals(List.of("2:1-5", "3:5-6"), all(method, "\u65e5\u6771\u4eac\u90fd\u5e81\u90fd"));
+        assertEquals(List.of("0:0-2", "3:2-3"), all(method, "\u6771\u4eac\u90fd\u4eac"));
+    }
+
+    @Test
+    public void testDuplicatesReportFirstId() {
+        for (var builder : builders()) {
+            var method = builder.apply(List.of("ab", "b", "ab"));
+            assertEquals(List.of("0:1-3", "1:2-3"), overlapping(method, "xab"));
+        }
+    }
+
+    @Test
+    public void testEmptyNeedleIsNotReported() {
+        var method = AsciiAhoCorasickBuilder.buildAhoCorasick(List.of("", "ab"));
+        assertEquals(List.of("1:1-3"), overlapping(method, "xab"));
+        assertEquals(List.of("1:1-3"), all(method, "xab"));
+    }
+
+    @Test
+    public void testFindAllOverlappingFindsEveryOccurrence() {
+        Gen<List<String>> patterns = new ListsDSL().of(new StringsDSL().betweenCodePoints('a', 'c')
+                .ofLengthBetween(1, 4)).ofSizeBetween(1, 8);
+        Gen<String> haystacks = new StringsDSL().betweenCodePoints('a', 'd').ofLengthBetween(0, 30);
+        QuickTheory.qt().withExamples(200).forAll(patterns, haystacks).check((p, s) -> {
+            List<String> expected = new ArrayList<>();
+            for (int end = 1; end <= s.length(); end++) {
+                for (int start = 0; start < end; start++) {
+                    int id = p.indexOf(s.substring(start, end));
+                    if (id >= 0) {
+                        expected.add(id + ":" + start + "-" + end);
+                    }
+                }
+            }
+            return builders().stream().allMatch(b -> expected.equals(overlapping(b.apply(p), s)));
+        });
+    }
+
+    @Test
+    public void testFindAllAgreesWithFind() {
+        Gen<List<String>> patterns = new ListsDSL().of(new StringsDSL().betweenCodePoints('a', 'c')
+                .ofLengthBetween(1, 4)).ofSizeBetween(1, 8);
+        Gen<String> haystacks = new StringsDSL().betweenCodePoints('a', 'd').ofLengthBetween(0, 30);
+        QuickTheory.qt().withExamples(200).forAll(patterns, haystacks).check((p, s) -> {
+            return builders().stream().allMatch(b -> {
+                var method = b.apply(p);
+                List<String> expected = new ArrayList<>();
+                int from = 0;
+                MatchResult result;
+                while ((result = method.find(s, from, s.length())).matched) {
+                    expected.add(p.indexOf(s.substring(result.start, result.end)) + ":" + result.start + "-"
+                            + result.end);
+                    from = result.end;
+                }
+                return expected.equals(all(method, s));
+            });
+        });
+    }
+
+    private static List<String> overlapping(MultiSearchMethod method, String s) {
+        List<String> matches = new ArrayList<>();
+        method.findAllOverlapping(s, (id, start, end) -> matches.add(id + ":" + start + "-" + end));
+        return matches;
+    }
+
+    private static List<String> all(MultiSearchMethod method, String s) {
+        List<String> matches = new ArrayList<>();
+        method.findAll(s, (id, start, end) -> matches.add(id + ":" + start + "-" + end));
+        return matches;
+    }
+}
@@ -1,6 +1,7 @@
 package com.justinblank.strings.Search;
 
 import com.justinblank.strings.MatchResult;
+import com.justinblank.strings.Pattern;
 import org.junit.Test;
 import org.quicktheories.QuickTheory;
 import org.quicktheories.core.Gen;
@@ -8,6 +9,7 @@ import org.quicktheories.generators.IntegersDSL;
 import org.quicktheories.generators.ListsDSL;
 import org.quicktheories.generators.StringsDSL;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -396,6 +398,63 @@ public class SearchMethodsTest {
         SearchMethods.makeSearchMethod(Collections.singletonList("a")).find("a", 0, -1);
     }
 
+    @Test
+    public void testCaseInsensitiveAscii() {
+        var method = SearchMethods.makeSearchMethod(List.of("she", "HIS", "hers"), Pattern.CASE_INSENSITIVE);
+        assertEquals(ASCIIAhoCorasick.class, method.getClass());
+        assertEquals(MatchResult.success(2, 5), method.find("a ShE"));
+        assertEquals(MatchResult.success(0, 3), method.find("hIs"));
+        assertTrue(method.matches("HeRs"));
+        assertFalse(method.containedIn("s h e"));
+        List<Integer> ids = new ArrayList<>();
+        method.findAll("SHE his Hers", (id, start, end) -> ids.add(id));
+        assertEquals(List.of(0, 1, 2), ids);
+    }
+
+    @Test
+    public void testCaseInsensitiveSkipsFastPaths() {
+        // Without flags, one literal, a handful of needles, and long needles each have their own search method
+        for (List<String> needles : List.of(List.of("literal"), List.of("ab", "cd", "ef", "gh"),
+                List.of("abcdefgh", "ijklmnop"))) {
+            var method = SearchMethods.makeSearchMethod(needles, Pattern.CASE_INSENSITIVE);
+            for (String needle : needles) {
+                assertTrue(needle, method.matches(needle.toUpperCase()));
+            }
+        }
+    }
+
+    @Test
+    public void testUnicodeCaseInsensitive() {
+        int flags = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+        // 'k' matches the Kelvin sign, so even an ASCII needle needs the trie
+        var method = SearchMethods.makeSearchMethod(List.of("kit", "caf\u00e9"), flags);
+        assertTrue(method.matches("\u212aIT"));
+        assertTrue(method.matches("CAF\u00c9"));
+        assertEquals(MatchResult.success(1, 5), method.find(" Caf\u00c9 kit"));
+
+        var sigma = SearchMethods.makeSearchMethod(List.of("\u03c3\u03bf\u03c6\u03bf\u03c2"), flags);
+        assertTrue(sigma.matches("\u03a3\u039f\u03a6\u039f\u03a3"));
+        assertTrue(sigma.matches("\u03c2\u03bf\u03c6\u03bf\u03c3"));
+
+        var asciiOnly = SearchMethods.makeSearchMethod(List.of("caf\u00e9"), Pattern.CASE_INSENSITIVE);
+        assertTrue(asciiOnly.matches("CAF\u00e9"));
+        assertFalse(asciiOnly.matches("CAF\u00c9"));
+    }
+
+    @Test
+    public void testCaseInsensitiveAgreesWithLowercasing() {
+        Gen<List<String>> needles = new ListsDSL().of(new StringsDSL().betweenCodePoints(65, 122)
+                .ofLengthBetween(1, 4)).ofSizeBetween(1, 8);
+        Gen<String> haystacks = new StringsDSL().betweenCodePoints(65, 122).ofLengthBetween(0, 32);
+        QuickTheory.qt().forAll(needles, haystacks).check((strings, haystack) -> {
+            List<String> lowered = new ArrayList<>();
+            strings.forEach(s -> lowered.add(s.toLowerCase()));
+            var expected = SearchMethods.makeSearchMethod(lowered).find(haystack.toLowerCase());
+            var actual = SearchMethods.makeSearchMethod(strings, Pattern.CASE_INSENSITIVE).find(haystack);
+            return expected.equals(actual);
+        });
+    }
+
     @Test(expected = IndexOutOfBoundsException.class)
     public void testIllegalIndexEndAscii() {
         SearchMethods.makeSearchMethod(Collections.singletonList("a")).find("a", 0, 3);
@@ -0,0 +1,129 @@
+package com.justinblank.strings.Search;
+
+import com.justinblank.strings.MatchResult;
+import org.junit.Test;
+import org.quicktheories.QuickTheory;
+import org.quicktheories.core.Gen;
+import org.quicktheories.generators.ListsDSL;
+import org.quicktheories.generators.StringsDSL;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TeddyTest {
+
+    private static Teddy teddy(List<String> needles) {
+        return Teddy.build(needles, () -> UnicodeAhoCorasickBuilder.buildAhoCorasick(needles));
+    }
+
+    @Test
+    public void testFind() {
+        var method = teddy(List.of("he", "she", "his", "hers"));
+        assertEquals(MatchResult.success(1, 4), method.find("ushers"));
+        assertEquals(MatchResult.success(1, 4), method.find("ahishers"));
+        assertEquals(MatchResult.success(2, 4), method.find("hhhe"));
+        assertEquals(MatchResult.success(2, 6), method.find("ushers", 2, 6));
+        assertFalse(method.find("ushers", 3, 6).matched);
+        assertFalse(method.find("sh").matched);
+        assertFalse(method.find("").matched);
+    }
+
+    @Test
+    public void testFindAnchored() {
+        var method = teddy(List.of("ab", "abcd"));
+        assertEquals(MatchResult.success(1, 5), method.find("xabcd", 1, 5, true));
+        assertEquals(MatchResult.success(1, 3), method.find("xabcd", 1, 4, true));
+        assertFalse(method.find("xabcd", 0, 5, true).matched);
+        assertTrue(method.matches("abcd"));
+        assertFalse(method.matches("abc"));
+    }
+
+    @Test
+    public void testSingleCharNeedles() {
+        var method = teddy(List.of("q", "z", "zz"));
+        assertEquals(MatchResult.success(3, 5), method.find("abczz"));
+        assertEquals(MatchResult.success(0, 1), method.find("qzz"));
+        assertFalse(method.find("abcdef").matched);
+    }
+
+    @Test
+    public void testNonAsciiCharsSharingLowBytes() {
+        // \u0161 and \u4e61 have the same low byte as 'a', so they're candidates, but don't match
+        var method = teddy(List.of("ab", "\u6771\u4eac"));
+        assertFalse(method.find("\u0161b\u4e61b").matched);
+        assertEquals(MatchResult.success(2, 4), method.find("\u0161b\u6771\u4eac"));
+        assertEquals(MatchResult.success(3, 5), method.find("\u0161b\u4e61ab"));
+    }
+
+    @Test
+    public void testFindAcrossChunks() {
+        var sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append("abcdefg".charAt(i % 7));
+        }
+        String prefix = sb.toString();
+        var method = teddy(List.of("xyz", "wxyz", "xy"));
+        for (int length : new int[]{0, 30, 31, 32, 33, 95, 96, 1000, 4999}) {
+            String s = prefix.substring(0, length) + "wxyz";
+            assertEquals(MatchResult.success(length, length + 4), method.find(s));
+            assertEquals(MatchResult.success(length + 1, length + 4), method.find(s, length + 1, s.length()));
+            assertFalse(method.find(s, 0, length + 1).matched);
+        }
+    }
+
+    @Test
+    public void testAgreesWithTable() {
+        Gen<List<String>> patterns = new ListsDSL().of(new StringsDSL().betweenCodePoints('a', 'd')
+                .ofLengthBetween(1, 5)).ofSizeBetween(1, Teddy.MAX_NEEDLES);
+        Gen<String> haystacks = new StringsDSL().betweenCodePoints('a', 'e').ofLengthBetween(0, 100);
+        QuickTheory.qt().withExamples(300).forAll(patterns, haystacks).check((p, s) -> {
+            var table = new AsciiAhoCorasickBuilder().build(p);
+            var method = Teddy.build(p, () -> table);
+            for (int start = 0; start <= s.length(); start++) {
+                for (boolean anchored : new boolean[]{false, true}) {
+                    if (!table.find(s, start, s.length(), anchored).equals(method.find(s, start, s.length(),
+                            anchored))) {
+                        return false;
+                    }
+                }
+            }
+            return all(table, s).equals(all(method, s));
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyNeedleIsRejected() {
+        teddy(List.of("", "ab"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyNeedlesAreRejected() {
+        List<String> needles = new ArrayList<>();
+        for (int i = 0; i <= Teddy.MAX_NEEDLES; i++) {
+            needles.add("n" + i);
+        }
+        teddy(needles);
+    }
+
+    @Test
+    public void testSmallSetsUseTeddy() {
+        List<String> needles = new ArrayList<>();
+        for (int i = 0; i < SearchMethods.MAX_TEDDY_NEEDLES; i++) {
+            needles.add("\u4e00" + i);
+        }
+        assertTrue(SearchMethods.makeSearchMethod(needles) instanceof Teddy);
+        var smallest = needles.subList(0, SearchMethods.MIN_TEDDY_NEEDLES);
+        assertTrue(SearchMethods.makeSearchMethod(smallest) instanceof Teddy);
+        needles.add("\u4e00x");
+        assertFalse(SearchMethods.makeSearchMethod(needles) instanceof Teddy);
+        assertFalse(SearchMethods.makeSearchMethod(List.of("", "a", "b", "c", "d")) instanceof Teddy);
+    }
+
+    private static List<String> all(MultiSearchMethod method, String s) {
+        List<String> matches = new ArrayList<>();
+        method.findAll(s, (id, start, end) -> matches.add(id + ":" + start + "-" + end));
+        return matches;
+    }
+}
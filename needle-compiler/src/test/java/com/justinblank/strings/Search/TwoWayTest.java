@@ -0,0 +1,62 @@
+package com.justinblank.strings.Search;
+
+import org.junit.Test;
+import org.quicktheories.QuickTheory;
+import org.quicktheories.generators.StringsDSL;
+
+import static org.junit.Assert.assertEquals;
+
+public class TwoWayTest {
+
+    @Test
+    public void testIndexOf() {
+        var twoWay = TwoWay.forLiteral("Sherlock");
+        assertEquals(0, twoWay.indexOf("Sherlock Holmes", 0, 15));
+        assertEquals(11, twoWay.indexOf("Mr Holmes, Sherlock", 0, 19));
+        assertEquals(-1, twoWay.indexOf("Mr Holmes, Sherlock", 0, 18));
+        assertEquals(-1, twoWay.indexOf("Sherloc", 0, 7));
+        assertEquals(-1, twoWay.indexOf("Sherlock Holmes", 1, 15));
+    }
+
+    @Test
+    public void testIndexOfPeriodicLiteral() {
+        var twoWay = TwoWay.forLiteral("abababac");
+        assertEquals(4, twoWay.indexOf("abababababac", 0, 12));
+        assertEquals(-1, twoWay.indexOf("abababababac", 5, 12));
+        assertEquals(-1, twoWay.indexOf("ababababababab", 0, 14));
+        var repeated = TwoWay.forLiteral("aaaa");
+        assertEquals(4, repeated.indexOf("aaabaaaa", 0, 8));
+        assertEquals(5, repeated.indexOf("aaabaaaaa", 5, 9));
+    }
+
+    @Test
+    public void testIndexOfNonAscii() {
+        // \u0161 has the same low byte as 'a', so they share a shift
+        var twoWay = TwoWay.forLiteral("\u00e9t\u00e9 \u0100\u0101a");
+        assertEquals(3, twoWay.indexOf("et \u00e9t\u00e9 \u0100\u0101a", 0, 10));
+        assertEquals(-1, twoWay.indexOf("\u00e9t\u00e9 \u0100\u0101\u0161", 0, 7));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyLiteral() {
+        TwoWay.forLiteral("");
+    }
+
+    @Test
+    public void testIndexOfAgreesWithString() {
+        var literals = new StringsDSL().betweenCodePoints('a', 'c').ofLengthBetween(1, 20);
+        var strings = new StringsDSL().betweenCodePoints('a', 'c').ofLengthBetween(0, 60);
+        QuickTheory.qt().withExamples(1000).forAll(literals, strings).check((literal, s) -> {
+            var twoWay = TwoWay.forLiteral(literal);
+            for (int from = 0; from <= s.length(); from++) {
+                int expected = s.indexOf(literal, from);
+                int end = expected >= 0 ? expected + literal.length() : s.length();
+                if (expected != twoWay.indexOf(s, from, s.length())
+                        || (expected >= 0 && twoWay.indexOf(s, from, end - 1) >= 0)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+}
@@ -29,6 +29,73 @@ public class UnicodeAhoCorasickTest {
         assertFalse(method.containedIn("de"));
     }
 
+    @Test
+    public void testFindSkipsToFirstChars() {
+        SearchMethod method = UnicodeAhoCorasickBuilder.buildAhoCorasick(List.of("qux", "zap"));
+        String filler = "abcdefghijklmnoprstuvwy".repeat(100);
+        assertEquals(MatchResult.success(filler.length(), filler.length() + 3), method.find(filler + "zap" + filler));
+        assertEquals(MatchResult.success(filler.length() + 1, filler.length() + 4),
+                method.find(filler + "qqux" + filler));
+        assertEquals(MatchResult.success(filler.length() + 1, filler.length() + 4),
+                method.find(filler + "qqux", 10, filler.length() + 4));
+        assertFalse(method.find(filler + "qu" + filler + "za").matched);
+        assertFalse(method.find(filler + "zap", 0, filler.length() + 2).matched);
+    }
+
+    @Test
+    public void testTrieLookups() {
+        Trie root = new Trie(0);
+        Trie dense = new Trie(1);
+        Trie sparse = new Trie(1);
+        root.addFollower('\u4e00', dense);
+        root.addFollower('x', sparse);
+        for (char c = '\u4e01'; c < '\u4e06'; c++) {
+            dense.addFollower(c, new Trie(2));
+        }
+        for (char c : new char[]{'z', 'a', '\u4e00', 'm'}) {
+            sparse.addFollower(c, new Trie(2));
+        }
+        root.compact(true);
+        dense.compact(false);
+        sparse.compact(false);
+
+        assertTrue(root.usesHashLookup());
+        assertTrue(dense.usesDenseLookup());
+        assertFalse(sparse.usesDenseLookup() || sparse.usesHashLookup());
+        assertSame(dense, root.next('\u4e00'));
+        assertSame(sparse, root.next('x'));
+        assertNull(root.next('y'));
+        assertEquals('a', sparse.followerChar(0));
+        assertEquals('\u4e00', sparse.followerChar(3));
+        assertNotNull(sparse.next('m'));
+        assertNull(sparse.next('n'));
+        assertNotNull(dense.next('\u4e05'));
+        assertNull(dense.next('\u4e00'));
+        assertNull(dense.next('\u4e06'));
+    }
+
+    @Test
+    public void testFindCjk() {
+        List<String> patterns = List.of("\u6771\u4eac", "\u4eac\u90fd", "\u5927\u962a\u5e9c",
+                "\u6771\u4eac\u90fd\u5e81");
+        SearchMethod method = UnicodeAhoCorasickBuilder.buildAhoCorasick(patterns);
+        assertEquals(MatchResult.success(1, 5), method.find("\u65e5\u6771\u4eac\u90fd\u5e81\u524d"));
+        assertEquals(MatchResult.success(1, 3), method.find("\u65e5\u6771\u4eac\u90fd\u5e82"));
+        assertEquals(MatchResult.success(2, 5), method.find("\u4eac\u4eac\u5927\u962a\u5e9c"));
+        assertFalse(method.containedIn("\u5927\u962a\u4eac\u6771"));
+        assertTrue(method.matches("\u4eac\u90fd"));
+    }
+
+    @Test
+    public void testFindAnchoredOnlyFollowsTrieEdges() {
+        SearchMethod method = UnicodeAhoCorasickBuilder.buildAhoCorasick(List.of("abc", "b"));
+        assertFalse(method.find("abx", 0, 3, true).matched);
+        assertEquals(MatchResult.success(1, 2), method.find("abx", 1, 3, true));
+        assertEquals(MatchResult.success(0, 3), method.find("abcb", 0, 4, true));
+        assertEquals(MatchResult.success(0, 1), UnicodeAhoCorasickBuilder.buildAhoCorasick(List.of("a"))
+                .find("aa", 0, 2, true));
+    }
+
     @Test
     public void testSingleStringPatternMatches() {
         List<String> patterns = List.of(LITERAL_1);
@@ -0,0 +1,124 @@
+package com.justinblank.strings.Search;
+
+import com.justinblank.strings.MatchResult;
+import org.junit.Test;
+import org.quicktheories.QuickTheory;
+import org.quicktheories.core.Gen;
+import org.quicktheories.generators.ListsDSL;
+import org.quicktheories.generators.StringsDSL;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class WuManberTest {
+
+    private static WuManber wuManber(List<String> needles) {
+        return WuManber.build(needles, () -> UnicodeAhoCorasickBuilder.buildAhoCorasick(needles));
+    }
+
+    @Test
+    public void testFind() {
+        var method = wuManber(List.of("sherlock", "holmes", "watson", "holmesian"));
+        assertEquals(MatchResult.success(4, 10), method.find("Mr. holmes"));
+        assertEquals(MatchResult.success(0, 9), method.find("holmesian"));
+        assertEquals(MatchResult.success(4, 12), method.find("and sherlock holmes"));
+        assertEquals(MatchResult.success(13, 19), method.find("and sherlock holmes", 5, 19));
+        assertFalse(method.find("and sherlock holmes", 5, 18).matched);
+        assertFalse(method.find("holme").matched);
+        assertFalse(method.find("").matched);
+    }
+
+    @Test
+    public void testFindAnchored() {
+        var method = wuManber(List.of("abcdef", "abcdefgh"));
+        assertEquals(MatchResult.success(1, 9), method.find("xabcdefgh", 1, 9, true));
+        assertEquals(MatchResult.success(1, 7), method.find("xabcdefgh", 1, 8, true));
+        assertFalse(method.find("xabcdefgh", 0, 9, true).matched);
+        assertTrue(method.matches("abcdef"));
+        assertFalse(method.matches("abcdefg"));
+    }
+
+    @Test
+    public void testFindNonAscii() {
+        var method = wuManber(List.of("\u6771\u4eac\u90fd\u5e81", "\u4eac\u90fd\u5e9c"));
+        assertEquals(MatchResult.success(1, 5), method.find("\u65e5\u6771\u4eac\u90fd\u5e81"));
+        assertEquals(MatchResult.success(2, 5), method.find("\u65e5\u6771\u4eac\u90fd\u5e9c"));
+        assertFalse(method.find("\u6771\u4eac\u90fd").matched);
+    }
+
+    @Test
+    public void testLargeDictionaryAgreesWithTable() {
+        Random random = new Random(0);
+        List<String> needles = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            needles.add(word(random, 6 + random.nextInt(6)));
+        }
+        var sb = new StringBuilder();
+        while (sb.length() < 100_000) {
+            sb.append(random.nextInt(50) == 0 ? needles.get(random.nextInt(needles.size())) : word(random, 1));
+        }
+        String s = sb.toString();
+        var table = new AsciiAhoCorasickBuilder().build(needles);
+        var method = WuManber.build(needles, () -> table);
+        assertEquals(all(table, s), all(method, s));
+    }
+
+    @Test
+    public void testAgreesWithTable() {
+        Gen<List<String>> patterns = new ListsDSL().of(new StringsDSL().betweenCodePoints('a', 'd')
+                .ofLengthBetween(1, 8)).ofSizeBetween(1, 40);
+        Gen<String> haystacks = new StringsDSL().betweenCodePoints('a', 'e').ofLengthBetween(0, 100);
+        QuickTheory.qt().withExamples(300).forAll(patterns, haystacks).check((p, s) -> {
+            var table = new AsciiAhoCorasickBuilder().build(p);
+            var method = WuManber.build(p, () -> table);
+            for (int start = 0; start <= s.length(); start++) {
+                for (boolean anchored : new boolean[]{false, true}) {
+                    if (!table.find(s, start, s.length(), anchored).equals(method.find(s, start, s.length(),
+                            anchored))) {
+                        return false;
+                    }
+                }
+            }
+            return all(table, s).equals(all(method, s));
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyNeedleIsRejected() {
+        wuManber(List.of("", "abcdef"));
+    }
+
+    @Test
+    public void testSetsOfLongNeedlesUseWuManber() {
+        List<String> needles = new ArrayList<>();
+        for (int i = 0; i <= SearchMethods.MAX_TEDDY_NEEDLES; i++) {
+            needles.add("needle" + i);
+        }
+        assertTrue(SearchMethods.makeSearchMethod(needles) instanceof WuManber);
+        needles.add("short");
+        assertFalse(SearchMethods.makeSearchMethod(needles) instanceof WuManber);
+
+        var small = List.of("a long needle", "another long needle", "and yet another");
+        assertTrue(SearchMethods.makeSearchMethod(small) instanceof WuManber);
+        assertFalse(SearchMethods.makeSearchMethod(List.of("needle1", "needle2", "needle3", "needle4"))
+                instanceof WuManber);
+        assertFalse(SearchMethods.makeSearchMethod(List.of("a long needle")) instanceof WuManber);
+    }
+
+    private static String word(Random random, int length) {
+        var sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+
+    private static List<String> all(MultiSearchMethod method, String s) {
+        List<String> matches = new ArrayList<>();
+        method.findAll(s, (id, start, end) -> matches.add(id + ":" + start + "-" + end));
+        return matches;
+    }
+}
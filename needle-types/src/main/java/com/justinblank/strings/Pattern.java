@@ -2,5 +2,19 @@ package com.justinblank.strings;
 
 public interface Pattern {
 
+    /**
+     * Flag to match letters regardless of case. Only ASCII letters are matched this way, unless {@link #UNICODE_CASE}
+     * is also given. As with {@link java.util.regex.Pattern}, from which the values are taken, flags are combined with
+     * bitwise or.
+     */
+    int CASE_INSENSITIVE = 0x02;
+
+    /**
+     * Flag to match every char regardless of case, when given along with {@link #CASE_INSENSITIVE}. Chars are matched
+     * one at a time, so case mappings that change the length of a string, like U+00DF, the sharp s, to "SS", aren't
+     * followed.
+     */
+    int UNICODE_CASE = 0x40;
+
     Matcher matcher(String s);
 }
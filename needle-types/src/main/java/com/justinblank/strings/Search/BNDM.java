@@ -0,0 +1,116 @@
+package com.justinblank.strings.Search;
+
+import java.util.Arrays;
+
+/**
+ * Finds occurrences of a literal using Backward Nondeterministic DAWG Matching (Navarro and Raffinot, Flexible Pattern
+ * Matching in Strings section 2.4). Each window of the text is read backwards while it is still a factor of the
+ * literal, so the search usually reads only a few chars of each window before shifting past it.
+ * <p>
+ * Literals longer than 64 chars are searched for by their first 64 chars, and the rest is verified directly.
+ * <p>
+ * Generated matchers hold instances of this class in static fields, so it must not depend on the compiler.
+ */
+public final class BNDM {
+
+    public static final int MAX_WINDOW = Long.SIZE;
+    private static final int ASCII_CHARS = 128;
+
+    private final String literal;
+    private final int window;
+    private final long highBit;
+    private final long windowMask;
+    // Bit window - 1 - i of the mask of c is set if the literal has c at index i
+    private final long[] asciiMasks = new long[ASCII_CHARS];
+    private final char[] otherChars;
+    private final long[] otherMasks;
+
+    private BNDM(String literal) {
+        this.literal = literal;
+        this.window = Math.min(literal.length(), MAX_WINDOW);
+        this.highBit = 1L << (window - 1);
+        this.windowMask = window == MAX_WINDOW ? -1L : (1L << window) - 1;
+
+        char[] chars = new char[window];
+        int otherCount = 0;
+        for (int i = 0; i < window; i++) {
+            char c = literal.charAt(i);
+            if (c < ASCII_CHARS) {
+                asciiMasks[c] |= 1L << (window - 1 - i);
+            }
+            else {
+                chars[otherCount++] = c;
+            }
+        }
+        Arrays.sort(chars, 0, otherCount);
+        int distinct = 0;
+        for (int i = 0; i < otherCount; i++) {
+            if (distinct == 0 || chars[distinct - 1] != chars[i]) {
+                chars[distinct++] = chars[i];
+            }
+        }
+        otherChars = Arrays.copyOf(chars, distinct);
+        otherMasks = new long[distinct];
+        for (int i = 0; i < window; i++) {
+            char c = literal.charAt(i);
+            if (c >= ASCII_CHARS) {
+                otherMasks[Arrays.binarySearch(otherChars, c)] |= 1L << (window - 1 - i);
+            }
+        }
+    }
+
+    public static BNDM forLiteral(String literal) {
+        if (literal.isEmpty()) {
+            throw new IllegalArgumentException("Cannot search for an empty literal");
+        }
+        return new BNDM(literal);
+    }
+
+    public String getLiteral() {
+        return literal;
+    }
+
+    /**
+     * Find the next occurrence of the literal, as {@link String#indexOf(String, int)} does.
+     *
+     * @param s the string to search
+     * @param from the index to start searching from
+     * @return the index of the first occurrence of the literal at or after from, or -1 if there is none
+     */
+    public int indexOf(String s, int from) {
+        int lastStart = s.length() - literal.length();
+        int pos = Math.max(from, 0);
+        while (pos <= lastStart) {
+            long state = windowMask;
+            int j = window;
+            int shift = window;
+            while (state != 0) {
+                state &= mask(s.charAt(pos + j - 1));
+                j--;
+                if ((state & highBit) != 0) {
+                    // The chars from pos + j to the end of the window are a prefix of the literal
+                    if (j > 0) {
+                        shift = j;
+                    }
+                    else {
+                        if (window == literal.length() || s.startsWith(literal, pos)) {
+                            return pos;
+                        }
+                        break;
+                    }
+                }
+                state = (state << 1) & windowMask;
+            }
+            pos += shift;
+        }
+        return -1;
+    }
+
+    private long mask(char c) {
+        if (c < ASCII_CHARS) {
+            return asciiMasks[c];
+        }
+        int index = Arrays.binarySearch(otherChars, c);
+        return index >= 0 ? otherMasks[index] : 0;
+    }
+}
@@ -0,0 +1,21 @@
+package com.justinblank.strings.Search;
+
+/**
+ * Finds the next byte from a small set. The multi-release jar replaces this class on Java 17 and later with one that
+ * uses the vector API when the jdk.incubator.vector module is available.
+ */
+final class ByteSetKernel {
+
+    private ByteSetKernel() {}
+
+    static boolean isVectorized() {
+        return false;
+    }
+
+    /**
+     * @return the first index between from and to of one of the needles, or -1 if there is none
+     */
+    static int nextCandidate(byte[] bytes, int from, int to, byte[] needles) {
+        return SwarByteSet.nextCandidate(bytes, from, to, needles);
+    }
+}
@@ -0,0 +1,104 @@
+package com.justinblank.strings.Search;
+
+import java.util.Arrays;
+
+/**
+ * Finds the next occurrence of any of a small set of chars. A single char is found with {@link String#indexOf(int)},
+ * which the JVM intrinsifies. For larger sets, we copy the low byte of each char of the string into a buffer, a chunk
+ * at a time, find candidate indexes whose low byte matches using {@link ByteSetKernel}, and check the full char at
+ * each candidate. Chunks start small and double, so we don't copy far past a nearby match.
+ * <p>
+ * Generated matchers hold instances of this class in static fields, so it must not depend on the compiler.
+ */
+public final class CharSetScanner {
+
+    public static final int MAX_CHARS = 8;
+    private static final int MIN_CHUNK = 32;
+    private static final int MAX_CHUNK = 1024;
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[MAX_CHUNK]);
+
+    private final char[] chars;
+    private final byte[] lowBytes;
+
+    private CharSetScanner(char[] chars) {
+        this.chars = chars;
+        byte[] bytes = new byte[chars.length];
+        int count = 0;
+        for (char c : chars) {
+            byte b = (byte) c;
+            boolean seen = false;
+            for (int i = 0; i < count; i++) {
+                seen |= bytes[i] == b;
+            }
+            if (!seen) {
+                bytes[count++] = b;
+            }
+        }
+        this.lowBytes = Arrays.copyOf(bytes, count);
+    }
+
+    /**
+     * @param chars the chars to search for, of which there must be between 1 and {@link #MAX_CHARS}
+     * @return a scanner for those chars
+     */
+    public static CharSetScanner forChars(String chars) {
+        char[] sorted = chars.chars().distinct().sorted().collect(StringBuilder::new, StringBuilder::appendCodePoint,
+                StringBuilder::append).toString().toCharArray();
+        if (sorted.length == 0 || sorted.length > MAX_CHARS) {
+            throw new IllegalArgumentException("Can only scan for between 1 and " + MAX_CHARS + " chars, got " +
+                    sorted.length);
+        }
+        return new CharSetScanner(sorted);
+    }
+
+    /**
+     * @return true if the low bytes are compared using the vector API, rather than eight at a time in a long
+     */
+    public static boolean isVectorized() {
+        return ByteSetKernel.isVectorized();
+    }
+
+    /**
+     * @param s the string to search
+     * @param from the index to start searching from
+     * @param end the index to search up to, exclusive
+     * @return the first index between from and end of one of the chars, or -1 if there is none
+     */
+    public int indexOf(String s, int from, int end) {
+        end = Math.min(end, s.length());
+        from = Math.max(from, 0);
+        if (chars.length == 1) {
+            int index = s.indexOf(chars[0], from);
+            return index < end ? index : -1;
+        }
+        byte[] buffer = BUFFERS.get();
+        int chunk = MIN_CHUNK;
+        for (int start = from; start < end; start += chunk, chunk = Math.min(chunk * 2, MAX_CHUNK)) {
+            int length = Math.min(chunk, end - start);
+            copyLowBytes(s, start, length, buffer);
+            int candidate = ByteSetKernel.nextCandidate(buffer, 0, length, lowBytes);
+            while (candidate >= 0) {
+                if (contains(s.charAt(start + candidate))) {
+                    return start + candidate;
+                }
+                candidate = ByteSetKernel.nextCandidate(buffer, candidate + 1, length, lowBytes);
+            }
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void copyLowBytes(String s, int start, int length, byte[] buffer) {
+        // Unlike the encoding methods, this copies the low byte of each char, and for Latin-1 strings is an arraycopy
+        s.getBytes(start, start + length, buffer, 0);
+    }
+
+    private boolean contains(char c) {
+        for (char candidate : chars) {
+            if (candidate == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
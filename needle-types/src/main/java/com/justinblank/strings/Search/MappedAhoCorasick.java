@@ -0,0 +1,266 @@
+package com.justinblank.strings.Search;
+
+import com.justinblank.strings.MatchResult;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An ASCII Aho-Corasick automaton searched directly in a memory mapped file, so it can be built once, ahead of time,
+ * and loaded without deserializing anything. Mappings are read only, so processes that map the same file share its
+ * pages. Files are written by the compiler's {@code SearchMethods.writeAhoCorasick}, and searching them gives exactly
+ * the same results as the automaton they were written from.
+ * <p>
+ * The format is a sequence of little endian ints: a header, the char class of each ASCII char, then the depth, output
+ * length, needle id, and output link of each state, in four arrays, and finally the transition table, with a row of
+ * classCount transitions per state. A single buffer can't hold more than 2GB, so the transition table is mapped in
+ * chunks of whole rows.
+ */
+public final class MappedAhoCorasick implements MultiSearchMethod {
+
+    static final int MAGIC = 0x4e41434d;
+    static final int VERSION = 1;
+    static final int ASCII_CHARS = 128;
+    // Magic, version, class count and state count, followed by the classes
+    static final int HEADER_INTS = 4 + ASCII_CHARS;
+    static final int STATE_ARRAYS = 4;
+    static final long MAX_CHUNK_BYTES = 1 << 30;
+    private static final String NOT_AN_AUTOMATON =
+            "Not an Aho-Corasick automaton, or written by an incompatible version";
+
+    private final int classCount;
+    private final int[] classes;
+    private final IntBuffer depths;
+    private final IntBuffer outputLengths;
+    private final IntBuffer needleIds;
+    private final IntBuffer outputLinks;
+    // Row state of the transition table is row state & chunkMask of chunk state >>> chunkShift
+    private final IntBuffer[] transitions;
+    private final int chunkShift;
+    private final int chunkMask;
+    private final CharSetScanner rootScanner;
+
+    private MappedAhoCorasick(FileChannel channel, long maxChunkBytes) throws IOException {
+        if (channel.size() < 4L * HEADER_INTS) {
+            throw new IOException(NOT_AN_AUTOMATON);
+        }
+        IntBuffer header = map(channel, 0, HEADER_INTS);
+        int stateCount = header.get(3);
+        if (header.get(0) != MAGIC || header.get(1) != VERSION || stateCount <= 0 ||
+                channel.size() != 4L * (HEADER_INTS + (long) STATE_ARRAYS * stateCount +
+                        (long) stateCount * header.get(2))) {
+            throw new IOException(NOT_AN_AUTOMATON);
+        }
+        classCount = header.get(2);
+        classes = new int[ASCII_CHARS];
+        header.position(4);
+        header.get(classes);
+
+        long offset = 4L * HEADER_INTS;
+        long stateArrayBytes = 4L * stateCount;
+        depths = map(channel, offset, stateCount);
+        outputLengths = map(channel, offset + stateArrayBytes, stateCount);
+        needleIds = map(channel, offset + 2 * stateArrayBytes, stateCount);
+        outputLinks = map(channel, offset + 3 * stateArrayBytes, stateCount);
+        offset += STATE_ARRAYS * stateArrayBytes;
+
+        long rowBytes = 4L * classCount;
+        chunkShift = 63 - Long.numberOfLeadingZeros(Math.max(1, maxChunkBytes / rowBytes));
+        chunkMask = (1 << chunkShift) - 1;
+        transitions = new IntBuffer[((stateCount - 1) >>> chunkShift) + 1];
+        for (int chunk = 0; chunk < transitions.length; chunk++) {
+            int rows = Math.min(1 << chunkShift, stateCount - (chunk << chunkShift));
+            transitions[chunk] = map(channel, offset + ((long) chunk << chunkShift) * rowBytes, rows * classCount);
+        }
+        rootScanner = rootScanner();
+    }
+
+    /**
+     * Map an automaton written by the compiler. The file stays mapped until this object is garbage collected.
+     *
+     * @param path the file
+     * @return the automaton
+     * @throws IOException if the file can't be read, or doesn't hold an automaton
+     */
+    public static MappedAhoCorasick map(Path path) throws IOException {
+        return map(path, MAX_CHUNK_BYTES);
+    }
+
+    static MappedAhoCorasick map(Path path, long maxChunkBytes) throws IOException {
+        // Closing the channel doesn't unmap the buffers
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new MappedAhoCorasick(channel, maxChunkBytes);
+        }
+    }
+
+    private static IntBuffer map(FileChannel channel, long offset, int ints) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, 4L * ints).order(ByteOrder.LITTLE_ENDIAN)
+                .asIntBuffer();
+    }
+
+    private CharSetScanner rootScanner() {
+        if (outputLengths.get(0) >= 0) {
+            return null;
+        }
+        StringBuilder chars = new StringBuilder();
+        for (int c = 0; c < ASCII_CHARS; c++) {
+            if (classes[c] != 0 && transition(0, classes[c]) != 0) {
+                chars.append((char) c);
+            }
+        }
+        if (chars.length() == 0 || chars.length() > CharSetScanner.MAX_CHARS) {
+            return null;
+        }
+        return CharSetScanner.forChars(chars.toString());
+    }
+
+    private int transition(int state, int charClass) {
+        return transitions[state >>> chunkShift].get((state & chunkMask) * classCount + charClass);
+    }
+
+    private int next(int state, char c) {
+        return c < ASCII_CHARS ? transition(state, classes[c]) : 0;
+    }
+
+    public boolean matches(String s) {
+        MatchResult result = find(s, 0, s.length(), true);
+        return result.matched && result.end == s.length();
+    }
+
+    public MatchResult find(String s, int start, int end, boolean anchored) {
+        SearchMethodUtil.checkIndices(s, start, end);
+        if (anchored) {
+            return findAnchored(s, start, end);
+        }
+        int state = 0;
+        int lastEnd = -1;
+        int lastStart = -1;
+        if (outputLengths.get(0) >= 0) {
+            lastStart = 0;
+        }
+        for (int i = start; i < end; i++) {
+            if (i > start && state == 0) {
+                if (lastEnd > -1) {
+                    return MatchResult.success(lastStart, lastEnd + 1);
+                }
+            }
+            // Back at the root with no match pending, only the first char of some pattern can take us anywhere
+            if (state == 0 && rootScanner != null) {
+                i = rootScanner.indexOf(s, i, end);
+                if (i < 0) {
+                    break;
+                }
+            }
+            state = next(state, s.charAt(i));
+            int length = outputLengths.get(state);
+            if (length >= 0) {
+                int potentialLastStart = i - length + 1;
+                if (lastStart == -1 || potentialLastStart <= lastStart) {
+                    lastEnd = i;
+                    lastStart = potentialLastStart;
+                }
+            }
+        }
+        if (lastEnd != -1) {
+            return MatchResult.success(lastStart, lastEnd + 1);
+        }
+        else if (outputLengths.get(state) >= 0) {
+            return MatchResult.success(0, 0);
+        }
+        return MatchResult.failure();
+    }
+
+    /**
+     * Follow only the trie's own edges, which are the transitions that go one level deeper, and return the longest
+     * pattern starting at start.
+     */
+    private MatchResult findAnchored(String s, int start, int end) {
+        int state = 0;
+        int lastEnd = outputLengths.get(0) >= 0 ? start : -1;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= ASCII_CHARS) {
+                break;
+            }
+            int next = transition(state, classes[c]);
+            int depth = depths.get(next);
+            if (depth != depths.get(state) + 1) {
+                break;
+            }
+            state = next;
+            if (outputLengths.get(state) == depth) {
+                lastEnd = i + 1;
+            }
+        }
+        return lastEnd >= 0 ? MatchResult.success(start, lastEnd) : MatchResult.failure();
+    }
+
+    /**
+     * @return the state of the longest pattern ending at state, which is state itself or its output link, or 0 if no
+     * pattern ends there
+     */
+    private int longestOutput(int state) {
+        return needleIds.get(state) >= 0 ? state : outputLinks.get(state);
+    }
+
+    public void findAll(String s, NeedleMatchConsumer consumer) {
+        int state = 0;
+        int pendingState = 0;
+        int pendingStart = -1;
+        int pendingEnd = -1;
+        int end = s.length();
+        for (int i = 0; ; i++) {
+            if (i < end) {
+                if (state == 0 && pendingStart < 0 && rootScanner != null) {
+                    i = rootScanner.indexOf(s, i, end);
+                    if (i < 0) {
+                        break;
+                    }
+                }
+                state = next(state, s.charAt(i));
+                // Until every later match would start after the pending one, a longer or earlier one may turn up
+                if (pendingStart < 0 || i + 1 - depths.get(state) <= pendingStart) {
+                    int output = longestOutput(state);
+                    if (output != 0) {
+                        int matchStart = i + 1 - depths.get(output);
+                        if (pendingStart < 0 || matchStart <= pendingStart) {
+                            pendingState = output;
+                            pendingStart = matchStart;
+                            pendingEnd = i + 1;
+                        }
+                    }
+                    continue;
+                }
+            }
+            else if (pendingStart < 0) {
+                break;
+            }
+            consumer.accept(needleIds.get(pendingState), pendingStart, pendingEnd);
+            pendingStart = -1;
+            // Matches can't overlap, so start over right after this one
+            state = 0;
+            i = pendingEnd - 1;
+        }
+    }
+
+    public void findAllOverlapping(String s, NeedleMatchConsumer consumer) {
+        int state = 0;
+        int end = s.length();
+        for (int i = 0; i < end; i++) {
+            if (state == 0 && rootScanner != null) {
+                i = rootScanner.indexOf(s, i, end);
+                if (i < 0) {
+                    return;
+                }
+            }
+            state = next(state, s.charAt(i));
+            for (int output = longestOutput(state); output != 0; output = outputLinks.get(output)) {
+                consumer.accept(needleIds.get(output), i + 1 - depths.get(output), i + 1);
+            }
+        }
+    }
+}
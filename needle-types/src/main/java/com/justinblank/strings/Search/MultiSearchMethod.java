@@ -0,0 +1,28 @@
+package com.justinblank.strings.Search;
+
+/**
+ * A search method for a collection of strings, which can report every match along with which string matched. Each
+ * match is identified by the index of the string in the collection, in iteration order. A string that occurs more than
+ * once in the collection is reported with the index of its first occurrence, and empty strings are never reported.
+ * Matches are passed to the consumer as they're found, so nothing is allocated per match.
+ */
+public interface MultiSearchMethod extends SearchMethod {
+
+    /**
+     * Report the matches that repeated calls to {@link #find(String, int, int)} would find, starting each search where
+     * the last match ended: at each step, the leftmost match, and of those, the longest. Matches don't overlap.
+     *
+     * @param s the string to search
+     * @param consumer receives the matches, in order
+     */
+    void findAll(String s, NeedleMatchConsumer consumer);
+
+    /**
+     * Report every occurrence of every string, including occurrences that overlap or contain one another. Matches are
+     * reported in order of their end, and matches ending at the same index from longest to shortest.
+     *
+     * @param s the string to search
+     * @param consumer receives the matches, in order
+     */
+    void findAllOverlapping(String s, NeedleMatchConsumer consumer);
+}
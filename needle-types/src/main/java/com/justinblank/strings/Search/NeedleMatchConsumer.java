@@ -0,0 +1,16 @@
+package com.justinblank.strings.Search;
+
+/**
+ * Receives the matches found by {@link MultiSearchMethod#findAll(String, NeedleMatchConsumer)} and
+ * {@link MultiSearchMethod#findAllOverlapping(String, NeedleMatchConsumer)}.
+ */
+@FunctionalInterface
+public interface NeedleMatchConsumer {
+
+    /**
+     * @param needleId the index of the matched string in the collection the search method was made from
+     * @param start the index of the first char of the match
+     * @param end the index after the last char of the match
+     */
+    void accept(int needleId, int start, int end);
+}
@@ -0,0 +1,42 @@
+package com.justinblank.strings.Search;
+
+/**
+ * Finds Teddy candidates a position at a time, by looking up each byte of the fingerprint in a table of the buckets
+ * that allow it there. Unlike the nibble tables the vector kernel is limited to, the tables are exact.
+ */
+final class ScalarTeddy {
+
+    private ScalarTeddy() {}
+
+    static int nextCandidate(byte[] bytes, int from, int to, byte[][] tables) {
+        byte[] first = tables[0];
+        switch (tables.length) {
+            case 1:
+                for (int i = from; i < to; i++) {
+                    if (first[bytes[i] & 0xFF] != 0) {
+                        return i;
+                    }
+                }
+                return -1;
+            case 2: {
+                byte[] second = tables[1];
+                for (int i = from; i < to; i++) {
+                    if ((first[bytes[i] & 0xFF] & second[bytes[i + 1] & 0xFF]) != 0) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            default: {
+                byte[] second = tables[1];
+                byte[] third = tables[2];
+                for (int i = from; i < to; i++) {
+                    if ((first[bytes[i] & 0xFF] & second[bytes[i + 1] & 0xFF] & third[bytes[i + 2] & 0xFF]) != 0) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+        }
+    }
+}
@@ -1,6 +1,14 @@
 package com.justinblank.strings.Search;
 
 public class SearchMethodUtil {
+
+    /**
+     * @return whether c is a word char, as matched by \w
+     */
+    public static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
     public static void checkIndices(String s, int start, int end) {
         int length = s.length();
         if (start > length || start < 0) {
@@ -0,0 +1,43 @@
+package com.justinblank.strings.Search;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Finds bytes from a small set eight at a time, by reading them as a long and testing each byte for zero after xoring
+ * with the needle repeated (Hacker's Delight section 6.1).
+ */
+final class SwarByteSet {
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private SwarByteSet() {}
+
+    static int nextCandidate(byte[] bytes, int from, int to, byte[] needles) {
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long word = (long) LONGS.get(bytes, i);
+            long found = 0;
+            for (byte needle : needles) {
+                long xored = word ^ (LOW_BITS * (needle & 0xFF));
+                found |= (xored - LOW_BITS) & ~xored & HIGH_BITS;
+            }
+            // Borrows can only set bits above the lowest zero byte, so the lowest set bit is exact
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            for (byte needle : needles) {
+                if (bytes[i] == needle) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,22 @@
+package com.justinblank.strings.Search;
+
+/**
+ * Finds the next position whose first few bytes match the fingerprint of some bucket of needles, for Teddy. The
+ * multi-release jar replaces this class on Java 17 and later with one that uses the vector API when the
+ * jdk.incubator.vector module is available.
+ */
+final class TeddyKernel {
+
+    private TeddyKernel() {}
+
+    /**
+     * @param bytes the bytes to search, which must extend fingerprint length - 1 bytes past to
+     * @param tables for each byte of the fingerprint, the buckets with a needle having that byte there, by byte value
+     * @param nibbleTables for each byte of the fingerprint, the buckets allowing each value of its low nibble, followed
+     *                     by the buckets allowing each value of its high nibble
+     * @return the first index between from and to where some bucket's fingerprint may match, or -1 if there is none
+     */
+    static int nextCandidate(byte[] bytes, int from, int to, byte[][] tables, byte[][] nibbleTables) {
+        return ScalarTeddy.nextCandidate(bytes, from, to, tables);
+    }
+}
@@ -0,0 +1,138 @@
+package com.justinblank.strings.Search;
+
+import java.util.Arrays;
+
+/**
+ * Finds occurrences of a literal with Crochemore and Perrin's Two-Way algorithm, which reads each char of the text a
+ * bounded number of times, however repetitive the literal and the text are, and needs no more than constant space
+ * besides the shift table.
+ * <p>
+ * The literal is split at a critical position. Each window is compared left to right from that position to the end
+ * of the literal, and then right to left over the part before it. A mismatch in the right half lets us shift past it,
+ * while a mismatch in the left half lets us shift by the literal's period. As in glibc, each window first checks its
+ * last char against a Horspool shift table, which lets most windows be skipped without comparing anything. The table
+ * is indexed by the low byte of each char, so chars sharing a low byte share the smallest of their shifts.
+ */
+public final class TwoWay {
+
+    private static final int TABLE_SIZE = 256;
+
+    private final String literal;
+    // The first index of the right half of the literal
+    private final int suffix;
+    private final int period;
+    // Whether the literal is a repetition of its left half's period, in which case we remember how much of the right
+    // half a shift by the period leaves matched
+    private final boolean periodic;
+    private final int[] shifts = new int[TABLE_SIZE];
+
+    private TwoWay(String literal) {
+        this.literal = literal;
+        int length = literal.length();
+        int[] forward = maxSuffix(literal, false);
+        int[] reverse = maxSuffix(literal, true);
+        int[] critical = reverse[0] < forward[0] ? forward : reverse;
+        suffix = critical[0] + 1;
+        periodic = literal.regionMatches(0, literal, critical[1], suffix);
+        period = periodic ? critical[1] : Math.max(suffix, length - suffix) + 1;
+        Arrays.fill(shifts, length);
+        for (int i = 0; i < length; i++) {
+            shifts[literal.charAt(i) & 0xFF] = length - 1 - i;
+        }
+    }
+
+    public static TwoWay forLiteral(String literal) {
+        if (literal.isEmpty()) {
+            throw new IllegalArgumentException("Cannot search for an empty literal");
+        }
+        return new TwoWay(literal);
+    }
+
+    /**
+     * Find the maximal suffix of the literal under the ordering of chars or its reverse, which, whichever is later,
+     * gives a critical factorization.
+     *
+     * @return the index before the suffix starts, and the period of the suffix
+     */
+    private static int[] maxSuffix(String literal, boolean reversed) {
+        int maxSuffix = -1;
+        int j = 0;
+        int k = 1;
+        int period = 1;
+        while (j + k < literal.length()) {
+            char a = literal.charAt(j + k);
+            char b = literal.charAt(maxSuffix + k);
+            if (reversed ? a > b : a < b) {
+                j += k;
+                k = 1;
+                period = j - maxSuffix;
+            }
+            else if (a == b) {
+                if (k != period) {
+                    k++;
+                }
+                else {
+                    j += period;
+                    k = 1;
+                }
+            }
+            else {
+                maxSuffix = j++;
+                k = 1;
+                period = 1;
+            }
+        }
+        return new int[]{maxSuffix, period};
+    }
+
+    public String getLiteral() {
+        return literal;
+    }
+
+    /**
+     * Find the first occurrence of the literal that starts at or after from and ends by end.
+     *
+     * @param s the string to search
+     * @param from the index to start searching from
+     * @param end the index the occurrence must end by
+     * @return the index of the occurrence, or -1 if there is none
+     */
+    public int indexOf(String s, int from, int end) {
+        int length = literal.length();
+        int lastStart = end - length;
+        // The number of chars at the start of the window already known to match
+        int memory = 0;
+        int pos = Math.max(from, 0);
+        while (pos <= lastStart) {
+            int shift = shifts[s.charAt(pos + length - 1) & 0xFF];
+            if (shift > 0) {
+                if (periodic && memory > 0 && shift < period) {
+                    // The window repeated the period up to its last char, so nothing can match before that char
+                    shift = length - period;
+                }
+                memory = 0;
+                pos += shift;
+                continue;
+            }
+            int i = Math.max(suffix, memory);
+            while (i < length && literal.charAt(i) == s.charAt(pos + i)) {
+                i++;
+            }
+            if (i < length) {
+                pos += i - suffix + 1;
+                memory = 0;
+                continue;
+            }
+            i = suffix - 1;
+            while (i >= memory && literal.charAt(i) == s.charAt(pos + i)) {
+                i--;
+            }
+            if (i < memory) {
+                return pos;
+            }
+            pos += period;
+            memory = periodic ? length - period : 0;
+        }
+        return -1;
+    }
+}
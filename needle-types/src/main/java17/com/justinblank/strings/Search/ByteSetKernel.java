@@ -0,0 +1,26 @@
+package com.justinblank.strings.Search;
+
+/**
+ * Finds the next byte from a small set, using the vector API if the jdk.incubator.vector module was added to the boot
+ * layer, and otherwise eight bytes at a time in a long. {@link VectorByteSet} is only loaded if the module is present.
+ */
+final class ByteSetKernel {
+
+    private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private ByteSetKernel() {}
+
+    static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * @return the first index between from and to of one of the needles, or -1 if there is none
+     */
+    static int nextCandidate(byte[] bytes, int from, int to, byte[] needles) {
+        if (VECTORIZED) {
+            return VectorByteSet.nextCandidate(bytes, from, to, needles);
+        }
+        return SwarByteSet.nextCandidate(bytes, from, to, needles);
+    }
+}
@@ -0,0 +1,25 @@
+package com.justinblank.strings.Search;
+
+/**
+ * Finds the next position whose first few bytes match the fingerprint of some bucket of needles, for Teddy, using the
+ * vector API if the jdk.incubator.vector module was added to the boot layer, and otherwise a position at a time.
+ * {@link VectorTeddy} is only loaded if the module is present.
+ */
+final class TeddyKernel {
+
+    private TeddyKernel() {}
+
+    /**
+     * @param bytes the bytes to search, which must extend fingerprint length - 1 bytes past to
+     * @param tables for each byte of the fingerprint, the buckets with a needle having that byte there, by byte value
+     * @param nibbleTables for each byte of the fingerprint, the buckets allowing each value of its low nibble, followed
+     *                     by the buckets allowing each value of its high nibble
+     * @return the first index between from and to where some bucket's fingerprint may match, or -1 if there is none
+     */
+    static int nextCandidate(byte[] bytes, int from, int to, byte[][] tables, byte[][] nibbleTables) {
+        if (ByteSetKernel.isVectorized()) {
+            return VectorTeddy.nextCandidate(bytes, from, to, tables, nibbleTables);
+        }
+        return ScalarTeddy.nextCandidate(bytes, from, to, tables);
+    }
+}
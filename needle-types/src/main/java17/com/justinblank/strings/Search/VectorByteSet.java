@@ -0,0 +1,30 @@
+package com.justinblank.strings.Search;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Finds bytes from a small set a vector at a time, using the widest vectors the platform prefers.
+ */
+final class VectorByteSet {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    private VectorByteSet() {}
+
+    static int nextCandidate(byte[] bytes, int from, int to, byte[] needles) {
+        int i = from;
+        for (; i + SPECIES.length() <= to; i += SPECIES.length()) {
+            ByteVector vector = ByteVector.fromArray(SPECIES, bytes, i);
+            VectorMask<Byte> found = vector.eq(needles[0]);
+            for (int j = 1; j < needles.length; j++) {
+                found = found.or(vector.eq(needles[j]));
+            }
+            if (found.anyTrue()) {
+                return i + found.firstTrue();
+            }
+        }
+        return SwarByteSet.nextCandidate(bytes, i, to, needles);
+    }
+}
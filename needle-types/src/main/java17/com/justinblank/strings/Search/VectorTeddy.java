@@ -0,0 +1,51 @@
+package com.justinblank.strings.Search;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Finds Teddy candidates sixteen positions at a time. Each byte of the fingerprint is split into nibbles, which
+ * select from sixteen entry tables of buckets with a shuffle, and a position is a candidate if some bucket allows both
+ * nibbles of every byte. Nibbles are less precise than whole bytes, so candidates are checked against the exact tables
+ * before being returned.
+ */
+final class VectorTeddy {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_128;
+    private static final int NIBBLES = 16;
+
+    private VectorTeddy() {}
+
+    static int nextCandidate(byte[] bytes, int from, int to, byte[][] tables, byte[][] nibbleTables) {
+        int fingerprintLength = nibbleTables.length;
+        ByteVector[] low = new ByteVector[fingerprintLength];
+        ByteVector[] high = new ByteVector[fingerprintLength];
+        for (int j = 0; j < fingerprintLength; j++) {
+            low[j] = ByteVector.fromArray(SPECIES, nibbleTables[j], 0);
+            high[j] = ByteVector.fromArray(SPECIES, nibbleTables[j], NIBBLES);
+        }
+        int i = from;
+        // Loads at i + j must stay inside the array, which only extends fingerprintLength - 1 bytes past to
+        for (; i + SPECIES.length() <= to; i += SPECIES.length()) {
+            ByteVector buckets = null;
+            for (int j = 0; j < fingerprintLength; j++) {
+                ByteVector vector = ByteVector.fromArray(SPECIES, bytes, i + j);
+                ByteVector lowNibbles = vector.and((byte) 0x0F);
+                ByteVector highNibbles = vector.lanewise(VectorOperators.LSHR, 4).and((byte) 0x0F);
+                ByteVector allowed = low[j].rearrange(lowNibbles.toShuffle())
+                        .and(high[j].rearrange(highNibbles.toShuffle()));
+                buckets = buckets == null ? allowed : buckets.and(allowed);
+            }
+            VectorMask<Byte> found = buckets.compare(VectorOperators.NE, (byte) 0);
+            for (long lanes = found.toLong(); lanes != 0; lanes &= lanes - 1) {
+                int candidate = i + Long.numberOfTrailingZeros(lanes);
+                if (ScalarTeddy.nextCandidate(bytes, candidate, candidate + 1, tables) >= 0) {
+                    return candidate;
+                }
+            }
+        }
+        return ScalarTeddy.nextCandidate(bytes, i, to, tables);
+    }
+}